@@ -29,6 +29,7 @@ import com.shc.androidopenal.ALC;
 import com.shc.androidopenal.ALCcontext;
 import com.shc.androidopenal.ALCdevice;
 import com.shc.silenceengine.audio.AudioDevice;
+import com.shc.silenceengine.audio.PCMData;
 import com.shc.silenceengine.audio.openal.ALBuffer;
 import com.shc.silenceengine.backend.android.soundreaders.OggReader;
 import com.shc.silenceengine.backend.android.soundreaders.WavReader;
@@ -97,6 +98,12 @@ class AndroidAudioDevice extends AudioDevice
         AL.alBufferData(id, format, (Buffer) data.nativeBuffer(), data.sizeBytes(), frequency);
     }
 
+    @Override
+    public void alBufferData(int id, int format, DirectBuffer data, int sizeBytes, int frequency)
+    {
+        AL.alBufferData(id, format, (Buffer) data.nativeBuffer(), sizeBytes, frequency);
+    }
+
     @Override
     public void alDeleteBuffers(int... buffers)
     {
@@ -183,6 +190,20 @@ class AndroidAudioDevice extends AudioDevice
             AndroidAudioDevice.sources.remove((Integer) i);
     }
 
+    @Override
+    public void alSourceQueueBuffers(int id, int buffer)
+    {
+        temp.put(0, buffer);
+        AL.alSourceQueueBuffers(id, 1, temp);
+    }
+
+    @Override
+    public int alSourceUnqueueBuffers(int id)
+    {
+        AL.alSourceUnqueueBuffers(id, 1, temp);
+        return temp.get(0);
+    }
+
     @Override
     public void readToALBuffer(AudioFormat format, DirectBuffer data, UniCallback<ALBuffer> onDecoded, UniCallback<Throwable> onError)
     {
@@ -219,6 +240,41 @@ class AndroidAudioDevice extends AudioDevice
         }
     }
 
+    @Override
+    public void decodeToPCM(AudioFormat format, DirectBuffer data, UniCallback<PCMData> onDecoded, UniCallback<Throwable> onError)
+    {
+        PCMData decoded;
+
+        try
+        {
+            if (format == AudioFormat.WAV)
+            {
+                WavReader reader = new WavReader(data);
+                decoded = new PCMData(new AndroidDirectBuffer(reader.data), reader.alFormat, reader.sampleRate);
+            }
+            else if (format == AudioFormat.OGG)
+            {
+                OggReader reader = new OggReader(data);
+                decoded = new PCMData(new AndroidDirectBuffer(reader.getData()), reader.getFormat(), reader.getSampleRate());
+            }
+            else
+                throw new SilenceException("Cannot parse sound. The format is unsupported: " + format);
+        }
+        catch (Throwable e)
+        {
+            onError.invoke(e);
+            return;
+        }
+
+        onDecoded.invoke(decoded);
+    }
+
+    @Override
+    public boolean isPCMDecodingSupported(AudioFormat format)
+    {
+        return isSupported(format);
+    }
+
     @Override
     public boolean isSupported(AudioFormat format)
     {
@@ -79,15 +79,22 @@ class AndroidFileWriter extends FileWriter
                 if (file.getType() == FilePath.Type.RESOURCE)
                     throw new IOException("Cannot write to resource files");
 
-                try (
-                        OutputStream outputStream = ((AndroidFilePath) file).getOutputStream(append);
-                        OutputStreamWriter writer = new OutputStreamWriter(outputStream)
-                )
+                // The bytes are written as they are, a character writer would encode them
+                try (OutputStream outputStream = ((AndroidFilePath) file).getOutputStream(append))
                 {
-                    for (int i = 0; i < buffer.sizeBytes(); i++)
-                        writer.write(buffer.readByte(i));
+                    byte[] bytes = new byte[4096];
 
-                    writer.flush();
+                    for (int start = 0; start < buffer.sizeBytes(); start += bytes.length)
+                    {
+                        int n = Math.min(bytes.length, buffer.sizeBytes() - start);
+
+                        for (int i = 0; i < n; i++)
+                            bytes[i] = buffer.readByte(start + i);
+
+                        outputStream.write(bytes, 0, n);
+                    }
+
+                    outputStream.flush();
                 }
 
                 return () -> TaskManager.runOnUpdate(onSuccess);
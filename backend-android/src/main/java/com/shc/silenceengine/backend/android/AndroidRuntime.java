@@ -24,6 +24,7 @@
 
 package com.shc.silenceengine.backend.android;
 
+import android.os.AsyncTask;
 import com.shc.silenceengine.core.Game;
 import com.shc.silenceengine.core.SilenceEngine;
 import com.shc.silenceengine.utils.GameTimer;
@@ -85,6 +86,9 @@ public final class AndroidRuntime
         TaskManager.clearUpdateTasks();
         TaskManager.clearRenderTasks();
 
+        // Run the worker tasks on the thread pool shared by the async tasks
+        TaskManager.setWorkerExecutor(task -> AsyncTask.THREAD_POOL_EXECUTOR.execute(task::invoke));
+
         // Clear any pending AsyncRunners from the previous runs
         AsyncRunner.cancelAll();
 
@@ -0,0 +1,69 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package java.lang;
+
+/**
+ * GWT emulation of the ThreadLocal class. There is only a single thread in the browser, so a thread local is just a
+ * lazily initialized value. This is picked up as super source by the GWT compiler, and is never compiled by javac.
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class ThreadLocal<T>
+{
+    private T       value;
+    private boolean initialized;
+
+    public ThreadLocal()
+    {
+    }
+
+    protected T initialValue()
+    {
+        return null;
+    }
+
+    public T get()
+    {
+        if (!initialized)
+        {
+            value = initialValue();
+            initialized = true;
+        }
+
+        return value;
+    }
+
+    public void set(T value)
+    {
+        this.value = value;
+        initialized = true;
+    }
+
+    public void remove()
+    {
+        value = null;
+        initialized = false;
+    }
+}
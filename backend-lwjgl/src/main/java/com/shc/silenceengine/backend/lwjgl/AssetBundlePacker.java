@@ -0,0 +1,215 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.backend.lwjgl;
+
+import com.shc.silenceengine.core.SilenceEngine;
+import com.shc.silenceengine.core.SilenceException;
+import com.shc.silenceengine.graphics.fonts.BitmapFont;
+import com.shc.silenceengine.io.AssetBundle;
+import com.shc.silenceengine.io.DirectBuffer;
+import org.lwjgl.BufferUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.lwjgl.stb.STBImage.*;
+
+/**
+ * Packs a directory of resources into an {@link AssetBundle} that can be opened with {@link LwjglAssetBundle}. Images
+ * are stored decoded as RGBA pixels, and bitmap font descriptors are stored pre-parsed, so that loading them from the
+ * bundle does no decoding at all. All the other files are stored as they are.
+ *
+ * <pre>
+ *     java com.shc.silenceengine.backend.lwjgl.AssetBundlePacker &lt;resources directory&gt; &lt;bundle file&gt;
+ * </pre>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public final class AssetBundlePacker
+{
+    private AssetBundlePacker()
+    {
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length != 2)
+        {
+            System.err.println("Usage: AssetBundlePacker <resources directory> <bundle file>");
+            System.exit(1);
+        }
+
+        pack(Paths.get(args[0]), Paths.get(args[1]));
+    }
+
+    /**
+     * Packs all the files under a directory into a bundle file.
+     *
+     * @param root The directory with the resources. The paths in the bundle are relative to this directory.
+     * @param file The bundle file to write.
+     *
+     * @throws IOException If any file cannot be read, or the bundle cannot be written.
+     */
+    public static void pack(Path root, Path file) throws IOException
+    {
+        // Fonts are written through DirectBuffers, which need the IO device
+        if (SilenceEngine.io == null)
+            SilenceEngine.io = new LwjglIODevice();
+
+        List<Path> files;
+
+        try (Stream<Path> stream = Files.walk(root))
+        {
+            files = stream.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+
+        List<PackedEntry> entries = new ArrayList<>();
+        int tocSize = 12;
+
+        for (Path path : files)
+        {
+            PackedEntry entry = packEntry(root, path);
+            entries.add(entry);
+
+            tocSize += 2 + entry.pathBytes.length + 1 + 8 + 8 + 1 + 4 * entry.metadata.length;
+        }
+
+        ByteBuffer toc = ByteBuffer.allocate(tocSize).order(ByteOrder.LITTLE_ENDIAN);
+        toc.putInt(AssetBundle.MAGIC).putInt(AssetBundle.VERSION).putInt(entries.size());
+
+        long offset = tocSize;
+
+        for (PackedEntry entry : entries)
+        {
+            toc.putShort((short) entry.pathBytes.length).put(entry.pathBytes);
+            toc.put((byte) entry.kind.ordinal());
+            toc.putLong(offset).putLong(entry.data.length);
+            toc.put((byte) entry.metadata.length);
+
+            for (int value : entry.metadata)
+                toc.putInt(value);
+
+            offset += entry.data.length;
+        }
+
+        toc.flip();
+
+        if (file.getParent() != null)
+            Files.createDirectories(file.getParent());
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            channel.write(toc);
+
+            for (PackedEntry entry : entries)
+                channel.write(ByteBuffer.wrap(entry.data));
+        }
+
+        System.out.println("Packed " + entries.size() + " files into " + file + " (" + offset + " bytes)");
+    }
+
+    private static PackedEntry packEntry(Path root, Path path) throws IOException
+    {
+        String name = root.relativize(path).toString().replace('\\', '/');
+        String lowerName = name.toLowerCase();
+
+        byte[] bytes = Files.readAllBytes(path);
+
+        if (lowerName.endsWith(".png") || lowerName.endsWith(".jpg") || lowerName.endsWith(".jpeg"))
+            return packImage(name, bytes);
+
+        if (lowerName.endsWith(".fnt"))
+            return packFont(name, path, bytes);
+
+        return new PackedEntry(name, AssetBundle.Kind.RAW, bytes);
+    }
+
+    private static PackedEntry packImage(String name, byte[] bytes)
+    {
+        ByteBuffer memory = BufferUtils.createByteBuffer(bytes.length);
+        memory.put(bytes).flip();
+
+        IntBuffer width = BufferUtils.createIntBuffer(1);
+        IntBuffer height = BufferUtils.createIntBuffer(1);
+        IntBuffer components = BufferUtils.createIntBuffer(1);
+
+        ByteBuffer pixels = stbi_load_from_memory(memory, width, height, components, 4);
+
+        if (pixels == null)
+            throw new SilenceException("Failed to decode image " + name + ": " + stbi_failure_reason());
+
+        byte[] data = new byte[pixels.remaining()];
+        pixels.get(data);
+        stbi_image_free(pixels);
+
+        return new PackedEntry(name, AssetBundle.Kind.IMAGE, data, width.get(0), height.get(0));
+    }
+
+    private static PackedEntry packFont(String name, Path path, byte[] bytes)
+    {
+        BitmapFont font = BitmapFont.parse(new LwjglExternalFilePath(path.toString()),
+                new String(bytes, StandardCharsets.UTF_8));
+
+        DirectBuffer buffer = font.write();
+        ByteArrayOutputStream data = new ByteArrayOutputStream(buffer.sizeBytes());
+
+        for (int i = 0; i < buffer.sizeBytes(); i++)
+            data.write(buffer.readByte(i));
+
+        DirectBuffer.free(buffer);
+
+        return new PackedEntry(name, AssetBundle.Kind.FONT, data.toByteArray());
+    }
+
+    private static class PackedEntry
+    {
+        private byte[]           pathBytes;
+        private AssetBundle.Kind kind;
+        private byte[]           data;
+        private int[]            metadata;
+
+        PackedEntry(String path, AssetBundle.Kind kind, byte[] data, int... metadata)
+        {
+            this.pathBytes = path.getBytes(StandardCharsets.UTF_8);
+            this.kind = kind;
+            this.data = data;
+            this.metadata = metadata;
+        }
+    }
+}
@@ -0,0 +1,518 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.backend.lwjgl;
+
+import com.shc.silenceengine.core.SilenceEngine;
+import com.shc.silenceengine.core.SilenceException;
+import com.shc.silenceengine.graphics.fonts.BitmapFont;
+import com.shc.silenceengine.graphics.fonts.DistanceField;
+import com.shc.silenceengine.graphics.fonts.DistanceFieldFont;
+import com.shc.silenceengine.io.FilePath;
+import org.lwjgl.BufferUtils;
+import org.lwjgl.stb.STBTTFontinfo;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.lwjgl.stb.STBTruetype.*;
+
+/**
+ * <p>Generates the distance field fonts that are rendered by {@link DistanceFieldFont}s. The glyphs are rendered in a
+ * high resolution, either from a TrueType font or from the pages of a large BitmapFont, and turned into the distance
+ * fields of a small size with {@link DistanceField}. The fields are packed into a single page, written as a PNG with
+ * the distances in the alpha channel, next to a BMFont descriptor that has the distance range in a distanceField
+ * tag.</p>
+ *
+ * <pre>
+ *     java com.shc.silenceengine.backend.lwjgl.DistanceFieldFontGenerator &lt;font.ttf&gt; &lt;size&gt; &lt;output.fnt&gt; [distance range] [first char] [last char]
+ *     java com.shc.silenceengine.backend.lwjgl.DistanceFieldFontGenerator &lt;font.fnt&gt; &lt;downscale&gt; &lt;output.fnt&gt; [distance range]
+ * </pre>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public final class DistanceFieldFontGenerator
+{
+    public static final float DEFAULT_DISTANCE_RANGE = 4;
+
+    // The TrueType glyphs are rendered this many times larger than the size of the font
+    public static final int TRUE_TYPE_DOWNSCALE = 8;
+
+    private static final int MAX_PAGE_SIZE = 4096;
+
+    private DistanceFieldFontGenerator()
+    {
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length < 3)
+        {
+            System.err.println("Usage: DistanceFieldFontGenerator <font.ttf> <size> <output.fnt> [distance range] [first char] [last char]");
+            System.err.println("       DistanceFieldFontGenerator <font.fnt> <downscale> <output.fnt> [distance range]");
+            System.exit(1);
+        }
+
+        Path font = Paths.get(args[0]);
+        int size = Integer.parseInt(args[1]);
+        Path output = Paths.get(args[2]);
+
+        float distanceRange = args.length > 3 ? Float.parseFloat(args[3]) : DEFAULT_DISTANCE_RANGE;
+
+        if (font.toString().toLowerCase().endsWith(".fnt"))
+            generateFromBitmapFont(font, size, output, distanceRange);
+        else
+        {
+            int firstChar = args.length > 4 ? Integer.parseInt(args[4]) : 32;
+            int lastChar = args.length > 5 ? Integer.parseInt(args[5]) : 126;
+
+            generateFromTrueType(font, size, output, distanceRange, firstChar, lastChar);
+        }
+    }
+
+    /**
+     * Generates a distance field font from a TrueType font.
+     *
+     * @param ttf           The TrueType font file.
+     * @param size          The size of the generated font in pixels, which is the size it is rendered at with a scale
+     *                      of one.
+     * @param output        The descriptor file to write, the page is written next to it.
+     * @param distanceRange The range of the distances in the pixels of the page.
+     * @param firstChar     The first character to generate.
+     * @param lastChar      The last character to generate.
+     *
+     * @throws IOException If the font cannot be read, or the output cannot be written.
+     */
+    public static void generateFromTrueType(Path ttf, int size, Path output, float distanceRange, int firstChar,
+                                            int lastChar) throws IOException
+    {
+        int downscale = TRUE_TYPE_DOWNSCALE;
+        TrueTypeFont font = new TrueTypeFont(ttf, size * downscale);
+
+        List<Glyph> glyphs = new ArrayList<>();
+
+        for (int codePoint = firstChar; codePoint <= lastChar; codePoint++)
+        {
+            Glyph glyph = font.render(codePoint);
+
+            if (glyph != null)
+                glyphs.add(glyph);
+        }
+
+        List<int[]> kernings = new ArrayList<>();
+
+        for (Glyph first : glyphs)
+        {
+            for (Glyph second : glyphs)
+            {
+                int amount = Math.round(font.getKerning(first.id, second.id) / downscale);
+
+                if (amount != 0)
+                    kernings.add(new int[]{ first.id, second.id, amount });
+            }
+        }
+
+        String face = ttf.getFileName().toString();
+        face = face.substring(0, face.lastIndexOf('.') < 0 ? face.length() : face.lastIndexOf('.'));
+
+        write(output, face, size, Math.round(font.lineHeight / downscale), Math.round(font.ascent / downscale),
+                glyphs, kernings, downscale, distanceRange);
+    }
+
+    /**
+     * Generates a distance field font from a BitmapFont that is rendered at a large size. The glyphs are read from the
+     * channel of the pages that the descriptor says they are in.
+     *
+     * @param fnt           The descriptor of the high resolution font.
+     * @param downscale     How many times smaller the generated font is.
+     * @param output        The descriptor file to write, the page is written next to it.
+     * @param distanceRange The range of the distances in the pixels of the page.
+     *
+     * @throws IOException If the font cannot be read, or the output cannot be written.
+     */
+    public static void generateFromBitmapFont(Path fnt, int downscale, Path output, float distanceRange)
+            throws IOException
+    {
+        // The page paths are resolved through the FilePaths, which need the IO device
+        if (SilenceEngine.io == null)
+            SilenceEngine.io = new LwjglIODevice();
+
+        BitmapFont font = BitmapFont.parse(new LwjglExternalFilePath(fnt.toString()),
+                new String(Files.readAllBytes(fnt), StandardCharsets.UTF_8));
+
+        Map<Integer, BufferedImage> pages = new HashMap<>();
+
+        for (Map.Entry<Integer, FilePath> page : font.pageFiles.entrySet())
+        {
+            BufferedImage image = ImageIO.read(Paths.get(page.getValue().getPath()).toFile());
+
+            if (image == null)
+                throw new SilenceException("Failed to read the page " + page.getValue().getPath());
+
+            pages.put(page.getKey(), image);
+        }
+
+        List<Glyph> glyphs = new ArrayList<>();
+
+        for (Map.Entry<Integer, BitmapFont.Char> entry : font.chars.entrySet())
+        {
+            BitmapFont.Char fChar = entry.getValue();
+            BufferedImage page = pages.get(fChar.page);
+
+            Glyph glyph = new Glyph(entry.getKey(), fChar.xOffset, fChar.yOffset - font.common.base, fChar.width,
+                    fChar.height, fChar.xAdvance);
+
+            for (int y = 0; y < fChar.height; y++)
+                for (int x = 0; x < fChar.width; x++)
+                    glyph.coverage[y * fChar.width + x] = channel(page.getRGB(fChar.x + x, fChar.y + y), fChar.chnl);
+
+            glyphs.add(glyph);
+        }
+
+        List<int[]> kernings = new ArrayList<>();
+
+        for (Map.Entry<Integer, BitmapFont.Char> first : font.chars.entrySet())
+        {
+            for (Map.Entry<Integer, BitmapFont.Char> second : font.chars.entrySet())
+            {
+                int amount = Math.round(font.getKerning(first.getValue(), second.getValue()) / (float) downscale);
+
+                if (amount != 0)
+                    kernings.add(new int[]{ first.getKey(), second.getKey(), amount });
+            }
+        }
+
+        write(output, font.info.face, Math.round(Math.abs(font.info.size) / (float) downscale),
+                Math.round(font.common.lineHeight / (float) downscale),
+                Math.round(font.common.base / (float) downscale), glyphs, kernings, downscale, distanceRange);
+    }
+
+    /**
+     * Reads the coverage of a pixel from the channel of a BMFont page, where the bits 1, 2, 4 and 8 are the blue,
+     * green, red and alpha channels, and all of them together mean the glyph is in the alpha.
+     */
+    private static byte channel(int argb, int chnl)
+    {
+        switch (chnl)
+        {
+            case 1:
+                return (byte) argb;
+            case 2:
+                return (byte) (argb >> 8);
+            case 4:
+                return (byte) (argb >> 16);
+            default:
+                return (byte) (argb >>> 24);
+        }
+    }
+
+    private static void write(Path output, String face, int size, int lineHeight, int base, List<Glyph> glyphs,
+                              List<int[]> kernings, int downscale, float distanceRange) throws IOException
+    {
+        // Enough room around the glyphs for the distances to fall off to the outside
+        int padding = (int) Math.ceil(distanceRange / 2) + 1;
+
+        for (Glyph glyph : glyphs)
+            glyph.generateField(downscale, distanceRange, padding, base);
+
+        int pageSize = pack(glyphs);
+
+        BufferedImage page = new BufferedImage(pageSize, pageSize, BufferedImage.TYPE_INT_ARGB);
+
+        for (int y = 0; y < pageSize; y++)
+            for (int x = 0; x < pageSize; x++)
+                page.setRGB(x, y, 0x00FFFFFF);
+
+        for (Glyph glyph : glyphs)
+            for (int y = 0; y < glyph.fieldHeight; y++)
+                for (int x = 0; x < glyph.fieldWidth; x++)
+                    page.setRGB(glyph.x + x, glyph.y + y,
+                            ((glyph.field[y * glyph.fieldWidth + x] & 0xFF) << 24) | 0x00FFFFFF);
+
+        String name = output.getFileName().toString();
+        name = name.substring(0, name.lastIndexOf('.') < 0 ? name.length() : name.lastIndexOf('.'));
+        String pageName = name + "_0.png";
+
+        if (output.toAbsolutePath().getParent() != null)
+            Files.createDirectories(output.toAbsolutePath().getParent());
+
+        ImageIO.write(page, "png", output.resolveSibling(pageName).toFile());
+
+        StringBuilder fnt = new StringBuilder();
+
+        fnt.append("<?xml version=\"1.0\"?>\n")
+                .append("<font>\n")
+                .append("  <info face=\"").append(face.replace("\"", "&quot;")).append("\" size=\"").append(size)
+                .append("\" bold=\"0\" italic=\"0\" charset=\"\" unicode=\"1\" stretchH=\"100\" smooth=\"1\" aa=\"1\"")
+                .append(" padding=\"").append(padding).append(',').append(padding).append(',').append(padding)
+                .append(',').append(padding).append("\" spacing=\"1,1\" outline=\"0\"/>\n")
+                .append("  <common lineHeight=\"").append(lineHeight).append("\" base=\"").append(base)
+                .append("\" scaleW=\"").append(pageSize).append("\" scaleH=\"").append(pageSize)
+                .append("\" pages=\"1\" packed=\"0\" alphaChnl=\"0\" redChnl=\"4\" greenChnl=\"4\" blueChnl=\"4\"/>\n")
+                .append("  <pages>\n")
+                .append("    <page id=\"0\" file=\"").append(pageName).append("\"/>\n")
+                .append("  </pages>\n")
+                .append("  <distanceField fieldType=\"sdf\" distanceRange=\"").append(distanceRange).append("\"/>\n")
+                .append("  <chars count=\"").append(glyphs.size()).append("\">\n");
+
+        for (Glyph glyph : glyphs)
+        {
+            fnt.append("    <char id=\"").append(glyph.id)
+                    .append("\" x=\"").append(glyph.x)
+                    .append("\" y=\"").append(glyph.y)
+                    .append("\" width=\"").append(glyph.fieldWidth)
+                    .append("\" height=\"").append(glyph.fieldHeight)
+                    .append("\" xoffset=\"").append(glyph.xOffset)
+                    .append("\" yoffset=\"").append(glyph.yOffset)
+                    .append("\" xadvance=\"").append(Math.round(glyph.advance / downscale))
+                    .append("\" page=\"0\" chnl=\"15\"/>\n");
+        }
+
+        fnt.append("  </chars>\n")
+                .append("  <kernings count=\"").append(kernings.size()).append("\">\n");
+
+        for (int[] kerning : kernings)
+        {
+            fnt.append("    <kerning first=\"").append(kerning[0])
+                    .append("\" second=\"").append(kerning[1])
+                    .append("\" amount=\"").append(kerning[2]).append("\"/>\n");
+        }
+
+        fnt.append("  </kernings>\n")
+                .append("</font>\n");
+
+        Files.write(output, fnt.toString().getBytes(StandardCharsets.UTF_8));
+
+        System.out.println("Generated " + glyphs.size() + " glyphs of " + face + " into " + output + " and a " +
+                           pageSize + "x" + pageSize + " page");
+    }
+
+    /**
+     * Packs the fields of the glyphs in shelves, the tallest first, into the smallest square page of a power of two.
+     *
+     * @return The size of the page.
+     */
+    private static int pack(List<Glyph> glyphs)
+    {
+        List<Glyph> sorted = new ArrayList<>(glyphs);
+        sorted.sort((a, b) -> b.fieldHeight - a.fieldHeight);
+
+        for (int pageSize = 64; pageSize <= MAX_PAGE_SIZE; pageSize *= 2)
+        {
+            int x = 0;
+            int y = 0;
+            int shelfHeight = 0;
+
+            boolean fits = true;
+
+            for (Glyph glyph : sorted)
+            {
+                if (x + glyph.fieldWidth > pageSize)
+                {
+                    x = 0;
+                    y += shelfHeight + 1;
+                    shelfHeight = 0;
+                }
+
+                if (glyph.fieldWidth > pageSize || y + glyph.fieldHeight > pageSize)
+                {
+                    fits = false;
+                    break;
+                }
+
+                glyph.x = x;
+                glyph.y = y;
+
+                x += glyph.fieldWidth + 1;
+                shelfHeight = Math.max(shelfHeight, glyph.fieldHeight);
+            }
+
+            if (fits)
+                return pageSize;
+        }
+
+        throw new SilenceException("The glyphs do not fit in a page of " + MAX_PAGE_SIZE + " pixels");
+    }
+
+    /**
+     * A glyph in the high resolution, and its field once it is generated.
+     */
+    private static class Glyph
+    {
+        private final int    id;
+        private final int    left;
+        private final int    top;
+        private final int    width;
+        private final int    height;
+        private final float  advance;
+        private final byte[] coverage;
+
+        private byte[] field = new byte[0];
+
+        private int fieldWidth;
+        private int fieldHeight;
+        private int xOffset;
+        private int yOffset;
+        private int x;
+        private int y;
+
+        /**
+         * @param left    The left of the bitmap from the origin of the glyph.
+         * @param top     The top of the bitmap from the baseline, negative above it.
+         * @param advance The distance to the origin of the next glyph.
+         */
+        Glyph(int id, int left, int top, int width, int height, float advance)
+        {
+            this.id = id;
+            this.left = left;
+            this.top = top;
+            this.width = width;
+            this.height = height;
+            this.advance = advance;
+
+            coverage = new byte[width * height];
+        }
+
+        /**
+         * Generates the field of this glyph. The bitmap is placed on a grid that is aligned to the pixels of the field,
+         * so that the glyphs keep their positions relative to the baseline after the downscale.
+         */
+        void generateField(int downscale, float distanceRange, int padding, int base)
+        {
+            if (width == 0 || height == 0)
+                return;
+
+            int fieldLeft = Math.floorDiv(left, downscale) - padding;
+            int fieldTop = Math.floorDiv(top, downscale) - padding;
+            int fieldRight = -Math.floorDiv(-(left + width), downscale) + padding;
+            int fieldBottom = -Math.floorDiv(-(top + height), downscale) + padding;
+
+            fieldWidth = fieldRight - fieldLeft;
+            fieldHeight = fieldBottom - fieldTop;
+
+            int bitmapWidth = fieldWidth * downscale;
+            int bitmapHeight = fieldHeight * downscale;
+
+            byte[] bitmap = new byte[bitmapWidth * bitmapHeight];
+
+            int offsetX = left - fieldLeft * downscale;
+            int offsetY = top - fieldTop * downscale;
+
+            for (int row = 0; row < height; row++)
+                System.arraycopy(coverage, row * width, bitmap, (offsetY + row) * bitmapWidth + offsetX, width);
+
+            field = DistanceField.generate(bitmap, bitmapWidth, bitmapHeight, downscale, distanceRange);
+
+            xOffset = fieldLeft;
+            yOffset = fieldTop + base;
+        }
+    }
+
+    /**
+     * A TrueType font rendered with stb_truetype. The font data is kept with the font info, as the info points into it.
+     */
+    private static class TrueTypeFont
+    {
+        private final ByteBuffer    data;
+        private final STBTTFontinfo info;
+        private final float         scale;
+        private final float         ascent;
+        private final float         lineHeight;
+
+        TrueTypeFont(Path ttf, float pixelHeight) throws IOException
+        {
+            byte[] bytes = Files.readAllBytes(ttf);
+
+            data = BufferUtils.createByteBuffer(bytes.length);
+            data.put(bytes).flip();
+
+            info = STBTTFontinfo.create();
+
+            if (!stbtt_InitFont(info, data))
+                throw new SilenceException("Failed to read the TrueType font " + ttf);
+
+            scale = stbtt_ScaleForPixelHeight(info, pixelHeight);
+
+            IntBuffer ascent = BufferUtils.createIntBuffer(1);
+            IntBuffer descent = BufferUtils.createIntBuffer(1);
+            IntBuffer lineGap = BufferUtils.createIntBuffer(1);
+
+            stbtt_GetFontVMetrics(info, ascent, descent, lineGap);
+
+            this.ascent = ascent.get(0) * scale;
+            lineHeight = (ascent.get(0) - descent.get(0) + lineGap.get(0)) * scale;
+        }
+
+        /**
+         * @return The glyph of the code point, or null if the font does not have it.
+         */
+        Glyph render(int codePoint)
+        {
+            if (stbtt_FindGlyphIndex(info, codePoint) == 0)
+                return null;
+
+            IntBuffer advance = BufferUtils.createIntBuffer(1);
+            IntBuffer bearing = BufferUtils.createIntBuffer(1);
+
+            stbtt_GetCodepointHMetrics(info, codePoint, advance, bearing);
+
+            IntBuffer x0 = BufferUtils.createIntBuffer(1);
+            IntBuffer y0 = BufferUtils.createIntBuffer(1);
+            IntBuffer x1 = BufferUtils.createIntBuffer(1);
+            IntBuffer y1 = BufferUtils.createIntBuffer(1);
+
+            stbtt_GetCodepointBitmapBox(info, codePoint, scale, scale, x0, y0, x1, y1);
+
+            int width = x1.get(0) - x0.get(0);
+            int height = y1.get(0) - y0.get(0);
+
+            Glyph glyph = new Glyph(codePoint, x0.get(0), y0.get(0), width, height, advance.get(0) * scale);
+
+            if (width > 0 && height > 0)
+            {
+                ByteBuffer bitmap = BufferUtils.createByteBuffer(width * height);
+                stbtt_MakeCodepointBitmap(info, bitmap, width, height, width, scale, scale, codePoint);
+                bitmap.get(glyph.coverage);
+            }
+
+            return glyph;
+        }
+
+        float getKerning(int first, int second)
+        {
+            return stbtt_GetCodepointKernAdvance(info, first, second) * scale;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.backend.lwjgl;
+
+import com.shc.silenceengine.core.SilenceException;
+import com.shc.silenceengine.io.AssetBundle;
+import com.shc.silenceengine.io.DirectBuffer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An {@link AssetBundle} that is backed by a memory mapped file. The file is mapped once when the bundle is opened,
+ * and the entries are served as slices of that mapping, so reading an entry never copies the data. Bundles that are
+ * too large for a single mapping are mapped entry by entry instead.
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class LwjglAssetBundle extends AssetBundle
+{
+    private FileChannel      channel;
+    private MappedByteBuffer mapping;
+
+    private LwjglAssetBundle(FileChannel channel) throws IOException
+    {
+        this.channel = channel;
+
+        if (channel.size() <= Integer.MAX_VALUE)
+        {
+            mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            mapping.order(ByteOrder.LITTLE_ENDIAN);
+            readEntries(mapping.duplicate().order(ByteOrder.LITTLE_ENDIAN));
+        }
+        else
+        {
+            // The table of contents is always at the start, so only map that much
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Integer.MAX_VALUE);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            readEntries(header);
+        }
+    }
+
+    /**
+     * Opens a bundle from a file on the disk. The bundle still needs to be mounted with {@link
+     * AssetBundle#mount(AssetBundle)} to take part in resolving the resource files.
+     *
+     * @param file The path of the bundle file in the file system.
+     *
+     * @return The opened bundle.
+     *
+     * @throws IOException If the file cannot be opened or mapped.
+     */
+    public static LwjglAssetBundle open(String file) throws IOException
+    {
+        return new LwjglAssetBundle(FileChannel.open(Paths.get(file), StandardOpenOption.READ));
+    }
+
+    private void readEntries(ByteBuffer toc)
+    {
+        if (toc.getInt() != MAGIC)
+            throw new SilenceException("The file is not an asset bundle");
+
+        int version = toc.getInt();
+
+        if (version != VERSION)
+            throw new SilenceException("Unsupported asset bundle version " + version);
+
+        int count = toc.getInt();
+
+        for (int i = 0; i < count; i++)
+        {
+            byte[] pathBytes = new byte[toc.getShort() & 0xFFFF];
+            toc.get(pathBytes);
+
+            String path = new String(pathBytes, StandardCharsets.UTF_8);
+            Kind kind = Kind.values()[toc.get()];
+            long offset = toc.getLong();
+            long length = toc.getLong();
+
+            int[] metadata = new int[toc.get()];
+
+            for (int j = 0; j < metadata.length; j++)
+                metadata[j] = toc.getInt();
+
+            addEntry(new Entry(path, kind, offset, length, metadata));
+        }
+    }
+
+    @Override
+    public DirectBuffer map(Entry entry)
+    {
+        ByteBuffer slice;
+
+        if (mapping != null)
+        {
+            slice = mapping.duplicate();
+            slice.position((int) entry.offset);
+            slice.limit((int) (entry.offset + entry.length));
+            slice = slice.slice();
+        }
+        else
+        {
+            try
+            {
+                slice = channel.map(FileChannel.MapMode.READ_ONLY, entry.offset, entry.length);
+            }
+            catch (IOException e)
+            {
+                throw new SilenceException(e);
+            }
+        }
+
+        slice.order(ByteOrder.LITTLE_ENDIAN);
+        return new LwjglDirectBuffer(slice, false);
+    }
+
+    /**
+     * Closes the file of this bundle. The bundle should be unmounted before it is closed.
+     */
+    public void close()
+    {
+        try
+        {
+            channel.close();
+        }
+        catch (IOException e)
+        {
+            throw new SilenceException(e);
+        }
+    }
+}
@@ -25,8 +25,11 @@
 package com.shc.silenceengine.backend.lwjgl;
 
 import com.shc.silenceengine.audio.AudioDevice;
+import com.shc.silenceengine.audio.IAudioStream;
+import com.shc.silenceengine.audio.PCMData;
 import com.shc.silenceengine.audio.openal.ALBuffer;
 import com.shc.silenceengine.backend.lwjgl.soundreaders.OggReader;
+import com.shc.silenceengine.backend.lwjgl.soundreaders.OggStream;
 import com.shc.silenceengine.backend.lwjgl.soundreaders.WaveReader;
 import com.shc.silenceengine.core.SilenceEngine;
 import com.shc.silenceengine.core.SilenceException;
@@ -37,6 +40,7 @@ import org.lwjgl.openal.AL;
 import org.lwjgl.openal.AL10;
 import org.lwjgl.openal.ALC;
 import org.lwjgl.openal.ALCCapabilities;
+import org.lwjgl.system.MemoryUtil;
 
 import java.nio.ByteBuffer;
 import java.nio.IntBuffer;
@@ -75,6 +79,13 @@ class LwjglAudioDevice extends AudioDevice
         AL10.alBufferData(id, format, (ByteBuffer) data.nativeBuffer(), frequency);
     }
 
+    @Override
+    public void alBufferData(int id, int format, DirectBuffer data, int sizeBytes, int frequency)
+    {
+        // Upload straight from the memory of the buffer instead of copying the part
+        AL10.nalBufferData(id, format, MemoryUtil.memAddress((ByteBuffer) data.nativeBuffer()), sizeBytes, frequency);
+    }
+
     @Override
     public void alDeleteBuffers(int... buffers)
     {
@@ -149,6 +160,40 @@ class LwjglAudioDevice extends AudioDevice
             AL10.alDeleteSources(source);
     }
 
+    @Override
+    public void alSourceQueueBuffers(int id, int buffer)
+    {
+        AL10.alSourceQueueBuffers(id, buffer);
+    }
+
+    @Override
+    public int alSourceUnqueueBuffers(int id)
+    {
+        return AL10.alSourceUnqueueBuffers(id);
+    }
+
+    @Override
+    public void openStream(AudioFormat format, DirectBuffer data, UniCallback<IAudioStream> onOpen, UniCallback<Throwable> onError)
+    {
+        try
+        {
+            if (!isStreamingSupported(format))
+                throw new SilenceException("Error, cannot stream unsupported format");
+
+            onOpen.invoke(new OggStream(data));
+        }
+        catch (Throwable e)
+        {
+            onError.invoke(e);
+        }
+    }
+
+    @Override
+    public boolean isStreamingSupported(AudioFormat format)
+    {
+        return format == AudioFormat.OGG;
+    }
+
     @Override
     public void readToALBuffer(AudioFormat format, DirectBuffer data, UniCallback<ALBuffer> onDecoded, UniCallback<Throwable> onError)
     {
@@ -196,6 +241,49 @@ class LwjglAudioDevice extends AudioDevice
         }
     }
 
+    @Override
+    public void decodeToPCM(AudioFormat format, DirectBuffer data, UniCallback<PCMData> onDecoded, UniCallback<Throwable> onError)
+    {
+        PCMData decoded;
+
+        try
+        {
+            // The samples are allocated by the readers in memory that is collected by the GC, so they are not owned
+            switch (format)
+            {
+                case OGG:
+                {
+                    OggReader reader = new OggReader(data);
+                    decoded = new PCMData(new LwjglDirectBuffer(reader.getData(), false), reader.getFormat(), reader.getSampleRate());
+                    break;
+                }
+
+                case WAV:
+                {
+                    WaveReader reader = new WaveReader(data);
+                    decoded = new PCMData(new LwjglDirectBuffer(reader.getData(), false), reader.getFormat(), reader.getSampleRate());
+                    break;
+                }
+
+                default:
+                    throw new SilenceException("Error, cannot decode unsupported format");
+            }
+        }
+        catch (Throwable e)
+        {
+            onError.invoke(e);
+            return;
+        }
+
+        onDecoded.invoke(decoded);
+    }
+
+    @Override
+    public boolean isPCMDecodingSupported(AudioFormat format)
+    {
+        return isSupported(format);
+    }
+
     @Override
     public boolean isSupported(AudioFormat format)
     {
@@ -36,16 +36,26 @@ class LwjglDirectBuffer extends DirectBuffer
 {
     private ByteBuffer nativeBuffer;
 
+    // Buffers that wrap memory owned by someone else (like mapped files) are not freed
+    private boolean owned;
+
     LwjglDirectBuffer(ByteBuffer buffer)
+    {
+        this(buffer, true);
+    }
+
+    LwjglDirectBuffer(ByteBuffer buffer, boolean owned)
     {
         super(buffer.capacity());
         nativeBuffer = buffer;
+        this.owned = owned;
     }
 
     LwjglDirectBuffer(int sizeInBytes)
     {
         super(sizeInBytes);
         nativeBuffer = MemoryUtil.memAlloc(sizeInBytes);
+        owned = true;
     }
 
     @Override
@@ -141,6 +151,7 @@ class LwjglDirectBuffer extends DirectBuffer
 
     public void free()
     {
-        MemoryUtil.memFree(nativeBuffer);
+        if (owned)
+            MemoryUtil.memFree(nativeBuffer);
     }
 }
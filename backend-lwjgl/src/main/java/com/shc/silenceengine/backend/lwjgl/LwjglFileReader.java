@@ -24,6 +24,7 @@
 
 package com.shc.silenceengine.backend.lwjgl;
 
+import com.shc.silenceengine.io.BundleFilePath;
 import com.shc.silenceengine.io.DirectBuffer;
 import com.shc.silenceengine.io.FilePath;
 import com.shc.silenceengine.io.FileReader;
@@ -34,6 +35,8 @@ import java.io.BufferedReader;
 import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 
 /**
  * @author Sri Harsha Chilakapati
@@ -43,7 +46,23 @@ class LwjglFileReader extends FileReader
     @Override
     public void readBinaryFile(FilePath file, UniCallback<DirectBuffer> onComplete, UniCallback<Throwable> onError)
     {
-        new Thread(() ->
+        // Bundled files are memory mapped, and need no copying
+        if (file instanceof BundleFilePath)
+        {
+            try
+            {
+                DirectBuffer directBuffer = ((BundleFilePath) file).map();
+                TaskManager.runOnUpdate(() -> onComplete.invoke(directBuffer));
+            }
+            catch (Throwable e)
+            {
+                onError.invoke(e);
+            }
+
+            return;
+        }
+
+        TaskManager.runOnIO(() ->
         {
             try
             {
@@ -77,13 +96,33 @@ class LwjglFileReader extends FileReader
             {
                 onError.invoke(e);
             }
-        }).start();
+        });
     }
 
     @Override
     public void readTextFile(FilePath file, UniCallback<String> onComplete, UniCallback<Throwable> onError)
     {
-        new Thread(() ->
+        if (file instanceof BundleFilePath)
+        {
+            TaskManager.runOnIO(() ->
+            {
+                try
+                {
+                    ByteBuffer data = (ByteBuffer) ((BundleFilePath) file).map().nativeBuffer();
+                    String text = StandardCharsets.UTF_8.decode(data.duplicate()).toString();
+
+                    TaskManager.runOnUpdate(() -> onComplete.invoke(text));
+                }
+                catch (Throwable e)
+                {
+                    onError.invoke(e);
+                }
+            });
+
+            return;
+        }
+
+        TaskManager.runOnIO(() ->
         {
             try (
                     InputStream inputStream = ((LwjglFilePath) file).getInputStream();
@@ -103,6 +142,6 @@ class LwjglFileReader extends FileReader
                 onError.invoke(e);
             }
 
-        }).start();
+        });
     }
 }
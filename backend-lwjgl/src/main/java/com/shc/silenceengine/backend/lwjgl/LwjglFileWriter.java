@@ -44,7 +44,7 @@ class LwjglFileWriter extends FileWriter
     @Override
     public void write(String text, FilePath file, boolean append, SimpleCallback onSuccess, UniCallback<Throwable> onError)
     {
-        new Thread(() ->
+        TaskManager.runOnIO(() ->
         {
             try
             {
@@ -59,7 +59,7 @@ class LwjglFileWriter extends FileWriter
             {
                 onError.invoke(e);
             }
-        }).start();
+        });
     }
 
     void writeSync(String text, FilePath file, boolean append) throws IOException
@@ -77,22 +77,29 @@ class LwjglFileWriter extends FileWriter
     @Override
     public void write(DirectBuffer buffer, FilePath file, boolean append, SimpleCallback onSuccess, UniCallback<Throwable> onError)
     {
-        new Thread(() ->
+        TaskManager.runOnIO(() ->
         {
             try
             {
                 if (file.getType() == FilePath.Type.RESOURCE)
                     throw new IOException("Cannot write to resource files");
 
-                try (
-                        OutputStream outputStream = ((LwjglFilePath) file).getOutputStream(append);
-                        OutputStreamWriter writer = new OutputStreamWriter(outputStream)
-                )
+                // The bytes are written as they are, a character writer would encode them
+                try (OutputStream outputStream = ((LwjglFilePath) file).getOutputStream(append))
                 {
-                    for (int i = 0; i < buffer.sizeBytes(); i++)
-                        writer.write(buffer.readByte(i));
+                    byte[] bytes = new byte[4096];
 
-                    writer.flush();
+                    for (int start = 0; start < buffer.sizeBytes(); start += bytes.length)
+                    {
+                        int n = Math.min(bytes.length, buffer.sizeBytes() - start);
+
+                        for (int i = 0; i < n; i++)
+                            bytes[i] = buffer.readByte(start + i);
+
+                        outputStream.write(bytes, 0, n);
+                    }
+
+                    outputStream.flush();
                 }
 
                 TaskManager.runOnUpdate(onSuccess);
@@ -101,6 +108,6 @@ class LwjglFileWriter extends FileWriter
             {
                 onError.invoke(e);
             }
-        }).start();
+        });
     }
 }
@@ -39,6 +39,9 @@ class LwjglLogger extends Logger
     @Override
     public void info(Object... messages)
     {
+        if (!isEnabled(Level.INFO))
+            return;
+
         for (Object message : messages)
             System.out.println("[" + name + "] INFO: " + message);
     }
@@ -46,6 +49,9 @@ class LwjglLogger extends Logger
     @Override
     public void warn(Object... messages)
     {
+        if (!isEnabled(Level.WARNING))
+            return;
+
         for (Object message : messages)
             System.err.println("[" + name + "] WARN: " + message);
     }
@@ -53,6 +59,9 @@ class LwjglLogger extends Logger
     @Override
     public void error(Object... messages)
     {
+        if (!isEnabled(Level.ERROR))
+            return;
+
         for (Object message : messages)
             System.err.println("[" + name + "] ERROR: " + message);
     }
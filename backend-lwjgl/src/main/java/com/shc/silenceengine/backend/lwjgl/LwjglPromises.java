@@ -0,0 +1,99 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.backend.lwjgl;
+
+import com.shc.silenceengine.utils.functional.Promise;
+import com.shc.silenceengine.utils.functional.SimpleCallback;
+import com.shc.silenceengine.utils.functional.UniCallback;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+
+/**
+ * Converts between the engine's {@link Promise}s and the {@link CompletableFuture}s of the JDK, so that the desktop
+ * code can use the libraries that work with futures. These live in the LWJGL backend because futures are not
+ * available on all the platforms that the engine runs on.
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public final class LwjglPromises
+{
+    private LwjglPromises()
+    {
+    }
+
+    /**
+     * Creates a future that is completed when the given promise is settled.
+     *
+     * @param promise The promise to wait for.
+     * @param <T>     The type of the value of the promise.
+     *
+     * @return A future that completes with the value, or exceptionally with the error of the promise.
+     */
+    public static <T> CompletableFuture<T> toFuture(Promise<T> promise)
+    {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        promise.then(future::complete, future::completeExceptionally);
+
+        return future;
+    }
+
+    /**
+     * Creates a promise that is settled when the given future or stage completes.
+     *
+     * @param stage The stage to wait for.
+     * @param <T>   The type of the value of the stage.
+     *
+     * @return A promise that is fulfilled with the value, or rejected with the error of the stage.
+     */
+    public static <T> Promise<T> fromFuture(CompletionStage<T> stage)
+    {
+        Promise<T> promise = new Promise<>();
+
+        stage.whenComplete((value, error) ->
+        {
+            if (error == null)
+                promise.tryResolve(value);
+            else
+                promise.tryReject(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+        });
+
+        return promise;
+    }
+
+    /**
+     * Wraps a JDK executor so that it can be used as the executor of the promise continuations.
+     *
+     * @param executor The executor to wrap.
+     *
+     * @return The executor as a callback that runs the tasks passed to it.
+     */
+    public static UniCallback<SimpleCallback> asExecutor(Executor executor)
+    {
+        return task -> executor.execute(task::invoke);
+    }
+}
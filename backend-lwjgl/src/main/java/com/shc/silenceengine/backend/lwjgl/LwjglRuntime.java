@@ -26,19 +26,32 @@ package com.shc.silenceengine.backend.lwjgl;
 
 import com.shc.silenceengine.backend.lwjgl.glfw.GLFW3;
 import com.shc.silenceengine.backend.lwjgl.glfw.Window;
+import com.shc.silenceengine.backend.lwjgl.logging.AsyncLogDevice;
+import com.shc.silenceengine.backend.lwjgl.logging.BinaryLogSink;
+import com.shc.silenceengine.backend.lwjgl.logging.ConsoleLogSink;
+import com.shc.silenceengine.backend.lwjgl.logging.ILogSink;
+import com.shc.silenceengine.backend.lwjgl.logging.JsonLinesLogSink;
 import com.shc.silenceengine.core.Game;
 import com.shc.silenceengine.core.SilenceEngine;
 import com.shc.silenceengine.io.FilePath;
+import com.shc.silenceengine.logging.ILogDevice;
+import com.shc.silenceengine.logging.Logger;
+import com.shc.silenceengine.math.GeometryKernels;
 import com.shc.silenceengine.utils.TaskManager;
 import com.shc.silenceengine.utils.functional.SimpleCallback;
 import org.lwjgl.system.Configuration;
 
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * The LwjglRuntime initializes the LWJGL library, and starts the native event loop.
@@ -121,6 +134,99 @@ public final class LwjglRuntime
         System.exit(-1);
     }
 
+    private static void useVectorKernels()
+    {
+        // The vector kernels are only present when built with JDK 16 or later, and they can only be loaded when the
+        // game is started with --add-modules jdk.incubator.vector
+        try
+        {
+            Class<?> kernels = Class.forName("com.shc.silenceengine.backend.lwjgl.LwjglVectorKernels");
+            GeometryKernels.setInstance((GeometryKernels) kernels.getDeclaredConstructor().newInstance());
+
+            SilenceEngine.log.getRootLogger().info("Using the SIMD geometry kernels");
+        }
+        catch (ReflectiveOperationException | LinkageError e)
+        {
+            // A missing class or module is expected, but other errors are not hidden
+            SilenceEngine.log.getRootLogger().debug("The SIMD geometry kernels are not available:", e);
+            SilenceEngine.log.getRootLogger().info("Using the scalar geometry kernels");
+        }
+    }
+
+    /**
+     * Creates the log device. The messages are written on a background thread to the console, and also to the file in
+     * the silenceengine.log.file property, as JSON lines, or in the binary form if the name ends with .bin. The level is
+     * read from the silenceengine.log.level property, and the silenceengine.log.sync property switches back to the
+     * synchronous logger that writes straight to the console.
+     */
+    private static ILogDevice createLogDevice()
+    {
+        if (Boolean.getBoolean("silenceengine.log.sync"))
+            return new LwjglLogDevice();
+
+        List<ILogSink> sinks = new ArrayList<>();
+        sinks.add(new ConsoleLogSink());
+
+        String file = System.getProperty("silenceengine.log.file");
+
+        if (file != null)
+        {
+            try
+            {
+                sinks.add(file.endsWith(".bin") ? new BinaryLogSink(Paths.get(file))
+                                                : new JsonLinesLogSink(Paths.get(file)));
+            }
+            catch (IOException e)
+            {
+                System.err.println("Unable to open the log file " + file + ": " + e);
+            }
+        }
+
+        AsyncLogDevice logDevice = new AsyncLogDevice(sinks.toArray(new ILogSink[sinks.size()]));
+
+        String level = System.getProperty("silenceengine.log.level");
+
+        if (level != null)
+            logDevice.setLevel(Logger.Level.valueOf(level.toUpperCase()));
+
+        return logDevice;
+    }
+
+    /**
+     * Starts exporting the engine metrics, if the silenceengine.metrics.file property names a file to write them to, or
+     * the silenceengine.metrics.socket property is a host:port to send them to. The silenceengine.metrics.interval
+     * property is the time between the snapshots in milliseconds, which is a second by default.
+     */
+    private static void startMetricsExporter()
+    {
+        String file = System.getProperty("silenceengine.metrics.file");
+        String socket = System.getProperty("silenceengine.metrics.socket");
+
+        if (file == null && socket == null)
+            return;
+
+        long interval = Long.getLong("silenceengine.metrics.interval", 1000);
+        MetricsExporter exporter;
+
+        if (file != null)
+            exporter = MetricsExporter.toFile(Paths.get(file), interval);
+        else
+        {
+            int separator = socket.lastIndexOf(':');
+
+            if (separator < 0)
+            {
+                System.err.println("The metrics socket should be host:port, and not " + socket);
+                return;
+            }
+
+            exporter = MetricsExporter.toSocket(socket.substring(0, separator),
+                    Integer.parseInt(socket.substring(separator + 1)), interval);
+        }
+
+        SilenceEngine.eventManager.addDisposeHandler(exporter::close);
+    }
+
     public static void start(Game game)
     {
         // Check for -XstartOnFirstThread on Mac OS X
@@ -129,13 +235,44 @@ public final class LwjglRuntime
 
         Configuration.DEBUG.set(Game.DEVELOPMENT);
 
-        SilenceEngine.log = new LwjglLogDevice();
+        SilenceEngine.log = createLogDevice();
         SilenceEngine.io = new LwjglIODevice();
         SilenceEngine.display = new LwjglDisplayDevice();
         SilenceEngine.input = new LwjglInputDevice();
         SilenceEngine.graphics = new LwjglGraphicsDevice();
         SilenceEngine.audio = new LwjglAudioDevice();
 
+        // Run the worker tasks on a pool of daemon threads, leaving one processor for the game thread
+        ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1), runnable ->
+        {
+            Thread thread = new Thread(runnable, "SilenceEngine Worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // Blocking reads and writes get their own threads, created as needed and reused while they're idle
+        ExecutorService io = Executors.newCachedThreadPool(runnable ->
+        {
+            Thread thread = new Thread(runnable, "SilenceEngine IO");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        TaskManager.setWorkerExecutor(task -> workers.execute(task::invoke));
+        TaskManager.setIOExecutor(task -> io.execute(task::invoke));
+        TaskManager.setParallelExecutor(tasks -> Arrays.stream(tasks).parallel().forEach(SimpleCallback::invoke));
+
+        useVectorKernels();
+
+        SilenceEngine.eventManager.addDisposeHandler(workers::shutdownNow);
+        SilenceEngine.eventManager.addDisposeHandler(io::shutdownNow);
+
+        startMetricsExporter();
+
+        // Write out the messages logged so far, the log device itself is closed when the JVM exits
+        if (SilenceEngine.log instanceof AsyncLogDevice)
+            SilenceEngine.eventManager.addDisposeHandler(((AsyncLogDevice) SilenceEngine.log)::flush);
+
         // Set AWT fix on Mac OS X
         if (getPlatform() == SilenceEngine.Platform.MACOSX)
             System.setProperty("java.awt.headless", "true");
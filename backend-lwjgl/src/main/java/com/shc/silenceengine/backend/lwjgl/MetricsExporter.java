@@ -0,0 +1,269 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.backend.lwjgl;
+
+import com.shc.silenceengine.core.metrics.HistogramSnapshot;
+import com.shc.silenceengine.core.metrics.Metrics;
+import com.shc.silenceengine.core.metrics.MetricsSnapshot;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * <p>Exports the engine metrics at a fixed interval, as JSON lines, to a file or to a TCP socket. Each line is an
+ * object with the time in milliseconds, the value and the change of each counter, the value of each gauge, and the
+ * count, minimum, mean, percentiles and maximum of each histogram.</p>
+ *
+ * <p>The snapshots are taken and written on a daemon thread of the exporter, so the game thread never waits on the file
+ * or the network. When the socket cannot be connected, or the connection is lost, the snapshots are dropped and the
+ * connection is tried again on the next interval.</p>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class MetricsExporter
+{
+    private static final int CONNECT_TIMEOUT = 1000;
+
+    private final Path   file;
+    private final String host;
+    private final int    port;
+    private final long   interval;
+
+    private final MetricsSnapshot snapshot = new MetricsSnapshot();
+    private final StringBuilder   line     = new StringBuilder();
+    private final Thread          thread;
+
+    private Writer writer;
+    private Socket socket;
+
+    private volatile boolean running = true;
+
+    private MetricsExporter(Path file, String host, int port, long interval)
+    {
+        this.file = file;
+        this.host = host;
+        this.port = port;
+        this.interval = Math.max(1, interval);
+
+        thread = new Thread(this::run, "SilenceEngine Metrics");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Starts exporting the metrics to a file. The lines are appended if the file exists.
+     *
+     * @param file     The file to write to.
+     * @param interval The time between the snapshots, in milliseconds.
+     *
+     * @return The exporter, which is already running.
+     */
+    public static MetricsExporter toFile(Path file, long interval)
+    {
+        return new MetricsExporter(file, null, 0, interval);
+    }
+
+    /**
+     * Starts exporting the metrics to a TCP socket, like one opened with {@code nc -lk 9090}.
+     *
+     * @param host     The host to connect to.
+     * @param port     The port to connect to.
+     * @param interval The time between the snapshots, in milliseconds.
+     *
+     * @return The exporter, which is already running.
+     */
+    public static MetricsExporter toSocket(String host, int port, long interval)
+    {
+        return new MetricsExporter(null, host, port, interval);
+    }
+
+    /**
+     * Stops the exporter, after writing one last snapshot.
+     */
+    public void close()
+    {
+        running = false;
+        thread.interrupt();
+
+        try
+        {
+            thread.join(interval + CONNECT_TIMEOUT);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run()
+    {
+        while (running)
+        {
+            try
+            {
+                Thread.sleep(interval);
+            }
+            catch (InterruptedException e)
+            {
+                // Closed, write the last snapshot and stop
+            }
+
+            export();
+        }
+
+        disconnect();
+    }
+
+    private void export()
+    {
+        format(Metrics.snapshot(snapshot));
+
+        try
+        {
+            if (writer == null)
+                connect();
+
+            writer.append(line);
+            writer.flush();
+        }
+        catch (IOException e)
+        {
+            // The snapshot is lost, the connection is tried again with the next one
+            if (file != null)
+                System.err.println("Unable to write the metrics to " + file + ": " + e);
+
+            disconnect();
+        }
+    }
+
+    private void connect() throws IOException
+    {
+        if (file != null)
+        {
+            writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            return;
+        }
+
+        socket = new Socket();
+        socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT);
+
+        writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+    }
+
+    private void disconnect()
+    {
+        try
+        {
+            if (writer != null)
+                writer.close();
+
+            if (socket != null)
+                socket.close();
+        }
+        catch (IOException e)
+        {
+            // Nothing more can be done with a broken connection
+        }
+
+        writer = null;
+        socket = null;
+    }
+
+    private void format(MetricsSnapshot snapshot)
+    {
+        line.setLength(0);
+        line.append("{\"time\":").append(System.currentTimeMillis());
+
+        line.append(",\"counters\":{");
+
+        for (int i = 0; i < snapshot.getCounterCount(); i++)
+        {
+            if (i > 0)
+                line.append(',');
+
+            appendName(snapshot.getCounterName(i));
+            line.append(":{\"value\":").append(snapshot.getCounterValue(i))
+                    .append(",\"delta\":").append(snapshot.getCounterDelta(i)).append('}');
+        }
+
+        line.append("},\"gauges\":{");
+
+        for (int i = 0; i < snapshot.getGaugeCount(); i++)
+        {
+            if (i > 0)
+                line.append(',');
+
+            appendName(snapshot.getGaugeName(i));
+            line.append(':').append(snapshot.getGaugeValue(i));
+        }
+
+        line.append("},\"histograms\":{");
+
+        for (int i = 0; i < snapshot.getHistogramCount(); i++)
+        {
+            if (i > 0)
+                line.append(',');
+
+            HistogramSnapshot histogram = snapshot.getHistogram(i);
+
+            appendName(snapshot.getHistogramName(i));
+            line.append(":{\"count\":").append(histogram.getCount())
+                    .append(",\"min\":").append(histogram.getMin())
+                    .append(",\"mean\":").append(histogram.getMean())
+                    .append(",\"p50\":").append(histogram.getMedian())
+                    .append(",\"p95\":").append(histogram.getValueAtPercentile(95))
+                    .append(",\"p99\":").append(histogram.getValueAtPercentile(99))
+                    .append(",\"max\":").append(histogram.getMax()).append('}');
+        }
+
+        line.append("}}\n");
+    }
+
+    private void appendName(String name)
+    {
+        line.append('"');
+
+        for (int i = 0; i < name.length(); i++)
+        {
+            char ch = name.charAt(i);
+
+            if (ch == '"' || ch == '\\')
+                line.append('\\');
+
+            line.append(ch);
+        }
+
+        line.append('"');
+    }
+}
@@ -0,0 +1,472 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.backend.lwjgl.logging;
+
+import com.shc.silenceengine.core.SilenceException;
+import com.shc.silenceengine.logging.ILogDevice;
+import com.shc.silenceengine.logging.Logger;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>A log device that writes the messages on a background thread. The loggers claim a slot in a ring buffer with a
+ * single compare and swap, copy the level, format and arguments of the message into it, and publish it. The writer
+ * thread formats the published messages into a reused record and writes it to all the sinks, flushing them when there
+ * is nothing left to write. Nothing is allocated to log a message with a format and fixed arguments, so the loggers
+ * can be used on the game thread without costing frame time.</p>
+ *
+ * <p>Only the immutable arguments, which are strings, boxed primitives and enums, are formatted by the writer. The
+ * other arguments, like a vector from a reusable stack, can change before the writer gets to them, so they are turned
+ * into strings on the thread that logs them.</p>
+ *
+ * <p>When the ring buffer is full, the messages are dropped instead of blocking the thread that logs them, and the
+ * number of the dropped messages is logged by the writer when it catches up. The writer is a daemon thread, and the
+ * device is closed by a shutdown hook, which writes the remaining messages and closes the sinks.</p>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class AsyncLogDevice implements ILogDevice
+{
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    static final int MESSAGES      = 0;
+    static final int FORMAT        = 1;
+    static final int FORMAT_LONG   = 2;
+    static final int FORMAT_DOUBLE = 3;
+
+    // How long the writer sleeps when there is nothing to write
+    private static final long IDLE_WAIT_NANOS = 1_000_000;
+
+    private final Slot[] slots;
+    private final int    mask;
+
+    // The next sequence to claim, and the next to write. The writer only writes the slots that are published.
+    private final    AtomicLong claimed = new AtomicLong();
+    private volatile long       consumed;
+    private volatile long       flushed;
+
+    private final AtomicLong overflowed = new AtomicLong();
+
+    private final Map<String, AsyncLogger> loggers = new ConcurrentHashMap<>();
+    private final AsyncLogger              rootLogger;
+
+    private final ILogSink[] sinks;
+    private final LogRecord  record = new LogRecord();
+    private final Thread     writer;
+
+    private volatile boolean running = true;
+
+    private Logger.Level level = Logger.Level.INFO;
+    private int          rateLimit;
+
+    public AsyncLogDevice(ILogSink... sinks)
+    {
+        this(DEFAULT_CAPACITY, sinks);
+    }
+
+    /**
+     * Creates a log device and starts its writer.
+     *
+     * @param capacity The number of messages that can wait to be written, which must be a power of two.
+     * @param sinks    The sinks to write the messages to.
+     */
+    public AsyncLogDevice(int capacity, ILogSink... sinks)
+    {
+        if (capacity <= 0 || (capacity & (capacity - 1)) != 0)
+            throw new SilenceException("The capacity of the log buffer must be a power of two");
+
+        slots = new Slot[capacity];
+        mask = capacity - 1;
+
+        for (int i = 0; i < capacity; i++)
+            slots[i] = new Slot();
+
+        this.sinks = sinks.clone();
+        rootLogger = (AsyncLogger) getLogger("SilenceEngine");
+
+        writer = new Thread(this::run, "SilenceEngine Log Writer");
+        writer.setDaemon(true);
+        writer.start();
+
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "SilenceEngine Log Shutdown"));
+    }
+
+    @Override
+    public Logger getLogger(String name)
+    {
+        return loggers.computeIfAbsent(name, key ->
+        {
+            AsyncLogger logger = new AsyncLogger(this, key);
+            logger.setLevel(level);
+            logger.setRateLimit(rateLimit);
+
+            return logger;
+        });
+    }
+
+    @Override
+    public Logger getRootLogger()
+    {
+        return rootLogger;
+    }
+
+    /**
+     * Sets the level of all the loggers, and of the loggers that are created later.
+     *
+     * @param level The lowest level of the messages that are logged.
+     */
+    public void setLevel(Logger.Level level)
+    {
+        this.level = level;
+
+        for (AsyncLogger logger : loggers.values())
+            logger.setLevel(level);
+    }
+
+    /**
+     * Sets the rate limit of all the loggers, and of the loggers that are created later.
+     *
+     * @param messagesPerSecond The number of messages allowed in a second for each logger, or zero for no limit.
+     */
+    public void setRateLimit(int messagesPerSecond)
+    {
+        rateLimit = messagesPerSecond;
+
+        for (AsyncLogger logger : loggers.values())
+            logger.setRateLimit(messagesPerSecond);
+    }
+
+    /**
+     * @return The number of messages that are waiting to be written.
+     */
+    public long getPendingCount()
+    {
+        return claimed.get() - consumed;
+    }
+
+    void enqueue(AsyncLogger logger, Logger.Level level, int kind, String format, Object arg1, Object arg2,
+                 int argCount, long longArg, double doubleArg, Object[] messages)
+    {
+        arg1 = snapshot(arg1);
+        arg2 = snapshot(arg2);
+        messages = snapshot(messages);
+
+        long sequence;
+
+        // Claim the next slot, unless the writer has not yet written the message that was last in it
+        while (true)
+        {
+            sequence = claimed.get();
+
+            if (!running || sequence - consumed >= slots.length)
+            {
+                overflowed.incrementAndGet();
+                return;
+            }
+
+            if (claimed.compareAndSet(sequence, sequence + 1))
+                break;
+        }
+
+        Slot slot = slots[(int) (sequence & mask)];
+
+        slot.logger = logger;
+        slot.level = level;
+        slot.kind = kind;
+        slot.format = format;
+        slot.arg1 = arg1;
+        slot.arg2 = arg2;
+        slot.argCount = argCount;
+        slot.longArg = longArg;
+        slot.doubleArg = doubleArg;
+        slot.messages = messages;
+        slot.threadName = Thread.currentThread().getName();
+        slot.timeMillis = System.currentTimeMillis();
+
+        // Publish the slot, the volatile write makes the fields above visible to the writer
+        slot.sequence = sequence;
+    }
+
+    private static Object snapshot(Object value)
+    {
+        if (value == null || value instanceof String || value instanceof Enum || value instanceof Integer ||
+            value instanceof Long || value instanceof Float || value instanceof Double || value instanceof Boolean ||
+            value instanceof Character || value instanceof Short || value instanceof Byte)
+            return value;
+
+        return String.valueOf(value);
+    }
+
+    private static Object[] snapshot(Object[] messages)
+    {
+        if (messages == null)
+            return null;
+
+        Object[] copy = null;
+
+        // The array is only copied if it has a mutable message, since the caller may still be using it
+        for (int i = 0; i < messages.length; i++)
+        {
+            Object message = snapshot(messages[i]);
+
+            if (message != messages[i] && copy == null)
+                copy = messages.clone();
+
+            if (copy != null)
+                copy[i] = message;
+        }
+
+        return copy == null ? messages : copy;
+    }
+
+    /**
+     * Waits until the messages that are logged before this call are written and the sinks are flushed.
+     */
+    public void flush()
+    {
+        long target = claimed.get();
+
+        while (flushed < target && writer.isAlive())
+        {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(IDLE_WAIT_NANOS / 10);
+        }
+    }
+
+    /**
+     * Stops the writer after it writes the remaining messages, and closes the sinks. The messages logged after this
+     * are dropped.
+     */
+    public synchronized void close()
+    {
+        if (!running)
+            return;
+
+        running = false;
+        LockSupport.unpark(writer);
+
+        try
+        {
+            writer.join();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run()
+    {
+        boolean dirty = false;
+
+        while (running)
+        {
+            if (drain())
+                dirty = true;
+            else
+            {
+                if (dirty)
+                {
+                    flushSinks();
+                    dirty = false;
+                }
+
+                flushed = consumed;
+                LockSupport.parkNanos(this, IDLE_WAIT_NANOS);
+            }
+        }
+
+        drain();
+        flushSinks();
+        flushed = consumed;
+
+        for (ILogSink sink : sinks)
+        {
+            try
+            {
+                sink.close();
+            }
+            catch (IOException e)
+            {
+                System.err.println("Unable to close the log sink " + sink + ": " + e);
+            }
+        }
+    }
+
+    /**
+     * Writes all the published messages in order.
+     *
+     * @return Whether any message was written.
+     */
+    private boolean drain()
+    {
+        boolean wrote = false;
+
+        while (true)
+        {
+            long next = consumed;
+            Slot slot = slots[(int) (next & mask)];
+
+            if (slot.sequence != next)
+                break;
+
+            try
+            {
+                write(slot);
+            }
+            catch (RuntimeException e)
+            {
+                System.err.println("Unable to format a log message of " + slot.logger.name + ": " + e);
+            }
+
+            slot.clear();
+            consumed = next + 1;
+            wrote = true;
+        }
+
+        long lost = overflowed.getAndSet(0);
+
+        if (lost > 0)
+        {
+            record.set(Logger.Level.WARNING, rootLogger.name, writer.getName(), System.currentTimeMillis())
+                    .append("Dropped ").append(lost).append(" messages as the log buffer was full");
+
+            writeRecord();
+            wrote = true;
+        }
+
+        return wrote;
+    }
+
+    private void write(Slot slot)
+    {
+        int dropped = slot.logger.takeDropped();
+
+        if (dropped > 0)
+        {
+            record.set(Logger.Level.WARNING, slot.logger.name, slot.threadName, slot.timeMillis)
+                    .append("Dropped ").append(dropped).append(" messages over the rate limit");
+
+            writeRecord();
+        }
+
+        switch (slot.kind)
+        {
+            case MESSAGES:
+                for (Object message : slot.messages)
+                {
+                    record.set(slot.level, slot.logger.name, slot.threadName, slot.timeMillis).append(message);
+                    writeRecord();
+                }
+                return;
+
+            case FORMAT:
+                StringBuilder message = record.set(slot.level, slot.logger.name, slot.threadName, slot.timeMillis);
+
+                if (slot.argCount == 1)
+                    Logger.format(message, slot.format, slot.arg1);
+                else
+                    Logger.format(message, slot.format, slot.arg1, slot.arg2);
+                break;
+
+            case FORMAT_LONG:
+                Logger.format(record.set(slot.level, slot.logger.name, slot.threadName, slot.timeMillis),
+                        slot.format, slot.longArg);
+                break;
+
+            case FORMAT_DOUBLE:
+                Logger.format(record.set(slot.level, slot.logger.name, slot.threadName, slot.timeMillis),
+                        slot.format, slot.doubleArg);
+                break;
+        }
+
+        writeRecord();
+    }
+
+    private void writeRecord()
+    {
+        for (ILogSink sink : sinks)
+        {
+            try
+            {
+                sink.write(record);
+            }
+            catch (IOException e)
+            {
+                System.err.println("Unable to write to the log sink " + sink + ": " + e);
+            }
+        }
+    }
+
+    private void flushSinks()
+    {
+        for (ILogSink sink : sinks)
+        {
+            try
+            {
+                sink.flush();
+            }
+            catch (IOException e)
+            {
+                System.err.println("Unable to flush the log sink " + sink + ": " + e);
+            }
+        }
+    }
+
+    /**
+     * A message in the ring buffer. The sequence is written last by the logger that claimed the slot, and tells the
+     * writer that the message in it is complete.
+     */
+    private static final class Slot
+    {
+        private volatile long sequence = -1;
+
+        private AsyncLogger  logger;
+        private Logger.Level level;
+        private int          kind;
+        private String       format;
+        private Object       arg1;
+        private Object       arg2;
+        private int          argCount;
+        private long         longArg;
+        private double       doubleArg;
+        private Object[]     messages;
+        private String       threadName;
+        private long         timeMillis;
+
+        void clear()
+        {
+            logger = null;
+            format = null;
+            arg1 = null;
+            arg2 = null;
+            messages = null;
+        }
+    }
+}
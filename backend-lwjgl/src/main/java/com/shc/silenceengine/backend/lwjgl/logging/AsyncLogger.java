@@ -0,0 +1,159 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.backend.lwjgl.logging;
+
+import com.shc.silenceengine.logging.Logger;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A logger that hands its messages to the writer thread of an {@link AsyncLogDevice}. The level is checked before
+ * anything else, and the messages with a format are copied as they are, to be formatted by the writer. A logger can
+ * also be limited to a number of messages in a second, and the messages over the limit are counted and reported by
+ * the writer instead of being written.
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class AsyncLogger extends Logger
+{
+    private final AsyncLogDevice device;
+
+    // The messages dropped over the rate limit since the writer last reported them
+    private final AtomicInteger dropped = new AtomicInteger();
+
+    // The rate limit is approximate when many threads log to the same logger, as the window is not synchronized
+    private int  rateLimit;
+    private int  windowCount;
+    private long windowStart;
+
+    AsyncLogger(AsyncLogDevice device, String name)
+    {
+        super(name);
+        this.device = device;
+    }
+
+    @Override
+    public void debug(Object... messages)
+    {
+        log(Level.DEBUG, messages);
+    }
+
+    @Override
+    public void info(Object... messages)
+    {
+        log(Level.INFO, messages);
+    }
+
+    @Override
+    public void warn(Object... messages)
+    {
+        log(Level.WARNING, messages);
+    }
+
+    @Override
+    public void error(Object... messages)
+    {
+        log(Level.ERROR, messages);
+    }
+
+    @Override
+    public void log(Level level, Object... messages)
+    {
+        if (isEnabled(level) && allow())
+            device.enqueue(this, level, AsyncLogDevice.MESSAGES, null, null, null, 0, 0, 0, messages);
+    }
+
+    @Override
+    public void log(Level level, String format, Object arg)
+    {
+        if (isEnabled(level) && allow())
+            device.enqueue(this, level, AsyncLogDevice.FORMAT, format, arg, null, 1, 0, 0, null);
+    }
+
+    @Override
+    public void log(Level level, String format, Object arg1, Object arg2)
+    {
+        if (isEnabled(level) && allow())
+            device.enqueue(this, level, AsyncLogDevice.FORMAT, format, arg1, arg2, 2, 0, 0, null);
+    }
+
+    @Override
+    public void log(Level level, String format, long arg)
+    {
+        if (isEnabled(level) && allow())
+            device.enqueue(this, level, AsyncLogDevice.FORMAT_LONG, format, null, null, 1, arg, 0, null);
+    }
+
+    @Override
+    public void log(Level level, String format, double arg)
+    {
+        if (isEnabled(level) && allow())
+            device.enqueue(this, level, AsyncLogDevice.FORMAT_DOUBLE, format, null, null, 1, 0, arg, null);
+    }
+
+    private boolean allow()
+    {
+        if (rateLimit <= 0)
+            return true;
+
+        long now = System.nanoTime();
+
+        if (now - windowStart >= 1_000_000_000L)
+        {
+            windowStart = now;
+            windowCount = 0;
+        }
+
+        if (windowCount < rateLimit)
+        {
+            windowCount++;
+            return true;
+        }
+
+        dropped.incrementAndGet();
+        return false;
+    }
+
+    int takeDropped()
+    {
+        return dropped.get() == 0 ? 0 : dropped.getAndSet(0);
+    }
+
+    public int getRateLimit()
+    {
+        return rateLimit;
+    }
+
+    /**
+     * Limits the number of messages this logger writes in a second. The messages over the limit are dropped, and the
+     * number of them is logged as a warning with the next message that is written.
+     *
+     * @param messagesPerSecond The number of messages allowed in a second, or zero to allow all of them.
+     */
+    public void setRateLimit(int messagesPerSecond)
+    {
+        rateLimit = messagesPerSecond;
+    }
+}
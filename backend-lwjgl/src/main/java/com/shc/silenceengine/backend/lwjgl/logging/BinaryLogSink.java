@@ -0,0 +1,150 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.backend.lwjgl.logging;
+
+import com.shc.silenceengine.core.SilenceException;
+import com.shc.silenceengine.logging.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * <p>Writes the records to a compact binary file, which is cheaper to write than text when a lot of messages are
+ * logged. The file starts with a magic number and a version, followed by the records. Each record is the time as a
+ * long, the ordinal of the level as a byte, and the logger, thread and message as strings, which are written as their
+ * length followed by their UTF-16 characters.</p>
+ *
+ * <p>The files are read back with {@link #replay(Path, ILogSink)}, which writes the records into another sink.</p>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class BinaryLogSink implements ILogSink
+{
+    public static final int MAGIC   = 0x53454C47;
+    public static final int VERSION = 1;
+
+    private final DataOutputStream stream;
+
+    public BinaryLogSink(Path file) throws IOException
+    {
+        stream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+        stream.writeInt(MAGIC);
+        stream.writeInt(VERSION);
+    }
+
+    /**
+     * Reads the records of a binary log file, and writes them into a sink.
+     *
+     * @param file The binary log file.
+     * @param sink The sink to write the records into. It is flushed after the records, but not closed.
+     *
+     * @throws IOException If the file cannot be read, or the sink fails.
+     */
+    public static void replay(Path file, ILogSink sink) throws IOException
+    {
+        Logger.Level[] levels = Logger.Level.values();
+        LogRecord record = new LogRecord();
+
+        try (DataInputStream stream = new DataInputStream(new BufferedInputStream(Files.newInputStream(file))))
+        {
+            if (stream.readInt() != MAGIC || stream.readInt() != VERSION)
+                throw new SilenceException("The file " + file + " is not a binary log of a known version");
+
+            while (true)
+            {
+                long time;
+
+                try
+                {
+                    time = stream.readLong();
+                }
+                catch (EOFException e)
+                {
+                    break;
+                }
+
+                Logger.Level level = levels[stream.readByte()];
+                String loggerName = readString(stream);
+                String threadName = readString(stream);
+
+                StringBuilder message = record.set(level, loggerName, threadName, time);
+                int length = stream.readInt();
+
+                for (int i = 0; i < length; i++)
+                    message.append(stream.readChar());
+
+                sink.write(record);
+            }
+        }
+
+        sink.flush();
+    }
+
+    private static String readString(DataInputStream stream) throws IOException
+    {
+        char[] chars = new char[stream.readInt()];
+
+        for (int i = 0; i < chars.length; i++)
+            chars[i] = stream.readChar();
+
+        return new String(chars);
+    }
+
+    @Override
+    public void write(LogRecord record) throws IOException
+    {
+        stream.writeLong(record.getTimeMillis());
+        stream.writeByte(record.getLevel().ordinal());
+        writeString(record.getLoggerName());
+        writeString(record.getThreadName());
+        writeString(record.getMessage());
+    }
+
+    private void writeString(CharSequence value) throws IOException
+    {
+        stream.writeInt(value.length());
+
+        for (int i = 0; i < value.length(); i++)
+            stream.writeChar(value.charAt(i));
+    }
+
+    @Override
+    public void flush() throws IOException
+    {
+        stream.flush();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        stream.close();
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.backend.lwjgl.logging;
+
+import java.io.PrintStream;
+
+/**
+ * Writes the records to the standard output, and the warnings and errors to the standard error, in the same format as
+ * the synchronous logger of the backend.
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class ConsoleLogSink implements ILogSink
+{
+    @Override
+    public void write(LogRecord record)
+    {
+        PrintStream stream;
+        String label;
+
+        switch (record.getLevel())
+        {
+            case DEBUG:
+                stream = System.out;
+                label = "] DEBUG: ";
+                break;
+
+            case INFO:
+                stream = System.out;
+                label = "] INFO: ";
+                break;
+
+            case WARNING:
+                stream = System.err;
+                label = "] WARN: ";
+                break;
+
+            default:
+                stream = System.err;
+                label = "] ERROR: ";
+                break;
+        }
+
+        stream.append('[').append(record.getLoggerName()).append(label).append(record.getMessage()).append('\n');
+    }
+
+    @Override
+    public void flush()
+    {
+        System.out.flush();
+        System.err.flush();
+    }
+
+    @Override
+    public void close()
+    {
+        flush();
+    }
+}
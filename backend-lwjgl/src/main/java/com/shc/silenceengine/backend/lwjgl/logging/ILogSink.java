@@ -0,0 +1,54 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.backend.lwjgl.logging;
+
+import java.io.IOException;
+
+/**
+ * A destination of the log records. The sinks are only called from the writer thread of the {@link AsyncLogDevice},
+ * so they don't have to be thread safe.
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public interface ILogSink
+{
+    /**
+     * Writes a record. The record is reused for the next one, so it must not be kept after this returns.
+     *
+     * @param record The record to write.
+     *
+     * @throws IOException If the record cannot be written.
+     */
+    void write(LogRecord record) throws IOException;
+
+    /**
+     * Flushes the records that are buffered. This is called when the writer runs out of the records to write.
+     *
+     * @throws IOException If the records cannot be flushed.
+     */
+    void flush() throws IOException;
+
+    void close() throws IOException;
+}
@@ -0,0 +1,118 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.backend.lwjgl.logging;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes the records to a file as JSON lines, one object per record with the time, level, logger, thread and message,
+ * which can be read by the log processing tools.
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class JsonLinesLogSink implements ILogSink
+{
+    private final Writer writer;
+
+    public JsonLinesLogSink(Path file) throws IOException
+    {
+        writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public void write(LogRecord record) throws IOException
+    {
+        writer.write("{\"time\":");
+        writer.write(Long.toString(record.getTimeMillis()));
+        writer.write(",\"level\":\"");
+        writer.write(record.getLevel().name());
+        writer.write("\",\"logger\":");
+        writeString(record.getLoggerName());
+        writer.write(",\"thread\":");
+        writeString(record.getThreadName());
+        writer.write(",\"message\":");
+        writeString(record.getMessage());
+        writer.write("}\n");
+    }
+
+    private void writeString(CharSequence value) throws IOException
+    {
+        writer.write('"');
+
+        for (int i = 0; i < value.length(); i++)
+        {
+            char ch = value.charAt(i);
+
+            switch (ch)
+            {
+                case '"':
+                    writer.write("\\\"");
+                    break;
+
+                case '\\':
+                    writer.write("\\\\");
+                    break;
+
+                case '\n':
+                    writer.write("\\n");
+                    break;
+
+                case '\r':
+                    writer.write("\\r");
+                    break;
+
+                case '\t':
+                    writer.write("\\t");
+                    break;
+
+                default:
+                    if (ch < 0x20)
+                        writer.write(String.format("\\u%04x", (int) ch));
+                    else
+                        writer.write(ch);
+            }
+        }
+
+        writer.write('"');
+    }
+
+    @Override
+    public void flush() throws IOException
+    {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        writer.close();
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.backend.lwjgl.logging;
+
+import com.shc.silenceengine.logging.Logger;
+
+/**
+ * A message that is written to the {@link ILogSink}s. The record is reused by the writer for every message, and is
+ * only valid while it is being written.
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public final class LogRecord
+{
+    private final StringBuilder message = new StringBuilder();
+
+    private Logger.Level level;
+    private String       loggerName;
+    private String       threadName;
+    private long         timeMillis;
+
+    LogRecord()
+    {
+    }
+
+    StringBuilder set(Logger.Level level, String loggerName, String threadName, long timeMillis)
+    {
+        this.level = level;
+        this.loggerName = loggerName;
+        this.threadName = threadName;
+        this.timeMillis = timeMillis;
+
+        message.setLength(0);
+        return message;
+    }
+
+    public Logger.Level getLevel()
+    {
+        return level;
+    }
+
+    public String getLoggerName()
+    {
+        return loggerName;
+    }
+
+    public String getThreadName()
+    {
+        return threadName;
+    }
+
+    /**
+     * @return The time the message was logged, in milliseconds since the epoch.
+     */
+    public long getTimeMillis()
+    {
+        return timeMillis;
+    }
+
+    public CharSequence getMessage()
+    {
+        return message;
+    }
+}
@@ -86,9 +86,9 @@ public class OggReader
 
         format = channels == 1 ? ALFormat.MONO_16 : ALFormat.STEREO_16;
 
-        // Read all the samples once for all
+        // Read all the samples once for all, the length is the number of samples in each channel
         int numSamples = stb_vorbis_stream_length_in_samples(handle);
-        ByteBuffer pcm = BufferUtils.createByteBuffer(numSamples * Short.BYTES);
+        ByteBuffer pcm = BufferUtils.createByteBuffer(numSamples * channels * Short.BYTES);
         stb_vorbis_get_samples_short_interleaved(handle, channels, pcm.asShortBuffer());
 
         // Convert the audio bytes and store the data buffer
@@ -0,0 +1,136 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.backend.lwjgl.soundreaders;
+
+import com.shc.silenceengine.audio.IAudioStream;
+import com.shc.silenceengine.audio.openal.ALFormat;
+import com.shc.silenceengine.core.SilenceException;
+import com.shc.silenceengine.io.DirectBuffer;
+import org.lwjgl.BufferUtils;
+import org.lwjgl.stb.STBVorbisInfo;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
+import static org.lwjgl.stb.STBVorbis.*;
+import static org.lwjgl.system.MemoryUtil.*;
+
+/**
+ * <p>An audio stream that decodes an OGG audio file with STB Vorbis a little at a time. Unlike the {@link OggReader},
+ * this never holds all the samples of the file, so it is best suited for long sounds like music. The encoded data is
+ * read from memory, and must not be freed while the stream is open.</p>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class OggStream implements IAudioStream
+{
+    // Keeps the encoded data reachable, since STB Vorbis reads from it while decoding
+    private DirectBuffer encoded;
+
+    private long handle;
+
+    private int      channels;
+    private int      sampleRate;
+    private ALFormat format;
+
+    /**
+     * Opens an OGG stream to decode from a DirectBuffer.
+     *
+     * @param directBuffer Direct buffer to decode the data from
+     */
+    public OggStream(DirectBuffer directBuffer)
+    {
+        encoded = directBuffer;
+
+        IntBuffer error = BufferUtils.createIntBuffer(1);
+        handle = stb_vorbis_open_memory((ByteBuffer) directBuffer.nativeBuffer(), error, null);
+
+        if (handle == NULL)
+            throw new SilenceException("Error " + error.get(0) + ": decoding the OGG data");
+
+        STBVorbisInfo info = STBVorbisInfo.malloc();
+        stb_vorbis_get_info(handle, info);
+
+        channels = info.channels();
+        sampleRate = info.sample_rate();
+
+        info.free();
+
+        format = channels == 1 ? ALFormat.MONO_16 : ALFormat.STEREO_16;
+    }
+
+    @Override
+    public ALFormat getFormat()
+    {
+        return format;
+    }
+
+    @Override
+    public int getSampleRate()
+    {
+        return sampleRate;
+    }
+
+    @Override
+    public int read(DirectBuffer dest, int offset)
+    {
+        // Only whole samples of all the channels fit in the buffer
+        int capacity = (dest.sizeBytes() - offset) / Short.BYTES;
+        capacity -= capacity % channels;
+
+        ByteBuffer buffer = (ByteBuffer) dest.nativeBuffer();
+        ShortBuffer samples = memShortBuffer(memAddress(buffer) + offset, capacity);
+
+        while (samples.hasRemaining())
+        {
+            int read = stb_vorbis_get_samples_short_interleaved(handle, channels, samples);
+
+            if (read == 0)
+                break;
+
+            samples.position(samples.position() + read * channels);
+        }
+
+        return samples.position() * Short.BYTES;
+    }
+
+    @Override
+    public void rewind()
+    {
+        stb_vorbis_seek_start(handle);
+    }
+
+    @Override
+    public void dispose()
+    {
+        if (handle == NULL)
+            return;
+
+        stb_vorbis_close(handle);
+        handle = NULL;
+        encoded = null;
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.backend.lwjgl;
+
+import com.shc.silenceengine.math.GeometryKernels;
+import com.shc.silenceengine.math.Matrix4;
+import com.shc.silenceengine.math.Vector2;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * <p>The {@link GeometryKernels} implemented with the vector API of the JDK, which compiles to the SIMD instructions
+ * of the processor. This class is compiled only with a JDK that has the {@code jdk.incubator.vector} module, and the
+ * {@link LwjglRuntime} installs it only if the module is available at runtime, that is, when the game is started with
+ * {@code --add-modules jdk.incubator.vector}.</p>
+ *
+ * <p>The points in two dimensions are processed in place, since a vector holds whole points, and the points that are
+ * left over after the last full vector are handled by the scalar implementation. The boxes are tested against all the
+ * planes at once, with one plane in each lane. The points in three dimensions are left to the scalar implementation,
+ * since their stride does not fit in the lanes without gathering them, which is barely faster. So are the spheres,
+ * where the scalar test gives up at the first plane they are behind, and keeps up with the vector one.</p>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class LwjglVectorKernels extends GeometryKernels
+{
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    private static final int LANES = SPECIES.length();
+
+    // Swaps the X and the Y of every point, and selects the Y lanes
+    private static final VectorShuffle<Float> SWAP = VectorShuffle.fromOp(SPECIES, i -> i ^ 1);
+    private static final VectorMask<Float>    ODD  = VectorMask.fromLong(SPECIES, 0xAAAAAAAAAAAAAAAAL);
+
+    // The planes are tested all at once, one in each lane, which is enough for the six planes of a frustum
+    private static final VectorSpecies<Float> PLANE_SPECIES = FloatVector.SPECIES_256;
+
+    private static final int PLANE_LANES = PLANE_SPECIES.length();
+
+    @Override
+    public void transformPoints2(Matrix4 m, float[] src, int srcOffset, float[] dest, int destOffset, int count)
+    {
+        float[] a = m.m;
+
+        FloatVector colX = FloatVector.broadcast(SPECIES, a[0]).blend(a[5], ODD);
+        FloatVector colY = FloatVector.broadcast(SPECIES, a[4]).blend(a[1], ODD);
+        FloatVector translation = FloatVector.broadcast(SPECIES, a[12]).blend(a[13], ODD);
+
+        int bound = SPECIES.loopBound(count * POINT2_SIZE);
+        int i = 0;
+
+        for (; i < bound; i += LANES)
+        {
+            FloatVector v = FloatVector.fromArray(SPECIES, src, srcOffset + i);
+            FloatVector swapped = v.rearrange(SWAP);
+
+            v.fma(colX, swapped.fma(colY, translation)).intoArray(dest, destOffset + i);
+        }
+
+        super.transformPoints2(m, src, srcOffset + i, dest, destOffset + i, count - i / POINT2_SIZE);
+    }
+
+    @Override
+    public Vector2 projectPoints2(float[] points, int offset, int count, float axisX, float axisY, Vector2 dest)
+    {
+        int bound = SPECIES.loopBound(count * POINT2_SIZE);
+
+        if (bound == 0)
+            return super.projectPoints2(points, offset, count, axisX, axisY, dest);
+
+        FloatVector axis = FloatVector.broadcast(SPECIES, axisX).blend(axisY, ODD);
+        FloatVector min = FloatVector.broadcast(SPECIES, Float.MAX_VALUE);
+        FloatVector max = FloatVector.broadcast(SPECIES, -Float.MAX_VALUE);
+
+        for (int i = 0; i < bound; i += LANES)
+        {
+            FloatVector products = FloatVector.fromArray(SPECIES, points, offset + i).mul(axis);
+
+            // Both the lanes of a point get its dot product, which does not change the minimum or the maximum
+            FloatVector dots = products.add(products.rearrange(SWAP));
+
+            min = min.min(dots);
+            max = max.max(dots);
+        }
+
+        float minimum = min.reduceLanes(VectorOperators.MIN);
+        float maximum = max.reduceLanes(VectorOperators.MAX);
+
+        if (bound < count * POINT2_SIZE)
+        {
+            super.projectPoints2(points, offset + bound, count - bound / POINT2_SIZE, axisX, axisY, dest);
+
+            minimum = Math.min(minimum, dest.x);
+            maximum = Math.max(maximum, dest.y);
+        }
+
+        return dest.set(minimum, maximum);
+    }
+
+    @Override
+    public int testAABBs(float[] planes, int planeCount, float[] boxes, int offset, int count, boolean[] visible)
+    {
+        if (planeCount > PLANE_LANES)
+            return super.testAABBs(planes, planeCount, boxes, offset, count, visible);
+
+        FloatVector[] p = loadPlanes(planes, planeCount);
+        FloatVector nx = p[0], ny = p[1], nz = p[2], d = p[3];
+        FloatVector ax = nx.abs(), ay = ny.abs(), az = nz.abs();
+
+        VectorMask<Float> used = PLANE_SPECIES.indexInRange(0, planeCount);
+        int numVisible = 0;
+
+        for (int i = 0; i < count; i++)
+        {
+            int b = offset + i * AABB_SIZE;
+
+            // The distance of the corner that is farthest along the normal, from every plane at once
+            FloatVector distance = nx.mul(boxes[b]).add(d).add(ny.mul(boxes[b + 1])).add(nz.mul(boxes[b + 2]))
+                    .add(ax.mul(boxes[b + 3])).add(ay.mul(boxes[b + 4])).add(az.mul(boxes[b + 5]));
+
+            visible[i] = !distance.compare(VectorOperators.LT, 0, used).anyTrue();
+
+            if (visible[i])
+                numVisible++;
+        }
+
+        return numVisible;
+    }
+
+    // Transposes the planes into one vector for each of their components, one plane in each lane
+    private static FloatVector[] loadPlanes(float[] planes, int planeCount)
+    {
+        float[][] components = new float[PLANE_SIZE][PLANE_LANES];
+
+        for (int i = 0; i < planeCount; i++)
+            for (int c = 0; c < PLANE_SIZE; c++)
+                components[c][i] = planes[i * PLANE_SIZE + c];
+
+        FloatVector[] vectors = new FloatVector[PLANE_SIZE];
+
+        for (int c = 0; c < PLANE_SIZE; c++)
+            vectors[c] = FloatVector.fromArray(PLANE_SPECIES, components[c], 0);
+
+        return vectors;
+    }
+}
@@ -26,6 +26,7 @@ package com.shc.silenceengine.audio;
 
 import com.shc.silenceengine.audio.openal.ALBuffer;
 import com.shc.silenceengine.core.SilenceEngine;
+import com.shc.silenceengine.core.SilenceException;
 import com.shc.silenceengine.io.DirectBuffer;
 import com.shc.silenceengine.utils.functional.Promise;
 import com.shc.silenceengine.utils.functional.UniCallback;
@@ -47,6 +48,33 @@ public abstract class AudioDevice
 
     public abstract void alBufferData(int id, int format, DirectBuffer data, int frequency);
 
+    /**
+     * Uploads only the first bytes of a buffer of samples into an OpenAL buffer. The backends that can upload a part of
+     * a buffer without copying it should override this method.
+     *
+     * @param id        The ID of the OpenAL buffer.
+     * @param format    The OpenAL format of the samples.
+     * @param data      The buffer containing the samples.
+     * @param sizeBytes The number of bytes to upload from the start of the data.
+     * @param frequency The frequency of the samples in Hz.
+     */
+    public void alBufferData(int id, int format, DirectBuffer data, int sizeBytes, int frequency)
+    {
+        if (sizeBytes == data.sizeBytes())
+        {
+            alBufferData(id, format, data, frequency);
+            return;
+        }
+
+        DirectBuffer part = DirectBuffer.create(sizeBytes);
+
+        for (int i = 0; i < sizeBytes; i++)
+            part.writeByte(i, data.readByte(i));
+
+        alBufferData(id, format, part, frequency);
+        DirectBuffer.free(part);
+    }
+
     public abstract void alDeleteBuffers(int... buffers);
 
     public abstract int alGetError();
@@ -71,6 +99,78 @@ public abstract class AudioDevice
 
     public abstract void alDeleteSources(int... sources);
 
+    /**
+     * Appends a buffer to the queue of buffers played by a source. Only the backends that can stream audio implement
+     * the queues.
+     *
+     * @param id     The ID of the OpenAL source.
+     * @param buffer The ID of the OpenAL buffer.
+     */
+    public void alSourceQueueBuffers(int id, int buffer)
+    {
+        throw new SilenceException("Queueing buffers is not supported on this platform");
+    }
+
+    /**
+     * Removes the first buffer from the queue of buffers played by a source. The buffer must have been processed.
+     *
+     * @param id The ID of the OpenAL source.
+     *
+     * @return The ID of the removed OpenAL buffer.
+     */
+    public int alSourceUnqueueBuffers(int id)
+    {
+        throw new SilenceException("Queueing buffers is not supported on this platform");
+    }
+
+    /**
+     * Opens a stream that decodes the samples of a sound a little at a time. The encoded data is read from as long as
+     * the stream is open, so it must not be freed before disposing the stream.
+     *
+     * @param format  The format of the encoded data.
+     * @param data    The encoded data.
+     * @param onOpen  The callback to receive the stream.
+     * @param onError The callback to receive the errors.
+     */
+    public void openStream(AudioFormat format, DirectBuffer data, UniCallback<IAudioStream> onOpen, UniCallback<Throwable> onError)
+    {
+        onError.invoke(new SilenceException("Streaming audio is not supported on this platform"));
+    }
+
+    /**
+     * @param format The format of the encoded data.
+     *
+     * @return Whether sounds of a format can be streamed on this platform.
+     */
+    public boolean isStreamingSupported(AudioFormat format)
+    {
+        return false;
+    }
+
+    public void readToSound(AudioFormat format, DirectBuffer data, boolean stream, UniCallback<Sound> onDecoded)
+    {
+        readToSound(format, data, stream, onDecoded, SilenceEngine.log.getRootLogger()::error);
+    }
+
+    /**
+     * Reads a sound from its encoded data. Streamed sounds are decoded while they are playing, so they start at once
+     * and use a few hundred kilobytes of memory instead of holding all of their samples. This is best for long sounds
+     * like music. When streaming is not supported for the format, the sound is decoded completely instead.
+     *
+     * @param format    The format of the encoded data.
+     * @param data      The encoded data. It must not be freed while a streamed sound is in use.
+     * @param stream    Whether the sound should be streamed.
+     * @param onDecoded The callback to receive the sound.
+     * @param onError   The callback to receive the errors.
+     */
+    public void readToSound(AudioFormat format, DirectBuffer data, boolean stream, UniCallback<Sound> onDecoded, UniCallback<Throwable> onError)
+    {
+        if (stream && isStreamingSupported(format))
+            openStream(format, data, audioStream -> onDecoded.invoke(new Sound(audioStream)), onError);
+        else
+            readToALBuffer(format, data, buffer -> onDecoded.invoke(new Sound(buffer)), onError);
+    }
+
     public Promise<ALBuffer> readToALBuffer(AudioFormat format, DirectBuffer data)
     {
         return new Promise<>((resolve, reject) -> readToALBuffer(format, data, resolve, reject));
@@ -85,6 +185,32 @@ public abstract class AudioDevice
 
     public abstract boolean isSupported(AudioFormat format);
 
+    /**
+     * Decodes a sound into its samples on the calling thread, without touching the audio context. This is what the
+     * {@link PCMCache} uses to decode sounds on the worker threads. The backends that can decode the sounds themselves
+     * should override this, along with {@link #isPCMDecodingSupported(AudioFormat)}.
+     *
+     * @param format    The format of the encoded data.
+     * @param data      The encoded data.
+     * @param onDecoded The callback to receive the samples.
+     * @param onError   The callback to receive the errors.
+     */
+    public void decodeToPCM(AudioFormat format, DirectBuffer data, UniCallback<PCMData> onDecoded, UniCallback<Throwable> onError)
+    {
+        onError.invoke(new SilenceException("Decoding audio to PCM is not supported on this platform"));
+    }
+
+    /**
+     * @param format The format of the encoded data.
+     *
+     * @return Whether sounds of a format can be decoded with {@link #decodeToPCM(AudioFormat, DirectBuffer,
+     * UniCallback, UniCallback)}.
+     */
+    public boolean isPCMDecodingSupported(AudioFormat format)
+    {
+        return false;
+    }
+
     /**
      * The format of the audio. This represents the File Format, and not the format used to store the sound in memory.
      */
@@ -171,6 +297,9 @@ public abstract class AudioDevice
                 AL_BUFFER           = 0x1009,
                 AL_SOURCE_STATE     = 0x1010,
                 AL_CONE_OUTER_GAIN  = 0x1022,
+                AL_SEC_OFFSET       = 0x1024,
+                AL_SAMPLE_OFFSET    = 0x1025,
+                AL_BYTE_OFFSET      = 0x1026,
                 AL_SOURCE_TYPE      = 0x1027;
 
         /**
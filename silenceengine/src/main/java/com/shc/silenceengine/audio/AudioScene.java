@@ -26,10 +26,15 @@ package com.shc.silenceengine.audio;
 
 import com.shc.silenceengine.audio.openal.ALSource;
 import com.shc.silenceengine.core.SilenceEngine;
-import com.shc.silenceengine.utils.ReusableStack;
+import com.shc.silenceengine.core.metrics.Counter;
+import com.shc.silenceengine.core.metrics.Gauge;
+import com.shc.silenceengine.core.metrics.Metrics;
+import com.shc.silenceengine.math.Vector3;
+import com.shc.silenceengine.utils.ScratchPool;
 
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 import static com.shc.silenceengine.audio.AudioDevice.Constants.*;
@@ -39,26 +44,71 @@ import static com.shc.silenceengine.audio.AudioDevice.Constants.*;
  * and also updates the position, direction and velocity of the updated sources. It acts like a master of all sounds.
  * </p>
  *
+ * <p>Every sound that is played gets a voice. Only a limited number of voices, set with {@link #setMaxVoices(int)},
+ * are given an OpenAL source and are actually heard, since the OpenAL implementations can only mix a few hundred
+ * sources. These are the voices of the sounds with the highest {@link Sound#priority}, and among them, the ones that
+ * are closest to the listener at the origin. The other voices are virtual, they keep track of the time they have
+ * played without holding a source, and continue from there when they get a source again. Voices that are farther than
+ * the {@link #setMaxDistance(float) max distance} are always virtual.</p>
+ *
+ * <p>Streamed sounds are never virtualized once they are heard, since a stream cannot skip ahead without decoding, and
+ * they count against the max voices for as long as they hold their sources. A stream that is played while it cannot be
+ * heard waits for a source, and starts from the beginning when it gets one.</p>
+ *
+ * <p>The properties of the updated sources are sent to OpenAL once per frame, and only the ones that have changed since
+ * they were last sent. The state of the sources is not queried every frame either, the voices of the sounds with a
+ * known length are only checked once they should have ended, and the others every few frames, set with {@link
+ * #setStatePollInterval(int)}. The number of OpenAL calls made in the last frame is given by {@link
+ * #getALCallsLastFrame()}.</p>
+ *
  * @author Sri Harsha Chilakapati
  */
 public final class AudioScene
 {
-    private ReusableStack<ALSource>      sourcesPool;
-    private ReusableStack<PlayingSource> playingSourcesPool;
+    private static final Gauge   VOICES         = Metrics.gauge("audio.voices");
+    private static final Gauge   SOURCES        = Metrics.gauge("audio.sources");
+    private static final Gauge   POOLED_SOURCES = Metrics.gauge("audio.pooledSources");
+    private static final Gauge   PCM_CACHE      = Metrics.gauge("audio.pcmCacheBytes");
+    private static final Counter AL_CALLS       = Metrics.counter("audio.alCalls");
 
-    private Map<PlayingSource, AudioSource> playingSources;
+    // The sources are only ever used on the update thread, so they don't need the thread confined stacks
+    private ScratchPool<ALSource> sourcesPool;
+    private ScratchPool<Voice>    voicesPool;
+
+    // All the voices that are playing, real or virtual, and the same voices indexed by their sounds and sources
+    private List<Voice>                   voices;
+    private Map<Sound, List<Voice>>       voicesBySound;
+    private Map<AudioSource, List<Voice>> voicesBySource;
+
+    // The voices in the order they should get the sources, reused every frame
+    private List<Voice> ranking;
 
     private AudioSource defaultAudioSource;
 
+    private int   maxVoices   = 32;
+    private int   realVoices  = 0;
+    private float maxDistance = Float.POSITIVE_INFINITY;
+    private long  nextOrder   = 0;
+
+    private int  statePollInterval = 4;
+    private long frame             = 0;
+
+    private int alCallsLastFrame = 0;
+    private int alCallCount      = 0;
+
     /**
      * Prevent instantiation by users. Should only be used via {@code SilenceEngine.audio.scene}
      */
     AudioScene()
     {
-        sourcesPool = new ReusableStack<>(ALSource::new);
-        playingSourcesPool = new ReusableStack<>(PlayingSource::new);
+        sourcesPool = new ScratchPool<>(ALSource::new);
+        voicesPool = new ScratchPool<>(Voice::new);
+
+        voices = new ArrayList<>();
+        voicesBySound = new HashMap<>();
+        voicesBySource = new HashMap<>();
+        ranking = new ArrayList<>();
 
-        playingSources = new HashMap<>();
         defaultAudioSource = new AudioSource();
 
         SilenceEngine.eventManager.addDisposeHandler(this::cleanUp);
@@ -66,18 +116,101 @@ public final class AudioScene
     }
 
     /**
-     * Stops all the sources and makes sure that no sound is playing from the game. This method does not stop the static
-     * sounds of course because static sounds do not have a source attached.
+     * Sets the number of voices that can be heard at the same time, each of which holds an OpenAL source. The other
+     * voices are virtualized until a source is free for them.
+     *
+     * @param maxVoices The number of voices, at least one.
+     */
+    public void setMaxVoices(int maxVoices)
+    {
+        this.maxVoices = Math.max(1, maxVoices);
+        rebalance();
+    }
+
+    public int getMaxVoices()
+    {
+        return maxVoices;
+    }
+
+    /**
+     * Sets the distance from the listener after which the voices are not heard, and are virtualized.
+     *
+     * @param maxDistance The distance, or infinity to never cull the voices by their distance.
+     */
+    public void setMaxDistance(float maxDistance)
+    {
+        this.maxDistance = maxDistance;
+        rebalance();
+    }
+
+    public float getMaxDistance()
+    {
+        return maxDistance;
+    }
+
+    /**
+     * Sets the number of frames between the queries of the state of the voices whose length is not known. The voices are
+     * spread over these frames, so that only a few of them are queried in each frame. The voices of the sounds with a
+     * known length are only queried once they should have finished.
+     *
+     * @param statePollInterval The number of frames, at least one to query them every frame.
+     */
+    public void setStatePollInterval(int statePollInterval)
+    {
+        this.statePollInterval = Math.max(1, statePollInterval);
+    }
+
+    public int getStatePollInterval()
+    {
+        return statePollInterval;
+    }
+
+    /**
+     * @return The number of OpenAL calls made on the sources in the last frame, including the sounds that were played
+     * and stopped since the frame before.
+     */
+    public int getALCallsLastFrame()
+    {
+        return alCallsLastFrame;
+    }
+
+    /**
+     * @return The number of voices that are playing, including the virtual ones.
+     */
+    public int getVoiceCount()
+    {
+        return voices.size();
+    }
+
+    /**
+     * @return The number of voices that are heard, each holding an OpenAL source.
+     */
+    public int getRealVoiceCount()
+    {
+        return realVoices;
+    }
+
+    /**
+     * Stops all the sources and makes sure that no sound is playing from the game.
      */
     public void stopAllSources()
     {
-        for (PlayingSource source : playingSources.keySet())
-        {
-            source.alSource.stop();
-            sourcesPool.push(source.alSource);
-        }
+        while (!voices.isEmpty())
+            remove(voices.get(voices.size() - 1));
+    }
 
-        playingSources.clear();
+    /**
+     * Stops a sound in all the sources at once, and detaches it from them. This is used to dispose the buffers of the
+     * streamed sounds, which cannot be deleted while they are queued on a source.
+     *
+     * @param sound The sound to release.
+     */
+    void release(Sound sound)
+    {
+        List<Voice> list = voicesBySound.get(sound);
+
+        while (list != null && !list.isEmpty())
+            remove(list.get(list.size() - 1));
     }
 
     private void cleanUp()
@@ -89,40 +222,252 @@ public final class AudioScene
 
     private void updateSources(float deltaTime)
     {
-        Iterator<PlayingSource> iterator = playingSources.keySet().iterator();
+        frame++;
+
+        for (int i = voices.size() - 1; i >= 0; i--)
+        {
+            Voice voice = voices.get(i);
+            voice.time += deltaTime;
+
+            if (isFinished(voice))
+                remove(voice);
+        }
+
+        for (Map.Entry<AudioSource, List<Voice>> entry : voicesBySource.entrySet())
+        {
+            AudioSource audioSource = entry.getKey();
+
+            if (!audioSource.updated)
+                continue;
+
+            // The sources are moved while they are playing, pausing them to do so is heard as a stutter
+            for (Voice voice : entry.getValue())
+                if (voice.alSource != null)
+                    sendParameters(voice, false);
+
+            audioSource.updated = false;
+        }
+
+        rebalance();
+
+        int calls = ALSource.getCallCount();
+        alCallsLastFrame = calls - alCallCount;
+        alCallCount = calls;
+
+        VOICES.set(voices.size());
+        SOURCES.set(realVoices);
+        POOLED_SOURCES.set(sourcesPool.getAsList().size());
+        PCM_CACHE.set(PCMCache.getUsage());
+        AL_CALLS.add(alCallsLastFrame);
+    }
+
+    /**
+     * Sends the spatial properties of the source of a voice to its OpenAL source, skipping the ones that are the same as
+     * what was last sent.
+     *
+     * @param voice The voice, which should be real.
+     * @param all   Whether to send all the properties, even if they are not changed.
+     */
+    private static void sendParameters(Voice voice, boolean all)
+    {
+        ALSource alSource = voice.alSource;
+        AudioSource source = voice.source;
 
-        while (iterator.hasNext())
+        if (all || !voice.position.equals(source.position))
         {
-            PlayingSource playingSource = iterator.next();
-            ALSource source = playingSource.alSource;
-            AudioSource audioSource = playingSources.get(playingSource);
+            alSource.setParameter(AL_POSITION, source.position);
+            voice.position.set(source.position);
+        }
 
-            ALSource.State state = source.getState();
+        if (all || !voice.velocity.equals(source.velocity))
+        {
+            alSource.setParameter(AL_VELOCITY, source.velocity);
+            voice.velocity.set(source.velocity);
+        }
+
+        if (all || !voice.direction.equals(source.direction))
+        {
+            alSource.setParameter(AL_DIRECTION, source.direction);
+            voice.direction.set(source.direction);
+        }
+    }
 
-            if (state != ALSource.State.PLAYING &&
-                state != ALSource.State.LOOPING)
-            {
-                source.attachBuffer(null);
+    private boolean isFinished(Voice voice)
+    {
+        if (voice.stopped)
+            return true;
 
-                iterator.remove();
-                sourcesPool.push(source);
-                playingSourcesPool.push(playingSource);
+        // Streamed sounds are stopped while they are waiting for the samples, so they are only finished when the
+        // whole stream has been played. A stream cannot skip ahead, so a virtual one waits for a source to start.
+        if (voice.sound.streamer != null)
+            return voice.alSource != null && !voice.sound.streamer.update();
+
+        float duration = voice.sound.buffer.getDuration();
+
+        if (voice.alSource != null)
+        {
+            // A sound of known length cannot end before its time, and never ends when looping
+            if (duration > 0 ? voice.loop || voice.time < duration : (frame + voice.order) % statePollInterval != 0)
+                return false;
+
+            return voice.alSource.getParameter(AL_SOURCE_STATE) != AL_PLAYING;
+        }
 
+        // Virtual voices end when their time is up, or immediately if the length of the sound is not known
+        return !voice.loop && voice.time >= duration;
+    }
+
+    /**
+     * Gives the sources to the voices that should be heard the most, virtualizing the others.
+     */
+    private void rebalance()
+    {
+        ranking.clear();
+
+        for (Voice voice : voices)
+        {
+            voice.distance = voice.source.position.length();
+            ranking.add(voice);
+        }
+
+        ranking.sort(AudioScene::compareVoices);
+
+        // The streams that are heard keep their sources, so they take their share of the voices before the others
+        int audible = 0;
+
+        for (Voice voice : ranking)
+        {
+            voice.heard = isRealStream(voice);
+
+            if (voice.heard)
+                audible++;
+        }
+
+        // Free the sources first, so that they can be reused by the voices that become real
+        for (Voice voice : ranking)
+        {
+            if (isRealStream(voice))
                 continue;
-            }
 
-            if (audioSource.updated)
-            {
-                source.pause();
+            voice.heard = audible < maxVoices && voice.distance <= maxDistance;
+
+            if (voice.heard)
+                audible++;
+            else if (voice.alSource != null)
+                virtualize(voice);
+        }
+
+        for (Voice voice : ranking)
+        {
+            if (voice.heard && voice.alSource == null)
+                realize(voice);
+        }
+    }
+
+    private static boolean isRealStream(Voice voice)
+    {
+        return voice.alSource != null && voice.sound.streamer != null;
+    }
+
+    /*
+     * Voices with a higher priority come first, and then the ones that are closer. Among equals, the voices that are
+     * already playing keep their sources, so that they don't keep switching with the new ones.
+     */
+    private static int compareVoices(Voice a, Voice b)
+    {
+        if (a.sound.priority != b.sound.priority)
+            return Integer.compare(b.sound.priority, a.sound.priority);
+
+        if (a.distance != b.distance)
+            return Float.compare(a.distance, b.distance);
 
-                source.setParameter(AL_POSITION, audioSource.position);
-                source.setParameter(AL_VELOCITY, audioSource.velocity);
-                source.setParameter(AL_DIRECTION, audioSource.direction);
+        return Long.compare(a.order, b.order);
+    }
+
+    private void realize(Voice voice)
+    {
+        ALSource alSource = sourcesPool.pop();
+
+        // The pooled source still has the properties of the voice that used it last
+        voice.alSource = alSource;
+        sendParameters(voice, true);
+        realVoices++;
 
-                audioSource.updated = false;
-                source.play();
-            }
+        if (voice.sound.streamer != null)
+        {
+            voice.sound.streamer.start(alSource, voice.loop);
+            return;
         }
+
+        alSource.attachBuffer(voice.sound.buffer);
+        alSource.setParameter(AL_LOOPING, voice.loop);
+
+        // Continue from where the voice would have been if it was never virtual
+        float duration = voice.sound.buffer.getDuration();
+
+        if (voice.time > 0 && duration > 0)
+        {
+            float offset = voice.loop ? voice.time % duration : Math.min(voice.time, duration);
+            alSource.setParameter(AL_SAMPLE_OFFSET, (int) (offset * voice.sound.buffer.getFrequency()));
+        }
+
+        alSource.play();
+    }
+
+    private void virtualize(Voice voice)
+    {
+        ALSource alSource = voice.alSource;
+
+        alSource.stop();
+        alSource.attachBuffer(null);
+
+        if (voice.sound.streamer != null)
+            voice.sound.streamer.stop();
+
+        sourcesPool.push(alSource);
+        voice.alSource = null;
+        realVoices--;
+    }
+
+    private void remove(Voice voice)
+    {
+        if (voice.alSource != null)
+            virtualize(voice);
+
+        // The voices are not kept in any order, so the last one takes the place of the removed one
+        Voice last = voices.remove(voices.size() - 1);
+
+        if (last != voice)
+        {
+            voices.set(voice.index, last);
+            last.index = voice.index;
+        }
+
+        removeFromIndex(voicesBySound, voice.sound, voice);
+        removeFromIndex(voicesBySource, voice.source, voice);
+
+        voice.sound = null;
+        voice.source = null;
+        voicesPool.push(voice);
+    }
+
+    private static <K> void addToIndex(Map<K, List<Voice>> index, K key, Voice voice)
+    {
+        List<Voice> list = index.get(key);
+
+        if (list == null)
+            index.put(key, list = new ArrayList<>());
+
+        list.add(voice);
+    }
+
+    private static <K> void removeFromIndex(Map<K, List<Voice>> index, K key, Voice voice)
+    {
+        List<Voice> list = index.get(key);
+        list.remove(voice);
+
+        if (list.isEmpty())
+            index.remove(key);
     }
 
     /**
@@ -160,7 +505,8 @@ public final class AudioScene
 
     /**
      * Plays a sound through a specified AudioSource, optionally allowing you to loop the sound. The AudioSource
-     * instance specifies the spatial properties of the sound to be played.
+     * instance specifies the spatial properties of the sound to be played. The sound is heard immediately if it is
+     * among the most audible voices, and is virtual otherwise.
      *
      * @param sound  The Sound object to be played.
      * @param source The AudioSource object which describes the spatial properties.
@@ -168,24 +514,27 @@ public final class AudioScene
      */
     public void play(Sound sound, AudioSource source, boolean loop)
     {
-        ALSource alSource = sourcesPool.pop();
-
-        source.update();
-
-        alSource.attachBuffer(sound.buffer);
-        alSource.setParameter(AL_POSITION, source.position);
-        alSource.setParameter(AL_VELOCITY, source.velocity);
-        alSource.setParameter(AL_DIRECTION, source.direction);
-        alSource.setParameter(AL_LOOPING, loop);
-
-        source.updated = false;
-        alSource.play();
-
-        PlayingSource playingSource = playingSourcesPool.pop();
-        playingSource.sound = sound;
-        playingSource.alSource = alSource;
-
-        playingSources.put(playingSource, source);
+        // A stream can only be played from one source, so playing it again restarts it
+        if (sound.streamer != null)
+            release(sound);
+
+        Voice voice = voicesPool.pop();
+        voice.sound = sound;
+        voice.source = source;
+        voice.loop = loop;
+        voice.time = 0;
+        voice.stopped = false;
+        voice.alSource = null;
+        voice.order = nextOrder++;
+        voice.index = voices.size();
+
+        voices.add(voice);
+        addToIndex(voicesBySound, sound, voice);
+        addToIndex(voicesBySource, source, voice);
+
+        // Start hearing the voice at once if there is a free source, otherwise it competes in the next update
+        if (realVoices < maxVoices && source.position.length() <= maxDistance)
+            realize(voice);
     }
 
     /**
@@ -195,11 +544,11 @@ public final class AudioScene
      */
     public void stopFromAllSources(Sound sound)
     {
-        for (PlayingSource source : playingSources.keySet())
-        {
-            if (source.sound.buffer.getID() == sound.buffer.getID())
-                source.alSource.stop();
-        }
+        List<Voice> list = voicesBySound.get(sound);
+
+        if (list != null)
+            for (Voice voice : list)
+                stop(voice);
     }
 
     /**
@@ -209,11 +558,11 @@ public final class AudioScene
      */
     public void stopAllFromSource(AudioSource source)
     {
-        for (PlayingSource playingSource : playingSources.keySet())
-        {
-            if (playingSources.get(playingSource) == source)
-                playingSource.alSource.stop();
-        }
+        List<Voice> list = voicesBySource.get(source);
+
+        if (list != null)
+            for (Voice voice : list)
+                stop(voice);
     }
 
     /**
@@ -234,17 +583,45 @@ public final class AudioScene
      */
     public void stop(Sound sound, AudioSource source)
     {
-        for (PlayingSource playingSource : playingSources.keySet())
-        {
-            if (playingSource.sound.buffer.getID() == sound.buffer.getID())
-                if (playingSources.get(playingSource) == source)
-                    playingSource.alSource.stop();
-        }
+        List<Voice> list = voicesBySound.get(sound);
+
+        if (list != null)
+            for (Voice voice : list)
+                if (voice.source == source)
+                    stop(voice);
+    }
+
+    // The voices are removed in the next update, so that the lists are not modified while they are iterated
+    private void stop(Voice voice)
+    {
+        if (voice.alSource != null)
+            voice.alSource.stop();
+
+        voice.stopped = true;
     }
 
-    private static class PlayingSource
+    private static class Voice
     {
-        private ALSource alSource;
-        private Sound    sound;
+        private Sound       sound;
+        private AudioSource source;
+        private ALSource    alSource;
+
+        private boolean loop;
+        private boolean stopped;
+
+        // Whether the voice is among the ones that should have a source, decided in each rebalance
+        private boolean heard;
+
+        // The time the voice has been playing for, used to continue a virtual voice from where it would be
+        private float time;
+        private float distance;
+
+        private long order;
+        private int  index;
+
+        // The properties last sent to the OpenAL source of this voice
+        private final Vector3 position  = new Vector3();
+        private final Vector3 velocity  = new Vector3();
+        private final Vector3 direction = new Vector3();
     }
 }
@@ -0,0 +1,67 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.audio;
+
+import com.shc.silenceengine.audio.openal.ALFormat;
+import com.shc.silenceengine.core.IResource;
+import com.shc.silenceengine.io.DirectBuffer;
+
+/**
+ * <p>An audio stream decodes the samples of a sound a little at a time, instead of all at once. Long sounds like music
+ * can be played from a stream without ever holding all of their samples in memory. Streams are created by the {@link
+ * AudioDevice}, and are played by wrapping them in a {@link Sound}.</p>
+ *
+ * <p>The samples are read on a worker thread, but never by two threads at the same time.</p>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public interface IAudioStream extends IResource
+{
+    /**
+     * @return The OpenAL format of the samples read from this stream.
+     */
+    ALFormat getFormat();
+
+    /**
+     * @return The frequency of the samples read from this stream, in Hz.
+     */
+    int getSampleRate();
+
+    /**
+     * Decodes the next samples of this stream into a buffer, starting at a byte offset. Only whole samples of all the
+     * channels are read.
+     *
+     * @param dest   The buffer to write the samples into.
+     * @param offset The byte offset in the buffer to start writing at.
+     *
+     * @return The number of bytes written, which is zero at the end of the stream.
+     */
+    int read(DirectBuffer dest, int offset);
+
+    /**
+     * Seeks this stream back to the first sample.
+     */
+    void rewind();
+}
@@ -0,0 +1,437 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.audio;
+
+import com.shc.silenceengine.audio.AudioDevice.AudioFormat;
+import com.shc.silenceengine.audio.openal.ALFormat;
+import com.shc.silenceengine.core.SilenceEngine;
+import com.shc.silenceengine.io.DirectBuffer;
+import com.shc.silenceengine.io.FilePath;
+import com.shc.silenceengine.utils.TaskManager;
+import com.shc.silenceengine.utils.functional.SimpleCallback;
+import com.shc.silenceengine.utils.functional.UniCallback;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * <p>The PCMCache decodes sounds into {@link PCMData} and caches the samples by the contents of the encoded data, so
+ * that a sound that is used by many loaders, or as both an ALBuffer and a Sound, is only decoded once. Requests for a
+ * sound that is still being decoded wait for that decode instead of starting another one.</p>
+ *
+ * <p>The decoding runs on the worker threads, but only a few sounds are decoded at the same time, so that loading a
+ * level full of sounds does not starve the other workers. The samples can also be cached on the disk by setting a
+ * directory with {@link #setDiskCache(FilePath)}, and reading them back is much cheaper than decoding them again.</p>
+ *
+ * <p>Every sample data given to a callback is held until it is passed to {@link #release(PCMData)}. The held samples
+ * are never evicted, and the others are evicted starting from the least recently used ones when the cache grows past
+ * its budget.</p>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public final class PCMCache
+{
+    private static final String DATA_EXTENSION = ".pcm";
+    private static final String INFO_EXTENSION = ".info";
+
+    // The cached samples in the order of their last use, and the requests waiting for the samples being decoded
+    private static final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private static final Map<Long, List<Request>>   pending = new HashMap<>();
+    private static final Map<PCMData, Entry>        held    = new HashMap<>();
+
+    private static final Queue<SimpleCallback> jobs = new ArrayDeque<>();
+
+    private static long     budget  = 64 * 1024 * 1024;
+    private static long     usage   = 0;
+    private static int      maxJobs = 2;
+    private static int      running = 0;
+    private static FilePath diskCache;
+
+    private PCMCache()
+    {
+    }
+
+    /**
+     * Decodes a sound, or returns the cached samples if the same data was decoded before. The encoded data is not used
+     * after one of the callbacks is invoked, and can be freed then.
+     *
+     * @param format    The format of the encoded data.
+     * @param encoded   The encoded data.
+     * @param onDecoded The callback to receive the samples, which must be released after they are used.
+     * @param onError   The callback to receive the errors.
+     */
+    public static void decode(AudioFormat format, DirectBuffer encoded, UniCallback<PCMData> onDecoded,
+                              UniCallback<Throwable> onError)
+    {
+        long key = hash(format, encoded);
+        Entry entry;
+
+        synchronized (PCMCache.class)
+        {
+            entry = entries.get(key);
+
+            if (entry == null)
+            {
+                List<Request> requests = pending.get(key);
+                boolean decoding = requests != null;
+
+                if (!decoding)
+                    pending.put(key, requests = new ArrayList<>());
+
+                requests.add(new Request(onDecoded, onError));
+
+                if (!decoding)
+                    schedule(() -> load(key, format, encoded));
+
+                return;
+            }
+
+            hold(entry);
+        }
+
+        onDecoded.invoke(entry.data);
+    }
+
+    /**
+     * Releases samples that were given to a callback of {@link #decode(AudioFormat, DirectBuffer, UniCallback,
+     * UniCallback)}, so that they can be evicted.
+     *
+     * @param data The samples to release.
+     */
+    public static synchronized void release(PCMData data)
+    {
+        Entry entry = held.get(data);
+
+        if (entry == null)
+            return;
+
+        if (--entry.references == 0)
+            held.remove(data);
+
+        evict();
+    }
+
+    /**
+     * Sets the number of bytes of samples that are kept in memory. Setting a lower budget evicts the samples that are
+     * not held immediately.
+     *
+     * @param bytes The budget in bytes.
+     */
+    public static synchronized void setBudget(long bytes)
+    {
+        budget = bytes;
+        evict();
+    }
+
+    public static synchronized long getBudget()
+    {
+        return budget;
+    }
+
+    public static synchronized long getUsage()
+    {
+        return usage;
+    }
+
+    /**
+     * Sets the number of sounds that are decoded at the same time.
+     *
+     * @param count The number of sounds, at least one.
+     */
+    public static synchronized void setMaxConcurrentDecodes(int count)
+    {
+        maxJobs = Math.max(1, count);
+        pump();
+    }
+
+    /**
+     * Sets the directory to cache the decoded samples in, so that they can be reused without decoding across the runs
+     * of the game. The directory should be an external file path that the game can write to. The samples are stored in
+     * the byte order of the machine, so the directory should not be shared between machines.
+     *
+     * @param directory The directory of the disk cache, or null to disable it.
+     */
+    public static synchronized void setDiskCache(FilePath directory)
+    {
+        diskCache = directory;
+
+        if (directory != null)
+            directory.mkdirs();
+    }
+
+    /**
+     * Evicts all the cached samples that are not held.
+     */
+    public static synchronized void clear()
+    {
+        long oldBudget = budget;
+
+        budget = 0;
+        evict();
+        budget = oldBudget;
+    }
+
+    private static void schedule(SimpleCallback job)
+    {
+        jobs.add(job);
+        pump();
+    }
+
+    private static void pump()
+    {
+        while (running < maxJobs && !jobs.isEmpty())
+        {
+            running++;
+            TaskManager.runOnWorker(jobs.poll());
+        }
+    }
+
+    private static void load(long key, AudioFormat format, DirectBuffer encoded)
+    {
+        FilePath directory;
+
+        synchronized (PCMCache.class)
+        {
+            directory = diskCache;
+        }
+
+        if (directory == null)
+        {
+            decodeNow(key, format, encoded, null);
+            return;
+        }
+
+        FilePath info = directory.getChild(Long.toHexString(key) + INFO_EXTENSION);
+        FilePath data = directory.getChild(Long.toHexString(key) + DATA_EXTENSION);
+
+        // The info file is written last, so the samples are complete if it exists
+        info.exists().then(exists ->
+        {
+            if (!exists)
+            {
+                TaskManager.runOnWorker(() -> decodeNow(key, format, encoded, directory));
+                return;
+            }
+
+            SilenceEngine.io.getFileReader().readTextFile(info, text ->
+                    SilenceEngine.io.getFileReader().readBinaryFile(data, samples ->
+                    {
+                        PCMData cached = parse(text, samples);
+
+                        if (cached != null)
+                            finish(key, cached, null, null);
+                        else
+                        {
+                            // The cached samples are not what was written, so they are decoded again
+                            DirectBuffer.free(samples);
+                            TaskManager.runOnWorker(() -> decodeNow(key, format, encoded, directory));
+                        }
+                    }, e -> TaskManager.runOnWorker(() -> decodeNow(key, format, encoded, directory))),
+                    e -> TaskManager.runOnWorker(() -> decodeNow(key, format, encoded, directory)));
+        }, e -> TaskManager.runOnWorker(() -> decodeNow(key, format, encoded, directory)));
+    }
+
+    /*
+     * Reads the info file written by store(), which is the format, the sample rate and the size of the samples in
+     * bytes. Returns null if the info is not valid, or if the samples read are not of the size that was written.
+     */
+    private static PCMData parse(String info, DirectBuffer samples)
+    {
+        String[] parts = info.trim().split(" ");
+
+        try
+        {
+            if (parts.length != 3 || Integer.parseInt(parts[2]) != samples.sizeBytes())
+                return null;
+
+            return new PCMData(samples, ALFormat.valueOf(parts[0]), Integer.parseInt(parts[1]));
+        }
+        catch (IllegalArgumentException e)
+        {
+            return null;
+        }
+    }
+
+    private static void decodeNow(long key, AudioFormat format, DirectBuffer encoded, FilePath directory)
+    {
+        try
+        {
+            SilenceEngine.audio.decodeToPCM(format, encoded, data ->
+            {
+                finish(key, data, null, directory);
+            }, error -> finish(key, null, error, null));
+        }
+        catch (Throwable e)
+        {
+            finish(key, null, e, null);
+        }
+    }
+
+    /*
+     * Writes the samples to the disk cache. The samples are held by the caller until they are written, so that they are
+     * not evicted and freed while the IO thread is still reading them.
+     */
+    private static void store(long key, PCMData data, FilePath directory)
+    {
+        FilePath info = directory.getChild(Long.toHexString(key) + INFO_EXTENSION);
+        FilePath samples = directory.getChild(Long.toHexString(key) + DATA_EXTENSION);
+
+        // Failing to write the cache is not fatal, the sound is just decoded again the next time
+        UniCallback<Throwable> onError = e -> SilenceEngine.log.getRootLogger().warn("Unable to cache the samples: " + e);
+
+        SilenceEngine.io.getFileWriter().write(data.data, samples, false, () ->
+        {
+            release(data);
+
+            // The size is written too, so that a truncated or damaged file is decoded again instead of being played
+            String text = data.format.name() + " " + data.sampleRate + " " + data.sizeBytes();
+            SilenceEngine.io.getFileWriter().write(text, info, false, () ->
+            {
+            }, onError);
+        }, e ->
+        {
+            release(data);
+            onError.invoke(e);
+        });
+    }
+
+    private static void finish(long key, PCMData data, Throwable error, FilePath directory)
+    {
+        List<Request> requests;
+
+        synchronized (PCMCache.class)
+        {
+            running--;
+            requests = pending.remove(key);
+
+            if (data != null)
+            {
+                Entry entry = new Entry(data);
+                entries.put(key, entry);
+                usage += data.sizeBytes();
+
+                for (int i = 0; i < requests.size(); i++)
+                    hold(entry);
+
+                // The samples being written to the disk cache are held until the write is done
+                if (directory != null)
+                    hold(entry);
+
+                evict();
+            }
+
+            pump();
+        }
+
+        if (data != null && directory != null)
+            store(key, data, directory);
+
+        for (Request request : requests)
+        {
+            if (data != null)
+                request.onDecoded.invoke(data);
+            else
+                request.onError.invoke(error);
+        }
+    }
+
+    private static void hold(Entry entry)
+    {
+        if (entry.references++ == 0)
+            held.put(entry.data, entry);
+    }
+
+    private static void evict()
+    {
+        Iterator<Entry> iterator = entries.values().iterator();
+
+        while (usage > budget && iterator.hasNext())
+        {
+            Entry entry = iterator.next();
+
+            if (entry.references > 0)
+                continue;
+
+            iterator.remove();
+            usage -= entry.data.sizeBytes();
+            DirectBuffer.free(entry.data.data);
+        }
+    }
+
+    /*
+     * Hashes the format and the contents of the encoded data, eight bytes at a time. This is only used to find the
+     * same file loaded twice, so it needs to be fast more than it needs to be strong.
+     */
+    private static long hash(AudioFormat format, DirectBuffer encoded)
+    {
+        int size = encoded.sizeBytes();
+        long hash = 0xcbf29ce484222325L ^ format.ordinal() ^ ((long) size << 8);
+
+        int i = 0;
+
+        for (; i + 8 <= size; i += 8)
+            hash = mix(hash ^ encoded.readLong(i));
+
+        for (; i < size; i++)
+            hash = mix(hash ^ encoded.readByte(i));
+
+        return hash;
+    }
+
+    private static long mix(long hash)
+    {
+        hash *= 0x9e3779b97f4a7c15L;
+        return hash ^ (hash >>> 29);
+    }
+
+    private static class Entry
+    {
+        private final PCMData data;
+        private int references;
+
+        Entry(PCMData data)
+        {
+            this.data = data;
+        }
+    }
+
+    private static class Request
+    {
+        private final UniCallback<PCMData>   onDecoded;
+        private final UniCallback<Throwable> onError;
+
+        Request(UniCallback<PCMData> onDecoded, UniCallback<Throwable> onError)
+        {
+            this.onDecoded = onDecoded;
+            this.onError = onError;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.audio;
+
+import com.shc.silenceengine.audio.openal.ALBuffer;
+import com.shc.silenceengine.audio.openal.ALFormat;
+import com.shc.silenceengine.io.DirectBuffer;
+
+/**
+ * <p>The decoded samples of a sound, in the format that is uploaded into an {@link ALBuffer}. These are produced by
+ * {@link AudioDevice#decodeToPCM(AudioDevice.AudioFormat, DirectBuffer, com.shc.silenceengine.utils.functional.UniCallback,
+ * com.shc.silenceengine.utils.functional.UniCallback)} without touching the audio context, so that the decoding can
+ * happen on any thread.</p>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class PCMData
+{
+    /**
+     * The samples, in native byte order.
+     */
+    public final DirectBuffer data;
+
+    /**
+     * The OpenAL format of the samples.
+     */
+    public final ALFormat format;
+
+    /**
+     * The frequency of the samples in Hz.
+     */
+    public final int sampleRate;
+
+    public PCMData(DirectBuffer data, ALFormat format, int sampleRate)
+    {
+        this.data = data;
+        this.format = format;
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * Uploads the samples into a new OpenAL buffer. This must be called on the thread that owns the audio context.
+     *
+     * @return The new ALBuffer with the samples.
+     */
+    public ALBuffer toALBuffer()
+    {
+        ALBuffer buffer = new ALBuffer();
+        buffer.uploadData(data, format, sampleRate);
+
+        return buffer;
+    }
+
+    public int sizeBytes()
+    {
+        return data.sizeBytes();
+    }
+}
@@ -31,6 +31,10 @@ import com.shc.silenceengine.core.SilenceEngine;
 /**
  * <p>A sound is a collection of samples that needs to be played. It simply is a wrapper over an OpenAL buffer.</p>
  *
+ * <p>Long sounds like music can instead be streamed from an {@link IAudioStream}, which decodes the samples while the
+ * sound is playing. A streamed sound can only be played from one source at a time, and playing it again restarts it.
+ * </p>
+ *
  * @author Sri Harsha Chilakapati
  */
 public class Sound implements IResource
@@ -40,6 +44,19 @@ public class Sound implements IResource
      */
     public ALBuffer buffer;
 
+    /**
+     * The stream that the samples of this sound are decoded from, or null if this sound is not streamed.
+     */
+    public final IAudioStream stream;
+
+    /**
+     * The priority of this sound. When there are more sounds playing than the voices that can be heard, the sounds
+     * with a higher priority are heard over the others, regardless of their distance.
+     */
+    public int priority;
+
+    final SoundStreamer streamer;
+
     /**
      * Construct a new Sound object with a OpenAL Buffer.
      *
@@ -48,6 +65,36 @@ public class Sound implements IResource
     public Sound(ALBuffer buffer)
     {
         this.buffer = buffer;
+        this.stream = null;
+        this.streamer = null;
+    }
+
+    /**
+     * Construct a new Sound object that is streamed from an audio stream. The stream is disposed along with the sound.
+     *
+     * @param stream The stream to decode the samples from.
+     */
+    public Sound(IAudioStream stream)
+    {
+        this.stream = stream;
+        this.streamer = new SoundStreamer(stream);
+    }
+
+    /**
+     * @return Whether this sound is streamed.
+     */
+    public boolean isStreaming()
+    {
+        return stream != null;
+    }
+
+    /**
+     * @return The number of bytes held by this sound, which is the size of the buffer, or of the fixed ring of buffers
+     * if this sound is streamed.
+     */
+    public long getSizeInBytes()
+    {
+        return streamer == null ? buffer.getSizeInBytes() : SoundStreamer.SIZE_IN_BYTES;
     }
 
     /**
@@ -77,8 +124,18 @@ public class Sound implements IResource
         SilenceEngine.audio.scene.stopStatic(this);
     }
 
+    /**
+     * Stops this sound in all the sources, and disposes its buffer, or the buffers and the stream if it is streamed.
+     */
     @Override
     public void dispose()
     {
+        // The buffers cannot be deleted while they are attached to a source
+        SilenceEngine.audio.scene.release(this);
+
+        if (streamer != null)
+            streamer.dispose();
+        else if (!buffer.isDisposed())
+            buffer.dispose();
     }
 }
@@ -0,0 +1,302 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.audio;
+
+import com.shc.silenceengine.audio.openal.ALBuffer;
+import com.shc.silenceengine.audio.openal.ALSource;
+import com.shc.silenceengine.core.SilenceEngine;
+import com.shc.silenceengine.io.DirectBuffer;
+import com.shc.silenceengine.utils.TaskManager;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+
+import static com.shc.silenceengine.audio.AudioDevice.Constants.*;
+
+/**
+ * <p>Plays a streamed sound through a source by cycling a small ring of buffers through the queue of the source. The
+ * samples are decoded on a worker thread into chunks, one chunk at a time, and the chunks are uploaded into the buffers
+ * that the source has finished playing, every frame on the update thread.</p>
+ *
+ * <p>Looping sounds are looped by rewinding the stream when it ends, so that there is no gap between the end and the
+ * start of the sound.</p>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+final class SoundStreamer
+{
+    // The number of buffers in the ring, and the size of each of them. With 16-bit stereo samples at 44.1 KHz, this
+    // keeps about three quarters of a second decoded ahead of the playback.
+    private static final int BUFFER_COUNT = 4;
+    private static final int BUFFER_SIZE  = 32 * 1024;
+
+    // The memory held by a streamer, the decoded chunks and the OpenAL buffers they are uploaded into
+    static final int SIZE_IN_BYTES = 2 * BUFFER_COUNT * BUFFER_SIZE;
+
+    private final IAudioStream stream;
+
+    private final ALBuffer[]     buffers    = new ALBuffer[BUFFER_COUNT];
+    private final DirectBuffer[] chunks     = new DirectBuffer[BUFFER_COUNT];
+    private final int[]          chunkSizes = new int[BUFFER_COUNT];
+
+    // The buffers that are not queued on the source, and the chunks that are free or are waiting to be uploaded
+    private final ArrayDeque<ALBuffer> freeBuffers   = new ArrayDeque<>();
+    private final ArrayDeque<Integer>  freeChunks    = new ArrayDeque<>();
+    private final ArrayDeque<Integer>  decodedChunks = new ArrayDeque<>();
+
+    private ALSource source;
+    private boolean  loop;
+
+    // Whether the stream has no more samples, and whether it should be rewound before decoding again
+    private boolean ended;
+    private boolean rewind;
+
+    // Only one chunk is decoded at a time, and the chunks decoded for an earlier playback are discarded
+    private boolean decoding;
+    private int     decodingChunk;
+    private int     generation;
+
+    private boolean disposed;
+
+    SoundStreamer(IAudioStream stream)
+    {
+        this.stream = stream;
+    }
+
+    /**
+     * Starts playing the stream from the beginning through a source. The source starts playing as soon as the first
+     * chunk is decoded.
+     */
+    void start(ALSource source, boolean loop)
+    {
+        if (buffers[0] == null)
+        {
+            for (int i = 0; i < BUFFER_COUNT; i++)
+            {
+                buffers[i] = new ALBuffer();
+                chunks[i] = DirectBuffer.create(BUFFER_SIZE);
+            }
+        }
+
+        this.source = source;
+        this.loop = loop;
+
+        source.attachBuffer(null);
+        source.setParameter(AL_LOOPING, false);
+
+        freeBuffers.clear();
+        Collections.addAll(freeBuffers, buffers);
+
+        decodedChunks.clear();
+        freeChunks.clear();
+
+        for (int i = 0; i < BUFFER_COUNT; i++)
+            if (!decoding || i != decodingChunk)
+                freeChunks.add(i);
+
+        generation++;
+        ended = false;
+        rewind = true;
+
+        requestDecode();
+    }
+
+    /**
+     * Refills the buffers that the source has finished playing, and restarts the source if it ran out of samples
+     * before they were decoded.
+     *
+     * @return False if the whole stream has been played, true otherwise.
+     */
+    boolean update()
+    {
+        for (int processed = source.getParameter(AL_BUFFERS_PROCESSED); processed > 0; processed--)
+        {
+            int id = source.unqueueBuffer();
+
+            for (ALBuffer buffer : buffers)
+                if (buffer.getID() == id)
+                    freeBuffers.add(buffer);
+        }
+
+        while (!freeBuffers.isEmpty() && !decodedChunks.isEmpty())
+        {
+            int chunk = decodedChunks.poll();
+            ALBuffer buffer = freeBuffers.poll();
+
+            buffer.uploadData(chunks[chunk], chunkSizes[chunk], stream.getFormat(), stream.getSampleRate());
+            source.queueBuffer(buffer);
+
+            freeChunks.add(chunk);
+        }
+
+        requestDecode();
+
+        int state = source.getParameter(AL_SOURCE_STATE);
+
+        if (state == AL_PLAYING || state == AL_PAUSED)
+            return true;
+
+        if (source.getParameter(AL_BUFFERS_QUEUED) > 0)
+        {
+            source.play();
+            return true;
+        }
+
+        return !ended || decoding || !decodedChunks.isEmpty();
+    }
+
+    /**
+     * Stops feeding the source. The source should be stopped and have its buffers detached by the caller.
+     */
+    void stop()
+    {
+        source = null;
+        generation++;
+    }
+
+    void dispose()
+    {
+        if (disposed)
+            return;
+
+        disposed = true;
+        source = null;
+
+        // The worker is still writing into a chunk, so the chunks are released after it is done
+        if (!decoding)
+            release();
+    }
+
+    private void release()
+    {
+        if (buffers[0] != null)
+        {
+            for (int i = 0; i < BUFFER_COUNT; i++)
+            {
+                buffers[i].dispose();
+                DirectBuffer.free(chunks[i]);
+            }
+        }
+
+        stream.dispose();
+    }
+
+    private void requestDecode()
+    {
+        if (decoding || ended || disposed || source == null || freeChunks.isEmpty())
+            return;
+
+        decoding = true;
+        decodingChunk = freeChunks.poll();
+
+        decode(decodingChunk, rewind, loop, generation);
+        rewind = false;
+    }
+
+    private void decode(int chunk, boolean rewind, boolean loop, int generation)
+    {
+        TaskManager.runOnWorker(() ->
+        {
+            try
+            {
+                if (rewind)
+                    stream.rewind();
+
+                int size = fill(chunks[chunk], loop);
+                TaskManager.runOnUpdate(() -> onDecoded(chunk, size, generation, null));
+            }
+            catch (Throwable e)
+            {
+                TaskManager.runOnUpdate(() -> onDecoded(chunk, 0, generation, e));
+            }
+        });
+    }
+
+    private int fill(DirectBuffer chunk, boolean loop)
+    {
+        int size = 0;
+        boolean rewound = false;
+
+        while (size < BUFFER_SIZE)
+        {
+            int read = stream.read(chunk, size);
+
+            if (read == 0)
+            {
+                // Looping sounds start again at the end, unless there is nothing to play at all
+                if (!loop || rewound)
+                    break;
+
+                stream.rewind();
+                rewound = true;
+                continue;
+            }
+
+            rewound = false;
+            size += read;
+        }
+
+        return size;
+    }
+
+    private void onDecoded(int chunk, int size, int generation, Throwable error)
+    {
+        decoding = false;
+
+        if (disposed)
+        {
+            release();
+            return;
+        }
+
+        if (generation != this.generation)
+        {
+            freeChunks.add(chunk);
+            requestDecode();
+            return;
+        }
+
+        if (error != null)
+        {
+            SilenceEngine.log.getRootLogger().error(error);
+            freeChunks.add(chunk);
+            ended = true;
+            return;
+        }
+
+        if (size > 0)
+        {
+            chunkSizes[chunk] = size;
+            decodedChunks.add(chunk);
+        }
+        else
+            freeChunks.add(chunk);
+
+        if (size < BUFFER_SIZE)
+            ended = true;
+
+        requestDecode();
+    }
+}
@@ -37,8 +37,11 @@ import com.shc.silenceengine.io.DirectBuffer;
  */
 public class ALBuffer implements IResource
 {
-    private int     id;
-    private boolean disposed;
+    private int      id;
+    private int      sizeInBytes;
+    private int      frequency;
+    private ALFormat format;
+    private boolean  disposed;
 
     /**
      * Constructs a new OpenAL buffer.
@@ -79,6 +82,35 @@ public class ALBuffer implements IResource
         SilenceEngine.audio.alBufferData(id, format.getAlFormat(), data, frequency);
 
         ALError.check();
+
+        this.sizeInBytes = data.sizeBytes();
+        this.format = format;
+        this.frequency = frequency;
+    }
+
+    /**
+     * Uploads only the first bytes of the data present in a DirectBuffer into this OpenAL Buffer.
+     *
+     * @param data      The DirectBuffer containing the data samples
+     * @param sizeBytes The number of bytes to upload from the start of the data
+     * @param format    The OpenAL format of the data samples in the buffer
+     * @param frequency The frequency of the sound samples (in Hz)
+     *
+     * @throws ALException.InvalidValue If the data does not match the format specified.
+     * @throws ALException.OutOfMemory  If there is no available memory to store the data.
+     */
+    public void uploadData(DirectBuffer data, int sizeBytes, ALFormat format, int frequency)
+    {
+        if (isDisposed())
+            throw new ALException("Unable to upload data to disposed OpenAL buffer");
+
+        SilenceEngine.audio.alBufferData(id, format.getAlFormat(), data, sizeBytes, frequency);
+
+        ALError.check();
+
+        this.sizeInBytes = sizeBytes;
+        this.format = format;
+        this.frequency = frequency;
     }
 
     /**
@@ -106,6 +138,42 @@ public class ALBuffer implements IResource
         return id;
     }
 
+    /**
+     * @return The number of bytes of sample data last uploaded into this buffer.
+     */
+    public int getSizeInBytes()
+    {
+        return sizeInBytes;
+    }
+
+    /**
+     * @return The frequency of the samples last uploaded into this buffer in Hz, or zero if it is not known.
+     */
+    public int getFrequency()
+    {
+        return frequency;
+    }
+
+    /**
+     * @return The format of the samples last uploaded into this buffer, or null if it is not known.
+     */
+    public ALFormat getFormat()
+    {
+        return format;
+    }
+
+    /**
+     * @return The duration of the samples in this buffer in seconds, or a negative value if it is not known, like for
+     * the buffers created by the platform itself.
+     */
+    public float getDuration()
+    {
+        if (format == null || frequency == 0)
+            return -1;
+
+        return (float) sizeInBytes / format.getBytesPerFrame() / frequency;
+    }
+
     /**
      * @return True if disposed, else false
      */
@@ -39,29 +39,31 @@ public enum ALFormat
     /**
      * 8-Bit Mono Audio Format
      */
-    MONO_8(AL_FORMAT_MONO8),
+    MONO_8(AL_FORMAT_MONO8, 1),
 
     /**
      * 16-Bit Mono Audio Format
      */
-    MONO_16(AL_FORMAT_MONO16),
+    MONO_16(AL_FORMAT_MONO16, 2),
 
     /**
      * 8-Bit Stereo Audio Format
      */
-    STEREO_8(AL_FORMAT_STEREO8),
+    STEREO_8(AL_FORMAT_STEREO8, 2),
 
     /**
      * 16-Bit Stereo Audio Format
      */
-    STEREO_16(AL_FORMAT_STEREO16);
+    STEREO_16(AL_FORMAT_STEREO16, 4);
 
-    // The integer constant of the OpenAL format
+    // The integer constant of the OpenAL format, and the number of bytes in a sample of all the channels
     private int alFormat;
+    private int bytesPerFrame;
 
-    ALFormat(int alFormat)
+    ALFormat(int alFormat, int bytesPerFrame)
     {
         this.alFormat = alFormat;
+        this.bytesPerFrame = bytesPerFrame;
     }
 
     /**
@@ -97,4 +99,12 @@ public enum ALFormat
     {
         return alFormat;
     }
+
+    /**
+     * @return The number of bytes in a single sample of all the channels.
+     */
+    public int getBytesPerFrame()
+    {
+        return bytesPerFrame;
+    }
 }
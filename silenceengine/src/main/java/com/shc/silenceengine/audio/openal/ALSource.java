@@ -36,6 +36,9 @@ import static com.shc.silenceengine.audio.AudioDevice.Constants.*;
  */
 public class ALSource
 {
+    // The number of OpenAL calls made on all the sources, sources are only used on the update thread
+    private static int callCount;
+
     private int     id;
     private boolean disposed;
 
@@ -47,6 +50,18 @@ public class ALSource
     public ALSource()
     {
         id = SilenceEngine.audio.alGenSources();
+        callCount++;
+    }
+
+    /**
+     * Returns the number of OpenAL calls that are made on all the sources so far. The difference of this count between
+     * two frames is the number of calls made in that frame.
+     *
+     * @return The number of OpenAL calls made by the sources.
+     */
+    public static int getCallCount()
+    {
+        return callCount;
     }
 
     /**
@@ -61,6 +76,45 @@ public class ALSource
         setParameter(AL_BUFFER, buffer == null ? 0 : buffer.getID());
     }
 
+    /**
+     * Appends an ALBuffer to the queue of buffers that this source plays one after the other. The buffers in the queue
+     * must all have the same format.
+     *
+     * @param buffer The ALBuffer to be queued.
+     *
+     * @throws ALException If this source is already disposed.
+     */
+    public void queueBuffer(ALBuffer buffer)
+    {
+        if (isDisposed())
+            throw new ALException("Cannot queue buffers on a disposed ALSource");
+
+        SilenceEngine.audio.alSourceQueueBuffers(id, buffer.getID());
+        callCount++;
+        ALError.check();
+    }
+
+    /**
+     * Removes the first buffer from the queue of this source. Only the buffers that are processed, which can be queried
+     * with the {@code AL_BUFFERS_PROCESSED} parameter, can be removed.
+     *
+     * @return The ID of the removed OpenAL buffer.
+     *
+     * @throws ALException.InvalidValue If there are no processed buffers.
+     * @throws ALException              If this source is already disposed.
+     */
+    public int unqueueBuffer()
+    {
+        if (isDisposed())
+            throw new ALException("Cannot unqueue buffers from a disposed ALSource");
+
+        int buffer = SilenceEngine.audio.alSourceUnqueueBuffers(id);
+        callCount++;
+        ALError.check();
+
+        return buffer;
+    }
+
     /**
      * Sets the value of a property in this source object.
      *
@@ -76,6 +130,7 @@ public class ALSource
             throw new ALException("ALSource is already disposed");
 
         SilenceEngine.audio.alSourcei(id, parameter, value);
+        callCount++;
         ALError.check();
     }
 
@@ -108,6 +163,7 @@ public class ALSource
             throw new ALException("ALSource is already disposed");
 
         SilenceEngine.audio.alSourcef(id, parameter, value);
+        callCount++;
         ALError.check();
     }
 
@@ -142,6 +198,7 @@ public class ALSource
             throw new ALException("ALSource is already disposed");
 
         SilenceEngine.audio.alSource3f(id, parameter, value1, value2, value3);
+        callCount++;
         ALError.check();
     }
 
@@ -156,6 +213,7 @@ public class ALSource
             throw new ALException("Cannot play a disposed ALSource");
 
         SilenceEngine.audio.alSourcePlay(id);
+        callCount++;
         ALError.check();
     }
 
@@ -170,6 +228,7 @@ public class ALSource
             throw new ALException("Cannot pause a disposed ALSource");
 
         SilenceEngine.audio.alSourcePause(id);
+        callCount++;
         ALError.check();
     }
 
@@ -184,6 +243,7 @@ public class ALSource
             throw new ALException("Cannot stop a disposed ALSource");
 
         SilenceEngine.audio.alSourceStop(id);
+        callCount++;
         ALError.check();
     }
 
@@ -198,6 +258,7 @@ public class ALSource
             throw new ALException("Cannot rewind a disposed ALSource");
 
         SilenceEngine.audio.alSourceRewind(id);
+        callCount++;
         ALError.check();
     }
 
@@ -242,6 +303,7 @@ public class ALSource
     public int getParameter(int parameter)
     {
         int result = SilenceEngine.audio.alGetSourcei(id, parameter);
+        callCount++;
         ALError.check();
 
         return result;
@@ -258,6 +320,7 @@ public class ALSource
             throw new ALException("Cannot Dispose an already disposed OpenAL Source");
 
         SilenceEngine.audio.alDeleteSources(id);
+        callCount++;
         ALError.check();
 
         disposed = true;
@@ -0,0 +1,129 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.audio.software;
+
+import com.shc.silenceengine.core.SilenceException;
+
+/**
+ * <p>A lock free queue of the commands sent from the game thread to the mixer. There is only one thread that sends the
+ * commands and one thread that mixes, so a ring of preallocated commands with a volatile read and write index is
+ * enough, and the game thread never waits for the mixer.</p>
+ *
+ * <p>The producer fills the command returned by {@link #claim()} and makes it visible with {@link #publish()}. The
+ * consumer reads the commands with {@link #peek()} and returns them to the ring with {@link #release()}.</p>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+final class MixerCommandQueue
+{
+    private final Command[] commands;
+
+    // The index of the next command to be read, only written by the mixer
+    private volatile int head;
+
+    // The index of the next command to be written, only written by the game thread
+    private volatile int tail;
+
+    MixerCommandQueue(int capacity)
+    {
+        // One slot is always left empty to tell a full ring from an empty one
+        commands = new Command[capacity + 1];
+
+        for (int i = 0; i < commands.length; i++)
+            commands[i] = new Command();
+    }
+
+    /**
+     * Returns the next free command, to be filled by the game thread.
+     *
+     * @return The command to fill.
+     *
+     * @throws SilenceException If the mixer has not read the commands fast enough and the ring is full.
+     */
+    Command claim()
+    {
+        int next = (tail + 1) % commands.length;
+
+        if (next == head)
+            throw new SilenceException("The software mixer is not mixing, its command queue is full");
+
+        return commands[tail];
+    }
+
+    /**
+     * Makes the last claimed command visible to the mixer.
+     */
+    void publish()
+    {
+        tail = (tail + 1) % commands.length;
+    }
+
+    /**
+     * @return The next command sent by the game thread, or null if there are none.
+     */
+    Command peek()
+    {
+        return head == tail ? null : commands[head];
+    }
+
+    /**
+     * Returns the command read by the mixer to the ring, so that it can be claimed again.
+     */
+    void release()
+    {
+        Command command = commands[head];
+        command.voice = null;
+        command.buffer = null;
+
+        head = (head + 1) % commands.length;
+    }
+
+    /**
+     * A command to the mixer, changing the state of a voice.
+     */
+    static final class Command
+    {
+        static final int CREATE     = 0;
+        static final int DELETE     = 1;
+        static final int PLAY       = 2;
+        static final int PAUSE      = 3;
+        static final int STOP       = 4;
+        static final int REWIND     = 5;
+        static final int SET_INT    = 6;
+        static final int SET_FLOAT  = 7;
+        static final int SET_VECTOR = 8;
+        static final int ATTACH     = 9;
+        static final int QUEUE      = 10;
+        static final int UNQUEUE    = 11;
+
+        int          type;
+        MixerVoice   voice;
+        SampleBuffer buffer;
+
+        int   parameter;
+        int   value;
+        float x, y, z;
+    }
+}
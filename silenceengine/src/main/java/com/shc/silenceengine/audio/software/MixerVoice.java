@@ -0,0 +1,362 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.audio.software;
+
+import com.shc.silenceengine.audio.software.MixerCommandQueue.Command;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.shc.silenceengine.audio.AudioDevice.Constants.*;
+
+/**
+ * <p>The state of a source in the software mixer, as seen by the mixer. It is only touched by the thread that mixes,
+ * and it tells the game thread how far it has played through the volatile fields.</p>
+ *
+ * <p>The samples are mixed with fixed point math. The position in the buffer is kept in 32.32 fixed point, the gains
+ * are 1.15 fixed point numbers, and the voices are summed into 32 bit integers, so the mixed samples are the same on
+ * every platform.</p>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+final class MixerVoice
+{
+    private static final long ENDED = 0x80000000L;
+
+    /**
+     * The progress of the voice. The generation of the playback is in the high 32 bits, bit 31 is set when it has
+     * ended, and the lower bits are the number of buffers that have finished playing in that generation.
+     */
+    volatile long progress;
+
+    /**
+     * The number of sample frames played from the start of the queue.
+     */
+    volatile int sampleOffset;
+
+    private final List<SampleBuffer> queue = new ArrayList<>();
+
+    // The buffer that is playing, and the position in that buffer in 32.32 fixed point frames
+    private int  index;
+    private long cursor;
+
+    private int generation;
+    private int done;
+
+    private boolean playing;
+    private boolean paused;
+    private boolean looping;
+
+    // Whether the position was set while stopped, so that it is used when the voice is played
+    private boolean seeked;
+
+    private float gain  = 1;
+    private float pitch = 1;
+    private float x, y, z;
+
+    void apply(Command command)
+    {
+        switch (command.type)
+        {
+            case Command.PLAY:
+                play(command.value);
+                break;
+
+            case Command.PAUSE:
+                paused = true;
+                break;
+
+            case Command.STOP:
+                playing = false;
+                paused = false;
+                seeked = false;
+                break;
+
+            case Command.REWIND:
+                playing = false;
+                paused = false;
+                seeked = false;
+                generation = command.value;
+                index = 0;
+                cursor = 0;
+                break;
+
+            case Command.SET_INT:
+                setParameter(command.parameter, command.value);
+                break;
+
+            case Command.SET_FLOAT:
+                setParameter(command.parameter, command.x);
+                break;
+
+            case Command.SET_VECTOR:
+                if (command.parameter == AL_POSITION)
+                {
+                    x = command.x;
+                    y = command.y;
+                    z = command.z;
+                }
+                break;
+
+            case Command.ATTACH:
+                queue.clear();
+
+                if (command.buffer != null)
+                    queue.add(command.buffer);
+
+                playing = false;
+                seeked = false;
+                generation = command.value;
+                index = 0;
+                cursor = 0;
+                break;
+
+            case Command.QUEUE:
+                queue.add(command.buffer);
+                break;
+
+            case Command.UNQUEUE:
+                queue.remove(0);
+
+                if (index > 0)
+                    index--;
+                break;
+        }
+    }
+
+    private void play(int generation)
+    {
+        // Playing a paused source continues it, anything else restarts it
+        if (generation == this.generation && playing)
+        {
+            paused = false;
+            return;
+        }
+
+        this.generation = generation;
+        done = 0;
+        playing = true;
+        paused = false;
+
+        if (!seeked)
+        {
+            index = 0;
+            cursor = 0;
+        }
+
+        seeked = false;
+
+        if (queue.isEmpty())
+            end();
+        else
+            publish(false);
+    }
+
+    private void setParameter(int parameter, int value)
+    {
+        switch (parameter)
+        {
+            case AL_LOOPING:
+                looping = value != AL_FALSE;
+                break;
+
+            case AL_SAMPLE_OFFSET:
+                seek(value);
+                break;
+
+            case AL_BYTE_OFFSET:
+                if (!queue.isEmpty())
+                    seek(value / queue.get(0).bytesPerFrame);
+                break;
+        }
+    }
+
+    private void setParameter(int parameter, float value)
+    {
+        switch (parameter)
+        {
+            case AL_GAIN:
+                gain = Math.max(0, value);
+                break;
+
+            case AL_PITCH:
+                if (value > 0)
+                    pitch = value;
+                break;
+
+            case AL_SEC_OFFSET:
+                if (!queue.isEmpty())
+                    seek((long) (value * queue.get(0).frequency));
+                break;
+        }
+    }
+
+    private void seek(long frames)
+    {
+        index = 0;
+
+        while (index < queue.size() - 1 && frames >= queue.get(index).frames)
+            frames -= queue.get(index++).frames;
+
+        cursor = Math.max(0, frames) << 32;
+        seeked = !playing;
+    }
+
+    /**
+     * Adds the samples of this voice to the mix.
+     *
+     * @param mix        The interleaved stereo mix, which is added to.
+     * @param frames     The number of frames to mix.
+     * @param sampleRate The sample rate of the mix in Hz.
+     *
+     * @return Whether the voice was playing.
+     */
+    boolean mix(int[] mix, int frames, int sampleRate)
+    {
+        if (!playing || paused || index >= queue.size())
+            return false;
+
+        int left;
+        int right;
+
+        float volume = Math.min(gain, 1);
+
+        // Only the mono sounds are positioned, using the inverse distance clamped model with the listener at the origin
+        // looking towards the negative Z axis, and an equal power panning
+        if (queue.get(index).channels == 1)
+        {
+            float distance = (float) Math.sqrt(x * x + y * y + z * z);
+            float attenuation = distance > 1 ? 1 / distance : 1;
+            float pan = distance > 0 ? x / distance : 0;
+
+            left = toFixed(volume * attenuation * (float) Math.sqrt((1 - pan) * 0.5f));
+            right = toFixed(volume * attenuation * (float) Math.sqrt((1 + pan) * 0.5f));
+        }
+        else
+            left = right = toFixed(volume);
+
+        int written = 0;
+
+        while (written < frames && playing)
+        {
+            SampleBuffer buffer = queue.get(index);
+            short[] samples = buffer.samples;
+
+            long end = (long) buffer.frames << 32;
+            long step = ((long) buffer.frequency << 32) / sampleRate;
+
+            if (pitch != 1)
+                step = (long) (step * (double) pitch);
+
+            int last = buffer.frames - 1;
+
+            if (buffer.channels == 1)
+            {
+                for (; written < frames && cursor < end; written++, cursor += step)
+                {
+                    int frame = (int) (cursor >>> 32);
+                    int sample = interpolate(samples[frame], samples[frame < last ? frame + 1 : frame], cursor);
+
+                    mix[written * 2] += (sample * left) >> 15;
+                    mix[written * 2 + 1] += (sample * right) >> 15;
+                }
+            }
+            else
+            {
+                for (; written < frames && cursor < end; written++, cursor += step)
+                {
+                    int frame = (int) (cursor >>> 32);
+                    int next = frame < last ? frame + 1 : frame;
+
+                    mix[written * 2] += (interpolate(samples[frame * 2], samples[next * 2], cursor) * left) >> 15;
+                    mix[written * 2 + 1] += (interpolate(samples[frame * 2 + 1], samples[next * 2 + 1], cursor) * right) >> 15;
+                }
+            }
+
+            if (cursor >= end)
+            {
+                cursor -= end;
+                nextBuffer();
+            }
+        }
+
+        int offset = (int) (cursor >>> 32);
+
+        for (int i = 0; i < index && i < queue.size(); i++)
+            offset += queue.get(i).frames;
+
+        sampleOffset = offset;
+        return true;
+    }
+
+    private void nextBuffer()
+    {
+        // The buffers of a looping source are never processed
+        if (!looping)
+            done++;
+
+        index++;
+
+        if (index < queue.size())
+            publish(false);
+
+        else if (looping && hasSamples())
+            index = 0;
+
+        else
+            end();
+    }
+
+    private boolean hasSamples()
+    {
+        for (SampleBuffer buffer : queue)
+            if (buffer.frames > 0)
+                return true;
+
+        return false;
+    }
+
+    private void end()
+    {
+        playing = false;
+        cursor = 0;
+        publish(true);
+    }
+
+    private void publish(boolean ended)
+    {
+        progress = ((long) generation << 32) | (ended ? ENDED : 0) | done;
+    }
+
+    private static int interpolate(int sample, int next, long cursor)
+    {
+        return sample + (((next - sample) * (int) ((cursor >>> 17) & 0x7FFF)) >> 15);
+    }
+
+    private static int toFixed(float gain)
+    {
+        return Math.min((int) (gain * 32768), 32768);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.audio.software;
+
+import com.shc.silenceengine.audio.openal.ALFormat;
+import com.shc.silenceengine.io.DirectBuffer;
+
+/**
+ * The samples of an OpenAL buffer in the software mixer, converted to signed 16 bit samples. These are never changed
+ * once created, uploading new data into a buffer creates new samples, so the mixer can keep playing the old ones.
+ *
+ * @author Sri Harsha Chilakapati
+ */
+final class SampleBuffer
+{
+    static final SampleBuffer EMPTY = new SampleBuffer(new short[0], 1, 1, 2);
+
+    // The samples of all the channels, interleaved
+    final short[] samples;
+
+    final int channels;
+    final int frequency;
+    final int frames;
+
+    // The size of a frame in the uploaded data, to convert the byte offsets
+    final int bytesPerFrame;
+
+    private SampleBuffer(short[] samples, int channels, int frequency, int bytesPerFrame)
+    {
+        this.samples = samples;
+        this.channels = channels;
+        this.frequency = frequency;
+        this.bytesPerFrame = bytesPerFrame;
+
+        frames = samples.length / channels;
+    }
+
+    /**
+     * Converts the data uploaded to a buffer into the samples. The 8 bit samples are unsigned, and the 16 bit samples
+     * are in native byte order, like in OpenAL.
+     *
+     * @param format    The OpenAL format of the data.
+     * @param data      The uploaded data.
+     * @param sizeBytes The number of bytes to use from the start of the data.
+     * @param frequency The frequency of the samples in Hz.
+     *
+     * @return The converted samples.
+     */
+    static SampleBuffer convert(ALFormat format, DirectBuffer data, int sizeBytes, int frequency)
+    {
+        int channels = (format == ALFormat.STEREO_8 || format == ALFormat.STEREO_16) ? 2 : 1;
+        int bytesPerFrame = format.getBytesPerFrame();
+
+        short[] samples = new short[sizeBytes / bytesPerFrame * channels];
+
+        if (format == ALFormat.MONO_8 || format == ALFormat.STEREO_8)
+        {
+            for (int i = 0; i < samples.length; i++)
+                samples[i] = (short) (((data.readByte(i) & 0xFF) - 128) << 8);
+        }
+        else
+        {
+            for (int i = 0; i < samples.length; i++)
+                samples[i] = data.readShort(i * 2);
+        }
+
+        return new SampleBuffer(samples, channels, frequency, bytesPerFrame);
+    }
+}
@@ -0,0 +1,630 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.audio.software;
+
+import com.shc.silenceengine.audio.AudioDevice;
+import com.shc.silenceengine.audio.PCMData;
+import com.shc.silenceengine.audio.openal.ALBuffer;
+import com.shc.silenceengine.audio.openal.ALFormat;
+import com.shc.silenceengine.audio.software.MixerCommandQueue.Command;
+import com.shc.silenceengine.core.SilenceException;
+import com.shc.silenceengine.io.DirectBuffer;
+import com.shc.silenceengine.utils.functional.UniCallback;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.shc.silenceengine.audio.AudioDevice.Constants.*;
+
+/**
+ * <p>An audio device that mixes the sounds in plain Java, without an OpenAL device. It implements the part of OpenAL
+ * that the engine uses, the buffers and the sources with their queues, so the {@link com.shc.silenceengine.audio.AudioScene}
+ * runs on it unchanged. This lets the games run their audio on the headless servers and in the continuous integration,
+ * and makes it possible to measure the cost of mixing each voice.</p>
+ *
+ * <p>The OpenAL calls are made on the game thread like with any other device. They update the state of the sources
+ * that the game thread sees at once, and send the changes to the mixer through a lock free queue, so the game thread
+ * never waits for the mixer. The mixer runs when {@link #mix(short[], int, int)} is called, either from an audio thread
+ * that writes the samples to the speakers, or from the game thread itself. The mix is computed as fast as the CPU
+ * allows, and is the same on every platform for the same calls.</p>
+ *
+ * <pre>
+ *     SoftwareAudioDevice device = new SoftwareAudioDevice(44100);
+ *     SilenceEngine.audio = device;
+ *
+ *     // Play the sounds for the duration of the frame, discarding the samples
+ *     SilenceEngine.eventManager.addUpdateHandler(device::advance);
+ * </pre>
+ *
+ * <p>Only the WAVE files can be decoded, and the sounds are not streamed. The mono sounds are positioned with the
+ * inverse distance clamped model, while the velocity, the direction and the cones of the sources are ignored.</p>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class SoftwareAudioDevice extends AudioDevice
+{
+    private static final int SCRATCH_FRAMES = 1024;
+
+    private final int               sampleRate;
+    private final MixerCommandQueue commands;
+
+    // The state seen by the game thread
+    private Map<Integer, SampleBuffer> buffers = new HashMap<>();
+    private Map<Integer, Source>       sources = new HashMap<>();
+
+    private int nextBufferID = 1;
+    private int nextSourceID = 1;
+    private int error        = AL_NO_ERROR;
+
+    // The state of the mixer, only used by the thread that mixes
+    private List<MixerVoice> voices = new ArrayList<>();
+
+    private int[]   mixBuffer = new int[SCRATCH_FRAMES * 2];
+    private short[] scratch   = new short[SCRATCH_FRAMES * 2];
+    private double  pendingFrames;
+    private int     mixedVoices;
+
+    /**
+     * Creates a software audio device that mixes in stereo.
+     *
+     * @param sampleRate The sample rate of the mix in Hz.
+     */
+    public SoftwareAudioDevice(int sampleRate)
+    {
+        this(sampleRate, 4096);
+    }
+
+    /**
+     * Creates a software audio device that mixes in stereo.
+     *
+     * @param sampleRate      The sample rate of the mix in Hz.
+     * @param commandCapacity The number of OpenAL calls that can be made before the mixer has to run.
+     */
+    public SoftwareAudioDevice(int sampleRate, int commandCapacity)
+    {
+        if (sampleRate <= 0)
+            throw new SilenceException("The sample rate must be positive");
+
+        this.sampleRate = sampleRate;
+        commands = new MixerCommandQueue(commandCapacity);
+    }
+
+    /**
+     * Mixes the next samples of all the playing sources. This should only be called from one thread at a time.
+     *
+     * @param dest   The array to write the samples to, as interleaved signed 16 bit stereo.
+     * @param offset The index in the array to start writing at.
+     * @param frames The number of sample frames to mix.
+     */
+    public void mix(short[] dest, int offset, int frames)
+    {
+        applyCommands();
+
+        if (mixBuffer.length < frames * 2)
+            mixBuffer = new int[frames * 2];
+        else
+            Arrays.fill(mixBuffer, 0, frames * 2, 0);
+
+        int mixed = 0;
+
+        for (MixerVoice voice : voices)
+            if (voice.mix(mixBuffer, frames, sampleRate))
+                mixed++;
+
+        mixedVoices = mixed;
+
+        for (int i = 0; i < frames * 2; i++)
+            dest[offset + i] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, mixBuffer[i]));
+    }
+
+    /**
+     * Mixes the next samples of all the playing sources into a WAVE file.
+     *
+     * @param frames The number of sample frames to mix.
+     *
+     * @return A new buffer with the contents of the WAVE file.
+     */
+    public DirectBuffer mixToWave(int frames)
+    {
+        short[] samples = new short[frames * 2];
+        mix(samples, 0, frames);
+
+        return WaveCodec.encode(samples, frames, 2, sampleRate);
+    }
+
+    /**
+     * Plays the sources for some time without keeping the samples. This is used to run the audio on a headless machine,
+     * where the samples are not heard. The fractions of the frames are carried over to the next call, so that the
+     * sounds take as long as they should.
+     *
+     * @param seconds The time to play in seconds.
+     */
+    public void advance(float seconds)
+    {
+        pendingFrames += seconds * (double) sampleRate;
+
+        int frames = (int) pendingFrames;
+        pendingFrames -= frames;
+
+        while (frames > 0)
+        {
+            int count = Math.min(frames, SCRATCH_FRAMES);
+            mix(scratch, 0, count);
+            frames -= count;
+        }
+    }
+
+    /**
+     * @return The sample rate of the mix in Hz.
+     */
+    public int getSampleRate()
+    {
+        return sampleRate;
+    }
+
+    /**
+     * @return The number of voices that were mixed in the last call to {@link #mix(short[], int, int)}.
+     */
+    public int getMixedVoiceCount()
+    {
+        return mixedVoices;
+    }
+
+    private void applyCommands()
+    {
+        Command command;
+
+        while ((command = commands.peek()) != null)
+        {
+            if (command.type == Command.CREATE)
+                voices.add(command.voice);
+            else if (command.type == Command.DELETE)
+                voices.remove(command.voice);
+            else
+                command.voice.apply(command);
+
+            commands.release();
+        }
+    }
+
+    @Override
+    public int alGenBuffers()
+    {
+        int id = nextBufferID++;
+        buffers.put(id, SampleBuffer.EMPTY);
+
+        return id;
+    }
+
+    @Override
+    public void alBufferData(int id, int format, DirectBuffer data, int frequency)
+    {
+        alBufferData(id, format, data, data.sizeBytes(), frequency);
+    }
+
+    @Override
+    public void alBufferData(int id, int format, DirectBuffer data, int sizeBytes, int frequency)
+    {
+        if (!buffers.containsKey(id))
+        {
+            setError(AL_INVALID_NAME);
+            return;
+        }
+
+        // The sources that play the old samples keep them, since the samples are never changed
+        buffers.put(id, SampleBuffer.convert(ALFormat.getEnum(format), data, sizeBytes, frequency));
+    }
+
+    @Override
+    public void alDeleteBuffers(int... buffers)
+    {
+        for (int buffer : buffers)
+            this.buffers.remove(buffer);
+    }
+
+    @Override
+    public int alGetError()
+    {
+        int error = this.error;
+        this.error = AL_NO_ERROR;
+
+        return error;
+    }
+
+    @Override
+    public int alGenSources()
+    {
+        int id = nextSourceID++;
+        Source source = new Source();
+        sources.put(id, source);
+
+        command(Command.CREATE, source);
+        commands.publish();
+
+        return id;
+    }
+
+    @Override
+    public void alSourcei(int id, int param, int value)
+    {
+        Source source = getSource(id);
+
+        if (source == null)
+            return;
+
+        if (param == AL_BUFFER)
+        {
+            attachBuffer(source, value);
+            return;
+        }
+
+        if (param == AL_LOOPING)
+            source.looping = value != AL_FALSE;
+
+        Command command = command(Command.SET_INT, source);
+        command.parameter = param;
+        command.value = value;
+        commands.publish();
+    }
+
+    private void attachBuffer(Source source, int buffer)
+    {
+        SampleBuffer samples = buffer == 0 ? null : buffers.get(buffer);
+
+        if (buffer != 0 && samples == null)
+        {
+            setError(AL_INVALID_NAME);
+            return;
+        }
+
+        if (source.state == AL_PLAYING || source.state == AL_PAUSED)
+        {
+            setError(AL_INVALID_OPERATION);
+            return;
+        }
+
+        source.queue.clear();
+
+        if (buffer != 0)
+            source.queue.add(buffer);
+
+        source.buffer = buffer;
+        source.restart();
+
+        Command command = command(Command.ATTACH, source);
+        command.buffer = samples;
+        command.value = source.generation;
+        commands.publish();
+    }
+
+    @Override
+    public void alSourcef(int id, int param, float value)
+    {
+        Source source = getSource(id);
+
+        if (source == null)
+            return;
+
+        Command command = command(Command.SET_FLOAT, source);
+        command.parameter = param;
+        command.x = value;
+        commands.publish();
+    }
+
+    @Override
+    public void alSource3f(int id, int param, float v1, float v2, float v3)
+    {
+        Source source = getSource(id);
+
+        if (source == null)
+            return;
+
+        Command command = command(Command.SET_VECTOR, source);
+        command.parameter = param;
+        command.x = v1;
+        command.y = v2;
+        command.z = v3;
+        commands.publish();
+    }
+
+    @Override
+    public void alSourcePlay(int id)
+    {
+        Source source = getSource(id);
+
+        if (source == null)
+            return;
+
+        // Playing a paused source continues it, anything else starts it from the beginning
+        if (source.state != AL_PAUSED)
+            source.restart();
+
+        source.state = AL_PLAYING;
+
+        Command command = command(Command.PLAY, source);
+        command.value = source.generation;
+        commands.publish();
+    }
+
+    @Override
+    public void alSourcePause(int id)
+    {
+        Source source = getSource(id);
+
+        if (source == null || source.state != AL_PLAYING)
+            return;
+
+        source.state = AL_PAUSED;
+
+        command(Command.PAUSE, source);
+        commands.publish();
+    }
+
+    @Override
+    public void alSourceRewind(int id)
+    {
+        Source source = getSource(id);
+
+        if (source == null)
+            return;
+
+        source.state = AL_INITIAL;
+        source.restart();
+
+        Command command = command(Command.REWIND, source);
+        command.value = source.generation;
+        commands.publish();
+    }
+
+    @Override
+    public void alSourceStop(int id)
+    {
+        Source source = getSource(id);
+
+        if (source == null)
+            return;
+
+        // All the buffers of a stopped source are processed
+        source.state = AL_STOPPED;
+        source.processed = source.unqueued + source.queue.size();
+
+        command(Command.STOP, source);
+        commands.publish();
+    }
+
+    @Override
+    public int alGetSourcei(int id, int parameter)
+    {
+        Source source = getSource(id);
+
+        if (source == null)
+            return 0;
+
+        switch (parameter)
+        {
+            case AL_SOURCE_STATE:
+                return source.state;
+
+            case AL_LOOPING:
+                return source.looping ? AL_TRUE : AL_FALSE;
+
+            case AL_BUFFER:
+                return source.buffer;
+
+            case AL_BUFFERS_QUEUED:
+                return source.queue.size();
+
+            case AL_BUFFERS_PROCESSED:
+                return source.getProcessed();
+
+            case AL_SAMPLE_OFFSET:
+                return source.voice.sampleOffset;
+        }
+
+        setError(AL_INVALID_ENUM);
+        return 0;
+    }
+
+    @Override
+    public void alDeleteSources(int... sources)
+    {
+        for (int id : sources)
+        {
+            Source source = this.sources.remove(id);
+
+            if (source != null)
+            {
+                command(Command.DELETE, source);
+                commands.publish();
+            }
+        }
+    }
+
+    @Override
+    public void alSourceQueueBuffers(int id, int buffer)
+    {
+        Source source = getSource(id);
+        SampleBuffer samples = buffers.get(buffer);
+
+        if (source == null)
+            return;
+
+        if (samples == null)
+        {
+            setError(AL_INVALID_NAME);
+            return;
+        }
+
+        source.queue.add(buffer);
+
+        Command command = command(Command.QUEUE, source);
+        command.buffer = samples;
+        commands.publish();
+    }
+
+    @Override
+    public int alSourceUnqueueBuffers(int id)
+    {
+        Source source = getSource(id);
+
+        if (source == null)
+            return 0;
+
+        if (source.getProcessed() == 0)
+        {
+            setError(AL_INVALID_VALUE);
+            return 0;
+        }
+
+        int buffer = source.queue.remove(0);
+        source.unqueued++;
+
+        command(Command.UNQUEUE, source);
+        commands.publish();
+
+        return buffer;
+    }
+
+    @Override
+    public void readToALBuffer(AudioFormat format, DirectBuffer data, UniCallback<ALBuffer> onDecoded, UniCallback<Throwable> onError)
+    {
+        decodeToPCM(format, data, pcm ->
+        {
+            ALBuffer buffer = pcm.toALBuffer();
+            DirectBuffer.free(pcm.data);
+
+            onDecoded.invoke(buffer);
+        }, onError);
+    }
+
+    @Override
+    public boolean isSupported(AudioFormat format)
+    {
+        return format == AudioFormat.WAV;
+    }
+
+    @Override
+    public void decodeToPCM(AudioFormat format, DirectBuffer data, UniCallback<PCMData> onDecoded, UniCallback<Throwable> onError)
+    {
+        PCMData decoded;
+
+        try
+        {
+            if (format != AudioFormat.WAV)
+                throw new SilenceException("Cannot parse sound. The format is unsupported: " + format);
+
+            decoded = WaveCodec.decode(data);
+        }
+        catch (Throwable e)
+        {
+            onError.invoke(e);
+            return;
+        }
+
+        onDecoded.invoke(decoded);
+    }
+
+    @Override
+    public boolean isPCMDecodingSupported(AudioFormat format)
+    {
+        return isSupported(format);
+    }
+
+    private Source getSource(int id)
+    {
+        Source source = sources.get(id);
+
+        if (source == null)
+            setError(AL_INVALID_NAME);
+        else
+            source.sync();
+
+        return source;
+    }
+
+    private Command command(int type, Source source)
+    {
+        Command command = commands.claim();
+        command.type = type;
+        command.voice = source.voice;
+
+        return command;
+    }
+
+    private void setError(int error)
+    {
+        // Like OpenAL, only the first error is kept until it is queried
+        if (this.error == AL_NO_ERROR)
+            this.error = error;
+    }
+
+    /**
+     * The state of a source as seen by the game thread. It changes at once with the calls, and learns from the mixer
+     * when the source has finished playing, or has finished some of its buffers.
+     */
+    private static class Source
+    {
+        private final MixerVoice    voice = new MixerVoice();
+        private final List<Integer> queue = new ArrayList<>();
+
+        private int     state = AL_INITIAL;
+        private int     buffer;
+        private boolean looping;
+
+        // The playback that the mixer should report about, and the counts of the buffers since it has started
+        private int generation;
+        private int processed;
+        private int unqueued;
+
+        private void restart()
+        {
+            generation++;
+            processed = 0;
+            unqueued = 0;
+        }
+
+        private void sync()
+        {
+            long progress = voice.progress;
+
+            // The mixer has not seen the latest playback yet
+            if ((int) (progress >>> 32) != generation)
+                return;
+
+            processed = Math.max(processed, (int) (progress & 0x7FFFFFFF));
+
+            if ((progress & 0x80000000L) != 0 && state == AL_PLAYING)
+                state = AL_STOPPED;
+        }
+
+        private int getProcessed()
+        {
+            return Math.max(0, Math.min(processed - unqueued, queue.size()));
+        }
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.audio.software;
+
+import com.shc.silenceengine.audio.PCMData;
+import com.shc.silenceengine.audio.openal.ALFormat;
+import com.shc.silenceengine.core.SilenceException;
+import com.shc.silenceengine.io.DirectBuffer;
+
+/**
+ * Reads and writes the PCM samples in the RIFF WAVE files. This is written in plain Java so that the software mixer
+ * can load the sounds and record the mix on every platform.
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public final class WaveCodec
+{
+    private static final int HEADER_SIZE = 44;
+
+    private static final int FORMAT_PCM        = 1;
+    private static final int FORMAT_EXTENSIBLE = 0xFFFE;
+
+    // Prevent instantiation
+    private WaveCodec()
+    {
+    }
+
+    /**
+     * Decodes the samples from a WAVE file. Only the files with 8 or 16 bit PCM samples in one or two channels are
+     * supported.
+     *
+     * @param data The contents of the WAVE file.
+     *
+     * @return The samples, in native byte order.
+     *
+     * @throws SilenceException If the data is not a supported WAVE file.
+     */
+    public static PCMData decode(DirectBuffer data)
+    {
+        if (data.sizeBytes() < 12 || readTag(data, 0) != tag("RIFF") || readTag(data, 8) != tag("WAVE"))
+            throw new SilenceException("The data is not a WAVE file");
+
+        int channels = 0;
+        int sampleRate = 0;
+        int bits = 0;
+
+        int offset = 12;
+
+        while (offset + 8 <= data.sizeBytes())
+        {
+            int id = readTag(data, offset);
+            int size = readInt(data, offset + 4);
+            int start = offset + 8;
+
+            if (size < 0 || start + size > data.sizeBytes())
+                size = data.sizeBytes() - start;
+
+            if (id == tag("fmt "))
+            {
+                int format = readShort(data, start) & 0xFFFF;
+
+                channels = readShort(data, start + 2);
+                sampleRate = readInt(data, start + 4);
+                bits = readShort(data, start + 14);
+
+                // The extensible format stores the actual format in the first two bytes of the sub format GUID
+                if (format == FORMAT_EXTENSIBLE && size >= 26)
+                    format = readShort(data, start + 24) & 0xFFFF;
+
+                if (format != FORMAT_PCM)
+                    throw new SilenceException("Only the PCM WAVE files are supported");
+            }
+            else if (id == tag("data"))
+            {
+                if (channels == 0)
+                    throw new SilenceException("The WAVE file has no format before the samples");
+
+                return toPCM(data, start, size, channels, sampleRate, bits);
+            }
+
+            // The chunks are aligned to two bytes
+            offset = start + size + (size & 1);
+        }
+
+        throw new SilenceException("The WAVE file has no samples");
+    }
+
+    private static PCMData toPCM(DirectBuffer data, int start, int size, int channels, int sampleRate, int bits)
+    {
+        ALFormat format;
+
+        if (channels == 1 && bits == 8)
+            format = ALFormat.MONO_8;
+        else if (channels == 1 && bits == 16)
+            format = ALFormat.MONO_16;
+        else if (channels == 2 && bits == 8)
+            format = ALFormat.STEREO_8;
+        else if (channels == 2 && bits == 16)
+            format = ALFormat.STEREO_16;
+        else
+            throw new SilenceException("Unsupported WAVE format: " + channels + " channels of " + bits + " bits");
+
+        size -= size % format.getBytesPerFrame();
+        DirectBuffer samples = DirectBuffer.create(size);
+
+        if (bits == 8)
+        {
+            for (int i = 0; i < size; i++)
+                samples.writeByte(i, data.readByte(start + i));
+        }
+        else
+        {
+            // The samples in the file are little endian, and the buffer is in native order
+            for (int i = 0; i < size; i += 2)
+                samples.writeShort(i, (short) readShort(data, start + i));
+        }
+
+        return new PCMData(samples, format, sampleRate);
+    }
+
+    /**
+     * Encodes 16 bit samples as a WAVE file.
+     *
+     * @param samples    The samples of all the channels, interleaved.
+     * @param frames     The number of sample frames to write.
+     * @param channels   The number of channels.
+     * @param sampleRate The sample rate in Hz.
+     *
+     * @return A new buffer with the contents of the WAVE file.
+     */
+    public static DirectBuffer encode(short[] samples, int frames, int channels, int sampleRate)
+    {
+        int dataSize = frames * channels * 2;
+        DirectBuffer data = DirectBuffer.create(HEADER_SIZE + dataSize);
+
+        writeTag(data, 0, "RIFF");
+        writeInt(data, 4, HEADER_SIZE - 8 + dataSize);
+        writeTag(data, 8, "WAVE");
+
+        writeTag(data, 12, "fmt ");
+        writeInt(data, 16, 16);
+        writeShort(data, 20, FORMAT_PCM);
+        writeShort(data, 22, channels);
+        writeInt(data, 24, sampleRate);
+        writeInt(data, 28, sampleRate * channels * 2);
+        writeShort(data, 32, channels * 2);
+        writeShort(data, 34, 16);
+
+        writeTag(data, 36, "data");
+        writeInt(data, 40, dataSize);
+
+        for (int i = 0; i < frames * channels; i++)
+            writeShort(data, HEADER_SIZE + i * 2, samples[i]);
+
+        return data;
+    }
+
+    private static int tag(String tag)
+    {
+        return tag.charAt(0) | tag.charAt(1) << 8 | tag.charAt(2) << 16 | tag.charAt(3) << 24;
+    }
+
+    private static int readTag(DirectBuffer data, int offset)
+    {
+        return readInt(data, offset);
+    }
+
+    private static void writeTag(DirectBuffer data, int offset, String tag)
+    {
+        writeInt(data, offset, tag(tag));
+    }
+
+    // The WAVE files are always little endian, so they are read a byte at a time instead of in the native order
+    private static int readShort(DirectBuffer data, int offset)
+    {
+        return (data.readByte(offset) & 0xFF) | data.readByte(offset + 1) << 8;
+    }
+
+    private static int readInt(DirectBuffer data, int offset)
+    {
+        return (readShort(data, offset) & 0xFFFF) | readShort(data, offset + 2) << 16;
+    }
+
+    private static void writeShort(DirectBuffer data, int offset, int value)
+    {
+        data.writeByte(offset, (byte) value);
+        data.writeByte(offset + 1, (byte) (value >> 8));
+    }
+
+    private static void writeInt(DirectBuffer data, int offset, int value)
+    {
+        writeShort(data, offset, value);
+        writeShort(data, offset + 2, value >> 16);
+    }
+}
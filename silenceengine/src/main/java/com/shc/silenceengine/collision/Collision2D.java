@@ -24,10 +24,18 @@
 
 package com.shc.silenceengine.collision;
 
+import com.shc.silenceengine.collision.shapes.AABBShape;
+import com.shc.silenceengine.collision.shapes.CapsuleShape;
+import com.shc.silenceengine.collision.shapes.CircleShape;
+import com.shc.silenceengine.collision.shapes.CollisionShape2D;
+import com.shc.silenceengine.collision.shapes.OBBShape;
+import com.shc.silenceengine.math.GeometryKernels;
 import com.shc.silenceengine.math.Vector2;
 import com.shc.silenceengine.math.geom2d.Polygon;
+import com.shc.silenceengine.math.geom2d.Rectangle;
+import com.shc.silenceengine.utils.MathUtils;
 
-import java.util.List;
+import static com.shc.silenceengine.collision.shapes.CollisionShape2D.Type.*;
 
 /**
  * This class contains the utilities for checking collisions in 2D. Contains helper methods to check using SAT
@@ -38,8 +46,53 @@ import java.util.List;
  */
 public final class Collision2D
 {
+    // The largest cross product of two axes that are considered parallel
+    private static final float PARALLEL_EPSILON = 1e-6f;
+
+    // The distance at which the swept shapes are considered to touch, and the limit of the steps taken to get there
+    private static final float TOI_TOLERANCE      = 1e-3f;
+    private static final int   MAX_TOI_ITERATIONS = 32;
+
     private static Response tmpResponse = new Response();
 
+    // The core points of the swept shapes in world space, which are grown by the radius to make the shape
+    private static float[] coreA = new float[4];
+    private static float[] coreB = new float[4];
+    private static float[] coreDataA, coreDataB;
+    private static int     coreCountA, coreCountB;
+    private static float   coreRadiusA, coreRadiusB;
+
+    // The direction of the impact found by the swept tests, and the closest points found by the core distance
+    private static float normalX, normalY;
+    private static float closestX, closestY;
+
+    // The tests for the collisions between the shapes, indexed by their types
+    private static final ShapeTest[][] tests;
+
+    static
+    {
+        int numTypes = CollisionShape2D.Type.values().length;
+        tests = new ShapeTest[numTypes][numTypes];
+
+        // Every pair of types is tested as polygons unless there is a better test
+        for (CollisionShape2D.Type typeA : CollisionShape2D.Type.values())
+            for (CollisionShape2D.Type typeB : CollisionShape2D.Type.values())
+                tests[typeA.ordinal()][typeB.ordinal()] = Collision2D::testPolygons;
+
+        register(CIRCLE, CIRCLE, Collision2D::testCircles);
+        register(AABB, AABB, Collision2D::testAABBs);
+        register(AABB, OBB, Collision2D::testBoxes);
+        register(OBB, OBB, Collision2D::testBoxes);
+        register(AABB, CIRCLE, Collision2D::testBoxCircle);
+        register(OBB, CIRCLE, Collision2D::testBoxCircle);
+        register(CAPSULE, CIRCLE, Collision2D::testCapsuleCircle);
+        register(CAPSULE, CAPSULE, Collision2D::testCapsules);
+        register(CIRCLE, POLYGON, Collision2D::testCirclePolygon);
+        register(CAPSULE, POLYGON, Collision2D::testCapsulePolygon);
+        register(CAPSULE, AABB, Collision2D::testCapsulePolygon);
+        register(CAPSULE, OBB, Collision2D::testCapsulePolygon);
+    }
+
     private Collision2D()
     {
     }
@@ -49,90 +102,103 @@ public final class Collision2D
         if (response == null)
             response = tmpResponse.clear();
 
-        Vector2 tmpNormal = Vector2.REUSABLE_STACK.pop();
-
-        for (int i = 0; i < a.vertexCount(); i++)
-        {
-            Vector2 e1 = a.getVertex(i);
-            Vector2 e2 = a.getVertex((i + 1) % a.vertexCount());
-
-            Vector2 edge = tmpNormal.set(e2).subtract(e1);
-            Vector2 normal = edge.perpendicular().normalize();
-
-            if (isSeparatingAxis(a, b, normal, response))
-            {
-                Vector2.REUSABLE_STACK.push(tmpNormal);
-                return false;
-            }
-        }
+        Vector2 axis = Vector2.REUSABLE_STACK.pop();
+        Vector2 rangeA = Vector2.REUSABLE_STACK.pop();
+        Vector2 rangeB = Vector2.REUSABLE_STACK.pop();
 
-        for (int i = 0; i < b.vertexCount(); i++)
-        {
-            Vector2 e1 = b.getVertex(i);
-            Vector2 e2 = b.getVertex((i + 1) % b.vertexCount());
+        // The axes are the unique normals of the edges of both the polygons, cached in the polygons
+        boolean separated = isSeparatedOnAxes(a, b, a, axis, rangeA, rangeB, response) ||
+                            isSeparatedOnAxes(a, b, b, axis, rangeA, rangeB, response);
 
-            Vector2 edge = tmpNormal.set(e2).subtract(e1);
-            Vector2 normal = edge.perpendicular().normalize();
+        Vector2.REUSABLE_STACK.push(axis);
+        Vector2.REUSABLE_STACK.push(rangeA);
+        Vector2.REUSABLE_STACK.push(rangeB);
 
-            if (isSeparatingAxis(a, b, normal, response))
-            {
-                Vector2.REUSABLE_STACK.push(tmpNormal);
-                return false;
-            }
-        }
+        if (separated)
+            return false;
 
         response.a = a;
         response.b = b;
         response.overlapV.set(response.overlapN).scale(response.overlap);
         response.intersection = true;
 
-        Vector2.REUSABLE_STACK.push(tmpNormal);
-
         return true;
     }
 
+    private static boolean isSeparatedOnAxes(Polygon a, Polygon b, Polygon axes, Vector2 axis, Vector2 rangeA,
+                                             Vector2 rangeB, Response response)
+    {
+        float[] axisData = axes.getAxisData();
+
+        for (int i = 0; i < axes.axisCount(); i++)
+        {
+            axis.set(axisData[i * 2], axisData[i * 2 + 1]);
+
+            if (isSeparatingAxis(a, b, axis, rangeA, rangeB, response))
+                return true;
+        }
+
+        return false;
+    }
+
     public static boolean isSeparatingAxis(Polygon a, Polygon b, Vector2 axis, Response response)
     {
         if (response == null)
             response = tmpResponse.clear();
 
-        Vector2 tmpOffset = Vector2.REUSABLE_STACK.pop();
         Vector2 tmpRangeA = Vector2.REUSABLE_STACK.pop();
         Vector2 tmpRangeB = Vector2.REUSABLE_STACK.pop();
 
-        Vector2 offset = tmpOffset.set(b.getPosition()).subtract(a.getPosition());
+        boolean separating = isSeparatingAxis(a, b, axis, tmpRangeA, tmpRangeB, response);
+
+        Vector2.REUSABLE_STACK.push(tmpRangeA);
+        Vector2.REUSABLE_STACK.push(tmpRangeB);
 
-        float projectedOffset = offset.dot(axis);
+        return separating;
+    }
 
-        Vector2 rangeA = flattenPoints(a.getVertices(), axis, tmpRangeA);
-        Vector2 rangeB = flattenPoints(b.getVertices(), axis, tmpRangeB);
+    private static boolean isSeparatingAxis(Polygon a, Polygon b, Vector2 axis, Vector2 rangeA, Vector2 rangeB,
+                                            Response response)
+    {
+        Vector2 positionA = a.getPosition();
+        Vector2 positionB = b.getPosition();
+
+        float projectedOffset = (positionB.x - positionA.x) * axis.x + (positionB.y - positionA.y) * axis.y;
+
+        GeometryKernels kernels = GeometryKernels.getInstance();
+        kernels.projectPoints2(a.getVertexData(), 0, a.vertexCount(), axis.x, axis.y, rangeA);
+        kernels.projectPoints2(b.getVertexData(), 0, b.vertexCount(), axis.x, axis.y, rangeB);
 
         rangeB.add(projectedOffset, projectedOffset);
 
-        if (rangeA.x > rangeB.y || rangeB.x > rangeA.y)
-        {
-            Vector2.REUSABLE_STACK.push(tmpOffset);
-            Vector2.REUSABLE_STACK.push(tmpRangeA);
-            Vector2.REUSABLE_STACK.push(tmpRangeB);
+        return isSeparated(rangeA.x, rangeA.y, rangeB.x, rangeB.y, axis.x, axis.y, response);
+    }
 
+    /**
+     * Checks whether the projections of two shapes on an axis are separated, and if they are not, records the overlap
+     * in the response if it is the smallest one so far.
+     */
+    private static boolean isSeparated(float minA, float maxA, float minB, float maxB, float axisX, float axisY,
+                                       Response response)
+    {
+        if (minA > maxB || minB > maxA)
             return true;
-        }
 
         float overlap;
 
-        if (rangeA.x < rangeB.x)
+        if (minA < minB)
         {
             response.aInB = false;
 
-            if (rangeA.y < rangeB.y)
+            if (maxA < maxB)
             {
-                overlap = rangeA.y - rangeB.x;
+                overlap = maxA - minB;
                 response.bInA = false;
             }
             else
             {
-                float option1 = rangeA.y - rangeB.x;
-                float option2 = rangeB.y - rangeA.x;
+                float option1 = maxA - minB;
+                float option2 = maxB - minA;
                 overlap = option1 < option2 ? option1 : -option2;
             }
         }
@@ -140,51 +206,1084 @@ public final class Collision2D
         {
             response.bInA = false;
 
-            if (rangeA.y > rangeB.y)
+            if (maxA > maxB)
             {
-                overlap = rangeA.y - rangeB.x;
+                overlap = minA - maxB;
                 response.aInB = false;
             }
             else
             {
-                float option1 = rangeA.y - rangeB.x;
-                float option2 = rangeB.y - rangeA.x;
+                float option1 = maxA - minB;
+                float option2 = maxB - minA;
                 overlap = option1 < option2 ? option1 : -option2;
             }
         }
 
-        overlap = Math.abs(overlap);
+        // A negative overlap means that the shapes need to be pushed apart against the axis
+        float absOverlap = Math.abs(overlap);
 
-        if (overlap < response.overlap)
+        if (absOverlap < response.overlap)
         {
-            response.overlap = overlap;
-            response.overlapN.set(axis.normalize());
+            response.overlap = absOverlap;
+            response.overlapN.set(axisX, axisY).normalize();
 
             if (overlap < 0)
                 response.overlapN.negate();
         }
 
-        Vector2.REUSABLE_STACK.push(tmpOffset);
-        Vector2.REUSABLE_STACK.push(tmpRangeA);
-        Vector2.REUSABLE_STACK.push(tmpRangeB);
-
         return false;
     }
 
-    private static Vector2 flattenPoints(List<Vector2> vertices, Vector2 normal, Vector2 projection)
+    /**
+     * Registers a test for the collisions between two types of shapes, replacing the existing one. The test is also
+     * used for the shapes in the reverse order, with the response reversed.
+     *
+     * @param typeA The type of the first shape the test accepts.
+     * @param typeB The type of the second shape the test accepts.
+     * @param test  The test for the collisions between the shapes.
+     */
+    public static void register(CollisionShape2D.Type typeA, CollisionShape2D.Type typeB, ShapeTest test)
+    {
+        tests[typeA.ordinal()][typeB.ordinal()] = test;
+
+        if (typeA != typeB)
+            tests[typeB.ordinal()][typeA.ordinal()] = (a, b, response) -> testReversed(test, a, b, response);
+    }
+
+    /**
+     * Tests the collision between two shapes, using the test registered for their types.
+     *
+     * @param a        The first shape.
+     * @param b        The second shape.
+     * @param response The response to store the details of the collision into, or null to use a temporary one.
+     *
+     * @return True if the shapes collide, false otherwise.
+     */
+    public static boolean testCollision(CollisionShape2D a, CollisionShape2D b, Response response)
+    {
+        if (response == null)
+            response = tmpResponse.clear();
+
+        response.shapeA = a;
+        response.shapeB = b;
+
+        return tests[a.getType().ordinal()][b.getType().ordinal()].test(a, b, response);
+    }
+
+    private static boolean testReversed(ShapeTest test, CollisionShape2D a, CollisionShape2D b, Response response)
+    {
+        if (!test.test(b, a, response))
+            return false;
+
+        // The test pushed b out of a, turn it into pushing a out of b
+        boolean aInB = response.aInB;
+        response.aInB = response.bInA;
+        response.bInA = aInB;
+
+        Polygon polygonA = response.a;
+        response.a = response.b;
+        response.b = polygonA;
+
+        response.overlapN.negate();
+        response.overlapV.set(response.overlapN).scale(response.overlap);
+
+        return true;
+    }
+
+    private static boolean intersection(Response response)
+    {
+        response.overlapV.set(response.overlapN).scale(response.overlap);
+        response.intersection = true;
+
+        return true;
+    }
+
+    private static boolean testPolygons(CollisionShape2D a, CollisionShape2D b, Response response)
+    {
+        return testPolygonCollision(a.getPolygon(), b.getPolygon(), response);
+    }
+
+    private static boolean testCircles(CollisionShape2D a, CollisionShape2D b, Response response)
+    {
+        CircleShape circleA = (CircleShape) a;
+        CircleShape circleB = (CircleShape) b;
+
+        return testDiscs(a.getPosition().x, a.getPosition().y, circleA.getScaledRadius(),
+                b.getPosition().x, b.getPosition().y, circleB.getScaledRadius(), 1, 0, response);
+    }
+
+    /*
+     * Tests two discs, and pushes them apart along the given normal in case they have the same center.
+     */
+    private static boolean testDiscs(float ax, float ay, float ra, float bx, float by, float rb, float normalX,
+                                     float normalY, Response response)
+    {
+        float dx = bx - ax;
+        float dy = by - ay;
+        float radii = ra + rb;
+        float distanceSquared = dx * dx + dy * dy;
+
+        if (distanceSquared > radii * radii)
+            return false;
+
+        float distance = (float) Math.sqrt(distanceSquared);
+
+        response.overlap = radii - distance;
+
+        if (distance == 0)
+            response.overlapN.set(normalX, normalY);
+        else
+            response.overlapN.set(dx / distance, dy / distance);
+
+        response.aInB = ra <= rb && distance <= rb - ra;
+        response.bInA = rb <= ra && distance <= ra - rb;
+
+        return intersection(response);
+    }
+
+    private static boolean testAABBs(CollisionShape2D a, CollisionShape2D b, Response response)
+    {
+        AABBShape boxA = (AABBShape) a;
+        AABBShape boxB = (AABBShape) b;
+
+        float dx = b.getPosition().x - a.getPosition().x;
+        float dy = b.getPosition().y - a.getPosition().y;
+
+        // The distances the boxes need to be moved along each axis to separate them
+        float overlapX = boxA.getHalfWidth() + boxB.getHalfWidth() - Math.abs(dx);
+        float overlapY = boxA.getHalfHeight() + boxB.getHalfHeight() - Math.abs(dy);
+
+        if (overlapX < 0 || overlapY < 0)
+            return false;
+
+        if (overlapX < overlapY)
+        {
+            response.overlap = overlapX;
+            response.overlapN.set(dx < 0 ? -1 : 1, 0);
+        }
+        else
+        {
+            response.overlap = overlapY;
+            response.overlapN.set(0, dy < 0 ? -1 : 1);
+        }
+
+        response.aInB = Math.abs(dx) + boxA.getHalfWidth() <= boxB.getHalfWidth() &&
+                        Math.abs(dy) + boxA.getHalfHeight() <= boxB.getHalfHeight();
+        response.bInA = Math.abs(dx) + boxB.getHalfWidth() <= boxA.getHalfWidth() &&
+                        Math.abs(dy) + boxB.getHalfHeight() <= boxA.getHalfHeight();
+
+        return intersection(response);
+    }
+
+    private static boolean testBoxes(CollisionShape2D a, CollisionShape2D b, Response response)
+    {
+        OBBShape boxA = (OBBShape) a;
+        OBBShape boxB = (OBBShape) b;
+
+        float cos = boxA.getCos();
+        float sin = boxA.getSin();
+
+        // The axes of the first box, and those of the second box unless they are parallel to the first ones
+        if (isSeparated(boxA, boxB, cos, sin, response) || isSeparated(boxA, boxB, -sin, cos, response))
+            return false;
+
+        if (Math.abs(cos * boxB.getSin() - sin * boxB.getCos()) > PARALLEL_EPSILON &&
+            Math.abs(cos * boxB.getCos() + sin * boxB.getSin()) > PARALLEL_EPSILON)
+        {
+            if (isSeparated(boxA, boxB, boxB.getCos(), boxB.getSin(), response) ||
+                isSeparated(boxA, boxB, -boxB.getSin(), boxB.getCos(), response))
+                return false;
+        }
+
+        return intersection(response);
+    }
+
+    private static boolean isSeparated(OBBShape a, OBBShape b, float axisX, float axisY, Response response)
+    {
+        float centerA = a.getPosition().x * axisX + a.getPosition().y * axisY;
+        float centerB = b.getPosition().x * axisX + b.getPosition().y * axisY;
+
+        float extentA = getExtent(a, axisX, axisY);
+        float extentB = getExtent(b, axisX, axisY);
+
+        return isSeparated(centerA - extentA, centerA + extentA, centerB - extentB, centerB + extentB,
+                axisX, axisY, response);
+    }
+
+    // Half of the length of the projection of a box on an axis
+    private static float getExtent(OBBShape box, float axisX, float axisY)
+    {
+        float cos = box.getCos();
+        float sin = box.getSin();
+
+        return box.getHalfWidth() * Math.abs(cos * axisX + sin * axisY) +
+               box.getHalfHeight() * Math.abs(-sin * axisX + cos * axisY);
+    }
+
+    private static boolean testBoxCircle(CollisionShape2D a, CollisionShape2D b, Response response)
+    {
+        OBBShape box = (OBBShape) a;
+        float radius = ((CircleShape) b).getScaledRadius();
+
+        float cos = box.getCos();
+        float sin = box.getSin();
+        float hw = box.getHalfWidth();
+        float hh = box.getHalfHeight();
+
+        // The center of the circle in the space of the box
+        float dx = b.getPosition().x - a.getPosition().x;
+        float dy = b.getPosition().y - a.getPosition().y;
+        float localX = dx * cos + dy * sin;
+        float localY = -dx * sin + dy * cos;
+
+        float outsideX = localX - MathUtils.clamp(localX, -hw, hw);
+        float outsideY = localY - MathUtils.clamp(localY, -hh, hh);
+        float distanceSquared = outsideX * outsideX + outsideY * outsideY;
+
+        if (distanceSquared > radius * radius)
+            return false;
+
+        float normalX, normalY;
+
+        if (distanceSquared > 0)
+        {
+            // The center is outside, push along the line from the closest point of the box
+            float distance = (float) Math.sqrt(distanceSquared);
+
+            normalX = outsideX / distance;
+            normalY = outsideY / distance;
+            response.overlap = radius - distance;
+        }
+        else if (hw - Math.abs(localX) < hh - Math.abs(localY))
+        {
+            // The center is inside, push out through the nearest side
+            normalX = localX < 0 ? -1 : 1;
+            normalY = 0;
+            response.overlap = hw - Math.abs(localX) + radius;
+        }
+        else
+        {
+            normalX = 0;
+            normalY = localY < 0 ? -1 : 1;
+            response.overlap = hh - Math.abs(localY) + radius;
+        }
+
+        response.overlapN.set(normalX * cos - normalY * sin, normalX * sin + normalY * cos);
+
+        float farX = Math.abs(localX) + hw;
+        float farY = Math.abs(localY) + hh;
+
+        response.aInB = farX * farX + farY * farY <= radius * radius;
+        response.bInA = Math.abs(localX) + radius <= hw && Math.abs(localY) + radius <= hh;
+
+        return intersection(response);
+    }
+
+    private static boolean testCapsuleCircle(CollisionShape2D a, CollisionShape2D b, Response response)
+    {
+        CapsuleShape capsule = (CapsuleShape) a;
+        float radius = ((CircleShape) b).getScaledRadius();
+
+        Vector2 closest = Vector2.REUSABLE_STACK.pop();
+        closestPointOnSegment(capsule, b.getPosition().x, b.getPosition().y, closest);
+
+        boolean collides = testDiscs(closest.x, closest.y, capsule.getScaledRadius(),
+                b.getPosition().x, b.getPosition().y, radius, -capsule.getSin(), capsule.getCos(), response);
+
+        Vector2.REUSABLE_STACK.push(closest);
+
+        if (collides)
+        {
+            // The capsule is inside the circle only if both of its caps are
+            float ra = capsule.getScaledRadius();
+            float hl = capsule.getHalfLength();
+            float dx = b.getPosition().x - a.getPosition().x;
+            float dy = b.getPosition().y - a.getPosition().y;
+            float along = Math.abs(dx * capsule.getCos() + dy * capsule.getSin());
+            float across = dx * capsule.getSin() - dy * capsule.getCos();
+
+            float farthest = (float) Math.sqrt((along + hl) * (along + hl) + across * across);
+            response.aInB = farthest + ra <= radius;
+        }
+
+        return collides;
+    }
+
+    private static boolean testCapsules(CollisionShape2D a, CollisionShape2D b, Response response)
+    {
+        CapsuleShape capsuleA = (CapsuleShape) a;
+        CapsuleShape capsuleB = (CapsuleShape) b;
+
+        Vector2 closestA = Vector2.REUSABLE_STACK.pop();
+        Vector2 closestB = Vector2.REUSABLE_STACK.pop();
+
+        closestPointsOnSegments(capsuleA, capsuleB, closestA, closestB);
+
+        // If the segments cross, the closest points say nothing about the direction to push them apart
+        boolean crossing = closestA.distanceSquared(closestB) <= MathUtils.EPSILON;
+
+        boolean collides = crossing ? testCrossingCapsules(capsuleA, capsuleB, response)
+                                    : testDiscs(closestA.x, closestA.y, capsuleA.getScaledRadius(),
+                closestB.x, closestB.y, capsuleB.getScaledRadius(), 1, 0, response);
+
+        Vector2.REUSABLE_STACK.push(closestA);
+        Vector2.REUSABLE_STACK.push(closestB);
+
+        if (collides)
+        {
+            response.aInB = isCapsuleInside(capsuleA, capsuleB);
+            response.bInA = isCapsuleInside(capsuleB, capsuleA);
+        }
+
+        return collides;
+    }
+
+    /*
+     * The segments of crossing capsules make a parallelogram in the Minkowski difference, and the shortest way out of it
+     * is across one of its sides, so the normals of the segments find the smallest push. The directions of the
+     * segments are also tested for the segments that are parallel and overlap. The capsules are projected exactly on
+     * every axis, so the push always separates them.
+     */
+    private static boolean testCrossingCapsules(CapsuleShape a, CapsuleShape b, Response response)
+    {
+        if (isSeparated(a, b, -a.getSin(), a.getCos(), response) || isSeparated(a, b, a.getCos(), a.getSin(), response))
+            return false;
+
+        if (Math.abs(a.getCos() * b.getSin() - a.getSin() * b.getCos()) > PARALLEL_EPSILON)
+        {
+            if (isSeparated(a, b, -b.getSin(), b.getCos(), response) ||
+                isSeparated(a, b, b.getCos(), b.getSin(), response))
+                return false;
+        }
+
+        return intersection(response);
+    }
+
+    private static boolean isSeparated(CapsuleShape a, CapsuleShape b, float axisX, float axisY, Response response)
+    {
+        float centerA = a.getPosition().x * axisX + a.getPosition().y * axisY;
+        float centerB = b.getPosition().x * axisX + b.getPosition().y * axisY;
+
+        float extentA = getExtent(a, axisX, axisY);
+        float extentB = getExtent(b, axisX, axisY);
+
+        return isSeparated(centerA - extentA, centerA + extentA, centerB - extentB, centerB + extentB,
+                axisX, axisY, response);
+    }
+
+    // Half of the length of the projection of a capsule on an axis
+    private static float getExtent(CapsuleShape capsule, float axisX, float axisY)
+    {
+        return capsule.getHalfLength() * Math.abs(capsule.getCos() * axisX + capsule.getSin() * axisY) +
+               capsule.getScaledRadius();
+    }
+
+    private static boolean isCapsuleInside(CapsuleShape inner, CapsuleShape outer)
+    {
+        float room = outer.getScaledRadius() - inner.getScaledRadius();
+
+        if (room < 0)
+            return false;
+
+        Vector2 closest = Vector2.REUSABLE_STACK.pop();
+        boolean inside = true;
+
+        for (int end = -1; end <= 1 && inside; end += 2)
+        {
+            float x = inner.getPosition().x + end * inner.getHalfLength() * inner.getCos();
+            float y = inner.getPosition().y + end * inner.getHalfLength() * inner.getSin();
+
+            closestPointOnSegment(outer, x, y, closest);
+            inside = closest.subtract(x, y).lengthSquared() <= room * room;
+        }
+
+        Vector2.REUSABLE_STACK.push(closest);
+        return inside;
+    }
+
+    private static void closestPointOnSegment(CapsuleShape capsule, float x, float y, Vector2 dest)
+    {
+        float hl = capsule.getHalfLength();
+        float along = (x - capsule.getPosition().x) * capsule.getCos() + (y - capsule.getPosition().y) * capsule.getSin();
+        along = MathUtils.clamp(along, -hl, hl);
+
+        dest.set(capsule.getPosition().x + along * capsule.getCos(), capsule.getPosition().y + along * capsule.getSin());
+    }
+
+    // Follows ClosestPtSegmentSegment (Page 149, Real-time Collision Detection by Christer Ericson)
+    private static void closestPointsOnSegments(CapsuleShape a, CapsuleShape b, Vector2 destA, Vector2 destB)
+    {
+        float p1x = a.getPosition().x - a.getHalfLength() * a.getCos();
+        float p1y = a.getPosition().y - a.getHalfLength() * a.getSin();
+        float d1x = 2 * a.getHalfLength() * a.getCos();
+        float d1y = 2 * a.getHalfLength() * a.getSin();
+
+        float p2x = b.getPosition().x - b.getHalfLength() * b.getCos();
+        float p2y = b.getPosition().y - b.getHalfLength() * b.getSin();
+        float d2x = 2 * b.getHalfLength() * b.getCos();
+        float d2y = 2 * b.getHalfLength() * b.getSin();
+
+        float rx = p1x - p2x;
+        float ry = p1y - p2y;
+
+        float lengthA = d1x * d1x + d1y * d1y;
+        float lengthB = d2x * d2x + d2y * d2y;
+        float f = d2x * rx + d2y * ry;
+
+        float s, t;
+
+        if (lengthA <= MathUtils.EPSILON && lengthB <= MathUtils.EPSILON)
+            s = t = 0;
+        else if (lengthA <= MathUtils.EPSILON)
+        {
+            s = 0;
+            t = MathUtils.clamp(f / lengthB, 0, 1);
+        }
+        else
+        {
+            float c = d1x * rx + d1y * ry;
+
+            if (lengthB <= MathUtils.EPSILON)
+            {
+                t = 0;
+                s = MathUtils.clamp(-c / lengthA, 0, 1);
+            }
+            else
+            {
+                float bb = d1x * d2x + d1y * d2y;
+                float denominator = lengthA * lengthB - bb * bb;
+
+                s = denominator != 0 ? MathUtils.clamp((bb * f - c * lengthB) / denominator, 0, 1) : 0;
+                t = (bb * s + f) / lengthB;
+
+                if (t < 0)
+                {
+                    t = 0;
+                    s = MathUtils.clamp(-c / lengthA, 0, 1);
+                }
+                else if (t > 1)
+                {
+                    t = 1;
+                    s = MathUtils.clamp((bb - c) / lengthA, 0, 1);
+                }
+            }
+        }
+
+        destA.set(p1x + d1x * s, p1y + d1y * s);
+        destB.set(p2x + d2x * t, p2y + d2y * t);
+    }
+
+    private static boolean testCirclePolygon(CollisionShape2D a, CollisionShape2D b, Response response)
+    {
+        float x = a.getPosition().x;
+        float y = a.getPosition().y;
+
+        return testRoundPolygon(x, y, x, y, ((CircleShape) a).getScaledRadius(), b.getPolygon(), response);
+    }
+
+    private static boolean testCapsulePolygon(CollisionShape2D a, CollisionShape2D b, Response response)
+    {
+        CapsuleShape capsule = (CapsuleShape) a;
+
+        float hl = capsule.getHalfLength();
+        float dx = hl * capsule.getCos();
+        float dy = hl * capsule.getSin();
+        float x = a.getPosition().x;
+        float y = a.getPosition().y;
+
+        return testRoundPolygon(x - dx, y - dy, x + dx, y + dy, capsule.getScaledRadius(), b.getPolygon(), response);
+    }
+
+    /*
+     * Tests a segment grown by a radius (a circle if the ends are the same, or a capsule) against a polygon with SAT.
+     * Apart from the axes of the polygon and the normal of the segment, the only axes that can separate them are the
+     * ones from the ends of the segment to the vertices of the polygon that are the closest to them.
+     */
+    private static boolean testRoundPolygon(float x1, float y1, float x2, float y2, float radius, Polygon polygon,
+                                            Response response)
+    {
+        Vector2 range = Vector2.REUSABLE_STACK.pop();
+
+        float[] axes = polygon.getAxisData();
+        boolean separated = false;
+
+        for (int i = 0; i < polygon.axisCount() && !separated; i++)
+            separated = isSeparated(x1, y1, x2, y2, radius, polygon, axes[i * 2], axes[i * 2 + 1], range, response);
+
+        float segmentX = x2 - x1;
+        float segmentY = y2 - y1;
+        float length = (float) Math.sqrt(segmentX * segmentX + segmentY * segmentY);
+
+        if (!separated && length > 0)
+            separated = isSeparated(x1, y1, x2, y2, radius, polygon, -segmentY / length, segmentX / length, range,
+                    response);
+
+        for (int end = 0; end < 2 && !separated; end++)
+        {
+            float x = end == 0 ? x1 : x2;
+            float y = end == 0 ? y1 : y2;
+
+            float[] vertices = polygon.getWorldVertexData();
+            float closestX = 0, closestY = 0;
+            float closestDistance = Float.MAX_VALUE;
+
+            for (int i = 0; i < polygon.vertexCount(); i++)
+            {
+                float dx = vertices[i * 2] - x;
+                float dy = vertices[i * 2 + 1] - y;
+                float distance = dx * dx + dy * dy;
+
+                if (distance < closestDistance)
+                {
+                    closestDistance = distance;
+                    closestX = dx;
+                    closestY = dy;
+                }
+            }
+
+            if (closestDistance > 0)
+            {
+                float distance = (float) Math.sqrt(closestDistance);
+                separated = isSeparated(x1, y1, x2, y2, radius, polygon, closestX / distance, closestY / distance,
+                        range, response);
+            }
+
+            // There is only one end for a circle
+            if (x1 == x2 && y1 == y2)
+                break;
+        }
+
+        Vector2.REUSABLE_STACK.push(range);
+
+        if (separated)
+            return false;
+
+        response.b = polygon;
+        return intersection(response);
+    }
+
+    private static boolean isSeparated(float x1, float y1, float x2, float y2, float radius, Polygon polygon,
+                                       float axisX, float axisY, Vector2 range, Response response)
+    {
+        float projection1 = x1 * axisX + y1 * axisY;
+        float projection2 = x2 * axisX + y2 * axisY;
+
+        float offset = polygon.getPosition().x * axisX + polygon.getPosition().y * axisY;
+        GeometryKernels.getInstance().projectPoints2(polygon.getVertexData(), 0, polygon.vertexCount(), axisX, axisY,
+                range);
+
+        return isSeparated(Math.min(projection1, projection2) - radius, Math.max(projection1, projection2) + radius,
+                range.x + offset, range.y + offset, axisX, axisY, response);
+    }
+
+    /**
+     * Tests whether two moving shapes collide anywhere along their motion, and finds the time of impact, which is the
+     * fraction of the motion at which they first touch. The shapes are at the end of their motion, and translate
+     * from where they started with their rotation at the end. Two boxes are swept with their bounds, two circles with
+     * a closed form test, and the other shapes with conservative advancement, which steps the shapes towards each
+     * other by their distance until they touch.
+     *
+     * @param a        The first shape, at the end of its motion.
+     * @param motionA  How much the first shape moved.
+     * @param b        The second shape, at the end of its motion.
+     * @param motionB  How much the second shape moved.
+     * @param response The response to store the time of impact and its normal into, or null to use a temporary one.
+     *
+     * @return True if the shapes touch at any time during their motion, false otherwise.
+     */
+    public static boolean testSweptCollision(CollisionShape2D a, Vector2 motionA, CollisionShape2D b, Vector2 motionB,
+                                             Response response)
+    {
+        if (response == null)
+            response = tmpResponse.clear();
+
+        // The motion of A when B stays at the end of its motion
+        float dx = motionA.x - motionB.x;
+        float dy = motionA.y - motionB.y;
+
+        // The bounds are swept first, which is exact for two boxes, and rejects most of the others
+        float toi = sweepBounds(a.getBounds(), b.getBounds(), dx, dy);
+
+        if (toi >= 0 && a.getType() == CIRCLE && b.getType() == CIRCLE)
+            toi = sweepCircles((CircleShape) a, (CircleShape) b, dx, dy);
+
+        else if (toi >= 0 && (a.getType() != AABB || b.getType() != AABB))
+            toi = advance(a, b, dx, dy, toi);
+
+        if (toi < 0)
+            return false;
+
+        response.shapeA = a;
+        response.shapeB = b;
+        response.timeOfImpact = toi;
+        response.impactNormal.set(normalX, normalY);
+        response.impact = true;
+
+        return true;
+    }
+
+    /*
+     * Sweeps the bounds of A moving by (dx, dy) against the bounds of B, and returns the time of impact, or -1 if they
+     * do not touch.
+     */
+    private static float sweepBounds(Rectangle a, Rectangle b, float dx, float dy)
+    {
+        float startX = a.x - dx;
+        float startY = a.y - dy;
+
+        float enterX, exitX, enterY, exitY;
+
+        if (dx == 0)
+        {
+            if (startX + a.width < b.x || startX > b.x + b.width)
+                return -1;
+
+            enterX = Float.NEGATIVE_INFINITY;
+            exitX = Float.POSITIVE_INFINITY;
+        }
+        else
+        {
+            float t1 = (b.x - startX - a.width) / dx;
+            float t2 = (b.x + b.width - startX) / dx;
+
+            enterX = Math.min(t1, t2);
+            exitX = Math.max(t1, t2);
+        }
+
+        if (dy == 0)
+        {
+            if (startY + a.height < b.y || startY > b.y + b.height)
+                return -1;
+
+            enterY = Float.NEGATIVE_INFINITY;
+            exitY = Float.POSITIVE_INFINITY;
+        }
+        else
+        {
+            float t1 = (b.y - startY - a.height) / dy;
+            float t2 = (b.y + b.height - startY) / dy;
+
+            enterY = Math.min(t1, t2);
+            exitY = Math.max(t1, t2);
+        }
+
+        float enter = Math.max(enterX, enterY);
+        float exit = Math.min(exitX, exitY);
+
+        if (enter > exit || enter > 1 || exit < 0)
+            return -1;
+
+        // The normal is the axis the bounds touched on last, pointing along the motion
+        if (enterX > enterY)
+        {
+            normalX = Math.signum(dx);
+            normalY = 0;
+        }
+        else
+        {
+            normalX = 0;
+            normalY = Math.signum(dy);
+        }
+
+        return Math.max(0, enter);
+    }
+
+    private static float sweepCircles(CircleShape a, CircleShape b, float dx, float dy)
+    {
+        float radius = a.getScaledRadius() + b.getScaledRadius();
+
+        // The offset of A from B at the start of the motion
+        float px = a.getPosition().x - dx - b.getPosition().x;
+        float py = a.getPosition().y - dy - b.getPosition().y;
+
+        // Solves |p + t * d| = radius for the smallest t
+        float c = px * px + py * py - radius * radius;
+        float halfB = px * dx + py * dy;
+        float t;
+
+        if (c <= 0)
+            t = 0;
+        else
+        {
+            float discriminant = halfB * halfB - (dx * dx + dy * dy) * c;
+
+            if (halfB >= 0 || discriminant < 0)
+                return -1;
+
+            t = (-halfB - (float) Math.sqrt(discriminant)) / (dx * dx + dy * dy);
+
+            if (t > 1)
+                return -1;
+        }
+
+        float nx = -(px + dx * t);
+        float ny = -(py + dy * t);
+        float length = (float) Math.sqrt(nx * nx + ny * ny);
+
+        if (length > 0)
+        {
+            normalX = nx / length;
+            normalY = ny / length;
+        }
+
+        return t;
+    }
+
+    /*
+     * Conservative advancement from the time t. The shapes are reduced to their cores, a point for circles, a segment
+     * for capsules and the polygon for the others, and A is moved towards B by their distance divided by the speed
+     * at which it closes in on B, which can not make them overlap. The distance is found again, until they touch.
+     */
+    private static float advance(CollisionShape2D a, CollisionShape2D b, float dx, float dy, float t)
     {
-        float min = Float.MAX_VALUE;
-        float max = -min;
+        if (t == 0)
+        {
+            // The bounds already overlap at the start, and the shapes might do too
+            Vector2 position = Vector2.REUSABLE_STACK.pop().set(a.getPosition());
+            a.setPosition(position.x - dx, position.y - dy);
 
-        for (Vector2 vertex : vertices)
+            boolean overlapping = testCollision(a, b, null);
+
+            a.setPosition(position);
+            Vector2.REUSABLE_STACK.push(position);
+
+            if (overlapping)
+            {
+                normalX = tmpResponse.overlapN.x;
+                normalY = tmpResponse.overlapN.y;
+                tmpResponse.clear();
+
+                return 0;
+            }
+        }
+
+        loadCore(a, true);
+        loadCore(b, false);
+
+        for (int i = 0; i < MAX_TOI_ITERATIONS; i++)
         {
-            float dot = vertex.dot(normal);
+            float distance = coreDistance((t - 1) * dx, (t - 1) * dy) - coreRadiusA - coreRadiusB;
 
-            if (dot < min) min = dot;
-            if (dot > max) max = dot;
+            if (distance <= TOI_TOLERANCE)
+                return t;
+
+            // The closest points are seen along the normal, which is the direction A closes in on B
+            float speed = dx * normalX + dy * normalY;
+
+            if (speed <= 0)
+                return -1;
+
+            t += distance / speed;
+
+            if (t > 1)
+                return -1;
         }
 
-        return projection.set(min, max);
+        return -1;
+    }
+
+    private static void loadCore(CollisionShape2D shape, boolean first)
+    {
+        float[] core = first ? coreA : coreB;
+        Vector2 position = shape.getPosition();
+
+        float[] data = core;
+        int count;
+        float radius = 0;
+
+        if (shape.getType() == CIRCLE)
+        {
+            core[0] = position.x;
+            core[1] = position.y;
+
+            count = 1;
+            radius = ((CircleShape) shape).getScaledRadius();
+        }
+        else if (shape.getType() == CAPSULE)
+        {
+            CapsuleShape capsule = (CapsuleShape) shape;
+            float hl = capsule.getHalfLength();
+
+            core[0] = position.x + capsule.getCos() * hl;
+            core[1] = position.y + capsule.getSin() * hl;
+            core[2] = position.x - capsule.getCos() * hl;
+            core[3] = position.y - capsule.getSin() * hl;
+
+            count = 2;
+            radius = capsule.getScaledRadius();
+        }
+        else
+        {
+            Polygon polygon = shape.getPolygon();
+
+            data = polygon.getWorldVertexData();
+            count = polygon.vertexCount();
+        }
+
+        if (first)
+        {
+            coreDataA = data;
+            coreCountA = count;
+            coreRadiusA = radius;
+        }
+        else
+        {
+            coreDataB = data;
+            coreCountB = count;
+            coreRadiusB = radius;
+        }
+    }
+
+    /*
+     * Finds the distance between the cores, with the core of A moved by the shift. The normal is set to the direction
+     * from the closest point of A to the one of B. The cores are convex, so when they are apart their closest points
+     * are a vertex of one of them and a point on an edge of the other.
+     */
+    private static float coreDistance(float shiftX, float shiftY)
+    {
+        float best = Float.POSITIVE_INFINITY;
+
+        for (int i = 0; i < coreCountA; i++)
+        {
+            float x = coreDataA[i * 2] + shiftX;
+            float y = coreDataA[i * 2 + 1] + shiftY;
+
+            for (int j = 0; j < edgeCount(coreCountB); j++)
+            {
+                int next = (j + 1) % coreCountB;
+
+                float distance = closestOnSegment(x, y, coreDataB[j * 2], coreDataB[j * 2 + 1], coreDataB[next * 2],
+                        coreDataB[next * 2 + 1]);
+
+                if (distance < best)
+                {
+                    best = distance;
+                    normalX = closestX - x;
+                    normalY = closestY - y;
+                }
+            }
+        }
+
+        for (int i = 0; i < coreCountB; i++)
+        {
+            float x = coreDataB[i * 2];
+            float y = coreDataB[i * 2 + 1];
+
+            for (int j = 0; j < edgeCount(coreCountA); j++)
+            {
+                int next = (j + 1) % coreCountA;
+
+                float distance = closestOnSegment(x, y, coreDataA[j * 2] + shiftX, coreDataA[j * 2 + 1] + shiftY,
+                        coreDataA[next * 2] + shiftX, coreDataA[next * 2 + 1] + shiftY);
+
+                if (distance < best)
+                {
+                    best = distance;
+                    normalX = x - closestX;
+                    normalY = y - closestY;
+                }
+            }
+        }
+
+        best = (float) Math.sqrt(best);
+
+        if (best > 0)
+        {
+            normalX /= best;
+            normalY /= best;
+        }
+
+        return best;
+    }
+
+    private static int edgeCount(int pointCount)
+    {
+        // A point is an edge to itself, and a segment has a single edge
+        return pointCount < 3 ? 1 : pointCount;
+    }
+
+    /*
+     * Finds the point on the segment closest to (x, y) into closestX and closestY, and returns the squared distance.
+     */
+    private static float closestOnSegment(float x, float y, float x1, float y1, float x2, float y2)
+    {
+        float ex = x2 - x1;
+        float ey = y2 - y1;
+        float length2 = ex * ex + ey * ey;
+
+        float t = length2 == 0 ? 0 : MathUtils.clamp(((x - x1) * ex + (y - y1) * ey) / length2, 0, 1);
+
+        closestX = x1 + ex * t;
+        closestY = y1 + ey * t;
+
+        return (x - closestX) * (x - closestX) + (y - closestY) * (y - closestY);
+    }
+
+    /**
+     * Casts a ray against a shape, and finds the distance along the ray at which it first hits the shape. The distance
+     * is measured in the lengths of the direction, so it is the actual distance only when the direction is normalized.
+     * This does not use any scratch space, and can be called from many threads at once, as long as the shapes are not
+     * modified at the same time, and the {@link Polygon#getVertexData() packed vertices} of the polygon shapes are
+     * computed before.
+     *
+     * @param shape       The shape to cast the ray against.
+     * @param originX     The X coordinate of the origin of the ray.
+     * @param originY     The Y coordinate of the origin of the ray.
+     * @param directionX  The X component of the direction of the ray.
+     * @param directionY  The Y component of the direction of the ray.
+     * @param maxDistance The distance after which the hits are ignored.
+     *
+     * @return The distance of the hit, zero if the origin is inside the shape, or {@link Float#POSITIVE_INFINITY} if
+     * the ray misses it.
+     */
+    public static float raycast(CollisionShape2D shape, float originX, float originY, float directionX,
+                                float directionY, float maxDistance)
+    {
+        Vector2 position = shape.getPosition();
+
+        // The ray relative to the position of the shape
+        float x = originX - position.x;
+        float y = originY - position.y;
+
+        float distance;
+
+        switch (shape.getType())
+        {
+            case CIRCLE:
+                distance = raycastDisc(x, y, directionX, directionY, ((CircleShape) shape).getScaledRadius());
+                break;
+
+            case AABB:
+            case OBB:
+                OBBShape box = (OBBShape) shape;
+                distance = raycastBox(x, y, directionX, directionY, box.getCos(), box.getSin(), box.getHalfWidth(),
+                        box.getHalfHeight());
+                break;
+
+            case CAPSULE:
+                // The capsule is the union of the discs at the ends, and the box between them
+                CapsuleShape capsule = (CapsuleShape) shape;
+
+                float hl = capsule.getHalfLength();
+                float r = capsule.getScaledRadius();
+                float cos = capsule.getCos();
+                float sin = capsule.getSin();
+
+                distance = Math.min(raycastBox(x, y, directionX, directionY, cos, sin, hl, r),
+                        Math.min(raycastDisc(x - cos * hl, y - sin * hl, directionX, directionY, r),
+                                raycastDisc(x + cos * hl, y + sin * hl, directionX, directionY, r)));
+                break;
+
+            default:
+                Polygon polygon = shape.getPolygon();
+                distance = raycastPolygon(x, y, directionX, directionY, polygon.getVertexData(), polygon.vertexCount());
+                break;
+        }
+
+        return distance <= maxDistance ? distance : Float.POSITIVE_INFINITY;
+    }
+
+    private static float raycastDisc(float x, float y, float dx, float dy, float radius)
+    {
+        float c = x * x + y * y - radius * radius;
+
+        if (c <= 0)
+            return 0;
+
+        float halfB = x * dx + y * dy;
+        float a = dx * dx + dy * dy;
+        float discriminant = halfB * halfB - a * c;
+
+        if (halfB >= 0 || discriminant < 0)
+            return Float.POSITIVE_INFINITY;
+
+        return (-halfB - (float) Math.sqrt(discriminant)) / a;
+    }
+
+    private static float raycastBox(float x, float y, float dx, float dy, float cos, float sin, float halfWidth,
+                                    float halfHeight)
+    {
+        // The ray in the space of the box, where it is axis aligned
+        float localX = x * cos + y * sin;
+        float localY = y * cos - x * sin;
+        float localDX = dx * cos + dy * sin;
+        float localDY = dy * cos - dx * sin;
+
+        float enter = 0;
+        float exit = Float.POSITIVE_INFINITY;
+
+        for (int axis = 0; axis < 2; axis++)
+        {
+            float origin = axis == 0 ? localX : localY;
+            float direction = axis == 0 ? localDX : localDY;
+            float extent = axis == 0 ? halfWidth : halfHeight;
+
+            if (direction == 0)
+            {
+                if (origin < -extent || origin > extent)
+                    return Float.POSITIVE_INFINITY;
+
+                continue;
+            }
+
+            float t1 = (-extent - origin) / direction;
+            float t2 = (extent - origin) / direction;
+
+            enter = Math.max(enter, Math.min(t1, t2));
+            exit = Math.min(exit, Math.max(t1, t2));
+
+            if (enter > exit)
+                return Float.POSITIVE_INFINITY;
+        }
+
+        return enter;
+    }
+
+    private static float raycastPolygon(float x, float y, float dx, float dy, float[] vertices, int count)
+    {
+        if (count < 3)
+            return Float.POSITIVE_INFINITY;
+
+        // The winding decides which side of the edges is outside
+        float area = 0;
+
+        for (int i = 0; i < count; i++)
+        {
+            int next = (i + 1) % count;
+            area += vertices[i * 2] * vertices[next * 2 + 1] - vertices[next * 2] * vertices[i * 2 + 1];
+        }
+
+        float winding = area < 0 ? -1 : 1;
+
+        float enter = 0;
+        float exit = Float.POSITIVE_INFINITY;
+
+        // Clips the ray with the half plane of each edge
+        for (int i = 0; i < count; i++)
+        {
+            int next = (i + 1) % count;
+
+            float nx = (vertices[next * 2 + 1] - vertices[i * 2 + 1]) * winding;
+            float ny = (vertices[i * 2] - vertices[next * 2]) * winding;
+
+            float numerator = nx * (vertices[i * 2] - x) + ny * (vertices[i * 2 + 1] - y);
+            float denominator = nx * dx + ny * dy;
+
+            if (denominator == 0)
+            {
+                if (numerator < 0)
+                    return Float.POSITIVE_INFINITY;
+            }
+            else if (denominator < 0)
+                enter = Math.max(enter, numerator / denominator);
+            else
+                exit = Math.min(exit, numerator / denominator);
+
+            if (enter > exit)
+                return Float.POSITIVE_INFINITY;
+        }
+
+        return enter;
     }
 
     public static Response getResponse()
@@ -192,12 +1291,36 @@ public final class Collision2D
         return tmpResponse;
     }
 
+    /**
+     * A test for the collision between two shapes of specific types.
+     *
+     * @author Sri Harsha Chilakapati
+     */
+    @FunctionalInterface
+    public interface ShapeTest
+    {
+        /**
+         * Tests the collision between two shapes. If they collide, the response should be filled with the overlap
+         * that pushes the second shape out of the first one.
+         *
+         * @param a        The first shape.
+         * @param b        The second shape.
+         * @param response The response to fill.
+         *
+         * @return True if the shapes collide, false otherwise.
+         */
+        boolean test(CollisionShape2D a, CollisionShape2D b, Response response);
+    }
+
     /**
      * @author Sri Harsha Chilakapati
      */
     public static class Response
     {
-        // The polygons
+        // The shapes, and the polygons if they were tested as polygons
+        private CollisionShape2D shapeA;
+        private CollisionShape2D shapeB;
+
         private Polygon a;
         private Polygon b;
 
@@ -210,25 +1333,46 @@ public final class Collision2D
         private boolean bInA;
         private boolean intersection;
 
+        // The result of the swept tests
+        private Vector2 impactNormal;
+        private float   timeOfImpact;
+        private boolean impact;
+
         public Response()
         {
             a = b = null;
             overlapV = new Vector2();
             overlapN = new Vector2();
+            impactNormal = new Vector2();
 
             clear();
         }
 
         public Response clear()
         {
+            a = b = null;
+            shapeA = shapeB = null;
+
             aInB = true;
             bInA = true;
             intersection = false;
+            impact = false;
 
             overlap = Float.MAX_VALUE;
+            timeOfImpact = 0;
             return this;
         }
 
+        public CollisionShape2D getShapeA()
+        {
+            return shapeA;
+        }
+
+        public CollisionShape2D getShapeB()
+        {
+            return shapeB;
+        }
+
         public Polygon getPolygonA()
         {
             return a;
@@ -264,6 +1408,22 @@ public final class Collision2D
             return bInA && intersection;
         }
 
+        /**
+         * @return The fraction of the motion at which the shapes first touched in a swept test.
+         */
+        public float getTimeOfImpact()
+        {
+            return impact ? timeOfImpact : 0;
+        }
+
+        /**
+         * @return The direction from the first shape to the second one when they touched in a swept test.
+         */
+        public Vector2 getImpactNormal()
+        {
+            return impact ? impactNormal : Vector2.ZERO;
+        }
+
         @Override
         public String toString()
         {
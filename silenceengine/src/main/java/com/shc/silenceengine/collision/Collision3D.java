@@ -38,8 +38,14 @@ import static com.shc.silenceengine.utils.MathUtils.*;
  */
 public class Collision3D
 {
+    // The distance at which the swept polyhedra are considered to touch, and the limit of the steps taken to get there
+    private static final float TOI_TOLERANCE      = 1e-3f;
+    private static final int   MAX_TOI_ITERATIONS = 32;
+
     private static Response tmpResponse = new Response();
 
+    private static GJK3D.Simplex tmpSimplex = new GJK3D.Simplex();
+
     public static boolean testPolyhedronCollision(Polyhedron a, Polyhedron b)
     {
         return testPolyhedronCollision(a, b, null);
@@ -320,6 +326,81 @@ public class Collision3D
         return result;
     }
 
+    /**
+     * Tests whether two moving polyhedra collide anywhere along their motion, and finds the time of impact, which is
+     * the fraction of the motion at which they first touch. The polyhedra are at the end of their motion, and
+     * translate from where they started with their rotation at the end. The test uses conservative advancement, which
+     * steps the polyhedra towards each other by their distance found with {@link GJK3D} until they touch.
+     *
+     * @param a        The first polyhedron, at the end of its motion.
+     * @param motionA  How much the first polyhedron moved.
+     * @param b        The second polyhedron, at the end of its motion.
+     * @param motionB  How much the second polyhedron moved.
+     * @param response The response to store the time of impact and its normal into, or null to use a temporary one.
+     *
+     * @return True if the polyhedra touch at any time during their motion, false otherwise.
+     */
+    public static boolean testSweptCollision(Polyhedron a, Vector3 motionA, Polyhedron b, Vector3 motionB,
+                                             Response response)
+    {
+        if (response == null)
+            response = tmpResponse.clear();
+
+        // The motion of A when B stays at the end of its motion
+        Vector3 motion = Vector3.REUSABLE_STACK.pop().set(motionA).subtract(motionB);
+        Vector3 end = Vector3.REUSABLE_STACK.pop().set(a.getPosition());
+        Vector3 position = Vector3.REUSABLE_STACK.pop();
+        Vector3 normal = Vector3.REUSABLE_STACK.pop().set(motion);
+
+        float t = 0;
+        boolean impact = false;
+
+        tmpSimplex.clear();
+
+        // A is moved towards B by their distance divided by the speed at which it closes in on B, which can not make
+        // them overlap, until they touch
+        for (int i = 0; i < MAX_TOI_ITERATIONS; i++)
+        {
+            a.setPosition(position.set(motion).scale(t - 1).add(end));
+
+            float distance = GJK3D.distance(a, b, tmpSimplex, normal);
+
+            if (distance <= TOI_TOLERANCE)
+            {
+                impact = true;
+                break;
+            }
+
+            float speed = motion.dot(normal);
+
+            if (speed <= 0)
+                break;
+
+            t += distance / speed;
+
+            if (t > 1)
+                break;
+        }
+
+        a.setPosition(end);
+
+        if (impact)
+        {
+            response.a = a;
+            response.b = b;
+            response.timeOfImpact = t;
+            response.impactNormal.set(normal).normalize();
+            response.impact = true;
+        }
+
+        Vector3.REUSABLE_STACK.push(motion);
+        Vector3.REUSABLE_STACK.push(end);
+        Vector3.REUSABLE_STACK.push(position);
+        Vector3.REUSABLE_STACK.push(normal);
+
+        return impact;
+    }
+
     private static Vector2 flattenPoints(List<Vector3> vertices, Vector3 axis, Vector2 projection)
     {
         float min = axis.dot(vertices.get(0));
@@ -355,11 +436,17 @@ public class Collision3D
         private boolean bInA;
         private boolean intersection;
 
+        // The result of the swept tests
+        private Vector3 impactNormal;
+        private float   timeOfImpact;
+        private boolean impact;
+
         public Response()
         {
             a = b = null;
             overlapV = new Vector3();
             overlapN = new Vector3();
+            impactNormal = new Vector3();
 
             clear();
         }
@@ -369,8 +456,26 @@ public class Collision3D
             aInB = true;
             bInA = true;
             intersection = false;
+            impact = false;
 
             overlap = Float.POSITIVE_INFINITY;
+            timeOfImpact = 0;
+            return this;
+        }
+
+        Response set(Polyhedron a, Polyhedron b, float nx, float ny, float nz, float overlap)
+        {
+            this.a = a;
+            this.b = b;
+            this.overlap = overlap;
+
+            overlapN.set(nx, ny, nz);
+            overlapV.set(overlapN).scale(overlap);
+
+            // The containment is not known from the penetration depth alone
+            aInB = bInA = false;
+            intersection = true;
+
             return this;
         }
 
@@ -409,6 +514,22 @@ public class Collision3D
             return bInA && intersection;
         }
 
+        /**
+         * @return The fraction of the motion at which the polyhedra first touched in a swept test.
+         */
+        public float getTimeOfImpact()
+        {
+            return impact ? timeOfImpact : 0;
+        }
+
+        /**
+         * @return The direction from the first polyhedron to the second one when they touched in a swept test.
+         */
+        public Vector3 getImpactNormal()
+        {
+            return impact ? impactNormal : Vector3.ZERO;
+        }
+
         @Override
         public String toString()
         {
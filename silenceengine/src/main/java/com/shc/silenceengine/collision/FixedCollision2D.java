@@ -0,0 +1,292 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.collision;
+
+import com.shc.silenceengine.math.fixed.FixedMath;
+import com.shc.silenceengine.math.fixed.FixedTransform2D;
+import com.shc.silenceengine.math.fixed.FixedVector2;
+
+/**
+ * <p>The collision tests of {@link Collision2D} in fixed point, for the simulations that have to give the same results
+ * on every machine, like the ones synchronized over the network in lockstep. All the math is done with integers, so two
+ * peers that start with the same state and apply the same inputs stay in the same state.</p>
+ *
+ * <p>Each test returns whether the shapes overlap, and if a vector is given for the minimum translation, sets it to the
+ * smallest translation that moves the second shape out of the first. It points from the first shape to the second, like
+ * the normal of the {@link Collision2D.Response}.</p>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public final class FixedCollision2D
+{
+    // The vertices of the polygons in world space, grown when bigger polygons are tested
+    private static int[] worldA = new int[16];
+    private static int[] worldB = new int[16];
+
+    // The axis with the smallest overlap found by the polygon test
+    private static int axisX, axisY, axisOverlap;
+
+    private FixedCollision2D()
+    {
+    }
+
+    /**
+     * Tests two circles given their centers and radii.
+     */
+    public static boolean testCircles(FixedVector2 centerA, int radiusA, FixedVector2 centerB, int radiusB,
+                                      FixedVector2 mtv)
+    {
+        long dx = (long) centerB.x - centerA.x;
+        long dy = (long) centerB.y - centerA.y;
+        long radius = (long) radiusA + radiusB;
+
+        long distanceSquared = dx * dx + dy * dy;
+
+        if (distanceSquared >= radius * radius)
+            return false;
+
+        if (mtv != null)
+        {
+            int distance = FixedMath.sqrt(distanceSquared);
+
+            // Concentric circles are separated along the X axis
+            if (distance == 0)
+                mtv.set((int) radius, 0);
+            else
+                mtv.set((int) (dx * (radius - distance) / distance), (int) (dy * (radius - distance) / distance));
+        }
+
+        return true;
+    }
+
+    /**
+     * Tests two axis aligned boxes given their centers and half extents.
+     */
+    public static boolean testBoxes(FixedVector2 centerA, FixedVector2 halfA, FixedVector2 centerB, FixedVector2 halfB,
+                                    FixedVector2 mtv)
+    {
+        int dx = centerB.x - centerA.x;
+        int dy = centerB.y - centerA.y;
+
+        int overlapX = halfA.x + halfB.x - FixedMath.abs(dx);
+        int overlapY = halfA.y + halfB.y - FixedMath.abs(dy);
+
+        if (overlapX <= 0 || overlapY <= 0)
+            return false;
+
+        if (mtv != null)
+        {
+            if (overlapX < overlapY)
+                mtv.set(dx < 0 ? -overlapX : overlapX, 0);
+            else
+                mtv.set(0, dy < 0 ? -overlapY : overlapY);
+        }
+
+        return true;
+    }
+
+    /**
+     * Tests a circle against an axis aligned box given its center and half extents.
+     */
+    public static boolean testCircleBox(FixedVector2 center, int radius, FixedVector2 boxCenter, FixedVector2 boxHalf,
+                                        FixedVector2 mtv)
+    {
+        int dx = center.x - boxCenter.x;
+        int dy = center.y - boxCenter.y;
+
+        // The closest point of the box to the center of the circle, relative to the center of the box
+        int closestX = FixedMath.clamp(dx, -boxHalf.x, boxHalf.x);
+        int closestY = FixedMath.clamp(dy, -boxHalf.y, boxHalf.y);
+
+        if (closestX == dx && closestY == dy)
+        {
+            // The center is inside the box, so push the box out along the nearest face
+            if (mtv != null)
+            {
+                int overlapX = boxHalf.x - FixedMath.abs(dx) + radius;
+                int overlapY = boxHalf.y - FixedMath.abs(dy) + radius;
+
+                if (overlapX < overlapY)
+                    mtv.set(dx > 0 ? -overlapX : overlapX, 0);
+                else
+                    mtv.set(0, dy > 0 ? -overlapY : overlapY);
+            }
+
+            return true;
+        }
+
+        long nx = (long) closestX - dx;
+        long ny = (long) closestY - dy;
+        long distanceSquared = nx * nx + ny * ny;
+
+        if (distanceSquared >= (long) radius * radius)
+            return false;
+
+        if (mtv != null)
+        {
+            int distance = FixedMath.sqrt(distanceSquared);
+            mtv.set((int) (nx * (radius - distance) / distance), (int) (ny * (radius - distance) / distance));
+        }
+
+        return true;
+    }
+
+    /**
+     * Tests two convex polygons with the separating axis theorem. The vertices are packed as x and y pairs in the local
+     * space of each polygon, and are in the order they are connected.
+     *
+     * @param verticesA  The vertices of the first polygon.
+     * @param countA     The number of vertices of the first polygon.
+     * @param transformA The transform of the first polygon.
+     * @param verticesB  The vertices of the second polygon.
+     * @param countB     The number of vertices of the second polygon.
+     * @param transformB The transform of the second polygon.
+     * @param mtv        The vector to set to the minimum translation, or null.
+     *
+     * @return True if the polygons overlap, false otherwise.
+     */
+    public static boolean testPolygons(int[] verticesA, int countA, FixedTransform2D transformA,
+                                       int[] verticesB, int countB, FixedTransform2D transformB, FixedVector2 mtv)
+    {
+        worldA = toWorld(verticesA, countA, transformA, worldA);
+        worldB = toWorld(verticesB, countB, transformB, worldB);
+
+        axisOverlap = Integer.MAX_VALUE;
+
+        if (!testAxes(worldA, countA, worldB, countB) || !testAxes(worldB, countB, worldA, countA))
+            return false;
+
+        if (mtv != null)
+        {
+            // Make the translation point from the first polygon to the second
+            long dx = 0, dy = 0;
+
+            for (int i = 0; i < countB; i++)
+            {
+                dx += worldB[2 * i];
+                dy += worldB[2 * i + 1];
+            }
+
+            dx = dx / countB;
+            dy = dy / countB;
+
+            long cx = 0, cy = 0;
+
+            for (int i = 0; i < countA; i++)
+            {
+                cx += worldA[2 * i];
+                cy += worldA[2 * i + 1];
+            }
+
+            dx -= cx / countA;
+            dy -= cy / countA;
+
+            if (dx * axisX + dy * axisY < 0)
+            {
+                axisX = -axisX;
+                axisY = -axisY;
+            }
+
+            mtv.set(FixedMath.multiply(axisX, axisOverlap), FixedMath.multiply(axisY, axisOverlap));
+        }
+
+        return true;
+    }
+
+    private static int[] toWorld(int[] vertices, int count, FixedTransform2D transform, int[] dest)
+    {
+        if (dest.length < 2 * count)
+            dest = new int[2 * count];
+
+        FixedVector2 temp = FixedVector2.REUSABLE_STACK.pop();
+
+        for (int i = 0; i < count; i++)
+        {
+            temp.set(vertices[2 * i], vertices[2 * i + 1]);
+            transform.transform(temp, temp);
+
+            dest[2 * i] = temp.x;
+            dest[2 * i + 1] = temp.y;
+        }
+
+        FixedVector2.REUSABLE_STACK.push(temp);
+
+        return dest;
+    }
+
+    // Tests the normals of the edges of the first polygon, keeping the axis of the smallest overlap
+    private static boolean testAxes(int[] a, int countA, int[] b, int countB)
+    {
+        FixedVector2 axis = FixedVector2.REUSABLE_STACK.pop();
+        boolean separated = false;
+
+        for (int i = 0; i < countA && !separated; i++)
+        {
+            int j = (i + 1) % countA;
+
+            axis.set(a[2 * i + 1] - a[2 * j + 1], a[2 * j] - a[2 * i]).normalize();
+
+            if (axis.x == 0 && axis.y == 0)
+                continue;
+
+            long minA = Long.MAX_VALUE, maxA = Long.MIN_VALUE;
+            long minB = Long.MAX_VALUE, maxB = Long.MIN_VALUE;
+
+            for (int k = 0; k < countA; k++)
+            {
+                long p = axis.dotLong(a[2 * k], a[2 * k + 1]);
+                minA = Math.min(minA, p);
+                maxA = Math.max(maxA, p);
+            }
+
+            for (int k = 0; k < countB; k++)
+            {
+                long p = axis.dotLong(b[2 * k], b[2 * k + 1]);
+                minB = Math.min(minB, p);
+                maxB = Math.max(maxB, p);
+            }
+
+            long overlap = Math.min(maxA, maxB) - Math.max(minA, minB);
+
+            if (overlap <= 0)
+                separated = true;
+            else
+            {
+                int fixedOverlap = (int) (overlap >> FixedMath.FRACTION_BITS);
+
+                if (fixedOverlap < axisOverlap)
+                {
+                    axisOverlap = fixedOverlap;
+                    axisX = axis.x;
+                    axisY = axis.y;
+                }
+            }
+        }
+
+        FixedVector2.REUSABLE_STACK.push(axis);
+
+        return !separated;
+    }
+}
@@ -0,0 +1,942 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.collision;
+
+import com.shc.silenceengine.math.Vector3;
+import com.shc.silenceengine.math.geom3d.Polyhedron;
+
+/**
+ * <p>The GJK (Gilbert-Johnson-Keerthi) intersection and distance test for convex polyhedra, with EPA (Expanding
+ * Polytope Algorithm) to find the penetration depth when they intersect. Instead of projecting every vertex on every
+ * face normal like the SAT test in {@link Collision3D}, GJK walks a simplex of the Minkowski difference towards the
+ * origin, needing only the support points of the shapes, which makes it much cheaper for polyhedra with many
+ * vertices.</p>
+ *
+ * <p>The last simplex of a pair can be kept in a {@link Simplex} and passed to the next test of the same pair, which
+ * then starts from where the previous one ended. Since objects move only a little between two frames, this usually
+ * finds the answer in one or two iterations. Polyhedra whose vertex count together is under the {@link
+ * #setSATThreshold(int) SAT threshold} are tested with SAT instead, as are the ones that are flat or only touching,
+ * for which EPA can not find a depth. The threshold is zero by default, since the SAT test is slower even for two
+ * tetrahedra.</p>
+ *
+ * <p>Every thread has its own scratch space for the tests, so they can be run from many threads at once, as long as
+ * the polyhedra are not modified at the same time, and their {@link Polyhedron#getVertexData() packed vertices} are
+ * computed before.</p>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public final class GJK3D
+{
+    private static final int MAX_ITERATIONS     = 32;
+    private static final int MAX_EPA_ITERATIONS = 32;
+    private static final int MAX_RAY_ITERATIONS = 64;
+
+    // The relative tolerances of reaching the origin, and of the distance converging
+    private static final float ORIGIN_TOLERANCE      = 1e-10f;
+    private static final float CONVERGENCE_TOLERANCE = 1e-6f;
+    private static final float EPA_TOLERANCE         = 1e-4f;
+
+    // The squared sine of the angle under which a tetrahedron is flat
+    private static final float FLAT_TOLERANCE = 1e-8f;
+
+    private static final int MAX_EPA_VERTICES = 4 + MAX_EPA_ITERATIONS;
+    private static final int MAX_EPA_FACES    = 4 * MAX_EPA_VERTICES;
+    private static final int MAX_EPA_EDGES    = 3 * MAX_EPA_FACES;
+
+    // The faces of a tetrahedron, each with the vertex opposite to it
+    private static final int[][] TETRAHEDRON_FACES = { { 0, 1, 2, 3 }, { 0, 3, 1, 2 }, { 0, 2, 3, 1 }, { 1, 3, 2, 0 } };
+
+    private static int satThreshold = 0;
+
+    private static final ThreadLocal<Solver> solvers = new ThreadLocal<Solver>()
+    {
+        @Override
+        protected Solver initialValue()
+        {
+            return new Solver();
+        }
+    };
+
+    private GJK3D()
+    {
+    }
+
+    public static boolean testCollision(Polyhedron a, Polyhedron b)
+    {
+        return testCollision(a, b, null, null);
+    }
+
+    /**
+     * Tests two convex polyhedra for intersection. If the response is not null and they intersect, the penetration
+     * depth and its direction are found with EPA, otherwise only the intersection is tested, which is cheaper.
+     *
+     * @param a        The first polyhedron.
+     * @param b        The second polyhedron.
+     * @param simplex  The simplex of the last test of this pair to warm start from, or null. It is updated with the
+     *                 last simplex of this test.
+     * @param response The response to store the penetration in, or null if only the intersection is needed.
+     *
+     * @return True if the polyhedra intersect, false otherwise.
+     */
+    public static boolean testCollision(Polyhedron a, Polyhedron b, Simplex simplex, Collision3D.Response response)
+    {
+        if (a.vertexCount() + b.vertexCount() < satThreshold)
+            return Collision3D.testPolyhedronCollision(a, b, response);
+
+        if (response != null)
+            response.clear();
+
+        Solver solver = solvers.get();
+
+        if (!solver.gjk(a, b, simplex, false))
+            return false;
+
+        if (response != null && !solver.epa(a, b, response))
+        {
+            // The simplex could not be expanded to a tetrahedron, the polyhedra are flat or only touching
+            return Collision3D.testPolyhedronCollision(a, b, response.clear());
+        }
+
+        return true;
+    }
+
+    /**
+     * Finds the distance between two convex polyhedra, that is, the distance between their closest points.
+     *
+     * @param a       The first polyhedron.
+     * @param b       The second polyhedron.
+     * @param simplex The simplex of the last test of this pair to warm start from, or null. It is updated with the
+     *                last simplex of this test.
+     *
+     * @return The distance between the polyhedra, or zero if they intersect.
+     */
+    public static float distance(Polyhedron a, Polyhedron b, Simplex simplex)
+    {
+        return distance(a, b, simplex, null);
+    }
+
+    /**
+     * Finds the distance between two convex polyhedra, that is, the distance between their closest points, and the
+     * direction from the closest point of the first one to the one of the second.
+     *
+     * @param a       The first polyhedron.
+     * @param b       The second polyhedron.
+     * @param simplex The simplex of the last test of this pair to warm start from, or null. It is updated with the
+     *                last simplex of this test.
+     * @param normal  The vector to store the direction in, or null. It is not changed if the polyhedra intersect.
+     *
+     * @return The distance between the polyhedra, or zero if they intersect.
+     */
+    public static float distance(Polyhedron a, Polyhedron b, Simplex simplex, Vector3 normal)
+    {
+        Solver solver = solvers.get();
+
+        if (solver.gjk(a, b, simplex, true))
+            return 0;
+
+        float distance = (float) Math.sqrt(solver.vx * solver.vx + solver.vy * solver.vy + solver.vz * solver.vz);
+
+        // The closest point of the Minkowski difference is the closest point of A minus the one of B
+        if (normal != null)
+            normal.set(-solver.vx / distance, -solver.vy / distance, -solver.vz / distance);
+
+        return distance;
+    }
+
+    /**
+     * Casts a ray against a convex polyhedron, and finds the distance along the ray at which it first hits the
+     * polyhedron. The distance is measured in the lengths of the direction, so it is the actual distance only when
+     * the direction is normalized.
+     *
+     * @param polyhedron  The polyhedron to cast the ray against.
+     * @param originX     The X coordinate of the origin of the ray.
+     * @param originY     The Y coordinate of the origin of the ray.
+     * @param originZ     The Z coordinate of the origin of the ray.
+     * @param directionX  The X component of the direction of the ray.
+     * @param directionY  The Y component of the direction of the ray.
+     * @param directionZ  The Z component of the direction of the ray.
+     * @param maxDistance The distance after which the hits are ignored.
+     *
+     * @return The distance of the hit, zero if the origin is inside the polyhedron, or {@link
+     * Float#POSITIVE_INFINITY} if the ray misses it.
+     */
+    public static float raycast(Polyhedron polyhedron, float originX, float originY, float originZ, float directionX,
+                                float directionY, float directionZ, float maxDistance)
+    {
+        return solvers.get().raycast(polyhedron, originX, originY, originZ, directionX, directionY, directionZ,
+                maxDistance);
+    }
+
+    public static int getSATThreshold()
+    {
+        return satThreshold;
+    }
+
+    /**
+     * Sets the total vertex count of two polyhedra under which they are tested with SAT instead of GJK.
+     *
+     * @param satThreshold The vertex count, zero to always use GJK.
+     */
+    public static void setSATThreshold(int satThreshold)
+    {
+        GJK3D.satThreshold = satThreshold;
+    }
+
+    /**
+     * The scratch space of the tests. Every thread gets its own, so the tests can be run from any thread.
+     */
+    private static final class Solver
+    {
+        // The simplex of the Minkowski difference A - B, and the indices of the vertices that made each of its points
+        private final float[] px = new float[4];
+        private final float[] py = new float[4];
+        private final float[] pz = new float[4];
+        private final int[]   pa = new int[4];
+        private final int[]   pb = new int[4];
+        private int count;
+
+        // The point of the simplex closest to the origin
+        private float vx, vy, vz;
+
+        // The two polyhedra being tested, and the offset between their positions
+        private float[] dataA, dataB;
+        private int     countA, countB;
+        private float   ox, oy, oz;
+
+        // The polytope expanded by EPA
+        private final float[] ex  = new float[MAX_EPA_VERTICES];
+        private final float[] ey  = new float[MAX_EPA_VERTICES];
+        private final float[] ez  = new float[MAX_EPA_VERTICES];
+        private final int[]   f0  = new int[MAX_EPA_FACES];
+        private final int[]   f1  = new int[MAX_EPA_FACES];
+        private final int[]   f2  = new int[MAX_EPA_FACES];
+        private final float[] fnx = new float[MAX_EPA_FACES];
+        private final float[] fny = new float[MAX_EPA_FACES];
+        private final float[] fnz = new float[MAX_EPA_FACES];
+        private final float[] fd  = new float[MAX_EPA_FACES];
+        private final int[]   e0  = new int[MAX_EPA_EDGES];
+        private final int[]   e1  = new int[MAX_EPA_EDGES];
+        private int vertexCount, faceCount, edgeCount;
+
+        private boolean gjk(Polyhedron a, Polyhedron b, Simplex simplex, boolean exact)
+        {
+            dataA = a.getVertexData();
+            dataB = b.getVertexData();
+            countA = a.vertexCount();
+            countB = b.vertexCount();
+
+            Vector3 positionA = a.getPosition();
+            Vector3 positionB = b.getPosition();
+
+            ox = positionA.x - positionB.x;
+            oy = positionA.y - positionB.y;
+            oz = positionA.z - positionB.z;
+
+            count = 0;
+
+            if (simplex != null)
+            {
+                for (int i = 0; i < simplex.count; i++)
+                {
+                    // The polyhedra could have changed since the simplex was stored
+                    if (simplex.indexA[i] >= countA || simplex.indexB[i] >= countB)
+                    {
+                        count = 0;
+                        break;
+                    }
+
+                    addPoint(simplex.indexA[i], simplex.indexB[i]);
+                }
+            }
+
+            if (count == 0)
+            {
+                // Start towards the origin, which is where the position of B is in the Minkowski difference
+                if (ox == 0 && oy == 0 && oz == 0)
+                    addPoint(support(dataA, countA, 1, 0, 0), support(dataB, countB, -1, 0, 0));
+                else
+                    addPoint(support(dataA, countA, -ox, -oy, -oz), support(dataB, countB, ox, oy, oz));
+            }
+
+            boolean intersects = false;
+
+            for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++)
+            {
+                solve();
+
+                float vv = vx * vx + vy * vy + vz * vz;
+
+                if (count == 4 || vv <= ORIGIN_TOLERANCE * maxLengthSquared())
+                {
+                    intersects = true;
+                    break;
+                }
+
+                int ia = support(dataA, countA, -vx, -vy, -vz);
+                int ib = support(dataB, countB, vx, vy, vz);
+
+                // No new point, the closest point can not get any closer
+                if (contains(ia, ib))
+                    break;
+
+                float wx = ox + dataA[ia * 3] - dataB[ib * 3];
+                float wy = oy + dataA[ia * 3 + 1] - dataB[ib * 3 + 1];
+                float wz = oz + dataA[ia * 3 + 2] - dataB[ib * 3 + 2];
+                float vw = vx * wx + vy * wy + vz * wz;
+
+                // The plane through the support point, normal to v, separates the origin from the Minkowski difference
+                if (!exact && vw > 0)
+                    break;
+
+                if (vv - vw <= CONVERGENCE_TOLERANCE * vv)
+                    break;
+
+                addPoint(ia, ib);
+            }
+
+            if (simplex != null)
+            {
+                simplex.count = count;
+
+                for (int i = 0; i < count; i++)
+                {
+                    simplex.indexA[i] = pa[i];
+                    simplex.indexB[i] = pb[i];
+                }
+            }
+
+            return intersects;
+        }
+
+        /*
+         * The GJK ray cast from "Ray Casting against General Convex Objects with Application to Continuous Collision
+         * Detection" by Gino van den Bergen. The simplex is made of the vertices of the polyhedron, and its points are
+         * the vertices subtracted from the current point on the ray, which moves forward whenever the support point
+         * shows that the polyhedron is entirely ahead of it.
+         */
+        private float raycast(Polyhedron polyhedron, float sx, float sy, float sz, float rx, float ry, float rz,
+                              float maxDistance)
+        {
+            dataA = polyhedron.getVertexData();
+            countA = polyhedron.vertexCount();
+
+            if (countA == 0)
+                return Float.POSITIVE_INFINITY;
+
+            Vector3 position = polyhedron.getPosition();
+
+            float lambda = 0;
+            float x = sx - position.x;
+            float y = sy - position.y;
+            float z = sz - position.z;
+
+            count = 0;
+            vx = x - dataA[0];
+            vy = y - dataA[1];
+            vz = z - dataA[2];
+
+            for (int iteration = 0; iteration < MAX_RAY_ITERATIONS; iteration++)
+            {
+                float vv = vx * vx + vy * vy + vz * vz;
+
+                if (count == 4 || vv <= ORIGIN_TOLERANCE * Math.max(1, maxLengthSquared()))
+                    return lambda;
+
+                int i = support(dataA, countA, vx, vy, vz);
+
+                float vw = vx * (x - dataA[i * 3]) + vy * (y - dataA[i * 3 + 1]) + vz * (z - dataA[i * 3 + 2]);
+
+                if (vw > 0)
+                {
+                    float vr = vx * rx + vy * ry + vz * rz;
+
+                    // The polyhedron is behind the plane through the support point, and the ray goes away from it
+                    if (vr >= 0)
+                        return Float.POSITIVE_INFINITY;
+
+                    lambda -= vw / vr;
+
+                    if (lambda > maxDistance)
+                        return Float.POSITIVE_INFINITY;
+
+                    x = sx - position.x + lambda * rx;
+                    y = sy - position.y + lambda * ry;
+                    z = sz - position.z + lambda * rz;
+                }
+
+                if (!contains(i, 0))
+                {
+                    pa[count] = i;
+                    pb[count] = 0;
+                    count++;
+                }
+
+                // The point on the ray moved, so the points of the simplex have to be made again
+                for (int j = 0; j < count; j++)
+                {
+                    px[j] = x - dataA[pa[j] * 3];
+                    py[j] = y - dataA[pa[j] * 3 + 1];
+                    pz[j] = z - dataA[pa[j] * 3 + 2];
+                }
+
+                solve();
+            }
+
+            return lambda;
+        }
+
+        private static int support(float[] data, int count, float dx, float dy, float dz)
+        {
+            int best = 0;
+            float max = Float.NEGATIVE_INFINITY;
+
+            for (int i = 0, j = 0; i < count; i++, j += 3)
+            {
+                float dot = data[j] * dx + data[j + 1] * dy + data[j + 2] * dz;
+
+                if (dot > max)
+                {
+                    max = dot;
+                    best = i;
+                }
+            }
+
+            return best;
+        }
+
+        private void addPoint(int ia, int ib)
+        {
+            px[count] = ox + dataA[ia * 3] - dataB[ib * 3];
+            py[count] = oy + dataA[ia * 3 + 1] - dataB[ib * 3 + 1];
+            pz[count] = oz + dataA[ia * 3 + 2] - dataB[ib * 3 + 2];
+            pa[count] = ia;
+            pb[count] = ib;
+            count++;
+        }
+
+        private boolean contains(int ia, int ib)
+        {
+            for (int i = 0; i < count; i++)
+                if (pa[i] == ia && pb[i] == ib)
+                    return true;
+
+            return false;
+        }
+
+        private float maxLengthSquared()
+        {
+            float max = 0;
+
+            for (int i = 0; i < count; i++)
+                max = Math.max(max, px[i] * px[i] + py[i] * py[i] + pz[i] * pz[i]);
+
+            return max;
+        }
+
+        /**
+         * Finds the point of the simplex closest to the origin, and reduces the simplex to the smallest one containing
+         * that point.
+         */
+        private void solve()
+        {
+            int mask;
+
+            switch (count)
+            {
+                case 1:
+                    vx = px[0];
+                    vy = py[0];
+                    vz = pz[0];
+                    return;
+
+                case 2:
+                    mask = closestOnSegment(0, 1);
+                    break;
+
+                case 3:
+                    mask = closestOnTriangle(0, 1, 2);
+                    break;
+
+                default:
+                    mask = closestOnTetrahedron();
+                    break;
+            }
+
+            int kept = 0;
+
+            for (int i = 0; i < count; i++)
+            {
+                if ((mask & (1 << i)) == 0)
+                    continue;
+
+                px[kept] = px[i];
+                py[kept] = py[i];
+                pz[kept] = pz[i];
+                pa[kept] = pa[i];
+                pb[kept] = pb[i];
+                kept++;
+            }
+
+            count = kept;
+        }
+
+        private int closestOnSegment(int a, int b)
+        {
+            float abx = px[b] - px[a];
+            float aby = py[b] - py[a];
+            float abz = pz[b] - pz[a];
+            float length2 = abx * abx + aby * aby + abz * abz;
+
+            float t = length2 == 0 ? 0 : -(px[a] * abx + py[a] * aby + pz[a] * abz) / length2;
+
+            if (t <= 0)
+            {
+                vx = px[a];
+                vy = py[a];
+                vz = pz[a];
+                return 1 << a;
+            }
+
+            if (t >= 1)
+            {
+                vx = px[b];
+                vy = py[b];
+                vz = pz[b];
+                return 1 << b;
+            }
+
+            vx = px[a] + abx * t;
+            vy = py[a] + aby * t;
+            vz = pz[a] + abz * t;
+            return (1 << a) | (1 << b);
+        }
+
+        private int closestOnTriangle(int a, int b, int c)
+        {
+            // Real-Time Collision Detection by Christer Ericson, section 5.1.5, with the origin as the point
+            float abx = px[b] - px[a], aby = py[b] - py[a], abz = pz[b] - pz[a];
+            float acx = px[c] - px[a], acy = py[c] - py[a], acz = pz[c] - pz[a];
+
+            float d1 = -(abx * px[a] + aby * py[a] + abz * pz[a]);
+            float d2 = -(acx * px[a] + acy * py[a] + acz * pz[a]);
+
+            if (d1 <= 0 && d2 <= 0)
+                return closestOnSegment(a, a);
+
+            float d3 = -(abx * px[b] + aby * py[b] + abz * pz[b]);
+            float d4 = -(acx * px[b] + acy * py[b] + acz * pz[b]);
+
+            if (d3 >= 0 && d4 <= d3)
+                return closestOnSegment(b, b);
+
+            float vc = d1 * d4 - d3 * d2;
+
+            if (vc <= 0 && d1 >= 0 && d3 <= 0)
+                return closestOnSegment(a, b);
+
+            float d5 = -(abx * px[c] + aby * py[c] + abz * pz[c]);
+            float d6 = -(acx * px[c] + acy * py[c] + acz * pz[c]);
+
+            if (d6 >= 0 && d5 <= d6)
+                return closestOnSegment(c, c);
+
+            float vb = d5 * d2 - d1 * d6;
+
+            if (vb <= 0 && d2 >= 0 && d6 <= 0)
+                return closestOnSegment(a, c);
+
+            float va = d3 * d6 - d5 * d4;
+
+            if (va <= 0 && d4 - d3 >= 0 && d5 - d6 >= 0)
+                return closestOnSegment(b, c);
+
+            float sum = va + vb + vc;
+
+            if (sum <= 0)
+            {
+                // A degenerate triangle, whose closest point is on one of its edges
+                int mask = closestOnSegment(a, b);
+                float bestX = vx, bestY = vy, bestZ = vz;
+                float best = bestX * bestX + bestY * bestY + bestZ * bestZ;
+
+                int edgeMask = closestOnSegment(b, c);
+
+                if (vx * vx + vy * vy + vz * vz < best)
+                {
+                    mask = edgeMask;
+                    bestX = vx;
+                    bestY = vy;
+                    bestZ = vz;
+                    best = vx * vx + vy * vy + vz * vz;
+                }
+
+                edgeMask = closestOnSegment(a, c);
+
+                if (vx * vx + vy * vy + vz * vz < best)
+                    return edgeMask;
+
+                vx = bestX;
+                vy = bestY;
+                vz = bestZ;
+                return mask;
+            }
+
+            float v = vb / sum;
+            float w = vc / sum;
+
+            vx = px[a] + abx * v + acx * w;
+            vy = py[a] + aby * v + acy * w;
+            vz = pz[a] + abz * v + acz * w;
+            return (1 << a) | (1 << b) | (1 << c);
+        }
+
+        private int closestOnTetrahedron()
+        {
+            int mask = 0xF;
+            float best = Float.POSITIVE_INFINITY;
+            float bestX = 0, bestY = 0, bestZ = 0;
+
+            for (int[] face : TETRAHEDRON_FACES)
+            {
+                if (!isOriginOutside(face[0], face[1], face[2], face[3]))
+                    continue;
+
+                int faceMask = closestOnTriangle(face[0], face[1], face[2]);
+                float distance = vx * vx + vy * vy + vz * vz;
+
+                if (distance < best)
+                {
+                    best = distance;
+                    mask = faceMask;
+                    bestX = vx;
+                    bestY = vy;
+                    bestZ = vz;
+                }
+            }
+
+            // When inside all the faces, the tetrahedron contains the origin, which is the closest point
+            vx = bestX;
+            vy = bestY;
+            vz = bestZ;
+            return mask;
+        }
+
+        private boolean isOriginOutside(int a, int b, int c, int d)
+        {
+            float abx = px[b] - px[a], aby = py[b] - py[a], abz = pz[b] - pz[a];
+            float acx = px[c] - px[a], acy = py[c] - py[a], acz = pz[c] - pz[a];
+
+            float nx = aby * acz - abz * acy;
+            float ny = abz * acx - abx * acz;
+            float nz = abx * acy - aby * acx;
+
+            float adx = px[d] - px[a], ady = py[d] - py[a], adz = pz[d] - pz[a];
+
+            float signOrigin = -(nx * px[a] + ny * py[a] + nz * pz[a]);
+            float signD = nx * adx + ny * ady + nz * adz;
+
+            // A flat tetrahedron has no inside, so the closest point is on one of its faces. Many vertices of a
+            // polyhedron can lie in the same plane, and then the sign of D is only rounding error.
+            float nn = nx * nx + ny * ny + nz * nz;
+            float dd = adx * adx + ady * ady + adz * adz;
+
+            if (signD * signD <= FLAT_TOLERANCE * nn * dd)
+                return true;
+
+            return signOrigin * signD < 0;
+        }
+
+        private boolean epa(Polyhedron a, Polyhedron b, Collision3D.Response response)
+        {
+            if (!expandSimplex())
+                return false;
+
+            for (int i = 0; i < 4; i++)
+            {
+                ex[i] = px[i];
+                ey[i] = py[i];
+                ez[i] = pz[i];
+            }
+
+            vertexCount = 4;
+            faceCount = 0;
+
+            for (int[] face : TETRAHEDRON_FACES)
+                addFace(face[0], face[1], face[2], face[3]);
+
+            int closest = 0;
+
+            for (int iteration = 0; iteration < MAX_EPA_ITERATIONS; iteration++)
+            {
+                closest = closestFace();
+
+                float nx = fnx[closest], ny = fny[closest], nz = fnz[closest];
+
+                int ia = support(dataA, countA, nx, ny, nz);
+                int ib = support(dataB, countB, -nx, -ny, -nz);
+
+                float wx = ox + dataA[ia * 3] - dataB[ib * 3];
+                float wy = oy + dataA[ia * 3 + 1] - dataB[ib * 3 + 1];
+                float wz = oz + dataA[ia * 3 + 2] - dataB[ib * 3 + 2];
+
+                // The closest face is on the boundary of the Minkowski difference
+                if (nx * wx + ny * wy + nz * wz - fd[closest] <= EPA_TOLERANCE * Math.max(1, fd[closest]))
+                    break;
+
+                if (vertexCount == MAX_EPA_VERTICES)
+                    break;
+
+                int w = vertexCount++;
+                ex[w] = wx;
+                ey[w] = wy;
+                ez[w] = wz;
+
+                // Remove the faces seen from the new point, keeping the edges of the hole they leave
+                edgeCount = 0;
+
+                for (int f = faceCount - 1; f >= 0; f--)
+                {
+                    if (fnx[f] * (wx - ex[f0[f]]) + fny[f] * (wy - ey[f0[f]]) + fnz[f] * (wz - ez[f0[f]]) <= 0)
+                        continue;
+
+                    addEdge(f0[f], f1[f]);
+                    addEdge(f1[f], f2[f]);
+                    addEdge(f2[f], f0[f]);
+
+                    faceCount--;
+                    f0[f] = f0[faceCount];
+                    f1[f] = f1[faceCount];
+                    f2[f] = f2[faceCount];
+                    fnx[f] = fnx[faceCount];
+                    fny[f] = fny[faceCount];
+                    fnz[f] = fnz[faceCount];
+                    fd[f] = fd[faceCount];
+                }
+
+                if (faceCount + edgeCount > MAX_EPA_FACES)
+                    break;
+
+                for (int e = 0; e < edgeCount; e++)
+                    addFace(e0[e], e1[e], w, -1);
+            }
+
+            closest = closestFace();
+
+            if (fd[closest] == Float.POSITIVE_INFINITY)
+                return false;
+
+            response.set(a, b, fnx[closest], fny[closest], fnz[closest], fd[closest]);
+            return true;
+        }
+
+        /**
+         * Expands a simplex that reached the origin with less than four points to a tetrahedron, by adding support
+         * points in the directions it has no extent in.
+         *
+         * @return False if the Minkowski difference is flat, and no tetrahedron can be made.
+         */
+        private boolean expandSimplex()
+        {
+            if (count == 1)
+            {
+                for (int axis = 0; axis < 6 && count == 1; axis++)
+                {
+                    float sign = axis < 3 ? 1 : -1;
+                    addSupportIfNew(axis % 3 == 0 ? sign : 0, axis % 3 == 1 ? sign : 0, axis % 3 == 2 ? sign : 0);
+                }
+            }
+
+            if (count == 2)
+            {
+                float abx = px[1] - px[0], aby = py[1] - py[0], abz = pz[1] - pz[0];
+
+                // A direction perpendicular to the segment, crossed with the axis it is least aligned with
+                float ax = Math.abs(abx), ay = Math.abs(aby), az = Math.abs(abz);
+                float dx, dy, dz;
+
+                if (ax <= ay && ax <= az)
+                {
+                    dx = 0;
+                    dy = abz;
+                    dz = -aby;
+                }
+                else if (ay <= az)
+                {
+                    dx = -abz;
+                    dy = 0;
+                    dz = abx;
+                }
+                else
+                {
+                    dx = aby;
+                    dy = -abx;
+                    dz = 0;
+                }
+
+                float cx = aby * dz - abz * dy;
+                float cy = abz * dx - abx * dz;
+                float cz = abx * dy - aby * dx;
+
+                addSupportIfNew(dx, dy, dz);
+
+                if (count == 2) addSupportIfNew(-dx, -dy, -dz);
+                if (count == 2) addSupportIfNew(cx, cy, cz);
+                if (count == 2) addSupportIfNew(-cx, -cy, -cz);
+            }
+
+            if (count == 3)
+            {
+                float abx = px[1] - px[0], aby = py[1] - py[0], abz = pz[1] - pz[0];
+                float acx = px[2] - px[0], acy = py[2] - py[0], acz = pz[2] - pz[0];
+
+                float nx = aby * acz - abz * acy;
+                float ny = abz * acx - abx * acz;
+                float nz = abx * acy - aby * acx;
+
+                addSupportIfNew(nx, ny, nz);
+
+                if (count == 3)
+                    addSupportIfNew(-nx, -ny, -nz);
+            }
+
+            return count == 4;
+        }
+
+        private void addSupportIfNew(float dx, float dy, float dz)
+        {
+            int ia = support(dataA, countA, dx, dy, dz);
+            int ib = support(dataB, countB, -dx, -dy, -dz);
+
+            float wx = ox + dataA[ia * 3] - dataB[ib * 3];
+            float wy = oy + dataA[ia * 3 + 1] - dataB[ib * 3 + 1];
+            float wz = oz + dataA[ia * 3 + 2] - dataB[ib * 3 + 2];
+
+            // The new point should extend the simplex in the direction, not lie in it
+            float extent = (wx - px[0]) * dx + (wy - py[0]) * dy + (wz - pz[0]) * dz;
+            float length2 = dx * dx + dy * dy + dz * dz;
+
+            if (extent * extent > ORIGIN_TOLERANCE * length2 * Math.max(1, maxLengthSquared()))
+                addPoint(ia, ib);
+        }
+
+        private void addFace(int a, int b, int c, int opposite)
+        {
+            float abx = ex[b] - ex[a], aby = ey[b] - ey[a], abz = ez[b] - ez[a];
+            float acx = ex[c] - ex[a], acy = ey[c] - ey[a], acz = ez[c] - ez[a];
+
+            float nx = aby * acz - abz * acy;
+            float ny = abz * acx - abx * acz;
+            float nz = abx * acy - aby * acx;
+
+            // The faces of the initial tetrahedron are turned to face away from the opposite vertex
+            if (opposite >= 0 && nx * (ex[opposite] - ex[a]) + ny * (ey[opposite] - ey[a]) + nz * (ez[opposite] - ez[a]) > 0)
+            {
+                int t = b;
+                b = c;
+                c = t;
+
+                nx = -nx;
+                ny = -ny;
+                nz = -nz;
+            }
+
+            float length = (float) Math.sqrt(nx * nx + ny * ny + nz * nz);
+
+            f0[faceCount] = a;
+            f1[faceCount] = b;
+            f2[faceCount] = c;
+
+            if (length == 0)
+            {
+                // A degenerate face is never the closest one
+                fnx[faceCount] = fny[faceCount] = fnz[faceCount] = 0;
+                fd[faceCount] = Float.POSITIVE_INFINITY;
+            }
+            else
+            {
+                fnx[faceCount] = nx / length;
+                fny[faceCount] = ny / length;
+                fnz[faceCount] = nz / length;
+                fd[faceCount] = Math.max(0, fnx[faceCount] * ex[a] + fny[faceCount] * ey[a] + fnz[faceCount] * ez[a]);
+            }
+
+            faceCount++;
+        }
+
+        private void addEdge(int a, int b)
+        {
+            // An edge shared by two removed faces is inside the hole, and is seen in the reverse order from the other
+            for (int e = 0; e < edgeCount; e++)
+            {
+                if (e0[e] == b && e1[e] == a)
+                {
+                    edgeCount--;
+                    e0[e] = e0[edgeCount];
+                    e1[e] = e1[edgeCount];
+                    return;
+                }
+            }
+
+            e0[edgeCount] = a;
+            e1[edgeCount] = b;
+            edgeCount++;
+        }
+
+        private int closestFace()
+        {
+            int closest = 0;
+
+            for (int f = 1; f < faceCount; f++)
+                if (fd[f] < fd[closest])
+                    closest = f;
+
+            return closest;
+        }
+    }
+
+
+    /**
+     * The simplex that a GJK test of a pair of polyhedra ended with, stored as the indices of the vertices of both
+     * the polyhedra that made its points. Keep one per pair of polyhedra, and pass it to every test of that pair.
+     */
+    public static class Simplex
+    {
+        private final int[] indexA = new int[4];
+        private final int[] indexB = new int[4];
+
+        private int count;
+
+        public Simplex clear()
+        {
+            count = 0;
+            return this;
+        }
+
+        public int size()
+        {
+            return count;
+        }
+    }
+}
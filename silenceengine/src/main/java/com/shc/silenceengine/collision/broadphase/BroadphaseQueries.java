@@ -0,0 +1,400 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.collision.broadphase;
+
+import com.shc.silenceengine.collision.Collision2D;
+import com.shc.silenceengine.collision.GJK3D;
+import com.shc.silenceengine.collision.shapes.CircleShape;
+import com.shc.silenceengine.math.Vector2;
+import com.shc.silenceengine.math.Vector3;
+import com.shc.silenceengine.math.geom2d.Circle;
+import com.shc.silenceengine.math.geom2d.Rectangle;
+import com.shc.silenceengine.math.geom3d.Cuboid;
+import com.shc.silenceengine.math.geom3d.Polyhedron;
+import com.shc.silenceengine.math.geom3d.Sphere;
+import com.shc.silenceengine.scene.components.CollisionComponent2D;
+import com.shc.silenceengine.scene.components.CollisionComponent3D;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The tests of the queries against the bounds of the components, and the exact tests against their shapes, shared by
+ * the broadphases. The tests of the bounds are also the default implementations of the queries, on top of the
+ * retrieval of the components in a rectangle or a cuboid.
+ *
+ * @author Sri Harsha Chilakapati
+ */
+final class BroadphaseQueries
+{
+    // The sizes of the rays packed in float arrays for the batched ray casts
+    static final int RAY2_SIZE = 4;
+    static final int RAY3_SIZE = 6;
+
+    // The largest number of times the nearest query grows its search area
+    private static final int MAX_NEAREST_STEPS = 64;
+
+    private static final CircleShape tmpCircle = new CircleShape(1);
+    private static final Polyhedron  tmpPoint  = new Polyhedron();
+
+    static
+    {
+        tmpPoint.addVertex(0, 0, 0);
+    }
+
+    private BroadphaseQueries()
+    {
+    }
+
+    /**
+     * Returns the distance along a ray at which it enters a rectangle, or {@link Float#POSITIVE_INFINITY} if it misses.
+     */
+    static float raycast(Rectangle rect, float x, float y, float dx, float dy)
+    {
+        float enter = 0;
+        float exit = Float.POSITIVE_INFINITY;
+
+        for (int axis = 0; axis < 2; axis++)
+        {
+            float origin = axis == 0 ? x : y;
+            float direction = axis == 0 ? dx : dy;
+            float min = axis == 0 ? rect.x : rect.y;
+            float max = min + (axis == 0 ? rect.width : rect.height);
+
+            if (direction == 0)
+            {
+                if (origin < min || origin > max)
+                    return Float.POSITIVE_INFINITY;
+
+                continue;
+            }
+
+            float t1 = (min - origin) / direction;
+            float t2 = (max - origin) / direction;
+
+            enter = Math.max(enter, Math.min(t1, t2));
+            exit = Math.min(exit, Math.max(t1, t2));
+
+            if (enter > exit)
+                return Float.POSITIVE_INFINITY;
+        }
+
+        return enter;
+    }
+
+    /**
+     * Returns the distance along a ray at which it enters a cuboid, or {@link Float#POSITIVE_INFINITY} if it misses.
+     */
+    static float raycast(Cuboid cuboid, float x, float y, float z, float dx, float dy, float dz)
+    {
+        float enter = 0;
+        float exit = Float.POSITIVE_INFINITY;
+
+        for (int axis = 0; axis < 3; axis++)
+        {
+            float origin = axis == 0 ? x : axis == 1 ? y : z;
+            float direction = axis == 0 ? dx : axis == 1 ? dy : dz;
+            float center = axis == 0 ? cuboid.position.x : axis == 1 ? cuboid.position.y : cuboid.position.z;
+            float extent = (axis == 0 ? cuboid.width : axis == 1 ? cuboid.height : cuboid.thickness) / 2;
+
+            if (direction == 0)
+            {
+                if (origin < center - extent || origin > center + extent)
+                    return Float.POSITIVE_INFINITY;
+
+                continue;
+            }
+
+            float t1 = (center - extent - origin) / direction;
+            float t2 = (center + extent - origin) / direction;
+
+            enter = Math.max(enter, Math.min(t1, t2));
+            exit = Math.min(exit, Math.max(t1, t2));
+
+            if (enter > exit)
+                return Float.POSITIVE_INFINITY;
+        }
+
+        return enter;
+    }
+
+    /**
+     * Returns the distance from a point to a rectangle, which is zero if the point is inside.
+     */
+    static float distance(Rectangle rect, float x, float y)
+    {
+        float dx = Math.max(0, Math.max(rect.x - x, x - rect.x - rect.width));
+        float dy = Math.max(0, Math.max(rect.y - y, y - rect.y - rect.height));
+
+        return (float) Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * Returns the distance from a point to a cuboid, which is zero if the point is inside.
+     */
+    static float distance(Cuboid cuboid, float x, float y, float z)
+    {
+        float dx = Math.max(0, Math.abs(x - cuboid.position.x) - cuboid.width / 2);
+        float dy = Math.max(0, Math.abs(y - cuboid.position.y) - cuboid.height / 2);
+        float dz = Math.max(0, Math.abs(z - cuboid.position.z) - cuboid.thickness / 2);
+
+        return (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    static boolean intersects(CollisionComponent2D component, Circle circle)
+    {
+        tmpCircle.setRadius(circle.r);
+        tmpCircle.setPosition(circle.x, circle.y);
+
+        return Collision2D.testCollision(component.shape, tmpCircle, null);
+    }
+
+    static boolean intersects(CollisionComponent3D component, Sphere sphere)
+    {
+        tmpPoint.setPosition(sphere.position);
+        return GJK3D.distance(component.polyhedron, tmpPoint, null) <= sphere.radius;
+    }
+
+    static boolean raycast(IBroadphase2D broadphase, Vector2 origin, Vector2 direction, float maxDistance,
+                           RaycastHit<CollisionComponent2D> hit)
+    {
+        hit.clear();
+
+        float endX = origin.x + direction.x * maxDistance;
+        float endY = origin.y + direction.y * maxDistance;
+
+        Rectangle bounds = new Rectangle(new Vector2(Math.min(origin.x, endX), Math.min(origin.y, endY)),
+                new Vector2(Math.max(origin.x, endX), Math.max(origin.y, endY)));
+
+        for (CollisionComponent2D component : broadphase.retrieve(bounds))
+        {
+            float distance = Collision2D.raycast(component.shape, origin.x, origin.y, direction.x, direction.y,
+                    maxDistance);
+
+            if (distance < hit.getDistance())
+                hit.set(component, distance);
+        }
+
+        return hit.hasHit();
+    }
+
+    static boolean raycast(IBroadphase3D broadphase, Vector3 origin, Vector3 direction, float maxDistance,
+                           RaycastHit<CollisionComponent3D> hit)
+    {
+        hit.clear();
+
+        Vector3 min = new Vector3(direction).scale(maxDistance).add(origin);
+        Vector3 max = new Vector3(min);
+
+        min.set(Math.min(min.x, origin.x), Math.min(min.y, origin.y), Math.min(min.z, origin.z));
+        max.set(Math.max(max.x, origin.x), Math.max(max.y, origin.y), Math.max(max.z, origin.z));
+
+        for (CollisionComponent3D component : broadphase.retrieve(new Cuboid(min, max)))
+        {
+            float distance = GJK3D.raycast(component.polyhedron, origin.x, origin.y, origin.z, direction.x,
+                    direction.y, direction.z, maxDistance);
+
+            if (distance < hit.getDistance())
+                hit.set(component, distance);
+        }
+
+        return hit.hasHit();
+    }
+
+    static void raycast(IBroadphase2D broadphase, float[] rays, int count, float maxDistance,
+                        CollisionComponent2D[] hits, float[] distances)
+    {
+        Vector2 origin = new Vector2();
+        Vector2 direction = new Vector2();
+        RaycastHit<CollisionComponent2D> hit = new RaycastHit<>();
+
+        for (int i = 0; i < count; i++)
+        {
+            origin.set(rays[i * RAY2_SIZE], rays[i * RAY2_SIZE + 1]);
+            direction.set(rays[i * RAY2_SIZE + 2], rays[i * RAY2_SIZE + 3]);
+
+            broadphase.raycast(origin, direction, maxDistance, hit);
+
+            hits[i] = hit.getComponent();
+            distances[i] = hit.getDistance();
+        }
+    }
+
+    static void raycast(IBroadphase3D broadphase, float[] rays, int count, float maxDistance,
+                        CollisionComponent3D[] hits, float[] distances)
+    {
+        Vector3 origin = new Vector3();
+        Vector3 direction = new Vector3();
+        RaycastHit<CollisionComponent3D> hit = new RaycastHit<>();
+
+        for (int i = 0; i < count; i++)
+        {
+            origin.set(rays[i * RAY3_SIZE], rays[i * RAY3_SIZE + 1], rays[i * RAY3_SIZE + 2]);
+            direction.set(rays[i * RAY3_SIZE + 3], rays[i * RAY3_SIZE + 4], rays[i * RAY3_SIZE + 5]);
+
+            broadphase.raycast(origin, direction, maxDistance, hit);
+
+            hits[i] = hit.getComponent();
+            distances[i] = hit.getDistance();
+        }
+    }
+
+    static List<CollisionComponent2D> retrieve(IBroadphase2D broadphase, Vector2 start, Vector2 end)
+    {
+        float dx = end.x - start.x;
+        float dy = end.y - start.y;
+
+        Rectangle bounds = new Rectangle(new Vector2(Math.min(start.x, end.x), Math.min(start.y, end.y)),
+                new Vector2(Math.max(start.x, end.x), Math.max(start.y, end.y)));
+
+        List<CollisionComponent2D> list = broadphase.retrieve(bounds);
+        Iterator<CollisionComponent2D> it = list.iterator();
+
+        while (it.hasNext())
+            if (Collision2D.raycast(it.next().shape, start.x, start.y, dx, dy, 1) > 1)
+                it.remove();
+
+        return list;
+    }
+
+    static List<CollisionComponent3D> retrieve(IBroadphase3D broadphase, Vector3 start, Vector3 end)
+    {
+        Vector3 min = new Vector3(Math.min(start.x, end.x), Math.min(start.y, end.y), Math.min(start.z, end.z));
+        Vector3 max = new Vector3(Math.max(start.x, end.x), Math.max(start.y, end.y), Math.max(start.z, end.z));
+
+        List<CollisionComponent3D> list = broadphase.retrieve(new Cuboid(min, max));
+        Iterator<CollisionComponent3D> it = list.iterator();
+
+        while (it.hasNext())
+            if (GJK3D.raycast(it.next().polyhedron, start.x, start.y, start.z, end.x - start.x, end.y - start.y,
+                    end.z - start.z, 1) > 1)
+                it.remove();
+
+        return list;
+    }
+
+    static List<CollisionComponent2D> retrieve(IBroadphase2D broadphase, Circle circle)
+    {
+        List<CollisionComponent2D> list = broadphase.retrieve(
+                new Rectangle(circle.x - circle.r, circle.y - circle.r, 2 * circle.r, 2 * circle.r));
+        Iterator<CollisionComponent2D> it = list.iterator();
+
+        while (it.hasNext())
+            if (!intersects(it.next(), circle))
+                it.remove();
+
+        return list;
+    }
+
+    static List<CollisionComponent3D> retrieve(IBroadphase3D broadphase, Sphere sphere)
+    {
+        List<CollisionComponent3D> list = broadphase.retrieve(
+                new Cuboid(sphere.position, 2 * sphere.radius, 2 * sphere.radius, 2 * sphere.radius));
+        Iterator<CollisionComponent3D> it = list.iterator();
+
+        while (it.hasNext())
+            if (!intersects(it.next(), sphere))
+                it.remove();
+
+        return list;
+    }
+
+    /*
+     * The nearest components are searched in a square around the point that doubles in size, until there are enough
+     * components in the circle that fits in it, since no component outside of the square can be nearer than those.
+     * Components in many cells of a grid are retrieved many times, so they are only counted once, and are kept in the
+     * order they are found so that the ties are broken the same way every time.
+     */
+    static List<CollisionComponent2D> retrieveNearest(IBroadphase2D broadphase, Vector2 point, int count)
+    {
+        Rectangle area = new Rectangle();
+        Set<CollisionComponent2D> found = new LinkedHashSet<>();
+
+        float radius = 1;
+
+        for (int step = 0; step < MAX_NEAREST_STEPS; step++, radius *= 2)
+        {
+            area.set(point.x - radius, point.y - radius, 2 * radius, 2 * radius);
+
+            found.clear();
+            found.addAll(broadphase.retrieve(area));
+
+            int inside = 0;
+
+            for (CollisionComponent2D component : found)
+                if (distance(component.getBounds(), point.x, point.y) <= radius)
+                    inside++;
+
+            if (inside >= count)
+                break;
+        }
+
+        List<CollisionComponent2D> list = new ArrayList<>(found);
+        list.sort((a, b) -> Float.compare(distance(a.getBounds(), point.x, point.y),
+                distance(b.getBounds(), point.x, point.y)));
+
+        while (list.size() > count)
+            list.remove(list.size() - 1);
+
+        return list;
+    }
+
+    static List<CollisionComponent3D> retrieveNearest(IBroadphase3D broadphase, Vector3 point, int count)
+    {
+        Cuboid area = new Cuboid();
+        Set<CollisionComponent3D> found = new LinkedHashSet<>();
+
+        float radius = 1;
+
+        for (int step = 0; step < MAX_NEAREST_STEPS; step++, radius *= 2)
+        {
+            area.set(2 * radius, 2 * radius, 2 * radius, point);
+
+            found.clear();
+            found.addAll(broadphase.retrieve(area));
+
+            int inside = 0;
+
+            for (CollisionComponent3D component : found)
+                if (distance(component.getBounds(), point.x, point.y, point.z) <= radius)
+                    inside++;
+
+            if (inside >= count)
+                break;
+        }
+
+        List<CollisionComponent3D> list = new ArrayList<>(found);
+        list.sort((a, b) -> Float.compare(distance(a.getBounds(), point.x, point.y, point.z),
+                distance(b.getBounds(), point.x, point.y, point.z)));
+
+        while (list.size() > count)
+            list.remove(list.size() - 1);
+
+        return list;
+    }
+}
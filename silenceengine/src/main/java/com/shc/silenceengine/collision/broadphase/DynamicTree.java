@@ -73,6 +73,8 @@ class DynamicTree<AABBType extends DynamicTree.AABB, CollisionType>
 
         this.aabbCreator = aabbCreator;
 
+        root = Node.NULL;
+
         nodeCapacity = 16;
         nodeCount = 0;
 
@@ -93,6 +95,15 @@ class DynamicTree<AABBType extends DynamicTree.AABB, CollisionType>
     }
 
     <T> List<CollisionType> query(T obj, BiPredicate<AABBType, T> intersector)
+    {
+        return query(obj, intersector, null);
+    }
+
+    /**
+     * Finds the leaves whose AABB intersects the object, and which pass the filter, which does the exact test for the
+     * object stored in the leaf.
+     */
+    <T> List<CollisionType> query(T obj, BiPredicate<AABBType, T> intersector, BiPredicate<CollisionType, T> filter)
     {
         retrieveList.clear();
         stack.push(root);
@@ -109,7 +120,10 @@ class DynamicTree<AABBType extends DynamicTree.AABB, CollisionType>
             if (intersector.test(node.aabb, obj))
             {
                 if (node.isLeaf())
-                    retrieveList.add(node.collision);
+                {
+                    if (filter == null || filter.test(node.collision, obj))
+                        retrieveList.add(node.collision);
+                }
                 else
                 {
                     stack.push(node.child1);
@@ -121,6 +135,71 @@ class DynamicTree<AABBType extends DynamicTree.AABB, CollisionType>
         return retrieveList;
     }
 
+    /**
+     * Finds the leaves closest to the query, up to the limit of the traversal, and stores them in the traversal in the
+     * order of their distance. The distance to a node can never be more than the distance to the leaves below it,
+     * which lets the traversal visit the nearer child first, and skip the nodes farther than the leaves found so far.
+     * This does not change the tree, and can be called from many threads at once with a traversal for each of them.
+     *
+     * @return The number of leaves found.
+     */
+    <T> int queryClosest(T query, float maxDistance, Distance<AABBType, T> nodeDistance,
+                         Distance<CollisionType, T> leafDistance, Traversal<CollisionType> traversal)
+    {
+        traversal.clear();
+
+        if (root == Node.NULL)
+            return 0;
+
+        float rootDistance = nodeDistance.distance(nodes.get(root).aabb, query);
+
+        if (rootDistance <= maxDistance)
+            traversal.push(root, rootDistance);
+
+        while (traversal.stackSize > 0)
+        {
+            traversal.stackSize--;
+
+            int nodeID = traversal.stack[traversal.stackSize];
+            float distance = traversal.stackDistances[traversal.stackSize];
+
+            float bound = traversal.isFull() ? traversal.getLastDistance() : maxDistance;
+
+            if (distance > bound)
+                continue;
+
+            Node<CollisionType, AABBType> node = nodes.get(nodeID);
+
+            if (node.isLeaf())
+            {
+                float leaf = leafDistance == null ? distance : leafDistance.distance(node.collision, query);
+
+                if (leaf <= bound)
+                    traversal.add(node.collision, leaf);
+
+                continue;
+            }
+
+            float distance1 = nodeDistance.distance(nodes.get(node.child1).aabb, query);
+            float distance2 = nodeDistance.distance(nodes.get(node.child2).aabb, query);
+
+            // The nearer child is pushed last, so that it is visited first
+            int near = distance1 <= distance2 ? node.child1 : node.child2;
+            int far = distance1 <= distance2 ? node.child2 : node.child1;
+
+            float nearDistance = Math.min(distance1, distance2);
+            float farDistance = Math.max(distance1, distance2);
+
+            if (farDistance <= bound)
+                traversal.push(far, farDistance);
+
+            if (nearDistance <= bound)
+                traversal.push(near, nearDistance);
+        }
+
+        return traversal.found.size();
+    }
+
     private int allocateNode()
     {
         // Expand the node pool as needed. This is handled for some part internally by the ArrayList, but we just take
@@ -521,6 +600,105 @@ class DynamicTree<AABBType extends DynamicTree.AABB, CollisionType>
         freeList = nodeCount;
     }
 
+    /**
+     * The distance from a query to a node or a leaf of the tree, which is {@link Float#POSITIVE_INFINITY} if the query
+     * can not reach it.
+     */
+    @FunctionalInterface
+    interface Distance<T, Q>
+    {
+        float distance(T value, Q query);
+    }
+
+    /**
+     * The state of a closest query, which holds the stack of the nodes to visit, and the leaves found in the order of
+     * their distance. Each thread running the queries needs its own traversal.
+     */
+    static class Traversal<CollisionType>
+    {
+        final List<CollisionType> found = new ArrayList<>();
+
+        private float[] foundDistances = new float[1];
+        private int     limit          = 1;
+
+        private int[]   stack          = new int[64];
+        private float[] stackDistances = new float[64];
+        private int     stackSize;
+
+        /**
+         * Sets the number of the closest leaves to find.
+         */
+        void setLimit(int limit)
+        {
+            this.limit = limit;
+
+            if (foundDistances.length < limit)
+                foundDistances = new float[limit];
+        }
+
+        float getDistance(int index)
+        {
+            return foundDistances[index];
+        }
+
+        void clear()
+        {
+            found.clear();
+            stackSize = 0;
+        }
+
+        private boolean isFull()
+        {
+            return found.size() == limit;
+        }
+
+        private float getLastDistance()
+        {
+            return foundDistances[found.size() - 1];
+        }
+
+        private void push(int node, float distance)
+        {
+            if (stackSize == stack.length)
+            {
+                int[] newStack = new int[stackSize * 2];
+                float[] newDistances = new float[stackSize * 2];
+
+                System.arraycopy(stack, 0, newStack, 0, stackSize);
+                System.arraycopy(stackDistances, 0, newDistances, 0, stackSize);
+
+                stack = newStack;
+                stackDistances = newDistances;
+            }
+
+            stack[stackSize] = node;
+            stackDistances[stackSize] = distance;
+            stackSize++;
+        }
+
+        private void add(CollisionType collision, float distance)
+        {
+            int size = found.size();
+
+            if (size == limit)
+            {
+                // The farthest one makes room for the new one
+                found.remove(--size);
+            }
+
+            int index = size;
+
+            while (index > 0 && foundDistances[index - 1] > distance)
+            {
+                foundDistances[index] = foundDistances[index - 1];
+                index--;
+            }
+
+            foundDistances[index] = distance;
+            found.add(index, collision);
+        }
+    }
+
     interface AABB
     {
         float getPerimeter();
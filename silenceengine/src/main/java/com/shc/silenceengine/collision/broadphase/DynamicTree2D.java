@@ -24,31 +24,49 @@
 
 package com.shc.silenceengine.collision.broadphase;
 
-import com.shc.silenceengine.math.geom2d.Polygon;
+import com.shc.silenceengine.collision.Collision2D;
+import com.shc.silenceengine.collision.shapes.CollisionShape2D;
+import com.shc.silenceengine.math.Vector2;
+import com.shc.silenceengine.math.geom2d.Circle;
 import com.shc.silenceengine.math.geom2d.Rectangle;
 import com.shc.silenceengine.scene.components.CollisionComponent2D;
+import com.shc.silenceengine.utils.TaskManager;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
+ * A broadphase that keeps the bounds of the components in a dynamic AABB tree. The ray casts and the nearest queries
+ * visit the nearer children of the tree first, and skip the nodes farther than what they have already found. The
+ * batched ray casts do not change the tree, and are split between the threads of the {@link TaskManager}.
+ *
  * @author Sri Harsha Chilakapati
  * @author Josh "ShadowLordAlpha"
  */
 public class DynamicTree2D implements IBroadphase2D
 {
+    // The smallest number of rays cast by each task of a batch
+    private static final int RAYS_PER_TASK = 64;
+
     private DynamicTree<AABB, CollisionComponent2D> dynamicTree;
     private Map<CollisionComponent2D, Integer>      proxyMap;
 
     private AABB queryAABB;
 
+    // The state of the queries made from the calling thread
+    private DynamicTree.Traversal<CollisionComponent2D> traversal;
+    private float[]                                     query;
+
     public DynamicTree2D()
     {
         dynamicTree = new DynamicTree<>(AABB::new);
         proxyMap = new HashMap<>();
 
         queryAABB = new AABB();
+
+        traversal = new DynamicTree.Traversal<>();
+        query = new float[BroadphaseQueries.RAY2_SIZE + 1];
     }
 
     @Override
@@ -63,7 +81,7 @@ public class DynamicTree2D implements IBroadphase2D
     @Override
     public void insert(CollisionComponent2D e)
     {
-        int proxy = dynamicTree.createProxy(new AABB(e.polygon), e);
+        int proxy = dynamicTree.createProxy(new AABB(e), e);
         proxyMap.put(e, proxy);
     }
 
@@ -90,20 +108,115 @@ public class DynamicTree2D implements IBroadphase2D
         return dynamicTree.query(queryAABB, AABB::intersects);
     }
 
+    @Override
+    public List<CollisionComponent2D> retrieve(Circle circle)
+    {
+        return dynamicTree.query(circle, AABB::intersects, BroadphaseQueries::intersects);
+    }
+
+    @Override
+    public List<CollisionComponent2D> retrieve(Vector2 start, Vector2 end)
+    {
+        query[0] = start.x;
+        query[1] = start.y;
+        query[2] = end.x - start.x;
+        query[3] = end.y - start.y;
+        query[4] = 1;
+
+        return dynamicTree.query(query, AABB::intersectsRay, DynamicTree2D::intersects);
+    }
+
+    @Override
+    public List<CollisionComponent2D> retrieveNearest(Vector2 point, int count)
+    {
+        query[0] = point.x;
+        query[1] = point.y;
+
+        traversal.setLimit(count);
+        dynamicTree.queryClosest(query, Float.POSITIVE_INFINITY, AABB::distance, null, traversal);
+
+        return traversal.found;
+    }
+
+    @Override
+    public boolean raycast(Vector2 origin, Vector2 direction, float maxDistance, RaycastHit<CollisionComponent2D> hit)
+    {
+        query[0] = origin.x;
+        query[1] = origin.y;
+        query[2] = direction.x;
+        query[3] = direction.y;
+        query[4] = maxDistance;
+
+        hit.clear();
+
+        if (raycast(query, traversal) > 0)
+            hit.set(traversal.found.get(0), traversal.getDistance(0));
+
+        return hit.hasHit();
+    }
+
+    @Override
+    public void raycast(float[] rays, int count, float maxDistance, CollisionComponent2D[] hits, float[] distances)
+    {
+        // The polygons are made lazily, so they are made here before the threads read them
+        for (CollisionComponent2D component : proxyMap.keySet())
+            if (component.shape.getType() == CollisionShape2D.Type.POLYGON)
+                component.shape.getPolygon().getVertexData();
+
+        TaskManager.runInParallel(0, count, RAYS_PER_TASK, (start, end) ->
+        {
+            DynamicTree.Traversal<CollisionComponent2D> traversal = new DynamicTree.Traversal<>();
+            float[] query = new float[BroadphaseQueries.RAY2_SIZE + 1];
+            query[4] = maxDistance;
+
+            for (int i = start; i < end; i++)
+            {
+                System.arraycopy(rays, i * BroadphaseQueries.RAY2_SIZE, query, 0, BroadphaseQueries.RAY2_SIZE);
+
+                if (raycast(query, traversal) > 0)
+                {
+                    hits[i] = traversal.found.get(0);
+                    distances[i] = traversal.getDistance(0);
+                }
+                else
+                {
+                    hits[i] = null;
+                    distances[i] = Float.POSITIVE_INFINITY;
+                }
+            }
+        });
+    }
+
+    private int raycast(float[] ray, DynamicTree.Traversal<CollisionComponent2D> traversal)
+    {
+        traversal.setLimit(1);
+        return dynamicTree.queryClosest(ray, ray[4], AABB::raycast, DynamicTree2D::raycast, traversal);
+    }
+
+    private static float raycast(CollisionComponent2D component, float[] ray)
+    {
+        return Collision2D.raycast(component.shape, ray[0], ray[1], ray[2], ray[3], ray[4]);
+    }
+
+    private static boolean intersects(CollisionComponent2D component, float[] ray)
+    {
+        return raycast(component, ray) <= ray[4];
+    }
+
     private static class AABB implements DynamicTree.AABB
     {
-        Rectangle rect;
-        Polygon   polygon;
+        Rectangle            rect;
+        CollisionComponent2D component;
 
         AABB()
         {
             rect = new Rectangle();
         }
 
-        AABB(Polygon polygon)
+        AABB(CollisionComponent2D component)
         {
-            this.polygon = polygon;
-            this.rect = polygon.getBounds();
+            this.component = component;
+            this.rect = component.getBounds();
         }
 
         public static boolean intersects(AABB aabb1, AABB aabb2)
@@ -111,6 +224,26 @@ public class DynamicTree2D implements IBroadphase2D
             return aabb1.rect.intersects(aabb2.rect);
         }
 
+        public static boolean intersects(AABB aabb, Circle circle)
+        {
+            return BroadphaseQueries.distance(aabb.rect, circle.x, circle.y) <= circle.r;
+        }
+
+        public static boolean intersectsRay(AABB aabb, float[] ray)
+        {
+            return raycast(aabb, ray) <= ray[4];
+        }
+
+        public static float raycast(AABB aabb, float[] ray)
+        {
+            return BroadphaseQueries.raycast(aabb.rect, ray[0], ray[1], ray[2], ray[3]);
+        }
+
+        public static float distance(AABB aabb, float[] point)
+        {
+            return BroadphaseQueries.distance(aabb.rect, point[0], point[1]);
+        }
+
         @Override
         public float getPerimeter()
         {
@@ -143,8 +276,8 @@ public class DynamicTree2D implements IBroadphase2D
 
         void update()
         {
-            if (polygon != null)
-                rect = polygon.getBounds();
+            if (component != null)
+                rect = component.getBounds();
         }
     }
 }
@@ -24,32 +24,49 @@
 
 package com.shc.silenceengine.collision.broadphase;
 
+import com.shc.silenceengine.collision.GJK3D;
 import com.shc.silenceengine.math.Ray;
+import com.shc.silenceengine.math.Vector3;
 import com.shc.silenceengine.math.geom3d.Cuboid;
-import com.shc.silenceengine.math.geom3d.Polyhedron;
+import com.shc.silenceengine.math.geom3d.Sphere;
 import com.shc.silenceengine.scene.components.CollisionComponent3D;
+import com.shc.silenceengine.utils.TaskManager;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
+ * A broadphase that keeps the bounds of the components in a dynamic AABB tree. The ray casts and the nearest queries
+ * visit the nearer children of the tree first, and skip the nodes farther than what they have already found. The
+ * batched ray casts do not change the tree, and are split between the threads of the {@link TaskManager}.
+ *
  * @author Sri Harsha Chilakapati
  * @author Josh "ShadowLordAlpha"
  */
 public class DynamicTree3D implements IBroadphase3D
 {
+    // The smallest number of rays cast by each task of a batch
+    private static final int RAYS_PER_TASK = 64;
+
     private DynamicTree<AABB, CollisionComponent3D> dynamicTree;
     private Map<CollisionComponent3D, Integer>      proxyMap;
 
     private AABB queryAABB;
 
+    // The state of the queries made from the calling thread
+    private DynamicTree.Traversal<CollisionComponent3D> traversal;
+    private float[]                                     query;
+
     public DynamicTree3D()
     {
         dynamicTree = new DynamicTree<>(AABB::new);
         proxyMap = new HashMap<>();
 
         queryAABB = new AABB();
+
+        traversal = new DynamicTree.Traversal<>();
+        query = new float[BroadphaseQueries.RAY3_SIZE + 1];
     }
 
     @Override
@@ -64,7 +81,7 @@ public class DynamicTree3D implements IBroadphase3D
     @Override
     public void insert(CollisionComponent3D e)
     {
-        int proxy = dynamicTree.createProxy(new AABB(e.polyhedron), e);
+        int proxy = dynamicTree.createProxy(new AABB(e), e);
         proxyMap.put(e, proxy);
     }
 
@@ -94,23 +111,128 @@ public class DynamicTree3D implements IBroadphase3D
     @Override
     public List<CollisionComponent3D> retrieve(Ray ray)
     {
-        return dynamicTree.query(ray, AABB::intersects);
+        setRay(ray.origin, ray.direction, Float.POSITIVE_INFINITY);
+        return dynamicTree.query(query, AABB::intersectsRay, DynamicTree3D::intersects);
+    }
+
+    @Override
+    public List<CollisionComponent3D> retrieve(Sphere sphere)
+    {
+        return dynamicTree.query(sphere, AABB::intersects, BroadphaseQueries::intersects);
+    }
+
+    @Override
+    public List<CollisionComponent3D> retrieve(Vector3 start, Vector3 end)
+    {
+        query[0] = start.x;
+        query[1] = start.y;
+        query[2] = start.z;
+        query[3] = end.x - start.x;
+        query[4] = end.y - start.y;
+        query[5] = end.z - start.z;
+        query[6] = 1;
+
+        return dynamicTree.query(query, AABB::intersectsRay, DynamicTree3D::intersects);
+    }
+
+    @Override
+    public List<CollisionComponent3D> retrieveNearest(Vector3 point, int count)
+    {
+        query[0] = point.x;
+        query[1] = point.y;
+        query[2] = point.z;
+
+        traversal.setLimit(count);
+        dynamicTree.queryClosest(query, Float.POSITIVE_INFINITY, AABB::distance, null, traversal);
+
+        return traversal.found;
+    }
+
+    @Override
+    public boolean raycast(Vector3 origin, Vector3 direction, float maxDistance, RaycastHit<CollisionComponent3D> hit)
+    {
+        setRay(origin, direction, maxDistance);
+
+        hit.clear();
+
+        if (raycast(query, traversal) > 0)
+            hit.set(traversal.found.get(0), traversal.getDistance(0));
+
+        return hit.hasHit();
+    }
+
+    @Override
+    public void raycast(float[] rays, int count, float maxDistance, CollisionComponent3D[] hits, float[] distances)
+    {
+        // The packed vertices are made lazily, so they are made here before the threads read them
+        for (CollisionComponent3D component : proxyMap.keySet())
+            component.polyhedron.getVertexData();
+
+        TaskManager.runInParallel(0, count, RAYS_PER_TASK, (start, end) ->
+        {
+            DynamicTree.Traversal<CollisionComponent3D> traversal = new DynamicTree.Traversal<>();
+            float[] query = new float[BroadphaseQueries.RAY3_SIZE + 1];
+            query[6] = maxDistance;
+
+            for (int i = start; i < end; i++)
+            {
+                System.arraycopy(rays, i * BroadphaseQueries.RAY3_SIZE, query, 0, BroadphaseQueries.RAY3_SIZE);
+
+                if (raycast(query, traversal) > 0)
+                {
+                    hits[i] = traversal.found.get(0);
+                    distances[i] = traversal.getDistance(0);
+                }
+                else
+                {
+                    hits[i] = null;
+                    distances[i] = Float.POSITIVE_INFINITY;
+                }
+            }
+        });
+    }
+
+    private void setRay(Vector3 origin, Vector3 direction, float maxDistance)
+    {
+        query[0] = origin.x;
+        query[1] = origin.y;
+        query[2] = origin.z;
+        query[3] = direction.x;
+        query[4] = direction.y;
+        query[5] = direction.z;
+        query[6] = maxDistance;
+    }
+
+    private int raycast(float[] ray, DynamicTree.Traversal<CollisionComponent3D> traversal)
+    {
+        traversal.setLimit(1);
+        return dynamicTree.queryClosest(ray, ray[6], AABB::raycast, DynamicTree3D::raycast, traversal);
+    }
+
+    private static float raycast(CollisionComponent3D component, float[] ray)
+    {
+        return GJK3D.raycast(component.polyhedron, ray[0], ray[1], ray[2], ray[3], ray[4], ray[5], ray[6]);
+    }
+
+    private static boolean intersects(CollisionComponent3D component, float[] ray)
+    {
+        return raycast(component, ray) <= ray[6];
     }
 
     private static class AABB implements DynamicTree.AABB
     {
-        Cuboid     cuboid;
-        Polyhedron polyhedron;
+        Cuboid               cuboid;
+        CollisionComponent3D component;
 
         AABB()
         {
             cuboid = new Cuboid();
         }
 
-        AABB(Polyhedron polyhedron)
+        AABB(CollisionComponent3D component)
         {
-            this.polyhedron = polyhedron;
-            this.cuboid = polyhedron.getBounds();
+            this.component = component;
+            this.cuboid = component.getBounds();
         }
 
         public static boolean intersects(AABB aabb1, AABB aabb2)
@@ -175,16 +297,29 @@ public class DynamicTree3D implements IBroadphase3D
 
         void update()
         {
-            if (polyhedron != null)
-                cuboid = polyhedron.getBounds();
+            if (component != null)
+                cuboid = component.getBounds();
+        }
+
+        public static boolean intersects(AABB aabb, Sphere sphere)
+        {
+            Vector3 center = sphere.position;
+            return BroadphaseQueries.distance(aabb.cuboid, center.x, center.y, center.z) <= sphere.radius;
+        }
+
+        public static boolean intersectsRay(AABB aabb, float[] ray)
+        {
+            return raycast(aabb, ray) <= ray[6];
+        }
+
+        public static float raycast(AABB aabb, float[] ray)
+        {
+            return BroadphaseQueries.raycast(aabb.cuboid, ray[0], ray[1], ray[2], ray[3], ray[4], ray[5]);
         }
 
-        public static boolean intersects(AABB aabb, Ray ray)
+        public static float distance(AABB aabb, float[] point)
         {
-            if (aabb.polyhedron != null)
-                return aabb.cuboid.intersects(ray) && aabb.polyhedron.intersects(ray);
-            else
-                return aabb.cuboid.intersects(ray);
+            return BroadphaseQueries.distance(aabb.cuboid, point[0], point[1], point[2]);
         }
     }
 }
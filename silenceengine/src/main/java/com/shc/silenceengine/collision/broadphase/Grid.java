@@ -104,12 +104,12 @@ public class Grid implements IBroadphase2D
      */
     public void insert(CollisionComponent2D entity)
     {
-        Rectangle bounds = entity.polygon.getBounds();
+        Rectangle bounds = entity.getBounds();
 
         int topLeftX = MathUtils.clamp((int) (bounds.x) / cellWidth, 0, cols - 1);
         int topLeftY = MathUtils.clamp((int) (bounds.y) / cellHeight, 0, rows - 1);
-        int bottomRightX = MathUtils.clamp((int) (bounds.x + bounds.width - 1) / cellWidth, 0, cols - 1);
-        int bottomRightY = MathUtils.clamp((int) (bounds.y + bounds.height - 1) / cellHeight, 0, rows - 1);
+        int bottomRightX = MathUtils.clamp((int) (bounds.x + bounds.width) / cellWidth, 0, cols - 1);
+        int bottomRightY = MathUtils.clamp((int) (bounds.y + bounds.height) / cellHeight, 0, rows - 1);
 
         for (int x = topLeftX; x <= bottomRightX; x++)
         {
@@ -127,12 +127,12 @@ public class Grid implements IBroadphase2D
      */
     public void remove(CollisionComponent2D entity)
     {
-        Rectangle bounds = entity.polygon.getBounds();
+        Rectangle bounds = entity.getBounds();
 
         int topLeftX = MathUtils.clamp((int) (bounds.x) / cellWidth, 0, cols - 1);
         int topLeftY = MathUtils.clamp((int) (bounds.y) / cellHeight, 0, rows - 1);
-        int bottomRightX = MathUtils.clamp((int) (bounds.x + bounds.width - 1) / cellWidth, 0, cols - 1);
-        int bottomRightY = MathUtils.clamp((int) (bounds.y + bounds.height - 1) / cellHeight, 0, rows - 1);
+        int bottomRightX = MathUtils.clamp((int) (bounds.x + bounds.width) / cellWidth, 0, cols - 1);
+        int bottomRightY = MathUtils.clamp((int) (bounds.y + bounds.height) / cellHeight, 0, rows - 1);
 
         for (int x = topLeftX; x <= bottomRightX; x++)
         {
@@ -151,8 +151,8 @@ public class Grid implements IBroadphase2D
 
         int topLeftX = MathUtils.clamp((int) (bounds.x) / cellWidth, 0, cols - 1);
         int topLeftY = MathUtils.clamp((int) (bounds.y) / cellHeight, 0, rows - 1);
-        int bottomRightX = MathUtils.clamp((int) (bounds.x + bounds.width - 1) / cellWidth, 0, cols - 1);
-        int bottomRightY = MathUtils.clamp((int) (bounds.y + bounds.height - 1) / cellHeight, 0, rows - 1);
+        int bottomRightX = MathUtils.clamp((int) (bounds.x + bounds.width) / cellWidth, 0, cols - 1);
+        int bottomRightY = MathUtils.clamp((int) (bounds.y + bounds.height) / cellHeight, 0, rows - 1);
 
         for (int x = topLeftX; x <= bottomRightX; x++)
         {
@@ -24,12 +24,18 @@
 
 package com.shc.silenceengine.collision.broadphase;
 
+import com.shc.silenceengine.math.Vector2;
+import com.shc.silenceengine.math.geom2d.Circle;
 import com.shc.silenceengine.math.geom2d.Rectangle;
 import com.shc.silenceengine.scene.components.CollisionComponent2D;
 
 import java.util.List;
 
 /**
+ * A broadphase keeps the collision components in a structure that can quickly find the ones near an area, a ray or a
+ * point. The queries other than {@link #retrieve(Rectangle)} have default implementations on top of it, which test
+ * the components it finds exactly. Broadphases that can order their search override them to stop early.
+ *
  * @author Sri Harsha Chilakapati
  */
 public interface IBroadphase2D
@@ -48,8 +54,79 @@ public interface IBroadphase2D
 
     default List<CollisionComponent2D> retrieve(CollisionComponent2D e)
     {
-        return retrieve(e.polygon.getBounds());
+        return retrieve(e.getBounds());
     }
 
     List<CollisionComponent2D> retrieve(Rectangle rect);
+
+    /**
+     * Finds the components whose shapes intersect a circle.
+     *
+     * @param circle The circle to test against.
+     *
+     * @return The list of components, which can be reused by the next query.
+     */
+    default List<CollisionComponent2D> retrieve(Circle circle)
+    {
+        return BroadphaseQueries.retrieve(this, circle);
+    }
+
+    /**
+     * Finds the components whose shapes intersect a line segment.
+     *
+     * @param start The start of the segment.
+     * @param end   The end of the segment.
+     *
+     * @return The list of components, which can be reused by the next query.
+     */
+    default List<CollisionComponent2D> retrieve(Vector2 start, Vector2 end)
+    {
+        return BroadphaseQueries.retrieve(this, start, end);
+    }
+
+    /**
+     * Finds the components nearest to a point, measured by the distance from the point to their bounds.
+     *
+     * @param point The point to search from.
+     * @param count The maximum number of components to find.
+     *
+     * @return The list of components in the order of their distance, which can be reused by the next query.
+     */
+    default List<CollisionComponent2D> retrieveNearest(Vector2 point, int count)
+    {
+        return BroadphaseQueries.retrieveNearest(this, point, count);
+    }
+
+    /**
+     * Casts a ray and finds the first component whose shape it hits.
+     *
+     * @param origin      The origin of the ray.
+     * @param direction   The direction of the ray. The distances are measured in its length.
+     * @param maxDistance The distance after which the hits are ignored. The default implementation searches the
+     *                    bounds of the ray up to this distance, so it has to be finite unless it is overridden.
+     * @param hit         The hit to store the component and the distance in.
+     *
+     * @return True if the ray hit a component.
+     */
+    default boolean raycast(Vector2 origin, Vector2 direction, float maxDistance, RaycastHit<CollisionComponent2D> hit)
+    {
+        return BroadphaseQueries.raycast(this, origin, direction, maxDistance, hit);
+    }
+
+    /**
+     * Casts many rays at once, each of them like {@link #raycast(Vector2, Vector2, float, RaycastHit)}. The rays are
+     * packed in an array as the origin followed by the direction, in four floats per ray. Broadphases that can be read
+     * from many threads split the rays between the threads of the {@link com.shc.silenceengine.utils.TaskManager}.
+     *
+     * @param rays        The packed rays.
+     * @param count       The number of rays.
+     * @param maxDistance The distance after which the hits are ignored.
+     * @param hits        The array to store the first component hit by each ray in, null if it hit nothing.
+     * @param distances   The array to store the distance of the hit of each ray in, {@link Float#POSITIVE_INFINITY}
+     *                    if it hit nothing.
+     */
+    default void raycast(float[] rays, int count, float maxDistance, CollisionComponent2D[] hits, float[] distances)
+    {
+        BroadphaseQueries.raycast(this, rays, count, maxDistance, hits, distances);
+    }
 }
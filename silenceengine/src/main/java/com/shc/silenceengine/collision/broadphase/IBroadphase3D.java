@@ -25,13 +25,20 @@
 package com.shc.silenceengine.collision.broadphase;
 
 import com.shc.silenceengine.math.Ray;
+import com.shc.silenceengine.math.Vector3;
 import com.shc.silenceengine.math.geom3d.Cuboid;
 import com.shc.silenceengine.math.geom3d.Polyhedron;
+import com.shc.silenceengine.math.geom3d.Sphere;
 import com.shc.silenceengine.scene.components.CollisionComponent3D;
 
 import java.util.List;
 
 /**
+ * A broadphase keeps the collision components in a structure that can quickly find the ones near an area, a ray or a
+ * point. The queries other than {@link #retrieve(Cuboid)} and {@link #retrieve(Ray)} have default implementations on
+ * top of them, which test the components they find exactly. Broadphases that can order their search override them to
+ * stop early.
+ *
  * @author Sri Harsha Chilakapati
  */
 public interface IBroadphase3D
@@ -50,7 +57,7 @@ public interface IBroadphase3D
 
     default List<CollisionComponent3D> retrieve(CollisionComponent3D e)
     {
-        return retrieve(e.polyhedron.getBounds());
+        return retrieve(e.getBounds());
     }
 
     List<CollisionComponent3D> retrieve(Cuboid polyhedron);
@@ -61,4 +68,75 @@ public interface IBroadphase3D
     {
         return retrieve(polyhedron.getBounds());
     }
+
+    /**
+     * Finds the components whose polyhedra intersect a sphere.
+     *
+     * @param sphere The sphere to test against.
+     *
+     * @return The list of components, which can be reused by the next query.
+     */
+    default List<CollisionComponent3D> retrieve(Sphere sphere)
+    {
+        return BroadphaseQueries.retrieve(this, sphere);
+    }
+
+    /**
+     * Finds the components whose polyhedra intersect a line segment.
+     *
+     * @param start The start of the segment.
+     * @param end   The end of the segment.
+     *
+     * @return The list of components, which can be reused by the next query.
+     */
+    default List<CollisionComponent3D> retrieve(Vector3 start, Vector3 end)
+    {
+        return BroadphaseQueries.retrieve(this, start, end);
+    }
+
+    /**
+     * Finds the components nearest to a point, measured by the distance from the point to their bounds.
+     *
+     * @param point The point to search from.
+     * @param count The maximum number of components to find.
+     *
+     * @return The list of components in the order of their distance, which can be reused by the next query.
+     */
+    default List<CollisionComponent3D> retrieveNearest(Vector3 point, int count)
+    {
+        return BroadphaseQueries.retrieveNearest(this, point, count);
+    }
+
+    /**
+     * Casts a ray and finds the first component whose polyhedron it hits.
+     *
+     * @param origin      The origin of the ray.
+     * @param direction   The direction of the ray. The distances are measured in its length.
+     * @param maxDistance The distance after which the hits are ignored. The default implementation searches the
+     *                    bounds of the ray up to this distance, so it has to be finite unless it is overridden.
+     * @param hit         The hit to store the component and the distance in.
+     *
+     * @return True if the ray hit a component.
+     */
+    default boolean raycast(Vector3 origin, Vector3 direction, float maxDistance, RaycastHit<CollisionComponent3D> hit)
+    {
+        return BroadphaseQueries.raycast(this, origin, direction, maxDistance, hit);
+    }
+
+    /**
+     * Casts many rays at once, each of them like {@link #raycast(Vector3, Vector3, float, RaycastHit)}. The rays are
+     * packed in an array as the origin followed by the direction, in six floats per ray. Broadphases that can be read
+     * from many threads split the rays between the threads of the {@link com.shc.silenceengine.utils.TaskManager}.
+     *
+     * @param rays        The packed rays.
+     * @param count       The number of rays.
+     * @param maxDistance The distance after which the hits are ignored.
+     * @param hits        The array to store the first component hit by each ray in, null if it hit nothing.
+     * @param distances   The array to store the distance of the hit of each ray in, {@link Float#POSITIVE_INFINITY}
+     *                    if it hit nothing.
+     */
+    default void raycast(float[] rays, int count, float maxDistance, CollisionComponent3D[] hits, float[] distances)
+    {
+        BroadphaseQueries.raycast(this, rays, count, maxDistance, hits, distances);
+    }
 }
@@ -167,15 +167,38 @@ public class QuadTree implements IBroadphase2D
     public List<CollisionComponent2D> retrieve(Rectangle r)
     {
         retrieveList.clear();
-        int index = getIndex(r);
+        retrieve(r, retrieveList);
 
-        if (index != -1 && nodes[0] != null)
+        return retrieveList;
+    }
+
+    // Collect the objects of this tree, and of the quadrants that the rectangle reaches
+    private void retrieve(Rectangle r, List<CollisionComponent2D> list)
+    {
+        if (nodes[0] != null)
         {
-            retrieveList = nodes[index].retrieve(r);
+            double verticalMidpoint = bounds.x + (bounds.width / 2);
+            double horizontalMidpoint = bounds.y + (bounds.height / 2);
+
+            boolean left = r.x <= verticalMidpoint;
+            boolean right = r.x + r.width >= verticalMidpoint;
+            boolean top = r.y <= horizontalMidpoint;
+            boolean bottom = r.y + r.height >= horizontalMidpoint;
+
+            if (right && top)
+                nodes[0].retrieve(r, list);
+
+            if (left && top)
+                nodes[1].retrieve(r, list);
+
+            if (left && bottom)
+                nodes[2].retrieve(r, list);
+
+            if (right && bottom)
+                nodes[3].retrieve(r, list);
         }
 
-        retrieveList.addAll(objects);
-        return retrieveList;
+        list.addAll(objects);
     }
 
     // Split the tree into 4 quadrants
@@ -196,7 +219,7 @@ public class QuadTree implements IBroadphase2D
     // Get the index of an object
     private int getIndex(CollisionComponent2D entity)
     {
-        return getIndex(entity.polygon.getBounds());
+        return getIndex(entity.getBounds());
     }
 
     // Get the index of a rectangle
@@ -0,0 +1,82 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.collision.broadphase;
+
+/**
+ * The closest component hit by a ray cast against a broadphase, and the distance along the ray at which it was hit.
+ *
+ * @param <T> The type of the components.
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class RaycastHit<T>
+{
+    private T     component;
+    private float distance = Float.POSITIVE_INFINITY;
+
+    public RaycastHit<T> clear()
+    {
+        component = null;
+        distance = Float.POSITIVE_INFINITY;
+        return this;
+    }
+
+    void set(T component, float distance)
+    {
+        this.component = component;
+        this.distance = distance;
+    }
+
+    public boolean hasHit()
+    {
+        return component != null;
+    }
+
+    /**
+     * @return The component that was hit, or null if the ray hit nothing.
+     */
+    public T getComponent()
+    {
+        return component;
+    }
+
+    /**
+     * @return The distance along the ray in the lengths of its direction, or {@link Float#POSITIVE_INFINITY} if the
+     * ray hit nothing.
+     */
+    public float getDistance()
+    {
+        return distance;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "RaycastHit{" +
+               "component=" + component +
+               ", distance=" + distance +
+               '}';
+    }
+}
@@ -24,16 +24,21 @@
 
 package com.shc.silenceengine.collision.colliders;
 
+import com.shc.silenceengine.collision.Collision2D;
 import com.shc.silenceengine.collision.CollisionTag;
 import com.shc.silenceengine.collision.broadphase.DynamicTree2D;
 import com.shc.silenceengine.collision.broadphase.IBroadphase2D;
+import com.shc.silenceengine.core.metrics.Counter;
+import com.shc.silenceengine.core.metrics.Metrics;
+import com.shc.silenceengine.math.Vector2;
 import com.shc.silenceengine.scene.Entity;
 import com.shc.silenceengine.scene.Scene;
 import com.shc.silenceengine.scene.components.CollisionComponent2D;
+import com.shc.silenceengine.utils.Profiler;
 import com.shc.silenceengine.utils.functional.BiCallback;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -53,12 +58,19 @@ import java.util.Map;
  * <p> In the above example, collisions are checked between Player-Enemy and Player-EnemyBullet, and others are just
  * ignored. </p>
  *
+ * <p> The pairs where one of the components is {@link CollisionComponent2D#continuous continuous} and which do not
+ * overlap at the end of the frame are also swept along their motion, so that fast entities do not pass through the
+ * others. </p>
+ *
  * @author Sri Harsha Chilakapati
  */
 public class CollisionSystem2D implements BiCallback<Scene, Float>
 {
+    private static final Counter BROADPHASE_QUERIES = Metrics.counter("collision.broadphaseQueries");
+    private static final Counter NARROWPHASE_TESTS  = Metrics.counter("collision.narrowphaseTests");
+
     // The collision map, used to store registered classes
-    private Map<CollisionTag, List<CollisionTag>> collisionMap = new HashMap<>();
+    private Map<CollisionTag, List<CollisionTag>> collisionMap = new LinkedHashMap<>();
 
     // The broadphase, entities and the numEntities
     private IBroadphase2D broadphase;
@@ -93,6 +105,8 @@ public class CollisionSystem2D implements BiCallback<Scene, Float>
     @Override
     public void invoke(Scene scene, Float elapsedTime)
     {
+        Profiler.begin("Broadphase");
+
         Iterator<Entity> it = entities.iterator();
         while (it.hasNext())
         {
@@ -102,8 +116,8 @@ public class CollisionSystem2D implements BiCallback<Scene, Float>
                 it.remove();
                 e.forEachComponentOfType(CollisionComponent2D.class, broadphase::remove);
             }
-            else if (e.transformComponent.hasChanged())
-                e.forEachComponentOfType(CollisionComponent2D.class, broadphase::update);
+            else
+                e.forEachComponentOfType(CollisionComponent2D.class, this::updateBounds);
         }
 
         scene.forEachEntityWithComponent(CollisionComponent2D.class, e ->
@@ -115,6 +129,12 @@ public class CollisionSystem2D implements BiCallback<Scene, Float>
             }
         });
 
+        Profiler.end();
+        Profiler.begin("Narrowphase");
+
+        int queries = 0;
+        int tests = 0;
+
         // Iterate and check collisions
         for (CollisionTag type1 : collisionMap.keySet())
         {
@@ -125,16 +145,52 @@ public class CollisionSystem2D implements BiCallback<Scene, Float>
                 if (type1 == collision.tag)
                 {
                     List<CollisionComponent2D> collidables = broadphase.retrieve(collision);
+                    queries++;
 
                     for (CollisionTag type2 : collisionMap.get(type1))
                     {
                         for (CollisionComponent2D collidable : collidables)
                             if (collidable.tag == type2)
-                                if (collision.polygon.intersects(collidable.polygon))
+                            {
+                                tests++;
+
+                                if (testCollision(collision, collidable))
                                     collision.callback.handleCollision(collidable);
+                            }
                     }
                 }
             }
         }
+
+        BROADPHASE_QUERIES.add(queries);
+        NARROWPHASE_TESTS.add(tests);
+
+        Profiler.end();
+    }
+
+    private void updateBounds(CollisionComponent2D component)
+    {
+        if (component.hasBoundsChanged())
+            broadphase.update(component);
+    }
+
+    private boolean testCollision(CollisionComponent2D a, CollisionComponent2D b)
+    {
+        if (Collision2D.testCollision(a.shape, b.shape, null))
+            return true;
+
+        // Only the pairs with a continuous component are swept
+        if (!a.continuous && !b.continuous)
+            return false;
+
+        Vector2 motionA = a.getMotion(Vector2.REUSABLE_STACK.pop());
+        Vector2 motionB = b.getMotion(Vector2.REUSABLE_STACK.pop());
+
+        boolean impact = Collision2D.testSweptCollision(a.shape, motionA, b.shape, motionB, null);
+
+        Vector2.REUSABLE_STACK.push(motionA);
+        Vector2.REUSABLE_STACK.push(motionB);
+
+        return impact;
     }
 }
@@ -24,16 +24,23 @@
 
 package com.shc.silenceengine.collision.colliders;
 
+import com.shc.silenceengine.collision.Collision3D;
 import com.shc.silenceengine.collision.CollisionTag;
+import com.shc.silenceengine.collision.GJK3D;
 import com.shc.silenceengine.collision.broadphase.DynamicTree3D;
 import com.shc.silenceengine.collision.broadphase.IBroadphase3D;
+import com.shc.silenceengine.core.metrics.Counter;
+import com.shc.silenceengine.core.metrics.Metrics;
+import com.shc.silenceengine.math.Vector3;
 import com.shc.silenceengine.scene.Entity;
 import com.shc.silenceengine.scene.Scene;
 import com.shc.silenceengine.scene.components.CollisionComponent3D;
+import com.shc.silenceengine.utils.Profiler;
 import com.shc.silenceengine.utils.functional.BiCallback;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -53,17 +60,36 @@ import java.util.Map;
  * <p> In the above example, collisions are checked between Player-Enemy and Player-EnemyBullet, and others are just
  * ignored. </p>
  *
+ * <p> The pairs found by the broadphase are tested with SAT by default. Polyhedra with many vertices are tested much
+ * faster with GJK, which can be selected with {@link #setNarrowphase(Narrowphase)}. The system then keeps the last
+ * simplex of every pair, so that the test in the next frame can start from it. The simplices of the pairs that were not
+ * tested in a frame are dropped at the end of it. </p>
+ *
+ * <p> The pairs where one of the components is {@link CollisionComponent3D#continuous continuous} and which do not
+ * overlap at the end of the frame are also swept along their motion, so that fast entities do not pass through the
+ * others. </p>
+ *
  * @author Sri Harsha Chilakapati
  */
 public class CollisionSystem3D implements BiCallback<Scene, Float>
 {
+    private static final Counter BROADPHASE_QUERIES = Metrics.counter("collision.broadphaseQueries");
+    private static final Counter NARROWPHASE_TESTS  = Metrics.counter("collision.narrowphaseTests");
+
     // The collision map, used to store registered classes
-    private Map<CollisionTag, List<CollisionTag>> collisionMap = new HashMap<>();
+    private Map<CollisionTag, List<CollisionTag>> collisionMap = new LinkedHashMap<>();
 
     // The broadphase, entities and the numEntities
     private IBroadphase3D broadphase;
     private List<Entity> entities = new ArrayList<>();
 
+    // The narrowphase, and the last GJK simplex of each pair tested with it
+    private Narrowphase narrowphase = Narrowphase.SAT;
+    private Map<CollisionComponent3D, Map<CollisionComponent3D, CachedSimplex>> simplices = new HashMap<>();
+
+    // The number of frames run, used to find the simplices of the pairs that are no longer near each other
+    private long frame;
+
     public CollisionSystem3D()
     {
         this(new DynamicTree3D());
@@ -93,6 +119,10 @@ public class CollisionSystem3D implements BiCallback<Scene, Float>
     @Override
     public void invoke(Scene scene, Float elapsedTime)
     {
+        frame++;
+
+        Profiler.begin("Broadphase");
+
         Iterator<Entity> it = entities.iterator();
         while (it.hasNext())
         {
@@ -101,9 +131,10 @@ public class CollisionSystem3D implements BiCallback<Scene, Float>
             {
                 it.remove();
                 e.forEachComponentOfType(CollisionComponent3D.class, broadphase::remove);
+                e.forEachComponentOfType(CollisionComponent3D.class, this::removeSimplices);
             }
-            else if (e.transformComponent.hasChanged())
-                e.forEachComponentOfType(CollisionComponent3D.class, broadphase::update);
+            else
+                e.forEachComponentOfType(CollisionComponent3D.class, this::updateBounds);
         }
 
         scene.forEachEntityWithComponent(CollisionComponent3D.class, e ->
@@ -115,6 +146,12 @@ public class CollisionSystem3D implements BiCallback<Scene, Float>
             }
         });
 
+        Profiler.end();
+        Profiler.begin("Narrowphase");
+
+        int queries = 0;
+        int tests = 0;
+
         // Iterate and check collisions
         for (CollisionTag type1 : collisionMap.keySet())
         {
@@ -125,16 +162,146 @@ public class CollisionSystem3D implements BiCallback<Scene, Float>
                 if (type1 == collision.tag)
                 {
                     List<CollisionComponent3D> collidables = broadphase.retrieve(collision);
+                    queries++;
 
                     for (CollisionTag type2 : collisionMap.get(type1))
                     {
                         for (CollisionComponent3D collidable : collidables)
                             if (collidable.tag == type2)
-                                if (collision.polyhedron.intersects(collidable.polyhedron))
+                            {
+                                tests++;
+
+                                if (testCollision(collision, collidable))
                                     collision.callback.handleCollision(collidable);
+                            }
                     }
                 }
             }
         }
+
+        BROADPHASE_QUERIES.add(queries);
+        NARROWPHASE_TESTS.add(tests);
+
+        pruneSimplices();
+
+        Profiler.end();
+    }
+
+    private void updateBounds(CollisionComponent3D component)
+    {
+        if (component.hasBoundsChanged())
+            broadphase.update(component);
+    }
+
+    private boolean testCollision(CollisionComponent3D a, CollisionComponent3D b)
+    {
+        if (testOverlap(a, b))
+            return true;
+
+        // Only the pairs with a continuous component are swept
+        if (!a.continuous && !b.continuous)
+            return false;
+
+        Vector3 motionA = a.getMotion(Vector3.REUSABLE_STACK.pop());
+        Vector3 motionB = b.getMotion(Vector3.REUSABLE_STACK.pop());
+
+        boolean impact = Collision3D.testSweptCollision(a.polyhedron, motionA, b.polyhedron, motionB, null);
+
+        Vector3.REUSABLE_STACK.push(motionA);
+        Vector3.REUSABLE_STACK.push(motionB);
+
+        return impact;
+    }
+
+    private boolean testOverlap(CollisionComponent3D a, CollisionComponent3D b)
+    {
+        if (narrowphase == Narrowphase.SAT)
+            return a.polyhedron.intersects(b.polyhedron);
+
+        Map<CollisionComponent3D, CachedSimplex> pairs = simplices.get(a);
+
+        if (pairs == null)
+            simplices.put(a, pairs = new HashMap<>());
+
+        CachedSimplex cached = pairs.get(b);
+
+        if (cached == null)
+            pairs.put(b, cached = new CachedSimplex());
+
+        cached.frame = frame;
+        return GJK3D.testCollision(a.polyhedron, b.polyhedron, cached.simplex, null);
+    }
+
+    private void removeSimplices(CollisionComponent3D component)
+    {
+        simplices.remove(component);
+
+        for (Map<CollisionComponent3D, CachedSimplex> pairs : simplices.values())
+            pairs.remove(component);
+    }
+
+    // The map only keeps the pairs that the broadphase returned in this frame, not every pair that was ever near
+    private void pruneSimplices()
+    {
+        Iterator<Map<CollisionComponent3D, CachedSimplex>> outer = simplices.values().iterator();
+
+        while (outer.hasNext())
+        {
+            Map<CollisionComponent3D, CachedSimplex> pairs = outer.next();
+            Iterator<CachedSimplex> inner = pairs.values().iterator();
+
+            while (inner.hasNext())
+            {
+                if (inner.next().frame != frame)
+                    inner.remove();
+            }
+
+            if (pairs.isEmpty())
+                outer.remove();
+        }
+    }
+
+    public Narrowphase getNarrowphase()
+    {
+        return narrowphase;
+    }
+
+    /**
+     * Sets the test used for the pairs found by the broadphase.
+     *
+     * @param narrowphase The narrowphase test to use.
+     */
+    public void setNarrowphase(Narrowphase narrowphase)
+    {
+        this.narrowphase = narrowphase;
+        simplices.clear();
+    }
+
+    /**
+     * The tests that can be used for the pairs found by the broadphase.
+     */
+    public enum Narrowphase
+    {
+        /**
+         * The separating axis test over the faces of the polyhedra, see {@link
+         * com.shc.silenceengine.collision.Collision3D}.
+         */
+        SAT,
+
+        /**
+         * The GJK test warm started from the last simplex of the pair, see {@link GJK3D}.
+         */
+        GJK
+    }
+
+    /*
+     * (non-Javadoc)
+     * The last simplex of a pair, and the frame the pair was last tested in.
+     */
+    private static class CachedSimplex
+    {
+        private final GJK3D.Simplex simplex = new GJK3D.Simplex();
+
+        private long frame;
     }
 }
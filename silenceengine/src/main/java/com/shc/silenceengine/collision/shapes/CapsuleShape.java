@@ -0,0 +1,133 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.collision.shapes;
+
+import com.shc.silenceengine.math.geom2d.Polygon;
+import com.shc.silenceengine.math.geom2d.Rectangle;
+import com.shc.silenceengine.utils.MathUtils;
+
+/**
+ * A capsule, which is a segment along the X axis of the shape, grown by a radius in every direction. The length is
+ * scaled by the X scale, and the radius by the Y scale.
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class CapsuleShape extends CollisionShape2D
+{
+    // The number of vertices in each of the caps of the polygon that approximates the capsule
+    private static final int CAP_SEGMENTS = 8;
+
+    private float halfLength;
+    private float radius;
+
+    /**
+     * Creates a capsule.
+     *
+     * @param length The length of the segment between the centers of the caps.
+     * @param radius The radius of the caps.
+     */
+    public CapsuleShape(float length, float radius)
+    {
+        this.halfLength = length / 2;
+        this.radius = radius;
+    }
+
+    @Override
+    public Type getType()
+    {
+        return Type.CAPSULE;
+    }
+
+    @Override
+    public Rectangle getBounds()
+    {
+        float hl = getHalfLength();
+        float r = getScaledRadius();
+
+        float extentX = Math.abs(cos) * hl + r;
+        float extentY = Math.abs(sin) * hl + r;
+
+        bounds.set(position.x - extentX, position.y - extentY, 2 * extentX, 2 * extentY);
+        return bounds;
+    }
+
+    @Override
+    protected void createPolygon(Polygon polygon)
+    {
+        float hl = getHalfLength();
+        float r = getScaledRadius();
+
+        // Each cap is a half circle around one of the ends of the segment
+        for (int cap = 0; cap < 2; cap++)
+        {
+            float side = cap == 0 ? 1 : -1;
+
+            for (int i = 0; i <= CAP_SEGMENTS; i++)
+            {
+                float angle = rotation - 90 + cap * 180 + i * 180f / CAP_SEGMENTS;
+
+                polygon.addVertex(side * hl * cos + MathUtils.cos(angle) * r,
+                        side * hl * sin + MathUtils.sin(angle) * r);
+            }
+        }
+    }
+
+    public void setSize(float length, float radius)
+    {
+        this.halfLength = length / 2;
+        this.radius = radius;
+
+        invalidate();
+    }
+
+    /**
+     * @return Half of the length of the segment, after scaling.
+     */
+    public float getHalfLength()
+    {
+        return halfLength * Math.abs(scaleX);
+    }
+
+    public float getScaledRadius()
+    {
+        return radius * Math.abs(scaleY);
+    }
+
+    /**
+     * @return The cosine of the rotation, which is the X component of the direction of the segment.
+     */
+    public float getCos()
+    {
+        return cos;
+    }
+
+    /**
+     * @return The sine of the rotation, which is the Y component of the direction of the segment.
+     */
+    public float getSin()
+    {
+        return sin;
+    }
+}
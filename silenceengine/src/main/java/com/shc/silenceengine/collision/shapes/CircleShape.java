@@ -0,0 +1,90 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.collision.shapes;
+
+import com.shc.silenceengine.math.geom2d.Polygon;
+import com.shc.silenceengine.math.geom2d.Rectangle;
+import com.shc.silenceengine.utils.MathUtils;
+
+/**
+ * A circle, whose radius is scaled by the larger of the scales.
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class CircleShape extends CollisionShape2D
+{
+    // The number of vertices of the polygon that approximates the circle
+    private static final int SEGMENTS = 32;
+
+    private float radius;
+
+    public CircleShape(float radius)
+    {
+        this.radius = radius;
+    }
+
+    @Override
+    public Type getType()
+    {
+        return Type.CIRCLE;
+    }
+
+    @Override
+    public Rectangle getBounds()
+    {
+        float r = getScaledRadius();
+        bounds.set(position.x - r, position.y - r, 2 * r, 2 * r);
+
+        return bounds;
+    }
+
+    @Override
+    protected void createPolygon(Polygon polygon)
+    {
+        float r = getScaledRadius();
+
+        for (int i = 0; i < SEGMENTS; i++)
+        {
+            float angle = i * 360f / SEGMENTS;
+            polygon.addVertex(MathUtils.cos(angle) * r, MathUtils.sin(angle) * r);
+        }
+    }
+
+    public float getRadius()
+    {
+        return radius;
+    }
+
+    public void setRadius(float radius)
+    {
+        this.radius = radius;
+        invalidate();
+    }
+
+    public float getScaledRadius()
+    {
+        return radius * Math.max(Math.abs(scaleX), Math.abs(scaleY));
+    }
+}
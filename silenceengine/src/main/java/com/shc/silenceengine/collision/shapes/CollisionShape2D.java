@@ -0,0 +1,166 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.collision.shapes;
+
+import com.shc.silenceengine.collision.Collision2D;
+import com.shc.silenceengine.math.Vector2;
+import com.shc.silenceengine.math.geom2d.Polygon;
+import com.shc.silenceengine.math.geom2d.Rectangle;
+import com.shc.silenceengine.utils.MathUtils;
+
+/**
+ * <p>A shape that can be tested for collisions in 2D. Every shape has a position which is its center, a rotation in
+ * degrees and a scale. The collisions between two shapes are tested with {@link Collision2D#testCollision(
+ * CollisionShape2D, CollisionShape2D, Collision2D.Response)}, which picks a test that is specialized for the {@link
+ * Type} of both the shapes.</p>
+ *
+ * <p>Every shape can also create a {@link Polygon} that approximates it, which is used for rendering and to test the
+ * shapes that do not have a specialized test.</p>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public abstract class CollisionShape2D
+{
+    protected final Vector2   position = new Vector2();
+    protected final Rectangle bounds   = new Rectangle();
+
+    protected float rotation;
+    protected float scaleX = 1;
+    protected float scaleY = 1;
+
+    // The cosine and the sine of the rotation, used by the tests
+    protected float cos = 1;
+    protected float sin = 0;
+
+    private Polygon polygon;
+    private boolean polygonDirty = true;
+
+    /**
+     * @return The type of this shape, which decides the test used for the collisions.
+     */
+    public abstract Type getType();
+
+    /**
+     * @return The axis aligned bounding rectangle of this shape in world space.
+     */
+    public abstract Rectangle getBounds();
+
+    /**
+     * Adds the vertices of this shape, relative to its position, to the polygon. The polygon is cleared before this
+     * method is called.
+     *
+     * @param polygon The polygon to add the vertices to.
+     */
+    protected abstract void createPolygon(Polygon polygon);
+
+    /**
+     * @return A polygon that approximates this shape, positioned at the position of this shape.
+     */
+    public Polygon getPolygon()
+    {
+        if (polygon == null)
+            polygon = new Polygon();
+
+        if (polygonDirty)
+        {
+            polygon.clearVertices();
+            createPolygon(polygon);
+            polygonDirty = false;
+        }
+
+        polygon.setPosition(position);
+        return polygon;
+    }
+
+    public Vector2 getPosition()
+    {
+        return position;
+    }
+
+    public void setPosition(Vector2 position)
+    {
+        setPosition(position.x, position.y);
+    }
+
+    public void setPosition(float x, float y)
+    {
+        position.set(x, y);
+    }
+
+    public float getRotation()
+    {
+        return rotation;
+    }
+
+    public void setRotation(float rotation)
+    {
+        if (this.rotation == rotation)
+            return;
+
+        this.rotation = rotation;
+
+        cos = MathUtils.cos(rotation);
+        sin = MathUtils.sin(rotation);
+
+        invalidate();
+    }
+
+    public float getScaleX()
+    {
+        return scaleX;
+    }
+
+    public float getScaleY()
+    {
+        return scaleY;
+    }
+
+    public void setScale(float scaleX, float scaleY)
+    {
+        if (this.scaleX == scaleX && this.scaleY == scaleY)
+            return;
+
+        this.scaleX = scaleX;
+        this.scaleY = scaleY;
+
+        invalidate();
+    }
+
+    /**
+     * Marks the polygon of this shape to be created again. Subclasses call this whenever their dimensions change.
+     */
+    protected void invalidate()
+    {
+        polygonDirty = true;
+    }
+
+    /**
+     * The types of the shapes, each of which has its own tests with the other types.
+     */
+    public enum Type
+    {
+        CIRCLE, AABB, OBB, CAPSULE, POLYGON
+    }
+}
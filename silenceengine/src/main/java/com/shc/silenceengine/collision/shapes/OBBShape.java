@@ -0,0 +1,116 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.collision.shapes;
+
+import com.shc.silenceengine.math.geom2d.Polygon;
+import com.shc.silenceengine.math.geom2d.Rectangle;
+
+/**
+ * An oriented bounding box, which is a rectangle that rotates with the entity.
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class OBBShape extends CollisionShape2D
+{
+    private float halfWidth;
+    private float halfHeight;
+
+    public OBBShape(float width, float height)
+    {
+        this.halfWidth = width / 2;
+        this.halfHeight = height / 2;
+    }
+
+    @Override
+    public Type getType()
+    {
+        return Type.OBB;
+    }
+
+    @Override
+    public Rectangle getBounds()
+    {
+        float hw = getHalfWidth();
+        float hh = getHalfHeight();
+
+        float extentX = Math.abs(cos) * hw + Math.abs(sin) * hh;
+        float extentY = Math.abs(sin) * hw + Math.abs(cos) * hh;
+
+        bounds.set(position.x - extentX, position.y - extentY, 2 * extentX, 2 * extentY);
+        return bounds;
+    }
+
+    @Override
+    protected void createPolygon(Polygon polygon)
+    {
+        float hw = getHalfWidth();
+        float hh = getHalfHeight();
+
+        polygon.addVertex(-hw * cos + hh * sin, -hw * sin - hh * cos);
+        polygon.addVertex(hw * cos + hh * sin, hw * sin - hh * cos);
+        polygon.addVertex(hw * cos - hh * sin, hw * sin + hh * cos);
+        polygon.addVertex(-hw * cos - hh * sin, -hw * sin + hh * cos);
+    }
+
+    public void setSize(float width, float height)
+    {
+        this.halfWidth = width / 2;
+        this.halfHeight = height / 2;
+
+        invalidate();
+    }
+
+    /**
+     * @return Half of the width of this box, along its own X axis, after scaling.
+     */
+    public float getHalfWidth()
+    {
+        return halfWidth * Math.abs(scaleX);
+    }
+
+    /**
+     * @return Half of the height of this box, along its own Y axis, after scaling.
+     */
+    public float getHalfHeight()
+    {
+        return halfHeight * Math.abs(scaleY);
+    }
+
+    /**
+     * @return The cosine of the rotation, which is the X component of the X axis of this box.
+     */
+    public float getCos()
+    {
+        return cos;
+    }
+
+    /**
+     * @return The sine of the rotation, which is the Y component of the X axis of this box.
+     */
+    public float getSin()
+    {
+        return sin;
+    }
+}
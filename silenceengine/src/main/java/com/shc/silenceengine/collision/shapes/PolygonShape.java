@@ -0,0 +1,91 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.collision.shapes;
+
+import com.shc.silenceengine.math.geom2d.Polygon;
+import com.shc.silenceengine.math.geom2d.Rectangle;
+
+/**
+ * A convex polygon. The position, the rotation and the scale are applied to the polygon directly.
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class PolygonShape extends CollisionShape2D
+{
+    private final Polygon polygon;
+
+    public PolygonShape(Polygon polygon)
+    {
+        this.polygon = polygon;
+
+        position.set(polygon.getPosition());
+        super.setRotation(polygon.getRotation());
+    }
+
+    @Override
+    public Type getType()
+    {
+        return Type.POLYGON;
+    }
+
+    @Override
+    public Rectangle getBounds()
+    {
+        return polygon.getBounds();
+    }
+
+    @Override
+    protected void createPolygon(Polygon polygon)
+    {
+        // The polygon is not approximated, it is returned by getPolygon() itself
+    }
+
+    @Override
+    public Polygon getPolygon()
+    {
+        return polygon;
+    }
+
+    @Override
+    public void setPosition(float x, float y)
+    {
+        super.setPosition(x, y);
+        polygon.setPosition(x, y);
+    }
+
+    @Override
+    public void setRotation(float rotation)
+    {
+        super.setRotation(rotation);
+        polygon.setRotation(rotation);
+    }
+
+    @Override
+    public void setScale(float scaleX, float scaleY)
+    {
+        super.setScale(scaleX, scaleY);
+        polygon.setScale(scaleX, scaleY);
+    }
+}
@@ -0,0 +1,380 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.core;
+
+import com.shc.silenceengine.audio.Sound;
+import com.shc.silenceengine.audio.openal.ALBuffer;
+import com.shc.silenceengine.graphics.Image;
+import com.shc.silenceengine.graphics.fonts.BitmapFont;
+import com.shc.silenceengine.graphics.opengl.Texture;
+import com.shc.silenceengine.io.FilePath;
+import com.shc.silenceengine.utils.functional.UniCallback;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>The ResourceCache is an engine wide cache of the loaded resources, keyed by their file and type. Every user of a
+ * cached resource holds a {@link Handle} to it, and the resource is kept alive as long as there is at least one handle
+ * that is not released. This way, the same texture or sound that is used by two game states is loaded only once.</p>
+ *
+ * <p>Resources that are no longer referenced are not disposed immediately, so that they can be reused by the next
+ * game state. Instead, each {@link Budget} has a limit in bytes, and once it is exceeded, the unreferenced resources in
+ * that budget are evicted starting from the least recently used one.</p>
+ *
+ * <p>The cache is expected to be used only from the game thread.</p>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public final class ResourceCache
+{
+    private static Map<Class<? extends IResource>, Policy<?>> policies = new HashMap<>();
+
+    private static Map<Key, Entry> entries = new HashMap<>();
+
+    // The entries that are not referenced by any handle, in the order of their last use
+    private static LinkedHashMap<Key, Entry> unreferenced = new LinkedHashMap<>(16, 0.75f, true);
+
+    private static Map<Budget, Long> usage  = new HashMap<>();
+    private static Map<Budget, Long> limits = new HashMap<>();
+
+    private ResourceCache()
+    {
+    }
+
+    /**
+     * Sets how the resources of a type are accounted and disposed by the cache.
+     *
+     * @param clazz     The type of the resources.
+     * @param budget    The budget that the memory of these resources is accounted in.
+     * @param estimator The function that estimates the memory held by a resource in bytes.
+     * @param disposer  The function that frees a resource when it is evicted.
+     * @param <T>       The type of the resources.
+     */
+    public static <T extends IResource> void setPolicy(Class<T> clazz, Budget budget, IEstimator<T> estimator,
+                                                       UniCallback<T> disposer)
+    {
+        policies.put(clazz, new Policy<>(budget, estimator, disposer));
+    }
+
+    /**
+     * Sets the number of bytes that the resources of a budget can take, before the unreferenced resources are
+     * evicted. Setting a lower limit evicts the resources immediately.
+     *
+     * @param budget The budget to set the limit of.
+     * @param bytes  The limit in bytes.
+     */
+    public static void setBudget(Budget budget, long bytes)
+    {
+        limits.put(budget, bytes);
+        evict(budget);
+    }
+
+    public static long getBudget(Budget budget)
+    {
+        return limits.get(budget);
+    }
+
+    /**
+     * @param budget The budget to get the usage of.
+     *
+     * @return The estimated number of bytes used by the cached resources of the budget, including the ones that are
+     * not referenced.
+     */
+    public static long getUsage(Budget budget)
+    {
+        return usage.get(budget);
+    }
+
+    /**
+     * Acquires a new handle to a cached resource.
+     *
+     * @param type The type of the resource.
+     * @param path The file of the resource.
+     * @param <T>  The type of the resource.
+     *
+     * @return A new handle to the resource, or null if it is not in the cache.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends IResource> Handle<T> acquire(Class<T> type, FilePath path)
+    {
+        Entry entry = entries.get(new Key(type, path));
+
+        if (entry == null)
+            return null;
+
+        return (Handle<T>) retain(entry);
+    }
+
+    /**
+     * Puts a new resource into the cache, and returns a handle to it. In case there is already a resource cached for
+     * the same file and type, that is returned instead and the given resource is disposed.
+     *
+     * @param type     The type of the resource.
+     * @param path     The file of the resource.
+     * @param resource The resource to put into the cache.
+     * @param <T>      The type of the resource.
+     *
+     * @return A new handle to the cached resource.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends IResource> Handle<T> put(Class<T> type, FilePath path, T resource)
+    {
+        Key key = new Key(type, path);
+        Entry entry = entries.get(key);
+
+        if (entry != null)
+        {
+            // Someone else has loaded the same resource in the mean time, prefer the one that is cached
+            if (entry.resource != resource)
+                getPolicy(type).disposer.invoke(resource);
+
+            return (Handle<T>) retain(entry);
+        }
+
+        Policy<IResource> policy = getPolicy(type);
+
+        entry = new Entry(key, resource, policy.budget, policy.estimator.estimate(resource));
+        entries.put(key, entry);
+
+        usage.put(entry.budget, usage.get(entry.budget) + entry.size);
+
+        Handle<T> handle = (Handle<T>) retain(entry);
+        evict(entry.budget);
+
+        return handle;
+    }
+
+    /**
+     * Disposes all the resources that are not referenced by any handle.
+     */
+    public static void evictUnreferenced()
+    {
+        Iterator<Entry> iterator = unreferenced.values().iterator();
+
+        while (iterator.hasNext())
+        {
+            Entry entry = iterator.next();
+            iterator.remove();
+            dispose(entry);
+        }
+    }
+
+    private static void evict(Budget budget)
+    {
+        Iterator<Entry> iterator = unreferenced.values().iterator();
+
+        // Iteration starts with the least recently used entry
+        while (usage.get(budget) > limits.get(budget) && iterator.hasNext())
+        {
+            Entry entry = iterator.next();
+
+            if (entry.budget != budget)
+                continue;
+
+            iterator.remove();
+            dispose(entry);
+        }
+    }
+
+    private static void dispose(Entry entry)
+    {
+        entries.remove(entry.key);
+        usage.put(entry.budget, usage.get(entry.budget) - entry.size);
+
+        getPolicy(entry.key.type).disposer.invoke(entry.resource);
+    }
+
+    private static Handle<?> retain(Entry entry)
+    {
+        if (entry.references++ == 0)
+            unreferenced.remove(entry.key);
+
+        return new Handle<>(entry);
+    }
+
+    private static void release(Entry entry)
+    {
+        if (--entry.references == 0)
+        {
+            unreferenced.put(entry.key, entry);
+            evict(entry.budget);
+        }
+    }
+
+    // The policies are only ever put with the same type as their key, so a policy accepts the resources of its type
+    @SuppressWarnings("unchecked")
+    private static Policy<IResource> getPolicy(Class<?> type)
+    {
+        Policy<?> policy = policies.get(type);
+        return (Policy<IResource>) (policy == null ? policies.get(IResource.class) : policy);
+    }
+
+    /**
+     * The budgets that the memory of the cached resources is accounted in.
+     */
+    public enum Budget
+    {
+        GPU,
+        AUDIO,
+        OTHER
+    }
+
+    @FunctionalInterface
+    public interface IEstimator<T extends IResource>
+    {
+        long estimate(T resource);
+    }
+
+    /**
+     * A reference to a cached resource. Each handle has to be released exactly once after the resource is no longer
+     * used, and the resource should not be used after that.
+     *
+     * @param <T> The type of the resource.
+     */
+    public static final class Handle<T extends IResource>
+    {
+        private final Entry entry;
+
+        private boolean released;
+
+        private Handle(Entry entry)
+        {
+            this.entry = entry;
+        }
+
+        @SuppressWarnings("unchecked")
+        public T get()
+        {
+            if (released)
+                throw new SilenceException("Cannot use a released resource handle");
+
+            return (T) entry.resource;
+        }
+
+        public FilePath getPath()
+        {
+            return entry.key.path;
+        }
+
+        public void release()
+        {
+            if (released)
+                throw new SilenceException("Cannot release a resource handle more than once");
+
+            released = true;
+            ResourceCache.release(entry);
+        }
+
+        public boolean isReleased()
+        {
+            return released;
+        }
+    }
+
+    private static class Policy<T extends IResource>
+    {
+        private final Budget         budget;
+        private final IEstimator<T>  estimator;
+        private final UniCallback<T> disposer;
+
+        Policy(Budget budget, IEstimator<T> estimator, UniCallback<T> disposer)
+        {
+            this.budget = budget;
+            this.estimator = estimator;
+            this.disposer = disposer;
+        }
+    }
+
+    private static class Key
+    {
+        private final Class<?> type;
+        private final FilePath path;
+
+        Key(Class<?> type, FilePath path)
+        {
+            this.type = type;
+            this.path = path;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return 31 * type.hashCode() + path.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            Key key = (Key) o;
+
+            return type == key.type && path.equals(key.path);
+        }
+    }
+
+    private static class Entry
+    {
+        private final Key       key;
+        private final IResource resource;
+        private final Budget    budget;
+        private final long      size;
+
+        private int references;
+
+        Entry(Key key, IResource resource, Budget budget, long size)
+        {
+            this.key = key;
+            this.resource = resource;
+            this.budget = budget;
+            this.size = size;
+        }
+    }
+
+    static
+    {
+        for (Budget budget : Budget.values())
+            usage.put(budget, 0L);
+
+        // 256 MB of textures and 64 MB of audio samples by default
+        setBudget(Budget.GPU, 256L * 1024 * 1024);
+        setBudget(Budget.AUDIO, 64L * 1024 * 1024);
+        setBudget(Budget.OTHER, 64L * 1024 * 1024);
+
+        setPolicy(IResource.class, Budget.OTHER, resource -> 0, IResource::dispose);
+        setPolicy(Image.class, Budget.OTHER, image -> image.getImageData().sizeBytes(), Image::dispose);
+        setPolicy(Texture.class, Budget.GPU, texture -> (long) (texture.getWidth() * texture.getHeight() * 4), Texture::dispose);
+        setPolicy(ALBuffer.class, Budget.AUDIO, ALBuffer::getSizeInBytes, ALBuffer::dispose);
+
+        setPolicy(Sound.class, Budget.AUDIO, Sound::getSizeInBytes, Sound::dispose);
+
+        // The pages of the fonts are cached as textures of their own, and the fonts only hold handles to them
+        setPolicy(BitmapFont.class, Budget.GPU, font -> 0, BitmapFont::dispose);
+    }
+}
@@ -25,69 +25,123 @@
 package com.shc.silenceengine.core;
 
 import com.shc.silenceengine.audio.AudioDevice.AudioFormat;
+import com.shc.silenceengine.audio.PCMCache;
 import com.shc.silenceengine.audio.Sound;
 import com.shc.silenceengine.audio.openal.ALBuffer;
+import com.shc.silenceengine.core.metrics.Counter;
+import com.shc.silenceengine.core.metrics.Gauge;
+import com.shc.silenceengine.core.metrics.Histogram;
+import com.shc.silenceengine.core.metrics.Metrics;
 import com.shc.silenceengine.graphics.Image;
 import com.shc.silenceengine.graphics.fonts.BitmapFont;
 import com.shc.silenceengine.graphics.opengl.Texture;
+import com.shc.silenceengine.io.AssetBundle;
+import com.shc.silenceengine.io.BundleFilePath;
+import com.shc.silenceengine.io.DirectBuffer;
 import com.shc.silenceengine.io.FilePath;
 import com.shc.silenceengine.utils.IDGenerator;
+import com.shc.silenceengine.utils.TaskManager;
+import com.shc.silenceengine.utils.functional.BiCallback;
+import com.shc.silenceengine.utils.functional.UniCallback;
 
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
 
 /**
+ * <p>The ResourceLoader loads a set of resources through a staged pipeline. Every resource that has a {@link
+ * StagedLoadHelper} is read by the IO device, decoded on a worker thread, and finally uploaded on the render thread.
+ * Each of the stages has a limit on the number of resources that are in it at the same time, and the resources waiting
+ * for a stage are started in the order of their priority.</p>
+ *
+ * <p>A resource can depend on other resources, either declared when it is defined, or reported by the load helper
+ * after it is decoded (like the page textures of a {@link BitmapFont}). A resource is only uploaded after all of its
+ * dependencies are loaded. The progress is weighted by the size of the files in bytes, so a large texture counts for
+ * more than a small sound effect.</p>
+ *
+ * <p>If a stage of a resource fails, the resource and all the resources that depend on it are given up, so that the
+ * loader can still finish, and the error is then thrown on the update thread.</p>
+ *
+ * <p>The stages run on the IO, worker and render threads, but each of them posts its result back to the update
+ * thread. All the bookkeeping happens on the update thread, and hence the loader itself needs no locking.</p>
+ *
  * @author Sri Harsha Chilakapati
  * @author Gamefreak0
  */
 public class ResourceLoader
 {
-    private static Map<Class<? extends IResource>, ILoadHelper> loadHelpers = new HashMap<>();
+    private static Map<Class<? extends IResource>, ILoadHelper<?>>            loadHelpers   = new HashMap<>();
+    private static Map<Class<? extends IResource>, StagedLoadHelper<?, ?, ?>> stagedHelpers = new HashMap<>();
 
-    private Map<FilePath, Class<? extends IResource>> toBeLoaded;
+    private static final Counter   LOADED    = Metrics.counter("resources.loaded");
+    private static final Gauge     PENDING   = Metrics.gauge("resources.pending");
+    private static final Histogram LOAD_TIME = Metrics.histogram("resources.loadTime");
 
-    private Map<Long, FilePath>      idMap;
-    private Map<FilePath, IResource> loaded;
+    // The resources that are defined and not yet loaded, in all the loaders
+    private static int pendingAssets = 0;
+
+    private Map<FilePath, Asset>                    assets;
+    private Map<Long, FilePath>                     idMap;
+    private Map<FilePath, IResource>                loaded;
+    private Map<FilePath, ResourceCache.Handle<?>> handles;
+
+    private List<Asset> toBeStarted;
+
+    private Map<Stage, Queue<Asset>> waiting;
+    private Map<Stage, Integer>      running;
+    private Map<Stage, Integer>      limits;
 
     private int done  = 0;
     private int count = 0;
 
+    private long  nextOrder      = 0;
+    private float lastPercentage = 0;
+
     private boolean active;
 
     public ResourceLoader()
     {
-        toBeLoaded = new HashMap<>();
+        assets = new HashMap<>();
         idMap = new HashMap<>();
         loaded = new HashMap<>();
+        handles = new HashMap<>();
+        toBeStarted = new ArrayList<>();
+
+        waiting = new HashMap<>();
+        running = new HashMap<>();
+        limits = new HashMap<>();
+
+        for (Stage stage : Stage.values())
+        {
+            waiting.put(stage, new PriorityQueue<>());
+            running.put(stage, 0);
+            limits.put(stage, stage.defaultLimit);
+        }
     }
 
-    public static void setHelper(Class<? extends IResource> clazz, ILoadHelper loadHelper)
+    public static void setHelper(Class<? extends IResource> clazz, ILoadHelper<?> loadHelper)
     {
+        stagedHelpers.remove(clazz);
         loadHelpers.put(clazz, loadHelper);
     }
 
-    private static void imageLoadHelper(FilePath path, ISubmitter<Image> submitter)
+    public static void setHelper(Class<? extends IResource> clazz, StagedLoadHelper<?, ?, ?> loadHelper)
     {
-        SilenceEngine.io.getImageReader()
-                .readImage(path)
-                .then(img -> submitter.submit(img, path))
-                .whenThrown(SilenceException::reThrow);
+        loadHelpers.remove(clazz);
+        stagedHelpers.put(clazz, loadHelper);
     }
 
-    private static void textureLoadHelper(FilePath path, ISubmitter<Texture> submitter)
+    // The helper is registered for the type of the asset, so the values it produces are passed back to it unchanged
+    @SuppressWarnings("unchecked")
+    private static StagedLoadHelper<Object, Object, IResource> getStagedHelper(Class<? extends IResource> clazz)
     {
-        SilenceEngine.io.getImageReader()
-                .readImage(path)
-                .then(img ->
-                {
-                    submitter.submit(Texture.fromImage(img), path);
-                    img.dispose();
-                })
-                .whenThrown(SilenceException::reThrow);
+        return (StagedLoadHelper<Object, Object, IResource>) stagedHelpers.get(clazz);
     }
 
-    private static void alBufferLoadHelper(FilePath path, ISubmitter<ALBuffer> submitter)
+    private static AudioFormat getAudioFormat(FilePath path)
     {
         AudioFormat format = AudioFormat.OGG;
 
@@ -116,31 +170,43 @@ public class ResourceLoader
                 format = AudioFormat.WEBM;
         }
 
-        AudioFormat finalFormat = format;
-
-        SilenceEngine.io.getFileReader()
-                .readBinaryFile(path)
-                .then(data ->
-                        SilenceEngine.audio.readToALBuffer(finalFormat, data)
-                                .then(buffer -> submitter.submit(buffer, path))
-                                .whenThrown(SilenceException::reThrow))
-                .whenThrown(SilenceException::reThrow);
+        return format;
     }
 
-    private static void soundLoadHelper(FilePath path, ISubmitter<Sound> submitter)
+    private static boolean isBundled(FilePath path, AssetBundle.Kind kind)
     {
-        alBufferLoadHelper(path, (resource, filePath) -> submitter.submit(new Sound(resource), path));
+        return path instanceof BundleFilePath && ((BundleFilePath) path).is(kind);
     }
 
-    private static void bitmapFontLoadHelper(FilePath path, ISubmitter<BitmapFont> submitter)
+    public long define(Class<? extends IResource> klass, FilePath path)
     {
-        BitmapFont.load(path, bitmapFont -> submitter.submit(bitmapFont, path));
+        return define(klass, path, 0);
     }
 
-    public long define(Class<? extends IResource> klass, FilePath path)
+    /**
+     * Defines a resource to be loaded by this loader.
+     *
+     * @param klass        The type of the resource to load.
+     * @param path         The path of the file of the resource.
+     * @param priority     The priority of the resource. Resources with higher priority are started first in each
+     *                     stage of the pipeline.
+     * @param dependencies The IDs of the resources that must be loaded before this resource is uploaded.
+     *
+     * @return The ID of the resource, that is used to get it after it is loaded.
+     */
+    public long define(Class<? extends IResource> klass, FilePath path, int priority, long... dependencies)
     {
-        toBeLoaded.put(path, klass);
-        count++;
+        Asset asset = defineAsset(klass, path, priority, true);
+
+        for (long dependency : dependencies)
+        {
+            Asset required = assets.get(idMap.get(dependency));
+
+            if (required == null)
+                throw new SilenceException("Dependency " + dependency + " is not defined in this loader");
+
+            addDependency(asset, required);
+        }
 
         long id = IDGenerator.generate();
         idMap.put(id, path);
@@ -148,49 +214,374 @@ public class ResourceLoader
         return id;
     }
 
+    private Asset defineAsset(Class<? extends IResource> klass, FilePath path, int priority, boolean explicit)
+    {
+        Asset asset = assets.get(path);
+
+        if (asset != null)
+        {
+            // The same file is requested again, possibly by a dependency. Just bump up the priority.
+            asset.priority = Math.max(asset.priority, priority);
+            asset.explicit |= explicit && asset.stage != Stage.DONE;
+            return asset;
+        }
+
+        if (!loadHelpers.containsKey(klass) && !stagedHelpers.containsKey(klass))
+            throw new SilenceException("There is no load helper registered for " + klass.getName());
+
+        Asset newAsset = new Asset(klass, path, priority, nextOrder++);
+        newAsset.explicit = explicit;
+        assets.put(path, newAsset);
+        count++;
+
+        PENDING.set(++pendingAssets);
+
+        // Weigh the resources with the size of their files. This is only an estimate until the size is known.
+        path.sizeInBytes().then(size -> newAsset.weight = size, error -> newAsset.weight = -1);
+
+        if (active)
+            startAsset(newAsset);
+        else
+            toBeStarted.add(newAsset);
+
+        return newAsset;
+    }
+
+    private void addDependency(Asset asset, Asset required)
+    {
+        if (required == asset || required.stage == Stage.DONE)
+            return;
+
+        required.dependents.add(asset);
+        asset.pendingDependencies++;
+    }
+
     @SuppressWarnings("unchecked")
     public <T extends IResource> T get(long id)
     {
         return (T) loaded.get(idMap.get(id));
     }
 
+    @SuppressWarnings("unchecked")
+    public <T extends IResource> T get(FilePath path)
+    {
+        return (T) loaded.get(path);
+    }
+
     public void start()
     {
-        Iterator<FilePath> iterator = toBeLoaded.keySet().iterator();
+        active = true;
+
+        for (Asset asset : toBeStarted)
+            startAsset(asset);
+
+        toBeStarted.clear();
+    }
+
+    /**
+     * Sets the number of resources that can be in a stage of the pipeline at the same time.
+     *
+     * @param stage The stage of the pipeline.
+     * @param limit The maximum number of resources in that stage.
+     */
+    public void setStageLimit(Stage stage, int limit)
+    {
+        if (stage == Stage.DONE || limit < 1)
+            throw new SilenceException("Invalid limit " + limit + " for stage " + stage);
+
+        limits.put(stage, limit);
+        pump(stage);
+    }
+
+    public int getStageLimit(Stage stage)
+    {
+        return limits.get(stage);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void startAsset(Asset asset)
+    {
+        // Resources that are defined explicitly are shared with the other loaders through the cache
+        ResourceCache.Handle<?> handle = asset.explicit ? ResourceCache.acquire(asset.type, asset.path) : null;
+
+        if (handle != null)
+        {
+            handles.put(asset.path, handle);
+            loaded.put(asset.path, handle.get());
+
+            complete(asset);
+        }
+        else
+        {
+            asset.startTime = SilenceEngine.display.nanoTime();
+            enqueue(asset, Stage.READ);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void submit(Asset asset, IResource resource)
+    {
+        if (asset.explicit)
+        {
+            ResourceCache.Handle<?> handle = ResourceCache.put((Class<IResource>) asset.type, asset.path, resource);
+            handles.put(asset.path, handle);
+
+            resource = handle.get();
+        }
+
+        loaded.put(asset.path, resource);
+    }
+
+    private void enqueue(Asset asset, Stage stage)
+    {
+        asset.stage = stage;
+        waiting.get(stage).add(asset);
+        pump(stage);
+    }
+
+    private void pump(Stage stage)
+    {
+        Queue<Asset> queue = waiting.get(stage);
+
+        while (!queue.isEmpty() && running.get(stage) < limits.get(stage))
+        {
+            running.put(stage, running.get(stage) + 1);
+            runStage(queue.poll());
+        }
+    }
+
+    private void finishStage(Asset asset)
+    {
+        Stage stage = asset.stage;
+        running.put(stage, running.get(stage) - 1);
+
+        switch (stage)
+        {
+            case READ:
+                enqueue(asset, Stage.DECODE);
+                break;
+
+            case DECODE:
+                asset.stage = Stage.UPLOAD;
+
+                // A dependency of this resource failed while it was being decoded
+                if (asset.failed)
+                    abandon(asset);
+                else if (asset.pendingDependencies == 0)
+                    enqueue(asset, Stage.UPLOAD);
+                break;
+
+            case UPLOAD:
+                complete(asset);
+                break;
+        }
+
+        pump(stage);
+    }
+
+    private void complete(Asset asset)
+    {
+        asset.stage = Stage.DONE;
+        asset.decoded = null;
+        done++;
 
-        while (iterator.hasNext())
+        LOADED.increment();
+        PENDING.set(--pendingAssets);
+
+        // The resources that are found in the cache are not loaded, and don't count for the load times
+        if (asset.startTime != 0)
+            LOAD_TIME.record((long) ((SilenceEngine.display.nanoTime() - asset.startTime) / 1000));
+
+        for (Asset dependent : asset.dependents)
         {
-            FilePath path = iterator.next();
+            // Dependents that are given up because of another dependency are no longer waiting
+            if (dependent.stage == Stage.DONE)
+                continue;
+
+            dependent.pendingDependencies--;
+
+            // Dependents that already finished decoding are parked until their dependencies are loaded
+            if (dependent.pendingDependencies == 0 && dependent.stage == Stage.UPLOAD)
+                enqueue(dependent, Stage.UPLOAD);
+        }
+
+        asset.dependents.clear();
+    }
+
+    private void fail(Asset asset, Throwable error)
+    {
+        // The helper may report more than one error, but the asset is only given up once
+        if (asset.stage == Stage.DONE)
+            return;
+
+        Stage stage = asset.stage;
+        running.put(stage, running.get(stage) - 1);
 
-            Class<? extends IResource> type = toBeLoaded.get(path);
+        abandon(asset);
+        pump(stage);
+
+        SilenceException.reThrow(error);
+    }
 
-            ILoadHelper<?> loadHelper = loadHelpers.get(type);
-            loadHelper.load(path, (resource, path1) ->
+    private void abandon(Asset asset)
+    {
+        asset.stage = Stage.DONE;
+        asset.decoded = null;
+        asset.failed = true;
+        done++;
+
+        PENDING.set(--pendingAssets);
+
+        for (Asset dependent : asset.dependents)
+        {
+            if (dependent.stage == Stage.DONE)
+                continue;
+
+            dependent.pendingDependencies--;
+            dependent.failed = true;
+
+            // Parked dependents can be given up right away, the others are given up when they finish decoding
+            if (dependent.stage == Stage.UPLOAD)
+                abandon(dependent);
+        }
+
+        asset.dependents.clear();
+    }
+
+    private void runStage(Asset asset)
+    {
+        UniCallback<Throwable> onError = e -> TaskManager.runOnUpdate(() -> fail(asset, e));
+
+        StagedLoadHelper<Object, Object, IResource> helper = getStagedHelper(asset.type);
+
+        if (helper == null)
+        {
+            // Load helpers that are not staged load the resource all at once, and hence skip the other stages
+            ILoadHelper<?> loadHelper = loadHelpers.get(asset.type);
+            loadHelper.load(asset.path, (resource, path) -> TaskManager.runOnUpdate(() ->
             {
-                done++;
-                loaded.put(path1, resource);
-            });
+                submit(asset, resource);
 
-            iterator.remove();
+                running.put(Stage.READ, running.get(Stage.READ) - 1);
+                complete(asset);
+                pump(Stage.READ);
+            }));
+
+            return;
         }
 
-        active = true;
+        switch (asset.stage)
+        {
+            case READ:
+                helper.read(asset.path, raw -> TaskManager.runOnUpdate(() ->
+                {
+                    asset.decoded = raw;
+                    finishStage(asset);
+                }), onError);
+                break;
+
+            case DECODE:
+                TaskManager.runOnWorker(() ->
+                {
+                    try
+                    {
+                        helper.decode(asset.path, asset.decoded, decoded -> TaskManager.runOnUpdate(() ->
+                        {
+                            asset.decoded = decoded;
+                            helper.collectDependencies(asset.path, decoded, (type, path) ->
+                                    addDependency(asset, defineAsset(type, path, asset.priority, false)));
+
+                            finishStage(asset);
+                        }), onError);
+                    }
+                    catch (Throwable e)
+                    {
+                        onError.invoke(e);
+                    }
+                });
+                break;
+
+            case UPLOAD:
+                TaskManager.runOnRender(() ->
+                {
+                    try
+                    {
+                        IResource resource = helper.upload(asset.path, asset.decoded, this);
+
+                        TaskManager.runOnUpdate(() ->
+                        {
+                            submit(asset, resource);
+                            finishStage(asset);
+                        });
+                    }
+                    catch (Throwable e)
+                    {
+                        onError.invoke(e);
+                    }
+                });
+                break;
+        }
     }
 
+    /**
+     * Returns the progress of this loader in percentage. Each resource contributes its share of the progress after
+     * every stage is completed, weighted by the size of its file.
+     *
+     * @return The progress in percentage, from 0 to 100.
+     */
     public float getPercentage()
     {
-        return (float) done / (float) count * 100f;
+        if (done == count)
+            return lastPercentage = 100;
+
+        float knownWeight = 0;
+        int numKnown = 0;
+
+        for (Asset asset : assets.values())
+        {
+            if (asset.weight > 0)
+            {
+                knownWeight += asset.weight;
+                numKnown++;
+            }
+        }
+
+        // Resources with unknown sizes are assumed to be of an average size
+        float averageWeight = numKnown == 0 ? 1 : knownWeight / numKnown;
+
+        float total = 0;
+        float completed = 0;
+
+        for (Asset asset : assets.values())
+        {
+            float weight = asset.weight > 0 ? asset.weight : averageWeight;
+
+            total += weight;
+            completed += weight * asset.getProgress();
+        }
+
+        // Dependencies found while loading increase the total, so never let the progress go back
+        lastPercentage = Math.max(lastPercentage, completed / total * 100f);
+        return lastPercentage;
     }
 
     public boolean isDone()
     {
-        return getPercentage() == 100;
+        return done == count;
     }
 
+    /**
+     * Releases all the resources loaded by this loader. The resources that are shared through the {@link
+     * ResourceCache} stay cached until they are evicted, so that the next loader can reuse them.
+     */
     public void disposeAll()
     {
-        for (IResource resource : loaded.values())
-            resource.dispose();
+        // Resources that are only loaded as dependencies are owned by the resources that required them
+        for (ResourceCache.Handle<?> handle : handles.values())
+            handle.release();
+
+        handles.clear();
+        loaded.clear();
     }
 
     public boolean isActive()
@@ -198,6 +589,24 @@ public class ResourceLoader
         return active;
     }
 
+    /**
+     * The stages of the loading pipeline.
+     */
+    public enum Stage
+    {
+        READ(4),
+        DECODE(2),
+        UPLOAD(1),
+        DONE(0);
+
+        private final int defaultLimit;
+
+        Stage(int defaultLimit)
+        {
+            this.defaultLimit = defaultLimit;
+        }
+    }
+
     @FunctionalInterface
     public interface ISubmitter<T extends IResource>
     {
@@ -210,12 +619,253 @@ public class ResourceLoader
         void load(FilePath path, ISubmitter<T> submitter);
     }
 
+    /*
+     * (non-Javadoc)
+     * A node in the dependency graph of the resources, and the state of it in the pipeline.
+     */
+    private static class Asset implements Comparable<Asset>
+    {
+        private final Class<? extends IResource> type;
+        private final FilePath                   path;
+        private final long                       order;
+        private final List<Asset>                dependents;
+
+        private Stage   stage;
+        private Object  decoded;
+        private int     priority;
+        private int     pendingDependencies;
+        private long    weight;
+        private boolean explicit;
+        private boolean failed;
+        private double  startTime;
+
+        Asset(Class<? extends IResource> type, FilePath path, int priority, long order)
+        {
+            this.type = type;
+            this.path = path;
+            this.priority = priority;
+            this.order = order;
+
+            dependents = new ArrayList<>();
+            stage = Stage.READ;
+        }
+
+        float getProgress()
+        {
+            return (float) stage.ordinal() / Stage.DONE.ordinal();
+        }
+
+        @Override
+        public int compareTo(Asset other)
+        {
+            if (priority != other.priority)
+                return Integer.compare(other.priority, priority);
+
+            return Long.compare(order, other.order);
+        }
+    }
+
+    private static class ImageLoadHelper extends StagedLoadHelper<DirectBuffer, Image, Image>
+    {
+        @Override
+        public void read(FilePath path, UniCallback<DirectBuffer> onRead, UniCallback<Throwable> onError)
+        {
+            SilenceEngine.io.getFileReader().readBinaryFile(path, onRead, onError);
+        }
+
+        @Override
+        public void decode(FilePath path, DirectBuffer raw, UniCallback<Image> onDecoded, UniCallback<Throwable> onError)
+        {
+            if (isBundled(path, AssetBundle.Kind.IMAGE))
+            {
+                int[] size = ((BundleFilePath) path).getEntry().metadata;
+                onDecoded.invoke(Image.fromPixels(raw, size[0], size[1]));
+                return;
+            }
+
+            SilenceEngine.io.getImageReader().readImage(raw, image ->
+            {
+                SilenceEngine.io.free(raw);
+                onDecoded.invoke(image);
+            }, onError);
+        }
+
+        @Override
+        public Image upload(FilePath path, Image decoded, ResourceLoader loader)
+        {
+            return decoded;
+        }
+    }
+
+    private static class TextureLoadHelper extends StagedLoadHelper<DirectBuffer, Object, Texture>
+    {
+        private final ImageLoadHelper imageLoadHelper = new ImageLoadHelper();
+
+        @Override
+        public void read(FilePath path, UniCallback<DirectBuffer> onRead, UniCallback<Throwable> onError)
+        {
+            imageLoadHelper.read(path, onRead, onError);
+        }
+
+        @Override
+        public void decode(FilePath path, DirectBuffer raw, UniCallback<Object> onDecoded, UniCallback<Throwable> onError)
+        {
+            // Bundled images are already decoded, and the pixels can be uploaded as they are
+            if (isBundled(path, AssetBundle.Kind.IMAGE))
+                onDecoded.invoke(raw);
+            else
+                imageLoadHelper.decode(path, raw, onDecoded::invoke, onError);
+        }
+
+        @Override
+        public Texture upload(FilePath path, Object decoded, ResourceLoader loader)
+        {
+            if (decoded instanceof DirectBuffer)
+            {
+                int[] size = ((BundleFilePath) path).getEntry().metadata;
+                return Texture.fromDirectBuffer((DirectBuffer) decoded, size[0], size[1], 4);
+            }
+
+            Image image = (Image) decoded;
+
+            Texture texture = Texture.fromImage(image);
+            image.dispose();
+
+            return texture;
+        }
+    }
+
+    private static class ALBufferLoadHelper extends StagedLoadHelper<DirectBuffer, ALBuffer, ALBuffer>
+    {
+        @Override
+        public void read(FilePath path, UniCallback<DirectBuffer> onRead, UniCallback<Throwable> onError)
+        {
+            SilenceEngine.io.getFileReader().readBinaryFile(path, onRead, onError);
+        }
+
+        @Override
+        public void decode(FilePath path, DirectBuffer raw, UniCallback<ALBuffer> onDecoded, UniCallback<Throwable> onError)
+        {
+            AudioFormat format = getAudioFormat(path);
+
+            if (!SilenceEngine.audio.isPCMDecodingSupported(format))
+            {
+                // The audio device decodes on the calling thread, and creates the buffer on the update thread itself
+                SilenceEngine.audio.readToALBuffer(format, raw, onDecoded, onError);
+                return;
+            }
+
+            // The same sound is only decoded once, and only the upload happens on the thread of the audio context
+            PCMCache.decode(format, raw, pcm ->
+            {
+                SilenceEngine.io.free(raw);
+
+                TaskManager.runOnUpdate(() ->
+                {
+                    try
+                    {
+                        onDecoded.invoke(pcm.toALBuffer());
+                    }
+                    catch (Throwable e)
+                    {
+                        onError.invoke(e);
+                    }
+                    finally
+                    {
+                        PCMCache.release(pcm);
+                    }
+                });
+            }, e ->
+            {
+                SilenceEngine.io.free(raw);
+                onError.invoke(e);
+            });
+        }
+
+        @Override
+        public ALBuffer upload(FilePath path, ALBuffer decoded, ResourceLoader loader)
+        {
+            return decoded;
+        }
+    }
+
+    private static class SoundLoadHelper extends StagedLoadHelper<DirectBuffer, ALBuffer, Sound>
+    {
+        private final ALBufferLoadHelper alBufferLoadHelper = new ALBufferLoadHelper();
+
+        @Override
+        public void read(FilePath path, UniCallback<DirectBuffer> onRead, UniCallback<Throwable> onError)
+        {
+            alBufferLoadHelper.read(path, onRead, onError);
+        }
+
+        @Override
+        public void decode(FilePath path, DirectBuffer raw, UniCallback<ALBuffer> onDecoded, UniCallback<Throwable> onError)
+        {
+            alBufferLoadHelper.decode(path, raw, onDecoded, onError);
+        }
+
+        @Override
+        public Sound upload(FilePath path, ALBuffer decoded, ResourceLoader loader)
+        {
+            return new Sound(decoded);
+        }
+    }
+
+    private static class BitmapFontLoadHelper extends StagedLoadHelper<Object, BitmapFont, BitmapFont>
+    {
+        @Override
+        public void read(FilePath path, UniCallback<Object> onRead, UniCallback<Throwable> onError)
+        {
+            // Bundled fonts are stored in the binary form instead of the XML descriptor
+            if (isBundled(path, AssetBundle.Kind.FONT))
+                SilenceEngine.io.getFileReader().readBinaryFile(path, onRead::invoke, onError);
+            else
+                SilenceEngine.io.getFileReader().readTextFile(path, onRead::invoke, onError);
+        }
+
+        @Override
+        public void decode(FilePath path, Object raw, UniCallback<BitmapFont> onDecoded, UniCallback<Throwable> onError)
+        {
+            if (raw instanceof DirectBuffer)
+                onDecoded.invoke(BitmapFont.read(path, (DirectBuffer) raw));
+            else
+                onDecoded.invoke(BitmapFont.parse(path, (String) raw));
+        }
+
+        @Override
+        public void collectDependencies(FilePath path, BitmapFont decoded, BiCallback<Class<? extends IResource>, FilePath> dependency)
+        {
+            for (FilePath page : decoded.pageFiles.values())
+                dependency.invoke(Texture.class, page);
+        }
+
+        @Override
+        public BitmapFont upload(FilePath path, BitmapFont decoded, ResourceLoader loader)
+        {
+            for (Map.Entry<Integer, FilePath> page : decoded.pageFiles.entrySet())
+            {
+                // The pages are shared through the cache, so a page that is also defined explicitly is only disposed
+                // after both the font and the loader have released it
+                FilePath file = page.getValue();
+                ResourceCache.Handle<Texture> handle = ResourceCache.acquire(Texture.class, file);
+
+                if (handle == null)
+                    handle = ResourceCache.put(Texture.class, file, loader.get(file));
+
+                decoded.setSharedPage(page.getKey(), handle);
+            }
+
+            return decoded;
+        }
+    }
+
     static
     {
-        setHelper(Image.class, ResourceLoader::imageLoadHelper);
-        setHelper(Texture.class, ResourceLoader::textureLoadHelper);
-        setHelper(ALBuffer.class, ResourceLoader::alBufferLoadHelper);
-        setHelper(Sound.class, ResourceLoader::soundLoadHelper);
-        setHelper(BitmapFont.class, ResourceLoader::bitmapFontLoadHelper);
+        setHelper(Image.class, new ImageLoadHelper());
+        setHelper(Texture.class, new TextureLoadHelper());
+        setHelper(ALBuffer.class, new ALBufferLoadHelper());
+        setHelper(Sound.class, new SoundLoadHelper());
+        setHelper(BitmapFont.class, new BitmapFontLoadHelper());
     }
 }
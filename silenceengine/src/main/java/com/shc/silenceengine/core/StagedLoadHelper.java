@@ -0,0 +1,96 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.core;
+
+import com.shc.silenceengine.io.FilePath;
+import com.shc.silenceengine.utils.functional.BiCallback;
+import com.shc.silenceengine.utils.functional.UniCallback;
+
+/**
+ * <p>A StagedLoadHelper splits loading a resource into three stages, so that the {@link ResourceLoader} can schedule
+ * each of them separately. The stages are run in this order:</p>
+ *
+ * <ol>
+ *     <li><b>Read</b> &mdash; reads the raw contents of the file. This is IO bound, and is run by the IO device.</li>
+ *     <li><b>Decode</b> &mdash; converts the raw contents into an intermediate form. This is CPU bound, and is run on
+ *     a worker thread, so it must not touch the graphics or the audio contexts.</li>
+ *     <li><b>Upload</b> &mdash; creates the final resource from the decoded form. This is run on the render thread,
+ *     and only after all the dependencies of the resource are loaded.</li>
+ * </ol>
+ *
+ * @param <R> The type of the raw contents read from the file.
+ * @param <D> The type of the decoded, intermediate form of the resource.
+ * @param <T> The type of the resource that is loaded.
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public abstract class StagedLoadHelper<R, D, T extends IResource>
+{
+    /**
+     * Reads the raw contents of the file. The callbacks are expected to be invoked on the update thread, like the
+     * ones of the {@link com.shc.silenceengine.io.FileReader}.
+     *
+     * @param path    The path of the file to read.
+     * @param onRead  The callback to be invoked with the raw contents.
+     * @param onError The callback to be invoked if the read failed.
+     */
+    public abstract void read(FilePath path, UniCallback<R> onRead, UniCallback<Throwable> onError);
+
+    /**
+     * Decodes the raw contents into the intermediate form. This is called on a worker thread, and the callbacks can be
+     * invoked from any thread.
+     *
+     * @param path      The path of the file that is being loaded.
+     * @param raw       The raw contents returned by the read stage.
+     * @param onDecoded The callback to be invoked with the decoded form.
+     * @param onError   The callback to be invoked if the decoding failed.
+     */
+    public abstract void decode(FilePath path, R raw, UniCallback<D> onDecoded, UniCallback<Throwable> onError);
+
+    /**
+     * Reports the resources that need to be loaded before the upload stage of this resource. This is called on the
+     * update thread after the decoding is finished, and the resources that are reported are loaded by the same
+     * loader. The default implementation reports nothing.
+     *
+     * @param path       The path of the file that is being loaded.
+     * @param decoded    The decoded form of the resource.
+     * @param dependency The callback to report a dependency with its type and path.
+     */
+    public void collectDependencies(FilePath path, D decoded, BiCallback<Class<? extends IResource>, FilePath> dependency)
+    {
+    }
+
+    /**
+     * Creates the final resource from the decoded form. This is called on the render thread, after all the
+     * dependencies are loaded.
+     *
+     * @param path    The path of the file that is being loaded.
+     * @param decoded The decoded form of the resource.
+     * @param loader  The loader, to look up the dependencies that are loaded.
+     *
+     * @return The loaded resource.
+     */
+    public abstract T upload(FilePath path, D decoded, ResourceLoader loader);
+}
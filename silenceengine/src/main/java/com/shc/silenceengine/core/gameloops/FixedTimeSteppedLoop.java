@@ -26,6 +26,7 @@ package com.shc.silenceengine.core.gameloops;
 
 import com.shc.silenceengine.core.IGameLoop;
 import com.shc.silenceengine.core.SilenceEngine;
+import com.shc.silenceengine.utils.Profiler;
 import com.shc.silenceengine.utils.TimeUtils;
 
 /**
@@ -57,6 +58,8 @@ public class FixedTimeSteppedLoop implements IGameLoop
     @Override
     public void performLoopFrame()
     {
+        Profiler.beginFrame();
+
         double now = TimeUtils.currentTime();
 
         if (previous == -1)
@@ -72,13 +75,19 @@ public class FixedTimeSteppedLoop implements IGameLoop
         while (lag >= frameTime)
         {
             updates++;
+
+            Profiler.begin("Update");
             SilenceEngine.eventManager.raiseUpdateEvent(frameTime);
+            Profiler.end();
 
             lag -= frameTime;
         }
 
         frames++;
+
+        Profiler.begin("Render");
         SilenceEngine.eventManager.raiseRenderEvent(frameTime);
+        Profiler.end();
 
         if (now - lastStatsTime >= TimeUtils.convert(1, TimeUtils.Unit.SECONDS))
         {
@@ -90,6 +99,8 @@ public class FixedTimeSteppedLoop implements IGameLoop
         }
 
         previous = now;
+
+        Profiler.endFrame();
     }
 
     @Override
@@ -26,6 +26,7 @@ package com.shc.silenceengine.core.gameloops;
 
 import com.shc.silenceengine.core.IGameLoop;
 import com.shc.silenceengine.core.SilenceEngine;
+import com.shc.silenceengine.utils.Profiler;
 import com.shc.silenceengine.utils.TimeUtils;
 
 /**
@@ -43,6 +44,8 @@ public class VariableTimeSteppedLoop implements IGameLoop
     @Override
     public void performLoopFrame()
     {
+        Profiler.beginFrame();
+
         if (prevTime == 0)
             prevTime = (int) TimeUtils.currentTime();
 
@@ -51,8 +54,13 @@ public class VariableTimeSteppedLoop implements IGameLoop
 
         prevTime = currTime;
 
+        Profiler.begin("Update");
         SilenceEngine.eventManager.raiseUpdateEvent(elapsedTime);
+        Profiler.end();
+
+        Profiler.begin("Render");
         SilenceEngine.eventManager.raiseRenderEvent(elapsedTime);
+        Profiler.end();
 
         frames++;
 
@@ -62,6 +70,8 @@ public class VariableTimeSteppedLoop implements IGameLoop
             frames = 0;
             lastFPSTime = currTime;
         }
+
+        Profiler.endFrame();
     }
 
     @Override
@@ -0,0 +1,100 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.core.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A counter that only goes up, like the number of draw calls. Every thread adds to a stripe of its own, so the counters
+ * can be updated from many threads without contending on a single value. The hot paths of the engine count in a local
+ * variable and add it to the counter once, instead of incrementing it for every event.
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public final class Counter
+{
+    private final String name;
+    private final Cell[] cells;
+
+    Counter(String name)
+    {
+        this.name = name;
+
+        cells = new Cell[Metrics.STRIPES];
+
+        for (int i = 0; i < cells.length; i++)
+            cells[i] = new Cell();
+    }
+
+    public void increment()
+    {
+        cells[Metrics.stripe()].incrementAndGet();
+    }
+
+    public void add(long amount)
+    {
+        if (amount != 0)
+            cells[Metrics.stripe()].addAndGet(amount);
+    }
+
+    /**
+     * @return The sum of all the stripes. This is not atomic with the updates that are made while it is read.
+     */
+    public long get()
+    {
+        long sum = 0;
+
+        for (Cell cell : cells)
+            sum += cell.get();
+
+        return sum;
+    }
+
+    public void reset()
+    {
+        for (Cell cell : cells)
+            cell.set(0);
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    @Override
+    public String toString()
+    {
+        return name + " = " + get();
+    }
+
+    // The padding keeps the stripes of different threads on separate cache lines
+    @SuppressWarnings("unused")
+    private static final class Cell extends AtomicLong
+    {
+        private static final long serialVersionUID = 6409816453752614279L;
+
+        private long p1, p2, p3, p4, p5, p6, p7;
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.core.metrics;
+
+/**
+ * <p>A histogram records the distribution of a value, like the number of vertices in each flush or the time taken to
+ * load a resource, and gives its percentiles. The values are positive longs, in whatever unit the name of the histogram
+ * says.</p>
+ *
+ * <p>The values are counted in buckets whose width grows with the value, like in an HDR histogram. The values below
+ * {@code 32} have a bucket of their own, and every power of two above that is split into {@code 32} buckets, so a
+ * percentile is never off by more than about three percent of its value, while a histogram of values up to 2<sup>40
+ * </sup> needs only {@value #BUCKETS} buckets. Larger values are counted in the last bucket, but the minimum and the
+ * maximum are always exact.</p>
+ *
+ * <p>Every thread records into a stripe of its own, and the buckets of a stripe are only allocated when a thread first
+ * records into it.</p>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public final class Histogram
+{
+    // Each power of two is split into 2^SUB_BUCKET_BITS buckets
+    private static final int SUB_BUCKET_BITS  = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    // The highest power of two that has buckets of its own
+    private static final int MAX_MAGNITUDE = 39;
+
+    /**
+     * The number of buckets in each stripe of a histogram.
+     */
+    public static final int BUCKETS = (MAX_MAGNITUDE - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT;
+
+    private final String     name;
+    private final Recorder[] recorders;
+
+    Histogram(String name)
+    {
+        this.name = name;
+
+        recorders = new Recorder[Metrics.STRIPES];
+
+        for (int i = 0; i < recorders.length; i++)
+            recorders[i] = new Recorder();
+    }
+
+    static int bucketOf(long value)
+    {
+        if (value < SUB_BUCKET_COUNT)
+            return (int) value;
+
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+
+        if (magnitude > MAX_MAGNITUDE)
+            return BUCKETS - 1;
+
+        // The top bits of the value, after the leading one, select the bucket within its power of two
+        int shift = magnitude - SUB_BUCKET_BITS;
+        return ((shift + 1) << SUB_BUCKET_BITS) + (int) (value >>> shift) - SUB_BUCKET_COUNT;
+    }
+
+    static long highestValueIn(int bucket)
+    {
+        if (bucket < SUB_BUCKET_COUNT)
+            return bucket;
+
+        int shift = (bucket >>> SUB_BUCKET_BITS) - 1;
+        long top = (bucket & (SUB_BUCKET_COUNT - 1)) + SUB_BUCKET_COUNT;
+
+        return ((top + 1) << shift) - 1;
+    }
+
+    /**
+     * Records a value into this histogram.
+     *
+     * @param value The value, negative values are recorded as zero.
+     */
+    public void record(long value)
+    {
+        if (value < 0)
+            value = 0;
+
+        Recorder recorder = recorders[Metrics.stripe()];
+
+        synchronized (recorder)
+        {
+            recorder.record(value);
+        }
+    }
+
+    /**
+     * Removes all the values recorded so far.
+     */
+    public void reset()
+    {
+        for (Recorder recorder : recorders)
+        {
+            synchronized (recorder)
+            {
+                recorder.reset();
+            }
+        }
+    }
+
+    /**
+     * Reads the values recorded by all the threads into a snapshot.
+     *
+     * @param snapshot The snapshot to read into, which can be reused.
+     *
+     * @return The same snapshot, for chaining the calls.
+     */
+    public HistogramSnapshot read(HistogramSnapshot snapshot)
+    {
+        snapshot.clear();
+
+        for (Recorder recorder : recorders)
+        {
+            synchronized (recorder)
+            {
+                if (recorder.count > 0)
+                    snapshot.merge(recorder.counts, recorder.highestBucket, recorder.count, recorder.sum,
+                            recorder.min, recorder.max);
+            }
+        }
+
+        return snapshot;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    private static final class Recorder
+    {
+        private long[] counts;
+        private int    highestBucket;
+
+        private long count;
+        private long sum;
+        private long min;
+        private long max;
+
+        private void record(long value)
+        {
+            if (counts == null)
+                counts = new long[BUCKETS];
+
+            int bucket = bucketOf(value);
+            counts[bucket]++;
+            highestBucket = Math.max(highestBucket, bucket);
+
+            min = count == 0 ? value : Math.min(min, value);
+            max = Math.max(max, value);
+            sum += value;
+            count++;
+        }
+
+        private void reset()
+        {
+            if (counts != null)
+            {
+                for (int i = 0; i <= highestBucket; i++)
+                    counts[i] = 0;
+            }
+
+            highestBucket = 0;
+            count = sum = min = max = 0;
+        }
+    }
+}
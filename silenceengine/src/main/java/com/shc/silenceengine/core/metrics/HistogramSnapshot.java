@@ -0,0 +1,129 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.core.metrics;
+
+/**
+ * The values of a {@link Histogram} at the time it was read. A snapshot can be read into again and again, and it
+ * allocates nothing after the first time.
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public final class HistogramSnapshot
+{
+    private long[] counts;
+    private int    highestBucket;
+
+    private long count;
+    private long sum;
+    private long min;
+    private long max;
+
+    void clear()
+    {
+        if (counts != null)
+        {
+            for (int i = 0; i <= highestBucket; i++)
+                counts[i] = 0;
+        }
+
+        highestBucket = 0;
+        count = sum = min = max = 0;
+    }
+
+    void merge(long[] counts, int highestBucket, long count, long sum, long min, long max)
+    {
+        if (this.counts == null)
+            this.counts = new long[Histogram.BUCKETS];
+
+        for (int i = 0; i <= highestBucket; i++)
+            this.counts[i] += counts[i];
+
+        this.min = this.count == 0 ? min : Math.min(this.min, min);
+        this.max = Math.max(this.max, max);
+        this.highestBucket = Math.max(this.highestBucket, highestBucket);
+        this.count += count;
+        this.sum += sum;
+    }
+
+    /**
+     * Returns the value below which the given percentage of the recorded values fall. The value is the highest one in
+     * its bucket, so it is never lower than the real percentile.
+     *
+     * @param percentile The percentile, from 0 to 100.
+     *
+     * @return The value at that percentile, or zero if nothing was recorded.
+     */
+    public long getValueAtPercentile(double percentile)
+    {
+        if (count == 0)
+            return 0;
+
+        if (percentile <= 0)
+            return min;
+
+        long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * count));
+        long seen = 0;
+
+        for (int i = 0; i <= highestBucket; i++)
+        {
+            seen += counts[i];
+
+            if (seen >= rank)
+                return Math.max(min, Math.min(max, Histogram.highestValueIn(i)));
+        }
+
+        return max;
+    }
+
+    public long getMedian()
+    {
+        return getValueAtPercentile(50);
+    }
+
+    public long getCount()
+    {
+        return count;
+    }
+
+    public long getSum()
+    {
+        return sum;
+    }
+
+    public long getMin()
+    {
+        return min;
+    }
+
+    public long getMax()
+    {
+        return max;
+    }
+
+    public double getMean()
+    {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+}
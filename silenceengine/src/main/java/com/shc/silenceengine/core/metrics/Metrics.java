@@ -0,0 +1,230 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.core.metrics;
+
+import com.shc.silenceengine.core.SilenceEngine;
+import com.shc.silenceengine.core.SilenceException;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>The registry of the metrics of the engine. There are three kinds of metrics, the {@link Counter}s that only go up,
+ * like the number of draw calls, the {@link Gauge}s that are set to the current value of something, like the number of
+ * pending tasks, and the {@link Histogram}s that record the distribution of a value, like the number of vertices in each
+ * flush. The metrics are created on their first use, and are identified by their names, which are dotted and start
+ * with the subsystem, like {@code graphics.drawCalls}.</p>
+ *
+ * <p>The counters and the histograms are striped, every thread updates a stripe of its own, so they can be updated
+ * from the worker threads without contending with the game thread. A {@link MetricsSnapshot} reads all the metrics at
+ * once, and can be reused, so it is cheap enough to be taken every frame.</p>
+ *
+ * <p>These are the metrics recorded by the engine itself:</p>
+ *
+ * <ul>
+ *     <li>{@code graphics.drawCalls}, {@code graphics.textureBinds} and {@code graphics.flushes} are counters, and
+ *     {@code graphics.flushVertices} is a histogram of the number of vertices in each flush of the
+ *     DynamicRenderer.</li>
+ *     <li>{@code collision.broadphaseQueries} and {@code collision.narrowphaseTests} are counters of both the 2D and
+ *     the 3D collision systems.</li>
+ *     <li>{@code audio.voices}, {@code audio.sources} and {@code audio.pooledSources} are gauges of the voices that are
+ *     playing, the OpenAL sources that are in use and the sources that were ever created, {@code audio.pcmCacheBytes}
+ *     is a gauge of the decoded samples held in the cache, and {@code audio.alCalls} is a counter.</li>
+ *     <li>{@code resources.loaded} is a counter of the resources loaded by all the loaders, {@code resources.pending}
+ *     is a gauge of the ones that are not yet loaded, and {@code resources.loadTime} is a histogram of the time taken
+ *     to load each resource, in microseconds.</li>
+ *     <li>{@code tasks.pendingUpdate} and {@code tasks.pendingRender} are gauges of the tasks that are waiting to be
+ *     run, and {@code tasks.run} is a counter of the tasks that were run.</li>
+ * </ul>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public final class Metrics
+{
+    /**
+     * The number of stripes of each counter and histogram. Threads beyond this share the stripes.
+     */
+    public static final int STRIPES = 8;
+
+    private static final Map<String, Object> registry = new HashMap<>();
+
+    // The arrays are copied when a metric is added, so that the snapshots can read them without taking the lock
+    private static volatile Counter[]   counters   = new Counter[0];
+    private static volatile Gauge[]     gauges     = new Gauge[0];
+    private static volatile Histogram[] histograms = new Histogram[0];
+
+    private static int nextStripe;
+
+    private static final ThreadLocal<Integer> threadStripes = new ThreadLocal<Integer>()
+    {
+        @Override
+        protected Integer initialValue()
+        {
+            synchronized (registry)
+            {
+                return nextStripe++ % STRIPES;
+            }
+        }
+    };
+
+    private Metrics()
+    {
+    }
+
+    /**
+     * Returns the counter with the given name, creating it if it doesn't exist yet. The counters should be looked up
+     * once and kept in a field, and not for every update.
+     *
+     * @param name The name of the counter.
+     *
+     * @return The counter with that name.
+     */
+    public static Counter counter(String name)
+    {
+        synchronized (registry)
+        {
+            Object metric = registry.get(name);
+
+            if (metric == null)
+            {
+                Counter counter = new Counter(name);
+                registry.put(name, counter);
+                counters = append(counters, new Counter[counters.length + 1], counter);
+
+                return counter;
+            }
+
+            if (!(metric instanceof Counter))
+                throw mismatch(name, "counter");
+
+            return (Counter) metric;
+        }
+    }
+
+    /**
+     * Returns the gauge with the given name, creating it if it doesn't exist yet.
+     *
+     * @param name The name of the gauge.
+     *
+     * @return The gauge with that name.
+     */
+    public static Gauge gauge(String name)
+    {
+        synchronized (registry)
+        {
+            Object metric = registry.get(name);
+
+            if (metric == null)
+            {
+                Gauge gauge = new Gauge(name);
+                registry.put(name, gauge);
+                gauges = append(gauges, new Gauge[gauges.length + 1], gauge);
+
+                return gauge;
+            }
+
+            if (!(metric instanceof Gauge))
+                throw mismatch(name, "gauge");
+
+            return (Gauge) metric;
+        }
+    }
+
+    /**
+     * Returns the histogram with the given name, creating it if it doesn't exist yet.
+     *
+     * @param name The name of the histogram.
+     *
+     * @return The histogram with that name.
+     */
+    public static Histogram histogram(String name)
+    {
+        synchronized (registry)
+        {
+            Object metric = registry.get(name);
+
+            if (metric == null)
+            {
+                Histogram histogram = new Histogram(name);
+                registry.put(name, histogram);
+                histograms = append(histograms, new Histogram[histograms.length + 1], histogram);
+
+                return histogram;
+            }
+
+            if (!(metric instanceof Histogram))
+                throw mismatch(name, "histogram");
+
+            return (Histogram) metric;
+        }
+    }
+
+    /**
+     * Reads all the metrics into a snapshot. The same snapshot should be passed every time, so that nothing is
+     * allocated once it has grown to hold all the metrics, and so that it can give the change of the counters since
+     * the last time it was taken.
+     *
+     * @param snapshot The snapshot to read the metrics into.
+     *
+     * @return The same snapshot, for chaining the calls.
+     */
+    public static MetricsSnapshot snapshot(MetricsSnapshot snapshot)
+    {
+        snapshot.read(SilenceEngine.display == null ? 0 : SilenceEngine.display.nanoTime(),
+                counters, gauges, histograms);
+
+        return snapshot;
+    }
+
+    /**
+     * Resets all the counters and the histograms to zero. The gauges keep their values.
+     */
+    public static void reset()
+    {
+        for (Counter counter : counters)
+            counter.reset();
+
+        for (Histogram histogram : histograms)
+            histogram.reset();
+    }
+
+    static int stripe()
+    {
+        return threadStripes.get();
+    }
+
+    private static <T> T[] append(T[] array, T[] grown, T element)
+    {
+        System.arraycopy(array, 0, grown, 0, array.length);
+        grown[array.length] = element;
+
+        return grown;
+    }
+
+    private static SilenceException mismatch(String name, String kind)
+    {
+        return new SilenceException("The metric " + name + " is already registered, and is not a " + kind);
+    }
+}
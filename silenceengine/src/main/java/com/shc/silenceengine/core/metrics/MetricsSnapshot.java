@@ -0,0 +1,214 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.core.metrics;
+
+/**
+ * <p>The values of all the metrics at the time of a call to {@link Metrics#snapshot(MetricsSnapshot)}. The metrics are
+ * indexed in the order they were registered, which never changes, so an index that is looked up once stays valid for
+ * the later snapshots.</p>
+ *
+ * <p>A snapshot is meant to be reused, it only allocates when new metrics are registered. It remembers the values of
+ * the counters from the last time it was taken, so it also gives the change of each counter since then, like the draw
+ * calls in the last frame when it is taken every frame.</p>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public final class MetricsSnapshot
+{
+    private double time;
+    private double lastTime;
+
+    private Counter[] counters      = new Counter[0];
+    private long[]    counterValues = new long[0];
+    private long[]    counterDeltas = new long[0];
+
+    private Gauge[]  gauges      = new Gauge[0];
+    private double[] gaugeValues = new double[0];
+
+    private Histogram[]         histograms         = new Histogram[0];
+    private HistogramSnapshot[] histogramSnapshots = new HistogramSnapshot[0];
+
+    void read(double time, Counter[] counters, Gauge[] gauges, Histogram[] histograms)
+    {
+        lastTime = this.time;
+        this.time = time;
+
+        if (counters.length != this.counters.length)
+        {
+            long[] values = new long[counters.length];
+            System.arraycopy(counterValues, 0, values, 0, counterValues.length);
+
+            counterValues = values;
+            counterDeltas = new long[counters.length];
+            this.counters = counters;
+        }
+
+        for (int i = 0; i < counters.length; i++)
+        {
+            long value = counters[i].get();
+
+            // A reset counter starts over, and the delta is what was counted since the reset
+            counterDeltas[i] = value >= counterValues[i] ? value - counterValues[i] : value;
+            counterValues[i] = value;
+        }
+
+        if (gauges.length != this.gauges.length)
+        {
+            gaugeValues = new double[gauges.length];
+            this.gauges = gauges;
+        }
+
+        for (int i = 0; i < gauges.length; i++)
+            gaugeValues[i] = gauges[i].get();
+
+        if (histograms.length != this.histograms.length)
+        {
+            HistogramSnapshot[] snapshots = new HistogramSnapshot[histograms.length];
+            System.arraycopy(histogramSnapshots, 0, snapshots, 0, histogramSnapshots.length);
+
+            for (int i = histogramSnapshots.length; i < snapshots.length; i++)
+                snapshots[i] = new HistogramSnapshot();
+
+            histogramSnapshots = snapshots;
+            this.histograms = histograms;
+        }
+
+        for (int i = 0; i < histograms.length; i++)
+            histograms[i].read(histogramSnapshots[i]);
+    }
+
+    /**
+     * @return The time at which this snapshot was taken, in nanoseconds.
+     */
+    public double getTime()
+    {
+        return time;
+    }
+
+    /**
+     * @return The time between this snapshot and the last time it was taken, in nanoseconds.
+     */
+    public double getElapsedTime()
+    {
+        return time - lastTime;
+    }
+
+    public int getCounterCount()
+    {
+        return counters.length;
+    }
+
+    public String getCounterName(int index)
+    {
+        return counters[index].getName();
+    }
+
+    public long getCounterValue(int index)
+    {
+        return counterValues[index];
+    }
+
+    /**
+     * @param index The index of the counter.
+     *
+     * @return The change of the counter since the last time this snapshot was taken.
+     */
+    public long getCounterDelta(int index)
+    {
+        return counterDeltas[index];
+    }
+
+    /**
+     * @param name The name of the counter.
+     *
+     * @return The index of the counter, or -1 if there is no counter with that name in this snapshot.
+     */
+    public int indexOfCounter(String name)
+    {
+        for (int i = 0; i < counters.length; i++)
+            if (counters[i].getName().equals(name))
+                return i;
+
+        return -1;
+    }
+
+    public int getGaugeCount()
+    {
+        return gauges.length;
+    }
+
+    public String getGaugeName(int index)
+    {
+        return gauges[index].getName();
+    }
+
+    public double getGaugeValue(int index)
+    {
+        return gaugeValues[index];
+    }
+
+    /**
+     * @param name The name of the gauge.
+     *
+     * @return The index of the gauge, or -1 if there is no gauge with that name in this snapshot.
+     */
+    public int indexOfGauge(String name)
+    {
+        for (int i = 0; i < gauges.length; i++)
+            if (gauges[i].getName().equals(name))
+                return i;
+
+        return -1;
+    }
+
+    public int getHistogramCount()
+    {
+        return histograms.length;
+    }
+
+    public String getHistogramName(int index)
+    {
+        return histograms[index].getName();
+    }
+
+    public HistogramSnapshot getHistogram(int index)
+    {
+        return histogramSnapshots[index];
+    }
+
+    /**
+     * @param name The name of the histogram.
+     *
+     * @return The index of the histogram, or -1 if there is no histogram with that name in this snapshot.
+     */
+    public int indexOfHistogram(String name)
+    {
+        for (int i = 0; i < histograms.length; i++)
+            if (histograms[i].getName().equals(name))
+                return i;
+
+        return -1;
+    }
+}
@@ -26,6 +26,9 @@ package com.shc.silenceengine.graphics;
 
 import com.shc.silenceengine.core.IResource;
 import com.shc.silenceengine.core.SilenceEngine;
+import com.shc.silenceengine.core.metrics.Counter;
+import com.shc.silenceengine.core.metrics.Histogram;
+import com.shc.silenceengine.core.metrics.Metrics;
 import com.shc.silenceengine.graphics.opengl.BufferObject;
 import com.shc.silenceengine.graphics.opengl.GLContext;
 import com.shc.silenceengine.graphics.opengl.Primitive;
@@ -36,6 +39,7 @@ import com.shc.silenceengine.io.PrimitiveSize;
 import com.shc.silenceengine.math.Vector2;
 import com.shc.silenceengine.math.Vector3;
 import com.shc.silenceengine.math.Vector4;
+import com.shc.silenceengine.utils.Profiler;
 
 import static com.shc.silenceengine.graphics.IGraphicsDevice.Constants.*;
 
@@ -57,6 +61,9 @@ public class DynamicRenderer implements IResource
     public static final int SIZE_OF_COLOR    = PrimitiveSize.FLOAT * NUM_COLOR_COMPONENTS;
     public static final int SIZE_OF_TEXCOORD = PrimitiveSize.FLOAT * NUM_TEXCOORD_COMPONENTS;
 
+    private static final Counter   FLUSHES        = Metrics.counter("graphics.flushes");
+    private static final Histogram FLUSH_VERTICES = Metrics.histogram("graphics.flushVertices");
+
     // The maximum size of the batch, by default is 1024^2 = 10,48,576 vertices
     private int maxBatchSize;
 
@@ -276,11 +283,16 @@ public class DynamicRenderer implements IResource
         if (vertexLocation == -1)
             return;
 
+        Profiler.begin("DynamicRenderer.flush");
+
         // Fill the buffers
         fillBuffers();
 
         if (renderPolicy != RenderPolicy.PERFORM_RENDER)
+        {
+            Profiler.end();
             return;
+        }
 
         Program.CURRENT.prepareFrame();
 
@@ -298,6 +310,9 @@ public class DynamicRenderer implements IResource
         // Do a rendering
         GLContext.drawArrays(vao, beginMode, 0, vertexCount);
 
+        FLUSHES.increment();
+        FLUSH_VERTICES.record(vertexCount);
+
         // Unbind the VAO
         vao.disableAttributeArray(vertexLocation);
         if (colorLocation != -1) vao.disableAttributeArray(colorLocation);
@@ -311,6 +326,8 @@ public class DynamicRenderer implements IResource
         colorCount = 0;
         texCoordCount = 0;
         normalCount = 0;
+
+        Profiler.end();
     }
 
     private void setupBuffers()
@@ -399,6 +416,69 @@ public class DynamicRenderer implements IResource
             flush();
     }
 
+    /**
+     * Copies a run of two dimensional vertices with their texture coordinates into the batch, all in the same color and
+     * moved by an offset. This writes the buffers directly instead of going through the methods of each vertex, and is
+     * used to render the geometry that is prepared in advance, like the laid out text.
+     *
+     * @param positions The positions of the vertices, two coordinates for each vertex.
+     * @param texCoords The texture coordinates of the vertices, two for each vertex.
+     * @param first     The index of the first vertex to copy.
+     * @param count     The number of vertices to copy, which must fit in the batch. Use {@link #flushOnOverflow(int)}
+     *                  to make the room for them.
+     * @param x         The offset to add to the X coordinate of the vertices.
+     * @param y         The offset to add to the Y coordinate of the vertices.
+     * @param color     The color of all the vertices.
+     */
+    public void vertices(float[] positions, float[] texCoords, int first, int count, float x, float y, Color color)
+    {
+        vertices(positions, texCoords, first, count, x, y, 1, color);
+    }
+
+    /**
+     * Copies a run of two dimensional vertices like {@link #vertices(float[], float[], int, int, float, float, Color)},
+     * but scales the positions before moving them by the offset.
+     *
+     * @param positions The positions of the vertices, two coordinates for each vertex.
+     * @param texCoords The texture coordinates of the vertices, two for each vertex.
+     * @param first     The index of the first vertex to copy.
+     * @param count     The number of vertices to copy, which must fit in the batch.
+     * @param x         The offset to add to the X coordinate of the vertices.
+     * @param y         The offset to add to the Y coordinate of the vertices.
+     * @param scale     The scale to multiply the positions with.
+     * @param color     The color of all the vertices.
+     */
+    public void vertices(float[] positions, float[] texCoords, int first, int count, float x, float y, float scale,
+                         Color color)
+    {
+        if (vertexCount + count > batchSize)
+            throw new IllegalStateException("The vertices do not fit in the batch");
+
+        fillBuffers();
+
+        for (int i = 0; i < count; i++)
+        {
+            int index = (first + i) * 2;
+
+            vBuffer.writeFloat(SIZE_OF_VERTEX * vertexCount, positions[index] * scale + x)
+                    .writeFloat(SIZE_OF_VERTEX * vertexCount + 4, positions[index + 1] * scale + y)
+                    .writeFloat(SIZE_OF_VERTEX * vertexCount + 8, 0)
+                    .writeFloat(SIZE_OF_VERTEX * vertexCount + 12, 1);
+
+            cBuffer.writeFloat(SIZE_OF_COLOR * colorCount, color.r)
+                    .writeFloat(SIZE_OF_COLOR * colorCount + 4, color.g)
+                    .writeFloat(SIZE_OF_COLOR * colorCount + 8, color.b)
+                    .writeFloat(SIZE_OF_COLOR * colorCount + 12, color.a);
+
+            tBuffer.writeFloat(SIZE_OF_TEXCOORD * texCoordCount, texCoords[index])
+                    .writeFloat(SIZE_OF_TEXCOORD * texCoordCount + 4, texCoords[index + 1]);
+
+            vertexCount++;
+            colorCount++;
+            texCoordCount++;
+        }
+    }
+
     public void vertex(float x, float y, float z)
     {
         vertex(x, y, z, 1);
@@ -63,6 +63,41 @@ public class Image implements IResource
         imageData = new DirectFloatBuffer(width * height * 4);
     }
 
+    /**
+     * Creates an image from pixels that are already decoded, with a byte for each of the red, green, blue and alpha
+     * components, like the images that are stored in asset bundles.
+     *
+     * @param pixels The buffer containing the RGBA pixels, row by row.
+     * @param width  The width of the image.
+     * @param height The height of the image.
+     *
+     * @return The new image.
+     */
+    public static Image fromPixels(DirectBuffer pixels, int width, int height)
+    {
+        Image image = new Image(width, height);
+        Color color = Color.REUSABLE_STACK.pop();
+
+        for (int y = 0; y < height; y++)
+        {
+            for (int x = 0; x < width; x++)
+            {
+                int start = 4 * (y * width + x);
+
+                color.set((pixels.readByte(start) & 0xff) / 255f,
+                        (pixels.readByte(start + 1) & 0xff) / 255f,
+                        (pixels.readByte(start + 2) & 0xff) / 255f,
+                        (pixels.readByte(start + 3) & 0xff) / 255f);
+
+                image.setPixel(x, y, color);
+            }
+        }
+
+        Color.REUSABLE_STACK.push(color);
+
+        return image;
+    }
+
     public Image setPixel(int x, int y, Color pixel)
     {
         if (pixel == null)
@@ -98,7 +98,7 @@ public class SceneRenderSystem implements BiCallback<Scene, Float>
                     if (polygon == null)
                     {
                         CollisionComponent2D c2 = e.getComponent(CollisionComponent2D.class);
-                        polygon = c2.polygon;
+                        polygon = c2.shape.getPolygon();
                     }
 
                     if (polygon != null)
@@ -169,7 +169,7 @@ public class SceneRenderSystem implements BiCallback<Scene, Float>
                     if (bounds == null)
                     {
                         CollisionComponent2D c2 = e.getComponent(CollisionComponent2D.class);
-                        bounds = c2.polygon.getBounds();
+                        bounds = c2.shape.getBounds();
                     }
 
                     if (bounds != null)
@@ -28,8 +28,8 @@ import com.shc.silenceengine.core.SilenceException;
 import com.shc.silenceengine.graphics.opengl.Primitive;
 import com.shc.silenceengine.graphics.opengl.Texture;
 import com.shc.silenceengine.graphics.programs.DynamicProgram;
+import com.shc.silenceengine.math.GeometryKernels;
 import com.shc.silenceengine.math.Transform;
-import com.shc.silenceengine.math.Vector3;
 import com.shc.silenceengine.utils.functional.UniCallback;
 
 /**
@@ -41,7 +41,7 @@ public class SpriteRenderer
 
     private static int instances;
 
-    private Vector3 tempVec = new Vector3();
+    private float[] corners = new float[8];
     private Color   tempCol = new Color();
 
     private DynamicRenderer renderer;
@@ -113,28 +113,30 @@ public class SpriteRenderer
 
         renderer.flushOnOverflow(6);
 
-        renderer.vertex(tempVec.set(-1, -1, 0).scale(tw, th, 0).multiply(transform.matrix));
-        renderer.texCoord(currentTexture.getMinU(), currentTexture.getMinV());
-        renderer.color(tempCol);
-
-        renderer.vertex(tempVec.set(1, -1, 0).scale(tw, th, 0).multiply(transform.matrix));
-        renderer.texCoord(currentTexture.getMaxU(), currentTexture.getMinV());
-        renderer.color(tempCol);
-
-        renderer.vertex(tempVec.set(-1, 1, 0).scale(tw, th, 0).multiply(transform.matrix));
-        renderer.texCoord(currentTexture.getMinU(), currentTexture.getMaxV());
-        renderer.color(tempCol);
-
-        renderer.vertex(tempVec.set(1, -1, 0).scale(tw, th, 0).multiply(transform.matrix));
-        renderer.texCoord(currentTexture.getMaxU(), currentTexture.getMinV());
-        renderer.color(tempCol);
-
-        renderer.vertex(tempVec.set(1, 1, 0).scale(tw, th, 0).multiply(transform.matrix));
-        renderer.texCoord(currentTexture.getMaxU(), currentTexture.getMaxV());
-        renderer.color(tempCol);
+        // Transform the four corners once, the two triangles share two of them
+        corners[0] = -tw;
+        corners[1] = -th;
+        corners[2] = tw;
+        corners[3] = -th;
+        corners[4] = -tw;
+        corners[5] = th;
+        corners[6] = tw;
+        corners[7] = th;
+
+        GeometryKernels.getInstance().transformPoints2(transform.matrix, corners, 0, corners, 0, 4);
+
+        vertex(0, currentTexture.getMinU(), currentTexture.getMinV());
+        vertex(1, currentTexture.getMaxU(), currentTexture.getMinV());
+        vertex(2, currentTexture.getMinU(), currentTexture.getMaxV());
+        vertex(1, currentTexture.getMaxU(), currentTexture.getMinV());
+        vertex(3, currentTexture.getMaxU(), currentTexture.getMaxV());
+        vertex(2, currentTexture.getMinU(), currentTexture.getMaxV());
+    }
 
-        renderer.vertex(tempVec.set(-1, 1, 0).scale(tw, th, 0).multiply(transform.matrix));
-        renderer.texCoord(currentTexture.getMinU(), currentTexture.getMaxV());
+    private void vertex(int corner, float u, float v)
+    {
+        renderer.vertex(corners[corner * 2], corners[corner * 2 + 1], 0);
+        renderer.texCoord(u, v);
         renderer.color(tempCol);
     }
 
@@ -26,30 +26,69 @@ package com.shc.silenceengine.graphics.fonts;
 
 import com.shc.easyxml.Xml;
 import com.shc.easyxml.XmlTag;
+import com.shc.silenceengine.core.ResourceCache;
 import com.shc.silenceengine.core.SilenceEngine;
 import com.shc.silenceengine.graphics.opengl.Texture;
+import com.shc.silenceengine.io.AssetBundle;
+import com.shc.silenceengine.io.BundleFilePath;
+import com.shc.silenceengine.io.DirectBuffer;
 import com.shc.silenceengine.io.FilePath;
+import com.shc.silenceengine.io.PrimitiveSize;
 import com.shc.silenceengine.math.Vector2;
 import com.shc.silenceengine.math.Vector4;
 import com.shc.silenceengine.utils.functional.SimpleCallback;
 import com.shc.silenceengine.utils.functional.UniCallback;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
+ * <p>A font made of glyphs in one or more page textures, described by an AngelCode BMFont descriptor. The glyphs are
+ * kept in an array indexed by the character, and the kerning pairs in sorted arrays of primitives, so that measuring
+ * and laying out the text does not box any characters.</p>
+ *
+ * <p>The text that is rendered is laid out once into a {@link TextLayout}, which is cached by the font, so the text
+ * that doesn't change only has its quads copied into the batch every frame.</p>
+ *
  * @author Sri harsha Chilakapati
  */
 public class BitmapFont implements IFont
 {
+    private static final int LAYOUT_CACHE_SIZE = 64;
+
     public final Map<Integer, Texture> pages = new HashMap<>();
     public final Map<Integer, Char>    chars = new HashMap<>();
 
+    public final Map<Integer, FilePath> pageFiles = new HashMap<>();
+
+    // The pages that are shared through the resource cache, which are released instead of being disposed
+    private final Map<Integer, ResourceCache.Handle<Texture>> sharedPages = new HashMap<>();
+
     public final Info   info;
     public final Common common;
 
-    private final Map<Char, Map<Char, Integer>> kerningPairs = new HashMap<>();
+    // The glyphs indexed by their character, and the glyph used for the characters that are not in the font
+    private Char[] glyphs = new Char[0];
+    private Char   fallback;
+
+    // The second characters and the amounts of the kerning pairs, each glyph owns a range sorted by the character
+    private int[] kerningSeconds = new int[0];
+    private int[] kerningAmounts = new int[0];
+
+    // The layouts of the recently rendered text, the least recently used ones are dropped
+    private final Map<String, TextLayout> layouts = new LinkedHashMap<String, TextLayout>(16, 0.75f, true)
+    {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, TextLayout> eldest)
+        {
+            return size() > LAYOUT_CACHE_SIZE;
+        }
+    };
+
+    // The page files as written in the descriptor, relative to it
+    private final Map<Integer, String> pageNames = new HashMap<>();
 
     private boolean hadKerning = false;
 
@@ -61,143 +100,519 @@ public class BitmapFont implements IFont
 
     public static void load(FilePath fontDesc, UniCallback<BitmapFont> callback)
     {
-        SilenceEngine.io.getFileReader().readTextFile(fontDesc, xmlString ->
+        // Fonts in asset bundles are already parsed into the binary form
+        if (fontDesc instanceof BundleFilePath && ((BundleFilePath) fontDesc).is(AssetBundle.Kind.FONT))
+            SilenceEngine.io.getFileReader().readBinaryFile(fontDesc, data -> loadPages(read(fontDesc, data), callback));
+        else
+            SilenceEngine.io.getFileReader().readTextFile(fontDesc, xmlString -> loadPages(parse(fontDesc, xmlString), callback));
+    }
+
+    private static void loadPages(BitmapFont bitmapFont, UniCallback<BitmapFont> callback)
+    {
+        SimpleCallback loadingCallback = () -> callback.invoke(bitmapFont);
+
+        for (Map.Entry<Integer, FilePath> page : bitmapFont.pageFiles.entrySet())
         {
-            XmlTag font = Xml.parse(xmlString);
-
-            Info info = new Info();
-            XmlTag infoTag = font.getTagsByName("info").get(0);
-
-            info.face = infoTag.getAttribute("face").value;
-            info.size = Integer.parseInt(infoTag.getAttribute("size").value);
-            info.bold = Boolean.parseBoolean(infoTag.getAttribute("bold").value);
-            info.italic = Boolean.parseBoolean(infoTag.getAttribute("italic").value);
-            info.charset = infoTag.getAttribute("charset").value;
-            info.unicode = Boolean.parseBoolean(infoTag.getAttribute("unicode").value);
-            info.stretchH = Double.parseDouble(infoTag.getAttribute("stretchH").value);
-            info.smooth = Boolean.parseBoolean(infoTag.getAttribute("smooth").value);
-            info.aa = Integer.parseInt(infoTag.getAttribute("aa").value);
-
-            String[] padding = infoTag.getAttribute("padding").value.split(",");
-            String[] spacing = infoTag.getAttribute("spacing").value.split(",");
-
-            info.padding.set(
-                    Float.parseFloat(padding[0]),
-                    Float.parseFloat(padding[1]),
-                    Float.parseFloat(padding[2]),
-                    Float.parseFloat(padding[3])
-            );
-
-            info.spacing.set(
-                    Float.parseFloat(spacing[0]),
-                    Float.parseFloat(spacing[1])
-            );
-
-            info.outline = Integer.parseInt(infoTag.getAttribute("outline").value);
-
-            Common common = new Common();
-            XmlTag commonTag = font.getTagsByName("common").get(0);
-
-            common.lineHeight = Integer.parseInt(commonTag.getAttribute("lineHeight").value);
-            common.base = Integer.parseInt(commonTag.getAttribute("base").value);
-            common.scaleW = Integer.parseInt(commonTag.getAttribute("scaleW").value);
-            common.scaleH = Integer.parseInt(commonTag.getAttribute("scaleH").value);
-            common.pages = Integer.parseInt(commonTag.getAttribute("pages").value);
-            common.packed = Integer.parseInt(commonTag.getAttribute("packed").value);
-            common.alphaChnl = Integer.parseInt(commonTag.getAttribute("alphaChnl").value);
-            common.redChnl = Integer.parseInt(commonTag.getAttribute("redChnl").value);
-            common.greenChnl = Integer.parseInt(commonTag.getAttribute("greenChnl").value);
-            common.blueChnl = Integer.parseInt(commonTag.getAttribute("blueChnl").value);
-
-            BitmapFont bitmapFont = new BitmapFont(info, common);
-
-            XmlTag charsTag = font.getTagsByName("chars").get(0);
-
-            for (XmlTag charTag : charsTag.children)
+            int id = page.getKey();
+            FilePath file = page.getValue();
+
+            // Just because variable used in lambda should be effectively final.
+            SimpleCallback finalLoadingCallback = loadingCallback;
+
+            // Reassign the loading callback so the callbacks stack up dynamically.
+            loadingCallback = () ->
+                    SilenceEngine.io.getImageReader().readImage(file, image ->
+                    {
+                        Texture texture = Texture.fromImage(image);
+                        bitmapFont.pages.put(id, texture);
+
+                        image.dispose();
+
+                        // Invoke the next callback
+                        finalLoadingCallback.invoke();
+                    });
+        }
+
+        loadingCallback.invoke();
+    }
+
+    /**
+     * Parses the font descriptor into a BitmapFont without loading the page textures. The files of the pages are
+     * stored in {@link #pageFiles}, and the textures are to be put into {@link #pages} by the caller. This does not
+     * touch the graphics context, and hence can be called from a worker thread.
+     *
+     * @param fontDesc  The path of the font descriptor, to resolve the page files against.
+     * @param xmlString The contents of the font descriptor.
+     *
+     * @return The parsed BitmapFont, without any page textures.
+     */
+    public static BitmapFont parse(FilePath fontDesc, String xmlString)
+    {
+        XmlTag font = Xml.parse(xmlString);
+
+        Info info = new Info();
+        XmlTag infoTag = font.getTagsByName("info").get(0);
+
+        info.face = infoTag.getAttribute("face").value;
+        info.size = Integer.parseInt(infoTag.getAttribute("size").value);
+        info.bold = Boolean.parseBoolean(infoTag.getAttribute("bold").value);
+        info.italic = Boolean.parseBoolean(infoTag.getAttribute("italic").value);
+        info.charset = infoTag.getAttribute("charset").value;
+        info.unicode = Boolean.parseBoolean(infoTag.getAttribute("unicode").value);
+        info.stretchH = Double.parseDouble(infoTag.getAttribute("stretchH").value);
+        info.smooth = Boolean.parseBoolean(infoTag.getAttribute("smooth").value);
+        info.aa = Integer.parseInt(infoTag.getAttribute("aa").value);
+
+        String[] padding = infoTag.getAttribute("padding").value.split(",");
+        String[] spacing = infoTag.getAttribute("spacing").value.split(",");
+
+        info.padding.set(
+                Float.parseFloat(padding[0]),
+                Float.parseFloat(padding[1]),
+                Float.parseFloat(padding[2]),
+                Float.parseFloat(padding[3])
+        );
+
+        info.spacing.set(
+                Float.parseFloat(spacing[0]),
+                Float.parseFloat(spacing[1])
+        );
+
+        info.outline = Integer.parseInt(infoTag.getAttribute("outline").value);
+
+        Common common = new Common();
+        XmlTag commonTag = font.getTagsByName("common").get(0);
+
+        common.lineHeight = Integer.parseInt(commonTag.getAttribute("lineHeight").value);
+        common.base = Integer.parseInt(commonTag.getAttribute("base").value);
+        common.scaleW = Integer.parseInt(commonTag.getAttribute("scaleW").value);
+        common.scaleH = Integer.parseInt(commonTag.getAttribute("scaleH").value);
+        common.pages = Integer.parseInt(commonTag.getAttribute("pages").value);
+        common.packed = Integer.parseInt(commonTag.getAttribute("packed").value);
+        common.alphaChnl = Integer.parseInt(commonTag.getAttribute("alphaChnl").value);
+        common.redChnl = Integer.parseInt(commonTag.getAttribute("redChnl").value);
+        common.greenChnl = Integer.parseInt(commonTag.getAttribute("greenChnl").value);
+        common.blueChnl = Integer.parseInt(commonTag.getAttribute("blueChnl").value);
+
+        BitmapFont bitmapFont = new BitmapFont(info, common);
+
+        XmlTag charsTag = font.getTagsByName("chars").get(0);
+
+        for (XmlTag charTag : charsTag.children)
+        {
+            Char fChar = new Char();
+
+            fChar.id = Integer.parseInt(charTag.getAttribute("id").value);
+            fChar.x = Integer.parseInt(charTag.getAttribute("x").value);
+            fChar.y = Integer.parseInt(charTag.getAttribute("y").value);
+            fChar.height = Integer.parseInt(charTag.getAttribute("height").value);
+            fChar.width = Integer.parseInt(charTag.getAttribute("width").value);
+            fChar.xOffset = Integer.parseInt(charTag.getAttribute("xoffset").value);
+            fChar.yOffset = Integer.parseInt(charTag.getAttribute("yoffset").value);
+            fChar.xAdvance = Integer.parseInt(charTag.getAttribute("xadvance").value);
+            fChar.page = Integer.parseInt(charTag.getAttribute("page").value);
+            fChar.chnl = Integer.parseInt(charTag.getAttribute("chnl").value);
+
+            bitmapFont.chars.put(fChar.id, fChar);
+        }
+
+        bitmapFont.buildGlyphs();
+
+        List<XmlTag> kerningTags = font.getTagsByName("kernings");
+        if (kerningTags.size() == 1)
+        {
+            // There is kerning support for this font.
+            List<XmlTag> pairs = kerningTags.get(0).children;
+            int[] kernings = new int[pairs.size() * 3];
+
+            for (int i = 0; i < pairs.size(); i++)
             {
-                Char fChar = new Char();
-
-                fChar.id = Integer.parseInt(charTag.getAttribute("id").value);
-                fChar.x = Integer.parseInt(charTag.getAttribute("x").value);
-                fChar.y = Integer.parseInt(charTag.getAttribute("y").value);
-                fChar.height = Integer.parseInt(charTag.getAttribute("height").value);
-                fChar.width = Integer.parseInt(charTag.getAttribute("width").value);
-                fChar.xOffset = Integer.parseInt(charTag.getAttribute("xoffset").value);
-                fChar.yOffset = Integer.parseInt(charTag.getAttribute("yoffset").value);
-                fChar.xAdvance = Integer.parseInt(charTag.getAttribute("xadvance").value);
-                fChar.page = Integer.parseInt(charTag.getAttribute("page").value);
-                fChar.chnl = Integer.parseInt(charTag.getAttribute("chnl").value);
-
-                bitmapFont.chars.put(fChar.id, fChar);
+                XmlTag kerningTag = pairs.get(i);
+
+                kernings[i * 3] = Integer.parseInt(kerningTag.getAttribute("first").value);
+                kernings[i * 3 + 1] = Integer.parseInt(kerningTag.getAttribute("second").value);
+                kernings[i * 3 + 2] = Integer.parseInt(kerningTag.getAttribute("amount").value);
             }
 
-            List<XmlTag> kerningTags = font.getTagsByName("kernings");
-            if (kerningTags.size() == 1)
-            {
-                // There is kerning support for this font.
-                bitmapFont.hadKerning = true;
+            bitmapFont.setKernings(kernings);
+        }
 
-                // Initialize kerning pairs
-                for (Char a : bitmapFont.chars.values())
-                {
-                    bitmapFont.kerningPairs.put(a, new HashMap<>());
+        // The distance field fonts have their range in the same tag that is written by the msdf-bmfont tools
+        List<XmlTag> distanceFieldTags = font.getTagsByName("distanceField");
+        if (distanceFieldTags.size() == 1)
+            info.distanceRange = Float.parseFloat(distanceFieldTags.get(0).getAttribute("distanceRange").value);
 
-                    for (Char b : bitmapFont.chars.values())
-                        bitmapFont.kerningPairs.get(a).put(b, 0);
-                }
+        XmlTag pagesTag = font.getTagsByName("pages").get(0);
 
-                for (XmlTag kerningTag : kerningTags.get(0).children)
-                {
-                    int first = Integer.parseInt(kerningTag.getAttribute("first").value);
-                    int second = Integer.parseInt(kerningTag.getAttribute("second").value);
-                    int amount = Integer.parseInt(kerningTag.getAttribute("amount").value);
+        for (XmlTag page : pagesTag.children)
+        {
+            int id = Integer.parseInt(page.getAttribute("id").value);
+            FilePath file = fontDesc.getParent().getChild(page.getAttribute("file").value);
+
+            bitmapFont.pageFiles.put(id, file);
+            bitmapFont.pageNames.put(id, page.getAttribute("file").value);
+        }
+
+        return bitmapFont;
+    }
 
-                    Char fChar = bitmapFont.chars.get(first);
-                    Char sChar = bitmapFont.chars.get(second);
+    /**
+     * Reads a BitmapFont from the binary form written by {@link #write()}, without loading the page textures. This is
+     * how the fonts are stored in asset bundles, and it avoids parsing the XML descriptor at runtime.
+     *
+     * @param fontDesc The path of the font, to resolve the page files against.
+     * @param data     The buffer containing the binary form of the font.
+     *
+     * @return The BitmapFont, without any page textures.
+     */
+    public static BitmapFont read(FilePath fontDesc, DirectBuffer data)
+    {
+        Cursor cursor = new Cursor(data);
+
+        Info info = new Info();
+        info.face = cursor.readString();
+        info.size = cursor.readInt();
+        info.bold = cursor.readInt() != 0;
+        info.italic = cursor.readInt() != 0;
+        info.charset = cursor.readString();
+        info.unicode = cursor.readInt() != 0;
+        info.stretchH = cursor.readFloat();
+        info.smooth = cursor.readInt() != 0;
+        info.aa = cursor.readInt();
+        info.padding.set(cursor.readFloat(), cursor.readFloat(), cursor.readFloat(), cursor.readFloat());
+        info.spacing.set(cursor.readFloat(), cursor.readFloat());
+        info.outline = cursor.readInt();
+
+        Common common = new Common();
+        common.lineHeight = cursor.readInt();
+        common.base = cursor.readInt();
+        common.scaleW = cursor.readInt();
+        common.scaleH = cursor.readInt();
+        common.pages = cursor.readInt();
+        common.packed = cursor.readInt();
+        common.alphaChnl = cursor.readInt();
+        common.redChnl = cursor.readInt();
+        common.greenChnl = cursor.readInt();
+        common.blueChnl = cursor.readInt();
+
+        BitmapFont bitmapFont = new BitmapFont(info, common);
+
+        int numChars = cursor.readInt();
+
+        for (int i = 0; i < numChars; i++)
+        {
+            Char fChar = new Char();
+
+            fChar.id = cursor.readInt();
+            fChar.x = cursor.readInt();
+            fChar.y = cursor.readInt();
+            fChar.height = cursor.readInt();
+            fChar.width = cursor.readInt();
+            fChar.xOffset = cursor.readInt();
+            fChar.yOffset = cursor.readInt();
+            fChar.xAdvance = cursor.readInt();
+            fChar.page = cursor.readInt();
+            fChar.chnl = cursor.readInt();
+
+            bitmapFont.chars.put(fChar.id, fChar);
+        }
+
+        bitmapFont.buildGlyphs();
+
+        int numKernings = cursor.readInt();
+
+        if (numKernings >= 0)
+        {
+            int[] kernings = new int[numKernings * 3];
+
+            for (int i = 0; i < kernings.length; i++)
+                kernings[i] = cursor.readInt();
+
+            bitmapFont.setKernings(kernings);
+        }
+
+        int numPages = cursor.readInt();
+
+        for (int i = 0; i < numPages; i++)
+        {
+            int id = cursor.readInt();
+            String name = cursor.readString();
+
+            bitmapFont.pageFiles.put(id, fontDesc.getParent().getChild(name));
+            bitmapFont.pageNames.put(id, name);
+        }
+
+        // The fonts written before the distance fields were supported end with the pages
+        if (cursor.position < data.sizeBytes())
+            info.distanceRange = cursor.readFloat();
+
+        return bitmapFont;
+    }
+
+    /**
+     * Writes this font into a binary form that can be read back with {@link #read(FilePath, DirectBuffer)}. The page
+     * textures are not written, only the names of their files. All the values are written as 32-bit integers or
+     * floats, and the strings as their length followed by their UTF-16 characters.
+     *
+     * @return A new DirectBuffer with the binary form of this font. It is up to the caller to free it.
+     */
+    public DirectBuffer write()
+    {
+        // The first pass only measures the size, and the second one writes the data
+        Cursor cursor = new Cursor(null);
+        write(cursor);
+
+        cursor = new Cursor(DirectBuffer.create(cursor.position));
+        write(cursor);
 
-                    bitmapFont.kerningPairs.get(fChar).put(sChar, amount);
+        return cursor.buffer;
+    }
+
+    private void write(Cursor cursor)
+    {
+        cursor.writeString(info.face);
+        cursor.writeInt(info.size);
+        cursor.writeInt(info.bold ? 1 : 0);
+        cursor.writeInt(info.italic ? 1 : 0);
+        cursor.writeString(info.charset);
+        cursor.writeInt(info.unicode ? 1 : 0);
+        cursor.writeFloat((float) info.stretchH);
+        cursor.writeInt(info.smooth ? 1 : 0);
+        cursor.writeInt(info.aa);
+        cursor.writeFloat(info.padding.x);
+        cursor.writeFloat(info.padding.y);
+        cursor.writeFloat(info.padding.z);
+        cursor.writeFloat(info.padding.w);
+        cursor.writeFloat(info.spacing.x);
+        cursor.writeFloat(info.spacing.y);
+        cursor.writeInt(info.outline);
+
+        cursor.writeInt(common.lineHeight);
+        cursor.writeInt(common.base);
+        cursor.writeInt(common.scaleW);
+        cursor.writeInt(common.scaleH);
+        cursor.writeInt(common.pages);
+        cursor.writeInt(common.packed);
+        cursor.writeInt(common.alphaChnl);
+        cursor.writeInt(common.redChnl);
+        cursor.writeInt(common.greenChnl);
+        cursor.writeInt(common.blueChnl);
+
+        cursor.writeInt(chars.size());
+
+        for (Char fChar : chars.values())
+        {
+            cursor.writeInt(fChar.id);
+            cursor.writeInt(fChar.x);
+            cursor.writeInt(fChar.y);
+            cursor.writeInt(fChar.height);
+            cursor.writeInt(fChar.width);
+            cursor.writeInt(fChar.xOffset);
+            cursor.writeInt(fChar.yOffset);
+            cursor.writeInt(fChar.xAdvance);
+            cursor.writeInt(fChar.page);
+            cursor.writeInt(fChar.chnl);
+        }
+
+        if (!hadKerning)
+            cursor.writeInt(-1);
+        else
+        {
+            // Only the pairs that have a kerning are kept, the rest are zero anyway
+            int numKernings = 0;
+
+            for (Char first : chars.values())
+                numKernings += first.kerningCount;
+
+            cursor.writeInt(numKernings);
+
+            for (Char first : chars.values())
+            {
+                for (int i = first.kerningStart; i < first.kerningStart + first.kerningCount; i++)
+                {
+                    cursor.writeInt(first.id);
+                    cursor.writeInt(kerningSeconds[i]);
+                    cursor.writeInt(kerningAmounts[i]);
                 }
             }
+        }
 
-            XmlTag pagesTag = font.getTagsByName("pages").get(0);
+        cursor.writeInt(pageNames.size());
+
+        for (Map.Entry<Integer, String> page : pageNames.entrySet())
+        {
+            cursor.writeInt(page.getKey());
+            cursor.writeString(page.getValue());
+        }
 
-            SimpleCallback loadingCallback = () -> callback.invoke(bitmapFont);
+        cursor.writeFloat(info.distanceRange);
+    }
 
-            for (XmlTag page : pagesTag.children)
-            {
-                int id = Integer.parseInt(page.getAttribute("id").value);
-                FilePath file = fontDesc.getParent().getChild(page.getAttribute("file").value);
+    /**
+     * Indexes the glyphs by their characters. The characters outside the basic multilingual plane cannot be in a Java
+     * string as one char, so they are left out.
+     */
+    private void buildGlyphs()
+    {
+        int maxID = -1;
 
-                // Just because variable used in lambda should be effectively final.
-                SimpleCallback finalLoadingCallback = loadingCallback;
+        for (Char glyph : chars.values())
+            if (glyph.id <= Character.MAX_VALUE)
+                maxID = Math.max(maxID, glyph.id);
 
-                // Reassign the loading callback so the callbacks stack up dynamically.
-                loadingCallback = () ->
-                        SilenceEngine.io.getImageReader().readImage(file, image ->
-                        {
-                            Texture texture = Texture.fromImage(image);
-                            bitmapFont.pages.put(id, texture);
+        glyphs = new Char[maxID + 1];
 
-                            image.dispose();
+        for (Char glyph : chars.values())
+            if (glyph.id <= Character.MAX_VALUE)
+                glyphs[glyph.id] = glyph;
 
-                            // Invoke the next callback
-                            finalLoadingCallback.invoke();
-                        });
+        fallback = chars.get((int) ' ');
+    }
+
+    /**
+     * Stores the kerning pairs in the ranges of their first glyphs, sorted by the second character. The pairs of the
+     * glyphs that are not in the font and the pairs without any kerning are dropped.
+     *
+     * @param kernings The first character, the second character and the amount of each pair, one after the other.
+     */
+    private void setKernings(int[] kernings)
+    {
+        hadKerning = true;
+
+        for (int i = 0; i < kernings.length; i += 3)
+        {
+            Char first = chars.get(kernings[i]);
+
+            if (first != null && chars.containsKey(kernings[i + 1]) && kernings[i + 2] != 0)
+                first.kerningCount++;
+        }
+
+        int size = 0;
+
+        for (Char glyph : chars.values())
+        {
+            glyph.kerningStart = size;
+            size += glyph.kerningCount;
+            glyph.kerningCount = 0;
+        }
+
+        kerningSeconds = new int[size];
+        kerningAmounts = new int[size];
+
+        for (int i = 0; i < kernings.length; i += 3)
+        {
+            Char first = chars.get(kernings[i]);
+            int second = kernings[i + 1];
+
+            if (first == null || !chars.containsKey(second) || kernings[i + 2] == 0)
+                continue;
+
+            // Insertion sort, since a glyph only has a few pairs
+            int start = first.kerningStart;
+            int index = start + first.kerningCount;
+
+            while (index > start && kerningSeconds[index - 1] > second)
+            {
+                kerningSeconds[index] = kerningSeconds[index - 1];
+                kerningAmounts[index] = kerningAmounts[index - 1];
+                index--;
             }
 
-            loadingCallback.invoke();
-        });
+            // A repeated pair replaces the earlier one, like it did in a map
+            if (index > start && kerningSeconds[index - 1] == second)
+            {
+                System.arraycopy(kerningSeconds, index + 1, kerningSeconds, index, first.kerningCount - (index - start));
+                System.arraycopy(kerningAmounts, index + 1, kerningAmounts, index, first.kerningCount - (index - start));
+
+                kerningAmounts[index - 1] = kernings[i + 2];
+                continue;
+            }
+
+            kerningSeconds[index] = second;
+            kerningAmounts[index] = kernings[i + 2];
+            first.kerningCount++;
+        }
+    }
+
+    /**
+     * Returns the glyph of a character, or the glyph of the space if the font does not have that character.
+     *
+     * @param ch The character.
+     *
+     * @return The glyph, or null if neither the character nor the space are in the font.
+     */
+    public Char getChar(char ch)
+    {
+        Char glyph = ch < glyphs.length ? glyphs[ch] : null;
+        return glyph == null ? fallback : glyph;
     }
 
     public int getKerning(Char first, Char second)
     {
-        return hadKerning ? kerningPairs.get(first).get(second) : 0;
+        int low = first.kerningStart;
+        int high = low + first.kerningCount - 1;
+
+        while (low <= high)
+        {
+            int mid = (low + high) >>> 1;
+            int id = kerningSeconds[mid];
+
+            if (id < second.id)
+                low = mid + 1;
+            else if (id > second.id)
+                high = mid - 1;
+            else
+                return kerningAmounts[mid];
+        }
+
+        return 0;
+    }
+
+    /**
+     * Returns the layout of a text in this font, laying it out if it is not in the cache of the recently used layouts.
+     *
+     * @param text The text to lay out.
+     *
+     * @return The layout of the text.
+     */
+    public TextLayout getLayout(String text)
+    {
+        TextLayout layout = layouts.get(text);
+
+        if (layout == null)
+            layouts.put(text, layout = new TextLayout(this, text));
+
+        return layout;
+    }
+
+    /**
+     * Uses a page texture that is shared through the {@link ResourceCache}. The font holds the handle, and releases it
+     * when it is disposed instead of disposing the texture.
+     *
+     * @param id     The ID of the page.
+     * @param handle The handle to the texture of the page.
+     */
+    public void setSharedPage(int id, ResourceCache.Handle<Texture> handle)
+    {
+        pages.put(id, handle.get());
+        sharedPages.put(id, handle);
     }
 
     public void dispose()
     {
-        for (Texture page : pages.values())
-            page.dispose();
+        for (Map.Entry<Integer, Texture> page : pages.entrySet())
+        {
+            ResourceCache.Handle<Texture> handle = sharedPages.get(page.getKey());
+
+            if (handle != null)
+                handle.release();
+            else
+                page.getValue().dispose();
+        }
+
+        pages.clear();
+        sharedPages.clear();
+        layouts.clear();
     }
 
     @Override
@@ -208,8 +623,10 @@ public class BitmapFont implements IFont
 
         Char last = null;
 
-        for (char ch : text.toCharArray())
+        for (int i = 0; i < text.length(); i++)
         {
+            char ch = text.charAt(i);
+
             if (ch == '\n')
             {
                 width = Math.max(x, width);
@@ -218,8 +635,7 @@ public class BitmapFont implements IFont
                 continue;
             }
 
-            Char curr = chars.get((int) ch);
-            curr = curr == null ? chars.get((int) ' ') : curr;
+            Char curr = getChar(ch);
 
             x += curr.xAdvance;
 
@@ -253,6 +669,9 @@ public class BitmapFont implements IFont
         public boolean smooth;
         public int     aa;
         public int     outline;
+
+        // The range of the distances in the pages in pixels, or zero if the pages are not distance fields
+        public float distanceRange;
     }
 
     public static class Common
@@ -269,6 +688,79 @@ public class BitmapFont implements IFont
         public int blueChnl;
     }
 
+    /*
+     * (non-Javadoc)
+     * Reads and writes the binary form of the font sequentially. Without a buffer, it only counts the bytes.
+     */
+    private static class Cursor
+    {
+        private final DirectBuffer buffer;
+
+        private int position;
+
+        Cursor(DirectBuffer buffer)
+        {
+            this.buffer = buffer;
+        }
+
+        int readInt()
+        {
+            int value = buffer.readInt(position);
+            position += PrimitiveSize.INT;
+            return value;
+        }
+
+        float readFloat()
+        {
+            float value = buffer.readFloat(position);
+            position += PrimitiveSize.FLOAT;
+            return value;
+        }
+
+        String readString()
+        {
+            int length = readInt();
+            char[] chars = new char[length];
+
+            for (int i = 0; i < length; i++)
+            {
+                chars[i] = (char) buffer.readShort(position);
+                position += PrimitiveSize.SHORT;
+            }
+
+            return new String(chars);
+        }
+
+        void writeInt(int value)
+        {
+            if (buffer != null)
+                buffer.writeInt(position, value);
+
+            position += PrimitiveSize.INT;
+        }
+
+        void writeFloat(float value)
+        {
+            if (buffer != null)
+                buffer.writeFloat(position, value);
+
+            position += PrimitiveSize.FLOAT;
+        }
+
+        void writeString(String value)
+        {
+            writeInt(value.length());
+
+            for (int i = 0; i < value.length(); i++)
+            {
+                if (buffer != null)
+                    buffer.writeShort(position, (short) value.charAt(i));
+
+                position += PrimitiveSize.SHORT;
+            }
+        }
+    }
+
     public static class Char
     {
         public  int x;
@@ -281,5 +773,9 @@ public class BitmapFont implements IFont
         public  int page;
         public  int chnl;
         private int id;
+
+        // The range of the kerning pairs that start with this glyph
+        private int kerningStart;
+        private int kerningCount;
     }
 }
@@ -27,6 +27,7 @@ package com.shc.silenceengine.graphics.fonts;
 import com.shc.silenceengine.graphics.Color;
 import com.shc.silenceengine.graphics.DynamicRenderer;
 import com.shc.silenceengine.graphics.opengl.Primitive;
+import com.shc.silenceengine.graphics.opengl.Texture;
 import com.shc.silenceengine.graphics.programs.FontProgram;
 import com.shc.silenceengine.math.Vector2;
 import com.shc.silenceengine.utils.functional.UniCallback;
@@ -86,89 +87,55 @@ public class BitmapFontRenderer
 
     public void render(BitmapFont font, String text, float x, float y, Color color)
     {
-        final float startX = x;
-        final float startY = y;
+        render(font.getLayout(text), x, y, color);
+    }
 
-        BitmapFont.Char last;
+    /**
+     * Renders a text that is already laid out. The texture is only switched, ending the batch, when the page is not the
+     * one that is already bound, so the text in the same page is rendered in a single batch.
+     *
+     * @param layout The layout of the text.
+     * @param x      The X coordinate of the top left corner of the text.
+     * @param y      The Y coordinate of the top left corner of the text.
+     * @param color  The color of the text.
+     */
+    public void render(TextLayout layout, float x, float y, Color color)
+    {
+        // Copy whole quads, in as many vertices as the batch can hold
+        int maxVertices = Math.max(TextLayout.VERTICES_PER_QUAD,
+                renderer.getBatchSize() / TextLayout.VERTICES_PER_QUAD * TextLayout.VERTICES_PER_QUAD);
 
-        for (int page : font.pages.keySet())
+        for (int i = 0; i < layout.getPageCount(); i++)
         {
-            x = startX;
-            y = startY;
-            last = null;
-
-            end();
-            font.pages.get(page).bind(0);
-            begin();
+            Texture page = layout.font.pages.get(layout.getPage(i));
 
-            for (char ch : text.toCharArray())
+            if (Texture.CURRENT != page || Texture.getActiveUnit() != 0)
             {
-                if (ch == '\n')
-                {
-                    x = startX;
-                    y += font.common.lineHeight;
-
-                    continue;
-                }
-
-                BitmapFont.Char fChar = font.chars.get((int) ch);
-                fChar = fChar == null ? font.chars.get((int) ' ') : fChar;
-
-                if (last != null)
-                    x += font.getKerning(last, fChar);
-
-                if (page == fChar.page)
-                {
-                    float sLeft = fChar.x;
-                    float sTop = fChar.y;
-                    float sRight = fChar.x + fChar.width;
-                    float sBot = fChar.y + fChar.height;
-
-                    float dLeft = x + fChar.xOffset;
-                    float dTop = y + fChar.yOffset;
-                    float dRight = dLeft + fChar.width;
-                    float dBot = dTop + fChar.height;
-
-                    // Draw the character here
-                    float u1 = sLeft / font.common.scaleW;
-                    float v1 = sTop / font.common.scaleH;
-                    float u2 = sRight / font.common.scaleW;
-                    float v2 = sBot / font.common.scaleH;
-
-                    renderer.flushOnOverflow(6);
-
-                    renderer.vertex(dLeft, dTop);
-                    renderer.texCoord(u1, v1);
-                    renderer.color(color);
-
-                    renderer.vertex(dRight, dTop);
-                    renderer.texCoord(u2, v1);
-                    renderer.color(color);
-
-                    renderer.vertex(dLeft, dBot);
-                    renderer.texCoord(u1, v2);
-                    renderer.color(color);
-
-                    renderer.vertex(dRight, dTop);
-                    renderer.texCoord(u2, v1);
-                    renderer.color(color);
+                end();
+                page.bind(0);
+                begin();
+            }
 
-                    renderer.vertex(dRight, dBot);
-                    renderer.texCoord(u2, v2);
-                    renderer.color(color);
+            float[] positions = layout.getPositions(i);
+            float[] texCoords = layout.getTexCoords(i);
 
-                    renderer.vertex(dLeft, dBot);
-                    renderer.texCoord(u1, v2);
-                    renderer.color(color);
-                }
+            int vertexCount = layout.getVertexCount(i);
 
-                x += fChar.xAdvance;
+            for (int first = 0; first < vertexCount; first += maxVertices)
+            {
+                int count = Math.min(maxVertices, vertexCount - first);
 
-                last = fChar;
+                renderer.flushOnOverflow(count);
+                renderer.vertices(positions, texCoords, first, count, x, y, color);
             }
         }
     }
 
+    public void render(TextLayout layout, float x, float y)
+    {
+        render(layout, x, y, Color.WHITE);
+    }
+
     public void render(BitmapFont font, String text, Vector2 position, Color color)
     {
         render(font, text, position.x, position.y, color);
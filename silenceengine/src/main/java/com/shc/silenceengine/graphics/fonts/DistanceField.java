@@ -0,0 +1,205 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.graphics.fonts;
+
+import com.shc.silenceengine.core.SilenceException;
+
+/**
+ * <p>Generates the signed distance fields of glyphs from their coverage in high resolution bitmaps. The distances are
+ * exact euclidean distances, computed with the linear time distance transform of Felzenszwalb and Huttenlocher, once
+ * to the nearest pixel inside the glyph and once to the nearest pixel outside it.</p>
+ *
+ * <p>The field is stored as a byte for each pixel, where 128 is on the edge of the glyph, and the values are larger
+ * inside the glyph and smaller outside, changing by 255 over the distance range. Rendered with linear filtering and a
+ * threshold in the middle, the edges stay sharp at any scale, so a single small page can render all the sizes.</p>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public final class DistanceField
+{
+    // The squared distance to the pixels that are not features, large enough to never be the nearest one
+    private static final double INFINITY = 1e20;
+
+    private DistanceField()
+    {
+    }
+
+    /**
+     * Generates the distance field of a glyph. Each pixel of the field covers a square of pixels in the bitmap, and the
+     * distance is measured from its centre, so the bitmap should be rendered at the size of the field multiplied by the
+     * downscale, with enough padding around the glyph for the distance range.
+     *
+     * @param coverage      The coverage of the bitmap, a byte for each pixel row by row, where the pixels with 128 or
+     *                      more are inside the glyph.
+     * @param width         The width of the bitmap, which must be a multiple of the downscale.
+     * @param height        The height of the bitmap, which must be a multiple of the downscale.
+     * @param downscale     The number of pixels of the bitmap for one pixel of the field, in both the directions.
+     * @param distanceRange The range of the distances in the pixels of the field, centred on the edge of the glyph.
+     *
+     * @return The distance field, of {@code width / downscale} by {@code height / downscale} pixels.
+     */
+    public static byte[] generate(byte[] coverage, int width, int height, int downscale, float distanceRange)
+    {
+        if (downscale < 1 || width % downscale != 0 || height % downscale != 0)
+            throw new SilenceException("The size of the bitmap must be a multiple of the downscale");
+
+        if (distanceRange <= 0)
+            throw new SilenceException("The distance range must be positive");
+
+        int size = width * height;
+
+        double[] toInside = new double[size];
+        double[] toOutside = new double[size];
+
+        for (int i = 0; i < size; i++)
+        {
+            boolean inside = (coverage[i] & 0xFF) >= 128;
+
+            toInside[i] = inside ? 0 : INFINITY;
+            toOutside[i] = inside ? INFINITY : 0;
+        }
+
+        transform(toInside, width, height);
+        transform(toOutside, width, height);
+
+        int fieldWidth = width / downscale;
+        int fieldHeight = height / downscale;
+
+        byte[] field = new byte[fieldWidth * fieldHeight];
+
+        // The pixels nearest to the centre of a pixel of the field, which are four when the downscale is even
+        int near = (downscale - 1) / 2;
+        int far = downscale / 2;
+
+        for (int y = 0; y < fieldHeight; y++)
+        {
+            for (int x = 0; x < fieldWidth; x++)
+            {
+                int left = x * downscale;
+                int top = y * downscale;
+
+                double distance = (distance(toInside, toOutside, (top + near) * width + left + near) +
+                                   distance(toInside, toOutside, (top + near) * width + left + far) +
+                                   distance(toInside, toOutside, (top + far) * width + left + near) +
+                                   distance(toInside, toOutside, (top + far) * width + left + far)) / 4;
+
+                double value = 0.5 + distance / downscale / distanceRange;
+                value = Math.max(0, Math.min(1, value));
+
+                field[y * fieldWidth + x] = (byte) Math.round(value * 255);
+            }
+        }
+
+        return field;
+    }
+
+    /**
+     * Returns the signed distance from the centre of a pixel to the edge of the glyph, which is half a pixel away from
+     * the nearest pixel on the other side of it.
+     */
+    private static double distance(double[] toInside, double[] toOutside, int index)
+    {
+        if (toInside[index] == 0)
+            return Math.sqrt(toOutside[index]) - 0.5;
+
+        return 0.5 - Math.sqrt(toInside[index]);
+    }
+
+    /**
+     * Transforms a grid of zeroes on the features and infinities elsewhere into the squared distances to the nearest
+     * feature, by transforming the columns first and then the rows.
+     */
+    private static void transform(double[] grid, int width, int height)
+    {
+        int length = Math.max(width, height);
+
+        double[] f = new double[length];
+        double[] d = new double[length];
+        double[] z = new double[length + 1];
+        int[] v = new int[length];
+
+        for (int x = 0; x < width; x++)
+        {
+            for (int y = 0; y < height; y++)
+                f[y] = grid[y * width + x];
+
+            transform(f, d, v, z, height);
+
+            for (int y = 0; y < height; y++)
+                grid[y * width + x] = d[y];
+        }
+
+        for (int y = 0; y < height; y++)
+        {
+            System.arraycopy(grid, y * width, f, 0, width);
+            transform(f, d, v, z, width);
+            System.arraycopy(d, 0, grid, y * width, width);
+        }
+    }
+
+    /**
+     * The one dimensional transform, which finds the lower envelope of the parabolas rooted at each sample and then
+     * reads the distances off it.
+     */
+    private static void transform(double[] f, double[] d, int[] v, double[] z, int length)
+    {
+        int k = 0;
+
+        v[0] = 0;
+        z[0] = Double.NEGATIVE_INFINITY;
+        z[1] = Double.POSITIVE_INFINITY;
+
+        for (int q = 1; q < length; q++)
+        {
+            double s = intersection(f, v[k], q);
+
+            while (s <= z[k])
+            {
+                k--;
+                s = intersection(f, v[k], q);
+            }
+
+            k++;
+            v[k] = q;
+            z[k] = s;
+            z[k + 1] = Double.POSITIVE_INFINITY;
+        }
+
+        k = 0;
+
+        for (int q = 0; q < length; q++)
+        {
+            while (z[k + 1] < q)
+                k++;
+
+            d[q] = (q - v[k]) * (q - v[k]) + f[v[k]];
+        }
+    }
+
+    private static double intersection(double[] f, int p, int q)
+    {
+        return ((f[q] + q * q) - (f[p] + p * p)) / (2.0 * (q - p));
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.graphics.fonts;
+
+import com.shc.silenceengine.core.SilenceException;
+import com.shc.silenceengine.io.FilePath;
+import com.shc.silenceengine.utils.functional.UniCallback;
+
+/**
+ * <p>A font that renders the glyphs of a distance field {@link BitmapFont} at any size. The font is generated once at
+ * a small size with the pages holding the distances to the edges of the glyphs instead of their coverage, and is then
+ * scaled to the size that is asked for, staying sharp. Deriving a font of another size shares the glyphs and pages of
+ * the same BitmapFont.</p>
+ *
+ * <p>These fonts are rendered with the {@link DistanceFieldFontRenderer}, and generated with the distance field font
+ * generator of the desktop backend, either from a TrueType font or from a high resolution BitmapFont.</p>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class DistanceFieldFont implements IFont
+{
+    public final BitmapFont font;
+    public final float      size;
+
+    private final float scale;
+
+    public DistanceFieldFont(BitmapFont font, float size)
+    {
+        if (font.info.distanceRange <= 0)
+            throw new SilenceException("The font " + font.info.face + " is not a distance field font");
+
+        this.font = font;
+        this.size = size;
+
+        scale = size / Math.abs(font.info.size);
+    }
+
+    public static void load(FilePath fontDesc, float size, UniCallback<DistanceFieldFont> callback)
+    {
+        BitmapFont.load(fontDesc, font -> callback.invoke(new DistanceFieldFont(font, size)));
+    }
+
+    /**
+     * Creates a font of another size that shares the glyphs and the pages of this font. Disposing any of them disposes
+     * the pages of all of them.
+     *
+     * @param size The size of the new font in pixels.
+     *
+     * @return The font of the new size.
+     */
+    public DistanceFieldFont derive(float size)
+    {
+        return new DistanceFieldFont(font, size);
+    }
+
+    /**
+     * @return The scale from the size the font was generated at to the size of this font.
+     */
+    public float getScale()
+    {
+        return scale;
+    }
+
+    /**
+     * @return The distance range of the pages in the pixels of the screen at the size of this font, which is how much
+     * the shader sharpens the edges.
+     */
+    public float getPixelRange()
+    {
+        return font.info.distanceRange * scale;
+    }
+
+    @Override
+    public float getWidth(String text)
+    {
+        return font.getWidth(text) * scale;
+    }
+
+    @Override
+    public float getHeight()
+    {
+        return font.getHeight() * scale;
+    }
+
+    @Override
+    public void dispose()
+    {
+        font.dispose();
+    }
+}
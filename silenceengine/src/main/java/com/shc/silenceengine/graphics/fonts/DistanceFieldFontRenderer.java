@@ -0,0 +1,156 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.graphics.fonts;
+
+import com.shc.silenceengine.graphics.Color;
+import com.shc.silenceengine.graphics.DynamicRenderer;
+import com.shc.silenceengine.graphics.opengl.Primitive;
+import com.shc.silenceengine.graphics.opengl.Texture;
+import com.shc.silenceengine.graphics.programs.DistanceFieldProgram;
+import com.shc.silenceengine.math.Vector2;
+import com.shc.silenceengine.utils.functional.UniCallback;
+
+/**
+ * Renders the text in {@link DistanceFieldFont}s. The text is laid out by the underlying BitmapFont, and the quads are
+ * scaled to the size of the font while they are copied into the batch. The text in the fonts of different sizes from
+ * the same pages is batched together, as long as the pixel range of the fonts is the same.
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class DistanceFieldFontRenderer
+{
+    private DynamicRenderer      renderer;
+    private DistanceFieldProgram program;
+    private boolean              ownsRenderer;
+
+    private DistanceFieldFontRenderer()
+    {
+    }
+
+    public static void create(UniCallback<DistanceFieldFontRenderer> callback)
+    {
+        create(callback, new DynamicRenderer(100), true);
+    }
+
+    public static void create(UniCallback<DistanceFieldFontRenderer> callback, DynamicRenderer renderer)
+    {
+        create(callback, renderer, false);
+    }
+
+    private static void create(UniCallback<DistanceFieldFontRenderer> callback, DynamicRenderer renderer,
+                               boolean ownsRenderer)
+    {
+        DistanceFieldProgram.load(program ->
+        {
+            DistanceFieldFontRenderer fontRenderer = new DistanceFieldFontRenderer();
+            fontRenderer.renderer = renderer;
+            fontRenderer.ownsRenderer = ownsRenderer;
+            fontRenderer.program = program;
+
+            callback.invoke(fontRenderer);
+        });
+    }
+
+    public void begin()
+    {
+        program.use();
+        program.applyToRenderer(renderer);
+        renderer.begin(Primitive.TRIANGLES);
+    }
+
+    public void flush()
+    {
+        renderer.flush();
+    }
+
+    public void end()
+    {
+        renderer.end();
+    }
+
+    public void render(DistanceFieldFont font, String text, float x, float y, Color color)
+    {
+        TextLayout layout = font.font.getLayout(text);
+
+        // The pixel range is a uniform, so the text with a different range is in the next batch
+        float pixelRange = font.getPixelRange();
+
+        if (pixelRange != program.getPixelRange())
+        {
+            renderer.flush();
+            program.setPixelRange(pixelRange);
+        }
+
+        // Copy whole quads, in as many vertices as the batch can hold
+        int maxVertices = Math.max(TextLayout.VERTICES_PER_QUAD,
+                renderer.getBatchSize() / TextLayout.VERTICES_PER_QUAD * TextLayout.VERTICES_PER_QUAD);
+
+        for (int i = 0; i < layout.getPageCount(); i++)
+        {
+            Texture page = font.font.pages.get(layout.getPage(i));
+
+            if (Texture.CURRENT != page || Texture.getActiveUnit() != 0)
+            {
+                end();
+                page.bind(0);
+                begin();
+            }
+
+            float[] positions = layout.getPositions(i);
+            float[] texCoords = layout.getTexCoords(i);
+
+            int vertexCount = layout.getVertexCount(i);
+
+            for (int first = 0; first < vertexCount; first += maxVertices)
+            {
+                int count = Math.min(maxVertices, vertexCount - first);
+
+                renderer.flushOnOverflow(count);
+                renderer.vertices(positions, texCoords, first, count, x, y, font.getScale(), color);
+            }
+        }
+    }
+
+    public void render(DistanceFieldFont font, String text, Vector2 position, Color color)
+    {
+        render(font, text, position.x, position.y, color);
+    }
+
+    public void render(DistanceFieldFont font, String text, float x, float y)
+    {
+        render(font, text, x, y, Color.WHITE);
+    }
+
+    public void render(DistanceFieldFont font, String text, Vector2 position)
+    {
+        render(font, text, position.x, position.y, Color.WHITE);
+    }
+
+    public void dispose()
+    {
+        if (ownsRenderer)
+            renderer.dispose();
+    }
+}
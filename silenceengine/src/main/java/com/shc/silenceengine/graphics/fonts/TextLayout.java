@@ -0,0 +1,249 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.graphics.fonts;
+
+/**
+ * <p>A text laid out in a {@link BitmapFont}, as the quads of its glyphs grouped by the page texture they are in. The
+ * quads are relative to the top left corner of the text, so the same layout can be rendered anywhere. Laying out a
+ * text looks up every glyph and kerning pair, so the layouts are cached by the font with {@link
+ * BitmapFont#getLayout(String)}, and the text that does not change is only copied into the batch when rendered.</p>
+ *
+ * <p>Each quad is two triangles, six vertices with two coordinates for the position and two for the texture.</p>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class TextLayout
+{
+    public static final int VERTICES_PER_QUAD = 6;
+
+    public final BitmapFont font;
+    public final String     text;
+
+    // The ids of the pages, and the vertices of the quads in each of them
+    private int[]     pages;
+    private float[][] positions;
+    private float[][] texCoords;
+    private int[]     vertexCounts;
+
+    private float width;
+    private float height;
+
+    TextLayout(BitmapFont font, String text)
+    {
+        this.font = font;
+        this.text = text;
+
+        layout();
+    }
+
+    private void layout()
+    {
+        // The first pass counts the quads in each page, and the second one fills them in
+        int maxPage = -1;
+
+        for (int i = 0; i < text.length(); i++)
+        {
+            BitmapFont.Char glyph = font.getChar(text.charAt(i));
+
+            if (glyph != null)
+                maxPage = Math.max(maxPage, glyph.page);
+        }
+
+        int[] quads = new int[maxPage + 1];
+
+        for (int i = 0; i < text.length(); i++)
+        {
+            char ch = text.charAt(i);
+            BitmapFont.Char glyph = font.getChar(ch);
+
+            if (ch != '\n' && isVisible(glyph))
+                quads[glyph.page]++;
+        }
+
+        int numPages = 0;
+
+        for (int count : quads)
+            if (count > 0)
+                numPages++;
+
+        pages = new int[numPages];
+        positions = new float[numPages][];
+        texCoords = new float[numPages][];
+        vertexCounts = new int[numPages];
+
+        // The index of each page in the arrays of this layout
+        int[] indices = new int[quads.length];
+
+        for (int page = 0, index = 0; page < quads.length; page++)
+        {
+            if (quads[page] == 0)
+                continue;
+
+            pages[index] = page;
+            positions[index] = new float[quads[page] * VERTICES_PER_QUAD * 2];
+            texCoords[index] = new float[quads[page] * VERTICES_PER_QUAD * 2];
+            indices[page] = index++;
+        }
+
+        float lineHeight = font.common.lineHeight;
+        float scaleW = font.common.scaleW;
+        float scaleH = font.common.scaleH;
+
+        float x = 0;
+        float y = 0;
+
+        BitmapFont.Char last = null;
+
+        for (int i = 0; i < text.length(); i++)
+        {
+            char ch = text.charAt(i);
+
+            if (ch == '\n')
+            {
+                width = Math.max(width, x);
+                x = 0;
+                y += lineHeight;
+                last = null;
+
+                continue;
+            }
+
+            BitmapFont.Char glyph = font.getChar(ch);
+
+            if (glyph == null)
+                continue;
+
+            if (last != null)
+                x += font.getKerning(last, glyph);
+
+            if (isVisible(glyph))
+            {
+                int index = indices[glyph.page];
+
+                float dLeft = x + glyph.xOffset;
+                float dTop = y + glyph.yOffset;
+                float dRight = dLeft + glyph.width;
+                float dBot = dTop + glyph.height;
+
+                float u1 = glyph.x / scaleW;
+                float v1 = glyph.y / scaleH;
+                float u2 = (glyph.x + glyph.width) / scaleW;
+                float v2 = (glyph.y + glyph.height) / scaleH;
+
+                int offset = vertexCounts[index] * 2;
+
+                quad(positions[index], offset, dLeft, dTop, dRight, dBot);
+                quad(texCoords[index], offset, u1, v1, u2, v2);
+
+                vertexCounts[index] += VERTICES_PER_QUAD;
+            }
+
+            x += glyph.xAdvance;
+            last = glyph;
+        }
+
+        width = Math.max(width, x);
+        height = y + lineHeight;
+    }
+
+    private static boolean isVisible(BitmapFont.Char glyph)
+    {
+        return glyph != null && glyph.width > 0 && glyph.height > 0;
+    }
+
+    private static void quad(float[] data, int offset, float left, float top, float right, float bottom)
+    {
+        data[offset] = left;
+        data[offset + 1] = top;
+        data[offset + 2] = right;
+        data[offset + 3] = top;
+        data[offset + 4] = left;
+        data[offset + 5] = bottom;
+        data[offset + 6] = right;
+        data[offset + 7] = top;
+        data[offset + 8] = right;
+        data[offset + 9] = bottom;
+        data[offset + 10] = left;
+        data[offset + 11] = bottom;
+    }
+
+    /**
+     * @return The number of pages that have any quads of this text.
+     */
+    public int getPageCount()
+    {
+        return pages.length;
+    }
+
+    /**
+     * @param index The index of the page in this layout, less than {@link #getPageCount()}.
+     *
+     * @return The id of the page in the font.
+     */
+    public int getPage(int index)
+    {
+        return pages[index];
+    }
+
+    /**
+     * @param index The index of the page in this layout.
+     *
+     * @return The positions of the vertices in the page, two coordinates for each vertex.
+     */
+    public float[] getPositions(int index)
+    {
+        return positions[index];
+    }
+
+    /**
+     * @param index The index of the page in this layout.
+     *
+     * @return The texture coordinates of the vertices in the page, two coordinates for each vertex.
+     */
+    public float[] getTexCoords(int index)
+    {
+        return texCoords[index];
+    }
+
+    /**
+     * @param index The index of the page in this layout.
+     *
+     * @return The number of vertices in the page.
+     */
+    public int getVertexCount(int index)
+    {
+        return vertexCounts[index];
+    }
+
+    public float getWidth()
+    {
+        return width;
+    }
+
+    public float getHeight()
+    {
+        return height;
+    }
+}
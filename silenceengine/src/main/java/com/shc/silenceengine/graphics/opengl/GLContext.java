@@ -25,6 +25,8 @@
 package com.shc.silenceengine.graphics.opengl;
 
 import com.shc.silenceengine.core.SilenceEngine;
+import com.shc.silenceengine.core.metrics.Counter;
+import com.shc.silenceengine.core.metrics.Metrics;
 import com.shc.silenceengine.graphics.Color;
 
 import static com.shc.silenceengine.graphics.IGraphicsDevice.Constants.*;
@@ -34,6 +36,8 @@ import static com.shc.silenceengine.graphics.IGraphicsDevice.Constants.*;
  */
 public final class GLContext
 {
+    private static final Counter DRAW_CALLS = Metrics.counter("graphics.drawCalls");
+
     private GLContext()
     {
     }
@@ -105,7 +109,7 @@ public final class GLContext
         SilenceEngine.graphics.glDrawArrays(mode.getGlPrimitive(), offset, vertexCount);
         GLError.check();
 
-//        SilenceEngine.graphics.renderCalls++;
+        DRAW_CALLS.increment();
     }
 
     public static void drawElements(VertexArray vao, Primitive mode, int offset, int vertexCount, int type)
@@ -114,7 +118,7 @@ public final class GLContext
         SilenceEngine.graphics.glDrawElements(mode.getGlPrimitive(), vertexCount, type, offset);
         GLError.check();
 
-//        SilenceEngine.graphics.renderCalls++;
+        DRAW_CALLS.increment();
     }
 
     /**
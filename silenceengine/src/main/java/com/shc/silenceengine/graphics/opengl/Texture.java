@@ -27,6 +27,8 @@ package com.shc.silenceengine.graphics.opengl;
 import com.shc.silenceengine.core.IResource;
 import com.shc.silenceengine.core.SilenceEngine;
 import com.shc.silenceengine.core.SilenceException;
+import com.shc.silenceengine.core.metrics.Counter;
+import com.shc.silenceengine.core.metrics.Metrics;
 import com.shc.silenceengine.graphics.Color;
 import com.shc.silenceengine.graphics.Image;
 import com.shc.silenceengine.io.DirectBuffer;
@@ -39,6 +41,8 @@ import static com.shc.silenceengine.graphics.IGraphicsDevice.Constants.*;
  */
 public class Texture implements IResource
 {
+    private static final Counter BINDS = Metrics.counter("graphics.textureBinds");
+
     private static int activeUnit;
 
     public static Texture CURRENT;
@@ -161,6 +165,7 @@ public class Texture implements IResource
         GLError.check();
 
         CURRENT = this;
+        BINDS.increment();
     }
 
     public void bind(int unit)
@@ -0,0 +1,100 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.graphics.programs;
+
+import com.shc.silenceengine.core.SilenceEngine;
+import com.shc.silenceengine.graphics.opengl.Shader;
+import com.shc.silenceengine.io.FilePath;
+import com.shc.silenceengine.io.FileReader;
+import com.shc.silenceengine.utils.functional.UniCallback;
+
+/**
+ * The program that renders the distance field fonts. The vertices are the same as those of the {@link FontProgram},
+ * and the fragment shader turns the distance in the page into the coverage, sharpened by the pixel range.
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class DistanceFieldProgram extends FontProgram
+{
+    private float pixelRange = 1;
+
+    /**
+     * Loads and links the distance field program. This is not named create, as that would clash with the one of the
+     * {@link FontProgram} that creates the programs for the bitmap fonts.
+     *
+     * @param uniCallback The callback that receives the program.
+     */
+    public static void load(UniCallback<DistanceFieldProgram> uniCallback)
+    {
+        FileReader fileReader = SilenceEngine.io.getFileReader();
+
+        fileReader.readTextFile(FilePath.getResourceFile("engine_resources/shaders/bitmapfont.vert"), vSource ->
+                fileReader.readTextFile(FilePath.getResourceFile("engine_resources/shaders/distancefield.frag"), fSource ->
+                {
+                    DistanceFieldProgram program = new DistanceFieldProgram();
+
+                    Shader vShader = new Shader(Shader.Type.VERTEX_SHADER);
+                    vShader.source(vSource);
+                    vShader.compile();
+
+                    Shader fShader = new Shader(Shader.Type.FRAGMENT_SHADER);
+                    fShader.source(fSource);
+                    fShader.compile();
+
+                    program.attach(vShader);
+                    program.attach(fShader);
+                    program.link();
+
+                    vShader.dispose();
+                    fShader.dispose();
+
+                    uniCallback.invoke(program);
+                })
+        );
+    }
+
+    public float getPixelRange()
+    {
+        return pixelRange;
+    }
+
+    /**
+     * Sets the distance range of the page in the pixels of the screen, which is the distance range of the font
+     * multiplied by the scale it is rendered at. It is sent to the shader when the batch is flushed.
+     *
+     * @param pixelRange The distance range in the pixels of the screen.
+     */
+    public void setPixelRange(float pixelRange)
+    {
+        this.pixelRange = pixelRange;
+    }
+
+    @Override
+    public void prepareFrame()
+    {
+        super.prepareFrame();
+        setUniform("pxRange", pixelRange);
+    }
+}
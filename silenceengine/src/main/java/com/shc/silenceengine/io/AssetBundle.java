@@ -0,0 +1,189 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.io;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>An AssetBundle is a single file that packs many resources along with a table of contents, so that they can be
+ * served without opening every file on its own. Bundles are created ahead of time by a packer, which also stores the
+ * resources in a form that is quick to load, like decoded pixels instead of compressed images.</p>
+ *
+ * <p>The file is laid out in little endian order, starting with a header of the magic number {@link #MAGIC}, the
+ * format {@link #VERSION} and the number of entries. Each entry of the table of contents has its path, its {@link
+ * Kind}, the offset and length of its data in the file, and a few integers of metadata that depend on the kind.</p>
+ *
+ * <p>A bundle that is {@link #mount(AssetBundle) mounted} takes precedence over the resources of the platform, so
+ * {@link FilePath#getResourceFile(String)} returns a {@link BundleFilePath} for the paths that are in the bundle.</p>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public abstract class AssetBundle
+{
+    /**
+     * The magic number at the start of every bundle, which reads SEAB in ASCII.
+     */
+    public static final int MAGIC = 0x53454142;
+
+    /**
+     * The version of the bundle format.
+     */
+    public static final int VERSION = 1;
+
+    private static List<AssetBundle> mounted = new ArrayList<>();
+
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    /**
+     * Mounts a bundle, so that the resources in it are used in place of the resources of the platform. Bundles that
+     * are mounted later take precedence over the earlier ones.
+     *
+     * @param bundle The bundle to mount.
+     */
+    public static void mount(AssetBundle bundle)
+    {
+        mounted.add(0, bundle);
+    }
+
+    public static void unmount(AssetBundle bundle)
+    {
+        mounted.remove(bundle);
+    }
+
+    /**
+     * Finds a resource in the mounted bundles.
+     *
+     * @param path The path of the resource, relative to the root of the resources.
+     *
+     * @return The path to the resource in the bundle, or null if no mounted bundle has it.
+     */
+    public static BundleFilePath find(String path)
+    {
+        for (AssetBundle bundle : mounted)
+        {
+            if (bundle.contains(path))
+                return new BundleFilePath(bundle, path);
+        }
+
+        return null;
+    }
+
+    /**
+     * Maps the data of an entry into memory. The returned buffer is owned by the bundle, and freeing it is a no-op.
+     *
+     * @param entry The entry to map.
+     *
+     * @return A buffer with the data of the entry.
+     */
+    public abstract DirectBuffer map(Entry entry);
+
+    protected void addEntry(Entry entry)
+    {
+        entries.put(entry.path, entry);
+    }
+
+    public Entry getEntry(String path)
+    {
+        return entries.get(path);
+    }
+
+    public Collection<Entry> getEntries()
+    {
+        return Collections.unmodifiableCollection(entries.values());
+    }
+
+    /**
+     * Checks whether a path is either an entry or a directory of entries in this bundle.
+     *
+     * @param path The path to check.
+     *
+     * @return True if the path is in this bundle, else false.
+     */
+    public boolean contains(String path)
+    {
+        return entries.containsKey(path) || isDirectory(path);
+    }
+
+    public boolean isDirectory(String path)
+    {
+        String prefix = path.endsWith("/") ? path : path + "/";
+
+        for (String entryPath : entries.keySet())
+        {
+            if (entryPath.startsWith(prefix))
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * The form in which the data of an entry is stored.
+     */
+    public enum Kind
+    {
+        /**
+         * The file is stored as is.
+         */
+        RAW,
+
+        /**
+         * A decoded image, stored as RGBA pixels with a byte per component. The metadata is the width and the height.
+         */
+        IMAGE,
+
+        /**
+         * A parsed bitmap font descriptor, in the binary form read by {@link com.shc.silenceengine.graphics.fonts.BitmapFont#read(FilePath,
+         * DirectBuffer)}.
+         */
+        FONT
+    }
+
+    /**
+     * An entry in the table of contents of a bundle.
+     */
+    public static class Entry
+    {
+        public final String path;
+        public final Kind   kind;
+        public final long   offset;
+        public final long   length;
+        public final int[]  metadata;
+
+        public Entry(String path, Kind kind, long offset, long length, int... metadata)
+        {
+            this.path = path;
+            this.kind = kind;
+            this.offset = offset;
+            this.length = length;
+            this.metadata = metadata;
+        }
+    }
+}
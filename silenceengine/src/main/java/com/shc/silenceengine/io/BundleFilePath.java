@@ -0,0 +1,224 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.io;
+
+import com.shc.silenceengine.core.SilenceEngine;
+import com.shc.silenceengine.core.SilenceException;
+import com.shc.silenceengine.utils.functional.Promise;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A FilePath to a resource that is served from an {@link AssetBundle}. Bundled files are read only, and reading them
+ * maps the data of the entry instead of reading it from a file.
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class BundleFilePath extends FilePath
+{
+    private final AssetBundle bundle;
+
+    BundleFilePath(AssetBundle bundle, String path)
+    {
+        super(path, Type.RESOURCE);
+        this.bundle = bundle;
+    }
+
+    /**
+     * @return The entry of this file in the bundle, or null if this is a directory.
+     */
+    public AssetBundle.Entry getEntry()
+    {
+        return bundle.getEntry(getPath());
+    }
+
+    /**
+     * @return True if this file is stored in the given form in the bundle.
+     */
+    public boolean is(AssetBundle.Kind kind)
+    {
+        AssetBundle.Entry entry = getEntry();
+        return entry != null && entry.kind == kind;
+    }
+
+    /**
+     * Maps the data of this file into memory. This does not copy the data, and hence is cheap enough to be called on
+     * the game thread.
+     *
+     * @return The buffer with the data of this file, which is owned by the bundle.
+     */
+    public DirectBuffer map()
+    {
+        AssetBundle.Entry entry = getEntry();
+
+        if (entry == null)
+            throw new SilenceException("Cannot read a directory in the bundle: " + getPath());
+
+        return bundle.map(entry);
+    }
+
+    public AssetBundle getBundle()
+    {
+        return bundle;
+    }
+
+    @Override
+    public Promise<Boolean> exists()
+    {
+        return new Promise<>((resolve, reject) -> resolve.invoke(bundle.contains(getPath())));
+    }
+
+    @Override
+    public Promise<Boolean> isDirectory()
+    {
+        return new Promise<>((resolve, reject) -> resolve.invoke(bundle.isDirectory(getPath())));
+    }
+
+    @Override
+    public Promise<Boolean> isFile()
+    {
+        return new Promise<>((resolve, reject) -> resolve.invoke(getEntry() != null));
+    }
+
+    @Override
+    public Promise<Void> copyTo(FilePath path)
+    {
+        return new Promise<>((resolve, reject) ->
+                SilenceEngine.io.getFileReader().readBinaryFile(this, data ->
+                        SilenceEngine.io.getFileWriter().write(data, path, false, () -> resolve.invoke(null), reject),
+                        reject));
+    }
+
+    @Override
+    public Promise<Void> moveTo(FilePath path)
+    {
+        return new Promise<>((resolve, reject) -> reject.invoke(new SilenceException("Cannot move a bundled file.")));
+    }
+
+    @Override
+    public Promise<Void> mkdirs()
+    {
+        return new Promise<>((resolve, reject) -> reject.invoke(new SilenceException("Cannot create a directory inside a bundle")));
+    }
+
+    @Override
+    public Promise<Void> createFile()
+    {
+        return new Promise<>((resolve, reject) -> reject.invoke(new SilenceException("Cannot create a file inside a bundle")));
+    }
+
+    @Override
+    public FilePath getParent()
+    {
+        String path = getPath();
+        int index = path.lastIndexOf(SEPARATOR);
+
+        return new BundleFilePath(bundle, index < 0 ? "" : path.substring(0, index));
+    }
+
+    @Override
+    public FilePath getChild(String path)
+    {
+        String parent = getPath();
+        return new BundleFilePath(bundle, parent.isEmpty() ? path : parent + SEPARATOR + path);
+    }
+
+    @Override
+    public Promise<Boolean> delete()
+    {
+        return new Promise<>((resolve, reject) -> reject.invoke(new SilenceException("Cannot delete a bundled file")));
+    }
+
+    @Override
+    public void deleteOnExit()
+    {
+        throw new SilenceException("Cannot delete a bundled file upon exit.");
+    }
+
+    @Override
+    public Promise<Long> sizeInBytes()
+    {
+        return new Promise<>((resolve, reject) ->
+        {
+            AssetBundle.Entry entry = getEntry();
+
+            if (entry != null)
+            {
+                resolve.invoke(entry.length);
+                return;
+            }
+
+            long size = -1;
+
+            for (AssetBundle.Entry child : bundle.getEntries())
+            {
+                if (child.path.startsWith(getPath() + SEPARATOR))
+                    size = Math.max(size, 0) + child.length;
+            }
+
+            resolve.invoke(size);
+        });
+    }
+
+    @Override
+    public Promise<List<FilePath>> listFiles()
+    {
+        return new Promise<>((resolve, reject) ->
+        {
+            if (getEntry() != null)
+            {
+                reject.invoke(new SilenceException("Cannot list files in a file, only directories"));
+                return;
+            }
+
+            String prefix = getPath().isEmpty() ? "" : getPath() + SEPARATOR;
+            List<FilePath> children = new ArrayList<>();
+            List<String> names = new ArrayList<>();
+
+            for (AssetBundle.Entry entry : bundle.getEntries())
+            {
+                if (!entry.path.startsWith(prefix))
+                    continue;
+
+                // Only the immediate children, files in the sub directories are listed by the sub directory
+                String name = entry.path.substring(prefix.length());
+                int index = name.indexOf(SEPARATOR);
+
+                if (index >= 0)
+                    name = name.substring(0, index);
+
+                if (!names.contains(name))
+                {
+                    names.add(name);
+                    children.add(getChild(name));
+                }
+            }
+
+            resolve.invoke(Collections.unmodifiableList(children));
+        });
+    }
+}
@@ -102,6 +102,12 @@ public abstract class FilePath
      */
     public static FilePath getResourceFile(String path)
     {
+        // Resources in the mounted asset bundles take precedence over the ones of the platform
+        FilePath bundled = AssetBundle.find(path.startsWith("" + SEPARATOR) ? path.substring(1) : path);
+
+        if (bundled != null)
+            return bundled;
+
         return SilenceEngine.io.createResourceFilePath(path);
     }
 
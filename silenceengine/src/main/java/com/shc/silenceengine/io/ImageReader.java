@@ -26,6 +26,7 @@ package com.shc.silenceengine.io;
 
 import com.shc.silenceengine.core.SilenceEngine;
 import com.shc.silenceengine.graphics.Image;
+import com.shc.silenceengine.utils.TaskManager;
 import com.shc.silenceengine.utils.functional.Promise;
 import com.shc.silenceengine.utils.functional.UniCallback;
 
@@ -46,6 +47,21 @@ public abstract class ImageReader
 
     public void readImage(FilePath filePath, UniCallback<Image> uniCallback, UniCallback<Throwable> error)
     {
+        // Images in asset bundles are already decoded, and only need to be converted
+        if (filePath instanceof BundleFilePath && ((BundleFilePath) filePath).is(AssetBundle.Kind.IMAGE))
+        {
+            BundleFilePath bundled = (BundleFilePath) filePath;
+            int[] size = bundled.getEntry().metadata;
+
+            TaskManager.runOnWorker(() ->
+            {
+                Image image = Image.fromPixels(bundled.map(), size[0], size[1]);
+                TaskManager.runOnUpdate(() -> uniCallback.invoke(image));
+            });
+
+            return;
+        }
+
         SilenceEngine.io.getFileReader().readBinaryFile(filePath, directBuffer ->
                 readImage(directBuffer, image ->
                 {
@@ -27,12 +27,22 @@ package com.shc.silenceengine.logging;
 import com.shc.silenceengine.core.SilenceEngine;
 
 /**
+ * <p>A named logger. The messages below the level of the logger are discarded, and checking the level costs only a
+ * comparison, so the messages that are not needed in a build can stay in the code.</p>
+ *
+ * <p>The log methods that take a format and fixed arguments do not allocate any arrays, and only format the message
+ * when the level is enabled. Each {@code {}} in the format is replaced with the next argument. Loggers that write the
+ * messages on another thread may format the immutable arguments later, but the others are formatted when they are
+ * logged, so the message always shows the values the arguments had at that time.</p>
+ *
  * @author Sri Harsha Chilakapati
  */
 public abstract class Logger
 {
     public final String name;
 
+    private Level level = Level.INFO;
+
     public Logger(String name)
     {
         this.name = name;
@@ -43,16 +53,64 @@ public abstract class Logger
         return SilenceEngine.log.getLogger(name);
     }
 
+    /**
+     * Appends a format to a builder, replacing each {@code {}} in it with the next argument. The placeholders that do
+     * not have an argument are left as they are.
+     *
+     * @param builder The builder to append the message to.
+     * @param format  The format of the message.
+     * @param args    The arguments of the message.
+     *
+     * @return The builder, to chain the calls.
+     */
+    public static StringBuilder format(StringBuilder builder, String format, Object... args)
+    {
+        int start = 0;
+        int arg = 0;
+
+        while (arg < args.length)
+        {
+            int index = format.indexOf("{}", start);
+
+            if (index < 0)
+                break;
+
+            builder.append(format, start, index).append(args[arg++]);
+            start = index + 2;
+        }
+
+        return builder.append(format, start, format.length());
+    }
+
     public abstract void info(Object... messages);
 
     public abstract void warn(Object... messages);
 
     public abstract void error(Object... messages);
 
+    /**
+     * Logs messages that are only useful while debugging. The loggers that do not have a separate output for them log
+     * them as info.
+     *
+     * @param messages The messages to log.
+     */
+    public void debug(Object... messages)
+    {
+        if (isEnabled(Level.DEBUG))
+            info(messages);
+    }
+
     public void log(Level level, Object... messages)
     {
+        if (!isEnabled(level))
+            return;
+
         switch (level)
         {
+            case DEBUG:
+                debug(messages);
+                break;
+
             case INFO:
                 info(messages);
                 break;
@@ -67,8 +125,53 @@ public abstract class Logger
         }
     }
 
+    public void log(Level level, String format, Object arg)
+    {
+        if (isEnabled(level))
+            log(level, (Object) format(new StringBuilder(), format, arg).toString());
+    }
+
+    public void log(Level level, String format, Object arg1, Object arg2)
+    {
+        if (isEnabled(level))
+            log(level, (Object) format(new StringBuilder(), format, arg1, arg2).toString());
+    }
+
+    public void log(Level level, String format, long arg)
+    {
+        if (isEnabled(level))
+            log(level, (Object) format(new StringBuilder(), format, arg).toString());
+    }
+
+    public void log(Level level, String format, double arg)
+    {
+        if (isEnabled(level))
+            log(level, (Object) format(new StringBuilder(), format, arg).toString());
+    }
+
+    public boolean isEnabled(Level level)
+    {
+        return level.ordinal() >= this.level.ordinal();
+    }
+
+    public Level getLevel()
+    {
+        return level;
+    }
+
+    /**
+     * Sets the lowest level of the messages that are logged, the messages below it are discarded.
+     *
+     * @param level The lowest level to log.
+     */
+    public void setLevel(Level level)
+    {
+        this.level = level;
+    }
+
     public enum Level
     {
+        DEBUG,
         INFO,
         WARNING,
         ERROR
@@ -60,8 +60,9 @@ public class Frustum
     public static final int BOTTOM_LEFT  = 2;
     public static final int BOTTOM_RIGHT = 3;
 
-    // The array of all the planes of the frustum
+    // The array of all the planes of the frustum, and the same packed for the geometry kernels
     private Plane[] planes;
+    private float[] planeData;
 
     // The frustum matrix
     private Matrix4 frustumMatrix;
@@ -79,6 +80,8 @@ public class Frustum
         for (int i = 0; i < planes.length; i++)
             planes[i] = new Plane();
 
+        planeData = new float[planes.length * GeometryKernels.PLANE_SIZE];
+
         // Create the frustum matrix and corners array
         frustumMatrix = new Matrix4().initIdentity();
         frustumCorners = new Vector3[8];
@@ -173,6 +176,16 @@ public class Frustum
                 frustumMatrix.get(2, 3) - frustumMatrix.get(2, 2),
                 frustumMatrix.get(3, 3) - frustumMatrix.get(3, 2));
 
+        for (int i = 0; i < planes.length; i++)
+        {
+            int p = i * GeometryKernels.PLANE_SIZE;
+
+            planeData[p] = planes[i].normal.x;
+            planeData[p + 1] = planes[i].normal.y;
+            planeData[p + 2] = planes[i].normal.z;
+            planeData[p + 3] = planes[i].d;
+        }
+
         // Find the corner points of the volume (Polyhedron is updated automatically)
         Plane.intersection(planes[TOP], planes[LEFT], planes[FAR], frustumCorners[TOP_LEFT_FAR]);
         Plane.intersection(planes[TOP], planes[RIGHT], planes[FAR], frustumCorners[TOP_RIGHT_FAR]);
@@ -189,6 +202,7 @@ public class Frustum
         frustumPolygonVertices[TOP_RIGHT].set(frustumCorners[TOP_RIGHT_NEAR].x, frustumCorners[TOP_RIGHT_NEAR].y);
         frustumPolygonVertices[BOTTOM_RIGHT].set(frustumCorners[BOTTOM_RIGHT_NEAR].x, frustumCorners[BOTTOM_RIGHT_NEAR].y);
         frustumPolygonVertices[BOTTOM_LEFT].set(frustumCorners[BOTTOM_LEFT_NEAR].x, frustumCorners[BOTTOM_LEFT_NEAR].y);
+        frustumPolygon.invalidate();
 
         return this;
     }
@@ -202,8 +216,10 @@ public class Frustum
             return true;
 
         // If there is at least one point that is inside the frustum, then the polygon should be intersecting
-        for (Vector2 v : polygon.getVertices())
-            if (isInside(v.x + polygon.getPosition().x, v.y + polygon.getPosition().y, planes[NEAR].d))
+        float[] vertices = polygon.getWorldVertexData();
+
+        for (int i = 0; i < polygon.vertexCount(); i++)
+            if (isInside(vertices[i * 2], vertices[i * 2 + 1], planes[NEAR].d))
                 return true;
 
         // Otherwise, there maybe one edge that is intersecting the frustum
@@ -277,26 +293,51 @@ public class Frustum
         float halfHeight = height / 2;
         float halfThickness = thickness / 2;
 
-        float x = position.x;
-        float y = position.y;
-        float z = position.z;
-
         for (Plane plane : planes)
         {
-            if (plane.testPoint(x + halfWidth, y + halfHeight, z + halfThickness) == Plane.Side.BACK &&
-                plane.testPoint(x + halfWidth, y + halfHeight, z - halfThickness) == Plane.Side.BACK &&
-                plane.testPoint(x + halfWidth, y - halfHeight, z + halfThickness) == Plane.Side.BACK &&
-                plane.testPoint(x + halfWidth, y - halfHeight, z - halfThickness) == Plane.Side.BACK &&
-                plane.testPoint(x - halfWidth, y + halfHeight, z + halfThickness) == Plane.Side.BACK &&
-                plane.testPoint(x - halfWidth, y + halfHeight, z - halfThickness) == Plane.Side.BACK &&
-                plane.testPoint(x - halfWidth, y - halfHeight, z + halfThickness) == Plane.Side.BACK &&
-                plane.testPoint(x - halfWidth, y - halfHeight, z - halfThickness) == Plane.Side.BACK)
+            // The box is outside if even the corner farthest along the normal is behind the plane
+            Vector3 n = plane.normal;
+
+            if (n.dot(position) + plane.d + Math.abs(n.x) * halfWidth + Math.abs(n.y) * halfHeight
+                + Math.abs(n.z) * halfThickness < 0)
                 return false;
         }
 
         return true;
     }
 
+    /**
+     * Tests many axis aligned boxes against this frustum at once. The boxes are packed as described in {@link
+     * GeometryKernels}, with their center and their half sizes.
+     *
+     * @param boxes   The array of the packed boxes.
+     * @param offset  The index of the first float of the first box.
+     * @param count   The number of boxes to test.
+     * @param visible The array to store the result of each box into, starting from zero.
+     *
+     * @return The number of boxes that intersect this frustum.
+     */
+    public int intersects(float[] boxes, int offset, int count, boolean[] visible)
+    {
+        return GeometryKernels.getInstance().testAABBs(planeData, planes.length, boxes, offset, count, visible);
+    }
+
+    /**
+     * Tests many spheres against this frustum at once. The spheres are packed as described in {@link
+     * GeometryKernels}, with their center and their radius.
+     *
+     * @param spheres The array of the packed spheres.
+     * @param offset  The index of the first float of the first sphere.
+     * @param count   The number of spheres to test.
+     * @param visible The array to store the result of each sphere into, starting from zero.
+     *
+     * @return The number of spheres that intersect this frustum.
+     */
+    public int intersectsSpheres(float[] spheres, int offset, int count, boolean[] visible)
+    {
+        return GeometryKernels.getInstance().testSpheres(planeData, planes.length, spheres, offset, count, visible);
+    }
+
     public boolean isInside(Polyhedron polyhedron)
     {
         // Definitely not inside if the center is not in frustum
@@ -0,0 +1,299 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.math;
+
+/**
+ * <p>Bulk geometry operations on points, boxes and spheres packed in float arrays, for the code that would otherwise
+ * process one {@link Vector2} or {@link Vector3} at a time. The points are packed as {@code x, y} or {@code x, y, z},
+ * the boxes as {@code centerX, centerY, centerZ, halfWidth, halfHeight, halfThickness}, the spheres as {@code x, y, z,
+ * radius} and the planes as {@code normalX, normalY, normalZ, d}, one after another without any gaps.</p>
+ *
+ * <p>This class is the plain scalar implementation, that works on every platform. A backend can replace it with a
+ * faster one using {@link #setInstance(GeometryKernels)}, the desktop backend uses SIMD instructions when the JVM
+ * supports the vector API. Use {@link #getInstance()} to get the one in use.</p>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class GeometryKernels
+{
+    /**
+     * The number of floats used to store a point in two dimensions.
+     */
+    public static final int POINT2_SIZE = 2;
+
+    /**
+     * The number of floats used to store a point in three dimensions.
+     */
+    public static final int POINT3_SIZE = 3;
+
+    /**
+     * The number of floats used to store an axis aligned box.
+     */
+    public static final int AABB_SIZE = 6;
+
+    /**
+     * The number of floats used to store a sphere.
+     */
+    public static final int SPHERE_SIZE = 4;
+
+    /**
+     * The number of floats used to store a plane.
+     */
+    public static final int PLANE_SIZE = 4;
+
+    private static GeometryKernels instance = new GeometryKernels();
+
+    public static GeometryKernels getInstance()
+    {
+        return instance;
+    }
+
+    public static void setInstance(GeometryKernels kernels)
+    {
+        instance = kernels == null ? new GeometryKernels() : kernels;
+    }
+
+    /**
+     * Transforms points in two dimensions by a matrix, treating them as points on the XY plane. The source and the
+     * destination can be the same array at the same offset.
+     *
+     * @param m          The matrix to transform the points with.
+     * @param src        The array of the packed source points.
+     * @param srcOffset  The index of the first float of the first point in the source array.
+     * @param dest       The array to store the transformed points into.
+     * @param destOffset The index of the first float of the first point in the destination array.
+     * @param count      The number of points to transform.
+     */
+    public void transformPoints2(Matrix4 m, float[] src, int srcOffset, float[] dest, int destOffset, int count)
+    {
+        float[] a = m.m;
+
+        for (int i = 0; i < count; i++)
+        {
+            int s = srcOffset + i * POINT2_SIZE;
+            int d = destOffset + i * POINT2_SIZE;
+
+            float x = src[s];
+            float y = src[s + 1];
+
+            dest[d] = a[0] * x + a[4] * y + a[12];
+            dest[d + 1] = a[1] * x + a[5] * y + a[13];
+        }
+    }
+
+    /**
+     * Transforms points in three dimensions by a matrix. The source and the destination can be the same array at the
+     * same offset.
+     *
+     * @param m          The matrix to transform the points with.
+     * @param src        The array of the packed source points.
+     * @param srcOffset  The index of the first float of the first point in the source array.
+     * @param dest       The array to store the transformed points into.
+     * @param destOffset The index of the first float of the first point in the destination array.
+     * @param count      The number of points to transform.
+     */
+    public void transformPoints3(Matrix4 m, float[] src, int srcOffset, float[] dest, int destOffset, int count)
+    {
+        float[] a = m.m;
+
+        for (int i = 0; i < count; i++)
+        {
+            int s = srcOffset + i * POINT3_SIZE;
+            int d = destOffset + i * POINT3_SIZE;
+
+            float x = src[s];
+            float y = src[s + 1];
+            float z = src[s + 2];
+
+            dest[d] = a[0] * x + a[4] * y + a[8] * z + a[12];
+            dest[d + 1] = a[1] * x + a[5] * y + a[9] * z + a[13];
+            dest[d + 2] = a[2] * x + a[6] * y + a[10] * z + a[14];
+        }
+    }
+
+    /**
+     * Projects points in two dimensions onto an axis, and finds the range they cover on it.
+     *
+     * @param points The array of the packed points.
+     * @param offset The index of the first float of the first point.
+     * @param count  The number of points to project.
+     * @param axisX  The X component of the axis.
+     * @param axisY  The Y component of the axis.
+     * @param dest   The vector to store the minimum (in x) and the maximum (in y) of the projections.
+     *
+     * @return The destination vector.
+     */
+    public Vector2 projectPoints2(float[] points, int offset, int count, float axisX, float axisY, Vector2 dest)
+    {
+        float min = Float.MAX_VALUE;
+        float max = -min;
+
+        for (int i = 0; i < count; i++)
+        {
+            int s = offset + i * POINT2_SIZE;
+            float dot = points[s] * axisX + points[s + 1] * axisY;
+
+            if (dot < min) min = dot;
+            if (dot > max) max = dot;
+        }
+
+        return dest.set(min, max);
+    }
+
+    /**
+     * Projects points in three dimensions onto an axis, and finds the range they cover on it.
+     *
+     * @param points The array of the packed points.
+     * @param offset The index of the first float of the first point.
+     * @param count  The number of points to project.
+     * @param axisX  The X component of the axis.
+     * @param axisY  The Y component of the axis.
+     * @param axisZ  The Z component of the axis.
+     * @param dest   The vector to store the minimum (in x) and the maximum (in y) of the projections.
+     *
+     * @return The destination vector.
+     */
+    public Vector2 projectPoints3(float[] points, int offset, int count, float axisX, float axisY, float axisZ,
+                                  Vector2 dest)
+    {
+        float min = Float.MAX_VALUE;
+        float max = -min;
+
+        for (int i = 0; i < count; i++)
+        {
+            int s = offset + i * POINT3_SIZE;
+            float dot = points[s] * axisX + points[s + 1] * axisY + points[s + 2] * axisZ;
+
+            if (dot < min) min = dot;
+            if (dot > max) max = dot;
+        }
+
+        return dest.set(min, max);
+    }
+
+    /**
+     * Tests axis aligned boxes against a set of planes, like the ones of a {@link Frustum}. A box is visible unless it
+     * is completely behind at least one of the planes.
+     *
+     * @param planes     The array of the packed planes.
+     * @param planeCount The number of planes in the array.
+     * @param boxes      The array of the packed boxes.
+     * @param offset     The index of the first float of the first box.
+     * @param count      The number of boxes to test.
+     * @param visible    The array to store the result of each box into, starting from zero.
+     *
+     * @return The number of boxes that are visible.
+     */
+    public int testAABBs(float[] planes, int planeCount, float[] boxes, int offset, int count, boolean[] visible)
+    {
+        return testAABBs(planes, planeCount, boxes, offset, 0, count, visible);
+    }
+
+    /**
+     * Tests the boxes starting from the one at the index {@code first}, which lets the implementations leave the last
+     * few to this method.
+     */
+    protected int testAABBs(float[] planes, int planeCount, float[] boxes, int offset, int first, int count,
+                            boolean[] visible)
+    {
+        int numVisible = 0;
+
+        for (int i = first; i < count; i++)
+        {
+            int b = offset + i * AABB_SIZE;
+            boolean inside = true;
+
+            for (int p = 0; p < planeCount * PLANE_SIZE && inside; p += PLANE_SIZE)
+            {
+                float nx = planes[p];
+                float ny = planes[p + 1];
+                float nz = planes[p + 2];
+
+                // The distance of the corner that is farthest along the normal
+                float distance = nx * boxes[b] + ny * boxes[b + 1] + nz * boxes[b + 2] + planes[p + 3]
+                                 + Math.abs(nx) * boxes[b + 3] + Math.abs(ny) * boxes[b + 4]
+                                 + Math.abs(nz) * boxes[b + 5];
+
+                inside = distance >= 0;
+            }
+
+            visible[i] = inside;
+
+            if (inside)
+                numVisible++;
+        }
+
+        return numVisible;
+    }
+
+    /**
+     * Tests spheres against a set of planes, like the ones of a {@link Frustum}. A sphere is visible unless it is
+     * completely behind at least one of the planes.
+     *
+     * @param planes     The array of the packed planes.
+     * @param planeCount The number of planes in the array.
+     * @param spheres    The array of the packed spheres.
+     * @param offset     The index of the first float of the first sphere.
+     * @param count      The number of spheres to test.
+     * @param visible    The array to store the result of each sphere into, starting from zero.
+     *
+     * @return The number of spheres that are visible.
+     */
+    public int testSpheres(float[] planes, int planeCount, float[] spheres, int offset, int count, boolean[] visible)
+    {
+        return testSpheres(planes, planeCount, spheres, offset, 0, count, visible);
+    }
+
+    /**
+     * Tests the spheres starting from the one at the index {@code first}, which lets the implementations leave the last
+     * few to this method.
+     */
+    protected int testSpheres(float[] planes, int planeCount, float[] spheres, int offset, int first, int count,
+                            boolean[] visible)
+    {
+        int numVisible = 0;
+
+        for (int i = first; i < count; i++)
+        {
+            int s = offset + i * SPHERE_SIZE;
+            boolean inside = true;
+
+            for (int p = 0; p < planeCount * PLANE_SIZE && inside; p += PLANE_SIZE)
+            {
+                float distance = planes[p] * spheres[s] + planes[p + 1] * spheres[s + 1]
+                                 + planes[p + 2] * spheres[s + 2] + planes[p + 3];
+
+                inside = distance + spheres[s + 3] >= 0;
+            }
+
+            visible[i] = inside;
+
+            if (inside)
+                numVisible++;
+        }
+
+        return numVisible;
+    }
+}
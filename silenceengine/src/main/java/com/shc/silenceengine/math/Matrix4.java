@@ -30,34 +30,41 @@ import com.shc.silenceengine.utils.ReusableStack;
 import java.util.Arrays;
 
 /**
+ * <p>A 4x4 matrix of floats. The elements are stored in a single flat array in the column major order, so the element
+ * at the column {@code x} and the row {@code y} is at the index {@code x * 4 + y}. This is the same order that OpenGL
+ * expects the matrices in.</p>
+ *
+ * <p>None of the operations on the matrix need any temporary matrices, all the intermediate values are held in
+ * locals.</p>
+ *
  * @author Sri Harsha Chilakapati
  */
 public class Matrix4
 {
     public static final ReusableStack<Matrix4> REUSABLE_STACK = new ReusableStack<>(Matrix4::new);
 
-    public final float[][] m;
+    public final float[] m;
 
     public Matrix4(Vector4 c0, Vector4 c1, Vector4 c2, Vector4 c3)
     {
-        this();
-
-        m[0][0] = c0.x;
-        m[1][0] = c1.x;
-        m[2][0] = c2.x;
-        m[3][0] = c3.x;
-        m[0][1] = c0.y;
-        m[1][1] = c1.y;
-        m[2][1] = c2.y;
-        m[3][1] = c3.y;
-        m[0][2] = c0.z;
-        m[1][2] = c1.z;
-        m[2][2] = c2.z;
-        m[3][2] = c3.z;
-        m[0][3] = c0.w;
-        m[1][3] = c1.w;
-        m[2][3] = c2.w;
-        m[3][3] = c3.w;
+        m = new float[16];
+
+        m[0] = c0.x;
+        m[1] = c0.y;
+        m[2] = c0.z;
+        m[3] = c0.w;
+        m[4] = c1.x;
+        m[5] = c1.y;
+        m[6] = c1.z;
+        m[7] = c1.w;
+        m[8] = c2.x;
+        m[9] = c2.y;
+        m[10] = c2.z;
+        m[11] = c2.w;
+        m[12] = c3.x;
+        m[13] = c3.y;
+        m[14] = c3.z;
+        m[15] = c3.w;
     }
 
     public Matrix4(Matrix3 m)
@@ -68,7 +75,7 @@ public class Matrix4
 
     public Matrix4()
     {
-        m = new float[4][4];
+        m = new float[16];
         initIdentity();
     }
 
@@ -84,13 +91,57 @@ public class Matrix4
         set(diagonal);
     }
 
+    /**
+     * Multiplies two matrices that are stored in flat arrays, in the same layout as the {@link #m} of this class. This
+     * is used by the systems that keep many matrices packed in a single array. The destination can be the same matrix as
+     * any of the operands, but must not partially overlap them.
+     *
+     * @param left  The array with the left operand.
+     * @param l     The offset of the left operand in its array.
+     * @param right The array with the right operand.
+     * @param r     The offset of the right operand in its array.
+     * @param dest  The array to store the product into.
+     * @param d     The offset of the product in its array.
+     */
+    public static void multiply(float[] left, int l, float[] right, int r, float[] dest, int d)
+    {
+        float a0 = left[l + 0], a1 = left[l + 1], a2 = left[l + 2], a3 = left[l + 3];
+        float a4 = left[l + 4], a5 = left[l + 5], a6 = left[l + 6], a7 = left[l + 7];
+        float a8 = left[l + 8], a9 = left[l + 9], a10 = left[l + 10], a11 = left[l + 11];
+        float a12 = left[l + 12], a13 = left[l + 13], a14 = left[l + 14], a15 = left[l + 15];
+
+        float b0 = right[r + 0], b1 = right[r + 1], b2 = right[r + 2], b3 = right[r + 3];
+        dest[d + 0] = a0 * b0 + a4 * b1 + a8 * b2 + a12 * b3;
+        dest[d + 1] = a1 * b0 + a5 * b1 + a9 * b2 + a13 * b3;
+        dest[d + 2] = a2 * b0 + a6 * b1 + a10 * b2 + a14 * b3;
+        dest[d + 3] = a3 * b0 + a7 * b1 + a11 * b2 + a15 * b3;
+
+        float b4 = right[r + 4], b5 = right[r + 5], b6 = right[r + 6], b7 = right[r + 7];
+        dest[d + 4] = a0 * b4 + a4 * b5 + a8 * b6 + a12 * b7;
+        dest[d + 5] = a1 * b4 + a5 * b5 + a9 * b6 + a13 * b7;
+        dest[d + 6] = a2 * b4 + a6 * b5 + a10 * b6 + a14 * b7;
+        dest[d + 7] = a3 * b4 + a7 * b5 + a11 * b6 + a15 * b7;
+
+        float b8 = right[r + 8], b9 = right[r + 9], b10 = right[r + 10], b11 = right[r + 11];
+        dest[d + 8] = a0 * b8 + a4 * b9 + a8 * b10 + a12 * b11;
+        dest[d + 9] = a1 * b8 + a5 * b9 + a9 * b10 + a13 * b11;
+        dest[d + 10] = a2 * b8 + a6 * b9 + a10 * b10 + a14 * b11;
+        dest[d + 11] = a3 * b8 + a7 * b9 + a11 * b10 + a15 * b11;
+
+        float b12 = right[r + 12], b13 = right[r + 13], b14 = right[r + 14], b15 = right[r + 15];
+        dest[d + 12] = a0 * b12 + a4 * b13 + a8 * b14 + a12 * b15;
+        dest[d + 13] = a1 * b12 + a5 * b13 + a9 * b14 + a13 * b15;
+        dest[d + 14] = a2 * b12 + a6 * b13 + a10 * b14 + a14 * b15;
+        dest[d + 15] = a3 * b12 + a7 * b13 + a11 * b14 + a15 * b15;
+    }
+
     public Matrix4 set(Matrix3 m)
     {
         for (int i = 0; i < 3; i++)
         {
             for (int j = 0; j < 3; j++)
             {
-                this.m[i][j] = m.m[i][j];
+                this.m[i * 4 + j] = m.m[i][j];
             }
         }
 
@@ -99,36 +150,25 @@ public class Matrix4
 
     public Matrix4 initIdentity()
     {
-        for (int i = 0; i < 4; i++)
-        {
-            for (int j = 0; j < 4; j++)
-            {
-                if (i == j)
-                    m[i][j] = 1;
-                else
-                    m[i][j] = 0;
-            }
-        }
+        Arrays.fill(m, 0);
+
+        m[0] = 1;
+        m[5] = 1;
+        m[10] = 1;
+        m[15] = 1;
 
         return this;
     }
 
     public Matrix4 set(Matrix4 m)
     {
-        for (int i = 0; i < 4; i++)
-        {
-            for (int j = 0; j < 4; j++)
-            {
-                this.m[i][j] = m.m[i][j];
-            }
-        }
-
+        System.arraycopy(m.m, 0, this.m, 0, 16);
         return this;
     }
 
     public float get(int x, int y)
     {
-        return m[x][y];
+        return m[x * 4 + y];
     }
 
     public Matrix4 set(float diagonal)
@@ -137,7 +177,7 @@ public class Matrix4
         {
             for (int j = 0; j < 3; j++)
             {
-                m[i][j] = (i == j) ? diagonal : 0;
+                m[i * 4 + j] = (i == j) ? diagonal : 0;
             }
         }
 
@@ -146,67 +186,113 @@ public class Matrix4
 
     public Matrix4 add(Matrix4 m)
     {
-        for (int i = 0; i < 4; i++)
-        {
-            for (int j = 0; j < 4; j++)
-            {
-                this.m[i][j] += m.m[i][j];
-            }
-        }
+        for (int i = 0; i < 16; i++)
+            this.m[i] += m.m[i];
 
         return this;
     }
 
     public Matrix4 subtract(Matrix4 m)
     {
-        for (int i = 0; i < 4; i++)
-        {
-            for (int j = 0; j < 4; j++)
-            {
-                this.m[i][j] -= m.m[i][j];
-            }
-        }
+        for (int i = 0; i < 16; i++)
+            this.m[i] -= m.m[i];
 
         return this;
     }
 
     public Matrix4 multiply(Matrix4 m)
     {
-        // Use a temporary matrix from the matrix stack instead of
-        // creating a temporary float array every frame.
-        Matrix4 temp = Matrix4.REUSABLE_STACK.pop().initZero();
-
-        for (int r = 0; r < 4; r++)
-        {
-            for (int c = 0; c < 4; c++)
-            {
-                for (int k = 0; k < 4; k++)
-                    temp.m[c][r] += this.m[k][r] * m.m[c][k];
-            }
-        }
-
-        this.set(temp);
-        Matrix4.REUSABLE_STACK.push(temp);
+        multiply(this.m, 0, m.m, 0, this.m, 0);
+        return this;
+    }
 
+    /**
+     * Multiplies the given matrix with this matrix from the left side, that is, this matrix becomes \( M \cdot this
+     * \). This is how the transformations are accumulated, as the transformation applied last comes first.
+     *
+     * @param m The matrix to multiply this matrix with.
+     *
+     * @return This matrix, for chaining the calls.
+     */
+    public Matrix4 premultiply(Matrix4 m)
+    {
+        multiply(m.m, 0, this.m, 0, this.m, 0);
         return this;
     }
 
     public Matrix4 initZero()
     {
-        for (int i = 0; i < 4; i++)
-        {
-            for (int j = 0; j < 4; j++)
-            {
-                m[i][j] = 0;
-            }
-        }
-
+        Arrays.fill(m, 0);
         return this;
     }
 
     public Matrix4 set(int x, int j, float val)
     {
-        m[x][j] = val;
+        m[x * 4 + j] = val;
+
+        return this;
+    }
+
+    /**
+     * Sets this matrix to the transformation that scales, then rotates and then translates, in a single pass. This is
+     * the same as {@code initIdentity()} followed by the scaling, the rotation and the translation matrices multiplied
+     * from the left, but without doing any of the matrix multiplications.
+     *
+     * @param position The translation.
+     * @param rotation The rotation. It need not be normalized, and is not modified.
+     * @param scale    The scale along each of the axes.
+     *
+     * @return This matrix, for chaining the calls.
+     */
+    public Matrix4 setTRS(Vector3 position, Quaternion rotation, Vector3 scale)
+    {
+        float qx = rotation.x;
+        float qy = rotation.y;
+        float qz = rotation.z;
+        float qw = rotation.w;
+
+        float lengthSquared = qx * qx + qy * qy + qz * qz + qw * qw;
+
+        if (lengthSquared != 0 && lengthSquared != 1)
+        {
+            float invLength = 1 / (float) Math.sqrt(lengthSquared);
+
+            qx *= invLength;
+            qy *= invLength;
+            qz *= invLength;
+            qw *= invLength;
+        }
+
+        float x2 = qx * qx;
+        float y2 = qy * qy;
+        float z2 = qz * qz;
+        float xy = qx * qy;
+        float xz = qx * qz;
+        float yz = qy * qz;
+        float wx = qw * qx;
+        float wy = qw * qy;
+        float wz = qw * qz;
+
+        // The columns of the rotation matrix, each scaled by the scale along that axis
+        m[0] = (1 - 2 * (y2 + z2)) * scale.x;
+        m[1] = 2 * (xy + wz) * scale.x;
+        m[2] = 2 * (xz - wy) * scale.x;
+        m[3] = 0;
+
+        m[4] = 2 * (xy - wz) * scale.y;
+        m[5] = (1 - 2 * (x2 + z2)) * scale.y;
+        m[6] = 2 * (yz + wx) * scale.y;
+        m[7] = 0;
+
+        m[8] = 2 * (xz + wy) * scale.z;
+        m[9] = 2 * (yz - wx) * scale.z;
+        m[10] = (1 - 2 * (x2 + y2)) * scale.z;
+        m[11] = 0;
+
+        m[12] = position.x;
+        m[13] = position.y;
+        m[14] = position.z;
+        m[15] = 1;
 
         return this;
     }
@@ -218,9 +304,9 @@ public class Matrix4
         float Z = v.z;
         float W = 1;
 
-        float A = m[0][0], B = m[0][1], C = m[0][2], D = m[0][3];
-        float E = m[1][0], F = m[1][1], G = m[1][2], H = m[1][3];
-        float I = m[2][0], J = m[2][1], K = m[2][2], L = m[2][3];
+        float A = m[0], B = m[1], C = m[2], D = m[3];
+        float E = m[4], F = m[5], G = m[6], H = m[7];
+        float I = m[8], J = m[9], K = m[10], L = m[11];
 
         // /        \  /   \     /                       \
         // | a b c d | | x |     | a.x + b.y + c.z + d.w |
@@ -258,10 +344,10 @@ public class Matrix4
         float Z = v.z;
         float W = 1;
 
-        float A = m[0][0], B = m[0][1], C = m[0][2], D = m[0][3];
-        float E = m[1][0], F = m[1][1], G = m[1][2], H = m[1][3];
-        float I = m[2][0], J = m[2][1], K = m[2][2], L = m[2][3];
-        float M = m[3][0], N = m[3][1], O = m[3][2], P = m[3][3];
+        float A = m[0], B = m[1], C = m[2], D = m[3];
+        float E = m[4], F = m[5], G = m[6], H = m[7];
+        float I = m[8], J = m[9], K = m[10], L = m[11];
+        float M = m[12], N = m[13], O = m[14], P = m[15];
 
         // /        \  /   \     /                       \
         // | a b c d | | x |     | a.x + b.y + c.z + d.w |
@@ -278,52 +364,122 @@ public class Matrix4
 
     public Matrix4 transpose()
     {
-        Matrix4 temp = Matrix4.REUSABLE_STACK.pop();
-
         for (int i = 0; i < 4; i++)
         {
-            for (int j = 0; j < 4; j++)
+            for (int j = i + 1; j < 4; j++)
             {
-                temp.set(i, j, m[j][i]);
+                float temp = m[i * 4 + j];
+                m[i * 4 + j] = m[j * 4 + i];
+                m[j * 4 + i] = temp;
             }
         }
 
-        this.set(temp);
-        Matrix4.REUSABLE_STACK.push(temp);
-
         return this;
     }
 
+    /**
+     * Checks whether this matrix is an affine transformation, that is, whether its last row is \( [0, 0, 0, 1] \).
+     * All the combinations of translations, rotations and scaling are affine, but the projections are not.
+     *
+     * @return True if this matrix is affine, else false.
+     */
+    public boolean isAffine()
+    {
+        return m[3] == 0 && m[7] == 0 && m[11] == 0 && m[15] == 1;
+    }
+
     public Matrix4 invert()
     {
-        float s = determinant();
+        if (isAffine())
+            return invertAffine();
+
+        float m00 = m[0], m01 = m[1], m02 = m[2], m03 = m[3];
+        float m10 = m[4], m11 = m[5], m12 = m[6], m13 = m[7];
+        float m20 = m[8], m21 = m[9], m22 = m[10], m23 = m[11];
+        float m30 = m[12], m31 = m[13], m32 = m[14], m33 = m[15];
+
+        float s = (m00 * m11 - m01 * m10) * (m22 * m33 - m23 * m32) -
+                  (m00 * m12 - m02 * m10) * (m21 * m33 - m23 * m31) +
+                  (m00 * m13 - m03 * m10) * (m21 * m32 - m22 * m31) +
+                  (m01 * m12 - m02 * m11) * (m20 * m33 - m23 * m30) -
+                  (m01 * m13 - m03 * m11) * (m20 * m32 - m22 * m30) +
+                  (m02 * m13 - m03 * m12) * (m20 * m31 - m21 * m30);
 
         if (s == 0)
             return this;
 
         s = 1f / s;
 
-        Matrix4 dest = Matrix4.REUSABLE_STACK.pop();
-
-        dest.m[0][0] = (m[1][1] * (m[2][2] * m[3][3] - m[2][3] * m[3][2]) + m[1][2] * (m[2][3] * m[3][1] - m[2][1] * m[3][3]) + m[1][3] * (m[2][1] * m[3][2] - m[2][2] * m[3][1])) * s;
-        dest.m[0][1] = (m[2][1] * (m[0][2] * m[3][3] - m[0][3] * m[3][2]) + m[2][2] * (m[0][3] * m[3][1] - m[0][1] * m[3][3]) + m[2][3] * (m[0][1] * m[3][2] - m[0][2] * m[3][1])) * s;
-        dest.m[0][2] = (m[3][1] * (m[0][2] * m[1][3] - m[0][3] * m[1][2]) + m[3][2] * (m[0][3] * m[1][1] - m[0][1] * m[1][3]) + m[3][3] * (m[0][1] * m[1][2] - m[0][2] * m[1][1])) * s;
-        dest.m[0][3] = (m[0][1] * (m[1][3] * m[2][2] - m[1][2] * m[2][3]) + m[0][2] * (m[1][1] * m[2][3] - m[1][3] * m[2][1]) + m[0][3] * (m[1][2] * m[2][1] - m[1][1] * m[2][2])) * s;
-        dest.m[1][0] = (m[1][2] * (m[2][0] * m[3][3] - m[2][3] * m[3][0]) + m[1][3] * (m[2][2] * m[3][0] - m[2][0] * m[3][2]) + m[1][0] * (m[2][3] * m[3][2] - m[2][2] * m[3][3])) * s;
-        dest.m[1][1] = (m[2][2] * (m[0][0] * m[3][3] - m[0][3] * m[3][0]) + m[2][3] * (m[0][2] * m[3][0] - m[0][0] * m[3][2]) + m[2][0] * (m[0][3] * m[3][2] - m[0][2] * m[3][3])) * s;
-        dest.m[1][2] = (m[3][2] * (m[0][0] * m[1][3] - m[0][3] * m[1][0]) + m[3][3] * (m[0][2] * m[1][0] - m[0][0] * m[1][2]) + m[3][0] * (m[0][3] * m[1][2] - m[0][2] * m[1][3])) * s;
-        dest.m[1][3] = (m[0][2] * (m[1][3] * m[2][0] - m[1][0] * m[2][3]) + m[0][3] * (m[1][0] * m[2][2] - m[1][2] * m[2][0]) + m[0][0] * (m[1][2] * m[2][3] - m[1][3] * m[2][2])) * s;
-        dest.m[2][0] = (m[1][3] * (m[2][0] * m[3][1] - m[2][1] * m[3][0]) + m[1][0] * (m[2][1] * m[3][3] - m[2][3] * m[3][1]) + m[1][1] * (m[2][3] * m[3][0] - m[2][0] * m[3][3])) * s;
-        dest.m[2][1] = (m[2][3] * (m[0][0] * m[3][1] - m[0][1] * m[3][0]) + m[2][0] * (m[0][1] * m[3][3] - m[0][3] * m[3][1]) + m[2][1] * (m[0][3] * m[3][0] - m[0][0] * m[3][3])) * s;
-        dest.m[2][2] = (m[3][3] * (m[0][0] * m[1][1] - m[0][1] * m[1][0]) + m[3][0] * (m[0][1] * m[1][3] - m[0][3] * m[1][1]) + m[3][1] * (m[0][3] * m[1][0] - m[0][0] * m[1][3])) * s;
-        dest.m[2][3] = (m[0][3] * (m[1][1] * m[2][0] - m[1][0] * m[2][1]) + m[0][0] * (m[1][3] * m[2][1] - m[1][1] * m[2][3]) + m[0][1] * (m[1][0] * m[2][3] - m[1][3] * m[2][0])) * s;
-        dest.m[3][0] = (m[1][0] * (m[2][2] * m[3][1] - m[2][1] * m[3][2]) + m[1][1] * (m[2][0] * m[3][2] - m[2][2] * m[3][0]) + m[1][2] * (m[2][1] * m[3][0] - m[2][0] * m[3][1])) * s;
-        dest.m[3][1] = (m[2][0] * (m[0][2] * m[3][1] - m[0][1] * m[3][2]) + m[2][1] * (m[0][0] * m[3][2] - m[0][2] * m[3][0]) + m[2][2] * (m[0][1] * m[3][0] - m[0][0] * m[3][1])) * s;
-        dest.m[3][2] = (m[3][0] * (m[0][2] * m[1][1] - m[0][1] * m[1][2]) + m[3][1] * (m[0][0] * m[1][2] - m[0][2] * m[1][0]) + m[3][2] * (m[0][1] * m[1][0] - m[0][0] * m[1][1])) * s;
-        dest.m[3][3] = (m[0][0] * (m[1][1] * m[2][2] - m[1][2] * m[2][1]) + m[0][1] * (m[1][2] * m[2][0] - m[1][0] * m[2][2]) + m[0][2] * (m[1][0] * m[2][1] - m[1][1] * m[2][0])) * s;
-
-        set(dest);
-        Matrix4.REUSABLE_STACK.push(dest);
+        m[0] = (m11 * (m22 * m33 - m23 * m32) + m12 * (m23 * m31 - m21 * m33) + m13 * (m21 * m32 - m22 * m31)) * s;
+        m[1] = (m21 * (m02 * m33 - m03 * m32) + m22 * (m03 * m31 - m01 * m33) + m23 * (m01 * m32 - m02 * m31)) * s;
+        m[2] = (m31 * (m02 * m13 - m03 * m12) + m32 * (m03 * m11 - m01 * m13) + m33 * (m01 * m12 - m02 * m11)) * s;
+        m[3] = (m01 * (m13 * m22 - m12 * m23) + m02 * (m11 * m23 - m13 * m21) + m03 * (m12 * m21 - m11 * m22)) * s;
+        m[4] = (m12 * (m20 * m33 - m23 * m30) + m13 * (m22 * m30 - m20 * m32) + m10 * (m23 * m32 - m22 * m33)) * s;
+        m[5] = (m22 * (m00 * m33 - m03 * m30) + m23 * (m02 * m30 - m00 * m32) + m20 * (m03 * m32 - m02 * m33)) * s;
+        m[6] = (m32 * (m00 * m13 - m03 * m10) + m33 * (m02 * m10 - m00 * m12) + m30 * (m03 * m12 - m02 * m13)) * s;
+        m[7] = (m02 * (m13 * m20 - m10 * m23) + m03 * (m10 * m22 - m12 * m20) + m00 * (m12 * m23 - m13 * m22)) * s;
+        m[8] = (m13 * (m20 * m31 - m21 * m30) + m10 * (m21 * m33 - m23 * m31) + m11 * (m23 * m30 - m20 * m33)) * s;
+        m[9] = (m23 * (m00 * m31 - m01 * m30) + m20 * (m01 * m33 - m03 * m31) + m21 * (m03 * m30 - m00 * m33)) * s;
+        m[10] = (m33 * (m00 * m11 - m01 * m10) + m30 * (m01 * m13 - m03 * m11) + m31 * (m03 * m10 - m00 * m13)) * s;
+        m[11] = (m03 * (m11 * m20 - m10 * m21) + m00 * (m13 * m21 - m11 * m23) + m01 * (m10 * m23 - m13 * m20)) * s;
+        m[12] = (m10 * (m22 * m31 - m21 * m32) + m11 * (m20 * m32 - m22 * m30) + m12 * (m21 * m30 - m20 * m31)) * s;
+        m[13] = (m20 * (m02 * m31 - m01 * m32) + m21 * (m00 * m32 - m02 * m30) + m22 * (m01 * m30 - m00 * m31)) * s;
+        m[14] = (m30 * (m02 * m11 - m01 * m12) + m31 * (m00 * m12 - m02 * m10) + m32 * (m01 * m10 - m00 * m11)) * s;
+        m[15] = (m00 * (m11 * m22 - m12 * m21) + m01 * (m12 * m20 - m10 * m22) + m02 * (m10 * m21 - m11 * m20)) * s;
+
+        return this;
+    }
+
+    /**
+     * Inverts this matrix assuming that it is affine, which is much cheaper than the general inverse. Only the upper
+     * 3x3 part is inverted, and the translation is then transformed by it. The result is not valid if this matrix is
+     * not affine, use {@link #invert()} if that is not known.
+     *
+     * @return This matrix, for chaining the calls.
+     */
+    public Matrix4 invertAffine()
+    {
+        // The upper 3x3 part, named by row and column
+        float a00 = m[0], a10 = m[1], a20 = m[2];
+        float a01 = m[4], a11 = m[5], a21 = m[6];
+        float a02 = m[8], a12 = m[9], a22 = m[10];
+
+        float tx = m[12], ty = m[13], tz = m[14];
+
+        float c00 = a11 * a22 - a12 * a21;
+        float c01 = a12 * a20 - a10 * a22;
+        float c02 = a10 * a21 - a11 * a20;
+
+        float det = a00 * c00 + a01 * c01 + a02 * c02;
+
+        if (det == 0)
+            return this;
+
+        float s = 1f / det;
+
+        float i00 = c00 * s;
+        float i01 = (a02 * a21 - a01 * a22) * s;
+        float i02 = (a01 * a12 - a02 * a11) * s;
+        float i10 = c01 * s;
+        float i11 = (a00 * a22 - a02 * a20) * s;
+        float i12 = (a02 * a10 - a00 * a12) * s;
+        float i20 = c02 * s;
+        float i21 = (a01 * a20 - a00 * a21) * s;
+        float i22 = (a00 * a11 - a01 * a10) * s;
+
+        m[0] = i00;
+        m[1] = i10;
+        m[2] = i20;
+        m[4] = i01;
+        m[5] = i11;
+        m[6] = i21;
+        m[8] = i02;
+        m[9] = i12;
+        m[10] = i22;
+
+        m[12] = -(i00 * tx + i01 * ty + i02 * tz);
+        m[13] = -(i10 * tx + i11 * ty + i12 * tz);
+        m[14] = -(i20 * tx + i21 * ty + i22 * tz);
 
         return this;
     }
@@ -335,25 +491,23 @@ public class Matrix4
 
     public float determinant()
     {
-        return (m[0][0] * m[1][1] - m[0][1] * m[1][0]) * (m[2][2] * m[3][3] - m[2][3] * m[3][2]) -
-               (m[0][0] * m[1][2] - m[0][2] * m[1][0]) * (m[2][1] * m[3][3] - m[2][3] * m[3][1]) +
-               (m[0][0] * m[1][3] - m[0][3] * m[1][0]) * (m[2][1] * m[3][2] - m[2][2] * m[3][1]) +
-               (m[0][1] * m[1][2] - m[0][2] * m[1][1]) * (m[2][0] * m[3][3] - m[2][3] * m[3][0]) -
-               (m[0][1] * m[1][3] - m[0][3] * m[1][1]) * (m[2][0] * m[3][2] - m[2][2] * m[3][0]) +
-               (m[0][2] * m[1][3] - m[0][3] * m[1][2]) * (m[2][0] * m[3][1] - m[2][1] * m[3][0]);
+        float m00 = m[0], m01 = m[1], m02 = m[2], m03 = m[3];
+        float m10 = m[4], m11 = m[5], m12 = m[6], m13 = m[7];
+        float m20 = m[8], m21 = m[9], m22 = m[10], m23 = m[11];
+        float m30 = m[12], m31 = m[13], m32 = m[14], m33 = m[15];
+
+        return (m00 * m11 - m01 * m10) * (m22 * m33 - m23 * m32) -
+               (m00 * m12 - m02 * m10) * (m21 * m33 - m23 * m31) +
+               (m00 * m13 - m03 * m10) * (m21 * m32 - m22 * m31) +
+               (m01 * m12 - m02 * m11) * (m20 * m33 - m23 * m30) -
+               (m01 * m13 - m03 * m11) * (m20 * m32 - m22 * m30) +
+               (m02 * m13 - m03 * m12) * (m20 * m31 - m21 * m30);
     }
 
     public DirectFloatBuffer storeInto(DirectFloatBuffer buffer)
     {
-        int index = 0;
-
-        for (int i = 0; i < 4; i++)
-        {
-            for (int j = 0; j < 4; j++)
-            {
-                buffer.write(index++, get(i, j));
-            }
-        }
+        for (int i = 0; i < 16; i++)
+            buffer.write(i, m[i]);
 
         return buffer;
     }
@@ -361,7 +515,7 @@ public class Matrix4
     @Override
     public int hashCode()
     {
-        return Arrays.deepHashCode(m);
+        return Arrays.hashCode(m);
     }
 
     @Override
@@ -372,7 +526,7 @@ public class Matrix4
 
         Matrix4 matrix4 = (Matrix4) o;
 
-        return Arrays.deepEquals(m, matrix4.m);
+        return Arrays.equals(m, matrix4.m);
     }
 
     @Override
@@ -383,7 +537,7 @@ public class Matrix4
         for (int i = 0; i < 4; i++)
         {
             for (int j = 0; j < 4; j++)
-                s.append(m[i][j]).append(' ');
+                s.append(m[i * 4 + j]).append(' ');
 
             s.append('\n');
         }
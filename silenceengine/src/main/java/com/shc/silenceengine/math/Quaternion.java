@@ -111,16 +111,16 @@ public class Quaternion
 
     public Quaternion set(float pitch, float yaw, float roll)
     {
-        pitch = (float) Math.toRadians(pitch) * 0.5f;
-        yaw = (float) Math.toRadians(yaw) * 0.5f;
-        roll = (float) Math.toRadians(roll) * 0.5f;
-
-        float sinP = (float) Math.sin(pitch);
-        float sinY = (float) Math.sin(yaw);
-        float sinR = (float) Math.sin(roll);
-        float cosP = (float) Math.cos(pitch);
-        float cosY = (float) Math.cos(yaw);
-        float cosR = (float) Math.cos(roll);
+        pitch *= 0.5f;
+        yaw *= 0.5f;
+        roll *= 0.5f;
+
+        float sinP = MathUtils.sin(pitch);
+        float sinY = MathUtils.sin(yaw);
+        float sinR = MathUtils.sin(roll);
+        float cosP = MathUtils.cos(pitch);
+        float cosY = MathUtils.cos(yaw);
+        float cosR = MathUtils.cos(roll);
 
         x = sinP * cosY * cosR - cosP * sinY * sinR;
         y = cosP * sinY * cosR + sinP * cosY * sinR;
@@ -62,7 +62,7 @@ public class Transform
     public Transform translate(Vector3 v)
     {
         Matrix4 temp = Matrix4.REUSABLE_STACK.pop();
-        matrix.set(Transforms.createTranslation(v, temp).multiply(matrix));
+        matrix.premultiply(Transforms.createTranslation(v, temp));
         Matrix4.REUSABLE_STACK.push(temp);
         changed = true;
 
@@ -71,9 +71,7 @@ public class Transform
 
     public Transform apply(Matrix4 matrix)
     {
-        Matrix4 temp = Matrix4.REUSABLE_STACK.pop();
-        this.matrix.set(temp.set(matrix).multiply(this.matrix));
-        Matrix4.REUSABLE_STACK.push(temp);
+        this.matrix.premultiply(matrix);
         changed = true;
         return this;
     }
@@ -81,7 +79,7 @@ public class Transform
     public Transform rotate(Vector3 axis, float angle)
     {
         Matrix4 temp = Matrix4.REUSABLE_STACK.pop();
-        matrix.set(Transforms.createRotation(axis, angle, temp).multiply(matrix));
+        matrix.premultiply(Transforms.createRotation(axis, angle, temp));
         Matrix4.REUSABLE_STACK.push(temp);
         changed = true;
 
@@ -94,7 +92,7 @@ public class Transform
         temp.set(rx, ry, rz);
 
         Matrix4 tMat = Matrix4.REUSABLE_STACK.pop();
-        matrix.set(Transforms.createRotation(temp, tMat).multiply(matrix));
+        matrix.premultiply(Transforms.createRotation(temp, tMat));
         Matrix4.REUSABLE_STACK.push(tMat);
 
         Quaternion.REUSABLE_STACK.push(temp);
@@ -115,7 +113,7 @@ public class Transform
     public Transform scale(Vector3 scale)
     {
         Matrix4 temp = Matrix4.REUSABLE_STACK.pop();
-        matrix.set(Transforms.createScaling(scale, temp).multiply(matrix));
+        matrix.premultiply(Transforms.createScaling(scale, temp));
         Matrix4.REUSABLE_STACK.push(temp);
         changed = true;
 
@@ -161,7 +159,26 @@ public class Transform
 
     public Transform set(Transform t)
     {
-        return reset().apply(t);
+        matrix.set(t.matrix);
+        changed = true;
+        return this;
+    }
+
+    /**
+     * Sets this transform to scale, then rotate and then translate, without multiplying the matrices of each of them.
+     * This is the same as calling {@code reset().scale(scale).rotate(rotation).translate(position)}.
+     *
+     * @param position The translation.
+     * @param rotation The rotation.
+     * @param scale    The scale.
+     *
+     * @return This transform, for chaining the calls.
+     */
+    public Transform setTRS(Vector3 position, Quaternion rotation, Vector3 scale)
+    {
+        matrix.setTRS(position, rotation, scale);
+        changed = true;
+        return this;
     }
 
     public Transform reset()
@@ -209,7 +226,7 @@ public class Transform
     public Transform rotate(Quaternion rotation)
     {
         Matrix4 tMat = Matrix4.REUSABLE_STACK.pop();
-        matrix.set(Transforms.createRotation(rotation, tMat).multiply(matrix));
+        matrix.premultiply(Transforms.createRotation(rotation, tMat));
         Matrix4.REUSABLE_STACK.push(tMat);
 
         return this;
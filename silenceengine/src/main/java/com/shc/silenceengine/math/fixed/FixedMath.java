@@ -0,0 +1,190 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.math.fixed;
+
+import com.shc.silenceengine.utils.DeterministicMath;
+
+/**
+ * <p>Operations on 16.16 fixed point numbers, which are ints whose lower 16 bits are the fraction. They range from
+ * -32768 to 32767.99998, in steps of 1/65536. The sums and differences are the plain sums and differences of the ints,
+ * and the products and quotients are done with longs, so they give the same results on every platform.</p>
+ *
+ * <p>The trigonometry functions take and return angles in degrees, also in fixed point. They are computed with {@link
+ * DeterministicMath} and rounded to the nearest fixed point number.</p>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public final class FixedMath
+{
+    public static final int FRACTION_BITS = 16;
+
+    public static final int ONE  = 1 << FRACTION_BITS;
+    public static final int HALF = ONE >> 1;
+
+    public static final int MAX_VALUE = Integer.MAX_VALUE;
+    public static final int MIN_VALUE = Integer.MIN_VALUE;
+
+    private FixedMath()
+    {
+    }
+
+    public static int toFixed(int value)
+    {
+        return value << FRACTION_BITS;
+    }
+
+    public static int toFixed(float value)
+    {
+        return (int) Math.floor(value * (double) ONE + 0.5);
+    }
+
+    public static int toFixed(double value)
+    {
+        return (int) Math.floor(value * ONE + 0.5);
+    }
+
+    public static float toFloat(int value)
+    {
+        return (float) (value / (double) ONE);
+    }
+
+    public static double toDouble(int value)
+    {
+        return value / (double) ONE;
+    }
+
+    /**
+     * Returns the integer part of a fixed point number, rounded towards negative infinity.
+     */
+    public static int toInt(int value)
+    {
+        return value >> FRACTION_BITS;
+    }
+
+    public static int multiply(int a, int b)
+    {
+        return (int) (((long) a * b) >> FRACTION_BITS);
+    }
+
+    /**
+     * Divides two fixed point numbers. The result is rounded towards zero, and saturates to the range of fixed point
+     * numbers when the divisor is zero or the quotient is too large.
+     */
+    public static int divide(int a, int b)
+    {
+        if (b == 0)
+            return a < 0 ? MIN_VALUE : MAX_VALUE;
+
+        long quotient = ((long) a << FRACTION_BITS) / b;
+
+        if (quotient > MAX_VALUE)
+            return MAX_VALUE;
+
+        if (quotient < MIN_VALUE)
+            return MIN_VALUE;
+
+        return (int) quotient;
+    }
+
+    public static int abs(int value)
+    {
+        return value < 0 ? -value : value;
+    }
+
+    /**
+     * Returns the square root of a fixed point number, rounded down. Negative numbers have a square root of zero.
+     */
+    public static int sqrt(int value)
+    {
+        if (value <= 0)
+            return 0;
+
+        return sqrt((long) value << FRACTION_BITS);
+    }
+
+    /**
+     * Returns the square root of a 32.32 fixed point number as a 16.16 fixed point number, rounded down. The sums of
+     * the products of fixed point numbers as longs, without the shift, are 32.32 fixed point numbers, so their square
+     * roots can be found without overflow.
+     */
+    public static int sqrt(long value)
+    {
+        if (value <= 0)
+            return 0;
+
+        // The digit by digit method, two bits at a time
+        long remainder = value;
+        long root = 0;
+        long bit = 1L << 62;
+
+        while (bit > remainder)
+            bit >>>= 2;
+
+        while (bit != 0)
+        {
+            if (remainder >= root + bit)
+            {
+                remainder -= root + bit;
+                root = (root >>> 1) + bit;
+            }
+            else
+                root >>>= 1;
+
+            bit >>>= 2;
+        }
+
+        return (int) root;
+    }
+
+    public static int sin(int angle)
+    {
+        return toFixed(DeterministicMath.sin(toDouble(angle)));
+    }
+
+    public static int cos(int angle)
+    {
+        return toFixed(DeterministicMath.cos(toDouble(angle)));
+    }
+
+    public static int atan2(int y, int x)
+    {
+        return toFixed(DeterministicMath.atan2(y, x));
+    }
+
+    public static int min(int a, int b)
+    {
+        return a < b ? a : b;
+    }
+
+    public static int max(int a, int b)
+    {
+        return a > b ? a : b;
+    }
+
+    public static int clamp(int value, int min, int max)
+    {
+        return max(min, min(value, max));
+    }
+}
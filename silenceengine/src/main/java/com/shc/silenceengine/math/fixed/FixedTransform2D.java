@@ -0,0 +1,193 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.math.fixed;
+
+import com.shc.silenceengine.math.Transform;
+import com.shc.silenceengine.math.Vector3;
+import com.shc.silenceengine.utils.ReusableStack;
+
+/**
+ * <p>A two dimensional transform in fixed point: a scale, then a rotation around the origin and then a translation. The
+ * rotation is in fixed point degrees, and its cosine and sine are cached whenever it is changed, so transforming points
+ * only needs multiplications and additions of integers.</p>
+ *
+ * <p>The simulation can use these transforms and convert them to a {@link Transform} with {@link
+ * #toTransform(Transform)} when it is time to render.</p>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class FixedTransform2D
+{
+    public static final ReusableStack<FixedTransform2D> REUSABLE_STACK = new ReusableStack<>(FixedTransform2D::new);
+
+    public final FixedVector2 position = new FixedVector2();
+
+    private int rotation;
+    private int cos = FixedMath.ONE;
+    private int sin;
+
+    private int scaleX = FixedMath.ONE;
+    private int scaleY = FixedMath.ONE;
+
+    public FixedTransform2D set(FixedTransform2D t)
+    {
+        position.set(t.position);
+        rotation = t.rotation;
+        cos = t.cos;
+        sin = t.sin;
+        scaleX = t.scaleX;
+        scaleY = t.scaleY;
+
+        return this;
+    }
+
+    public FixedTransform2D reset()
+    {
+        position.set(0, 0);
+        rotation = 0;
+        cos = FixedMath.ONE;
+        sin = 0;
+        scaleX = scaleY = FixedMath.ONE;
+
+        return this;
+    }
+
+    public FixedTransform2D setPosition(int x, int y)
+    {
+        position.set(x, y);
+        return this;
+    }
+
+    public FixedTransform2D translate(int x, int y)
+    {
+        position.add(x, y);
+        return this;
+    }
+
+    public int getRotation()
+    {
+        return rotation;
+    }
+
+    public FixedTransform2D setRotation(int rotation)
+    {
+        this.rotation = rotation;
+        cos = FixedMath.cos(rotation);
+        sin = FixedMath.sin(rotation);
+
+        return this;
+    }
+
+    public FixedTransform2D rotate(int angle)
+    {
+        return setRotation(rotation + angle);
+    }
+
+    public int getScaleX()
+    {
+        return scaleX;
+    }
+
+    public int getScaleY()
+    {
+        return scaleY;
+    }
+
+    public FixedTransform2D setScale(int scaleX, int scaleY)
+    {
+        this.scaleX = scaleX;
+        this.scaleY = scaleY;
+
+        return this;
+    }
+
+    /**
+     * Transforms a point from the local space of this transform to the world space.
+     */
+    public FixedVector2 transform(FixedVector2 point, FixedVector2 dest)
+    {
+        return dest.set(point).scale(scaleX, scaleY).rotate(cos, sin).add(position);
+    }
+
+    /**
+     * Transforms a point from the world space to the local space of this transform. The scale should not be zero.
+     */
+    public FixedVector2 inverseTransform(FixedVector2 point, FixedVector2 dest)
+    {
+        dest.set(point).subtract(position).rotate(cos, -sin);
+        return dest.set(FixedMath.divide(dest.x, scaleX), FixedMath.divide(dest.y, scaleY));
+    }
+
+    /**
+     * Rotates a direction by this transform, without the scale and the translation.
+     */
+    public FixedVector2 rotateDirection(FixedVector2 direction, FixedVector2 dest)
+    {
+        return dest.set(direction).rotate(cos, sin);
+    }
+
+    /**
+     * Sets a transform for rendering to this transform.
+     *
+     * @param dest The transform to set.
+     *
+     * @return The given transform, for chaining the calls.
+     */
+    public Transform toTransform(Transform dest)
+    {
+        Vector3 temp = Vector3.REUSABLE_STACK.pop();
+
+        dest.reset()
+                .scale(temp.set(FixedMath.toFloat(scaleX), FixedMath.toFloat(scaleY), 1))
+                .rotate(Vector3.AXIS_Z, FixedMath.toFloat(rotation))
+                .translate(temp.set(FixedMath.toFloat(position.x), FixedMath.toFloat(position.y), 0));
+
+        Vector3.REUSABLE_STACK.push(temp);
+
+        return dest;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int result = position.hashCode();
+        result = 31 * result + rotation;
+        result = 31 * result + scaleX;
+        result = 31 * result + scaleY;
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        FixedTransform2D that = (FixedTransform2D) o;
+
+        return rotation == that.rotation && scaleX == that.scaleX && scaleY == that.scaleY &&
+               position.equals(that.position);
+    }
+}
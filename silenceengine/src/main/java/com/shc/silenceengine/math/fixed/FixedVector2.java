@@ -0,0 +1,232 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.math.fixed;
+
+import com.shc.silenceengine.math.Vector2;
+import com.shc.silenceengine.utils.ReusableStack;
+
+/**
+ * A two dimensional vector with 16.16 fixed point components. See {@link FixedMath} for the range of each component.
+ * The lengths and dot products are computed with longs, so they do not overflow for components within -16384 to 16384
+ * units.
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class FixedVector2
+{
+    public static final FixedVector2 ZERO   = new FixedVector2(0, 0);
+    public static final FixedVector2 AXIS_X = new FixedVector2(FixedMath.ONE, 0);
+    public static final FixedVector2 AXIS_Y = new FixedVector2(0, FixedMath.ONE);
+
+    public static final ReusableStack<FixedVector2> REUSABLE_STACK = new ReusableStack<>(FixedVector2::new);
+
+    public int x, y;
+
+    public FixedVector2()
+    {
+        this(0, 0);
+    }
+
+    public FixedVector2(int x, int y)
+    {
+        this.x = x;
+        this.y = y;
+    }
+
+    public FixedVector2(FixedVector2 v)
+    {
+        this(v.x, v.y);
+    }
+
+    public FixedVector2(Vector2 v)
+    {
+        set(v);
+    }
+
+    public FixedVector2 set(int x, int y)
+    {
+        this.x = x;
+        this.y = y;
+        return this;
+    }
+
+    public FixedVector2 set(FixedVector2 v)
+    {
+        return set(v.x, v.y);
+    }
+
+    public FixedVector2 set(Vector2 v)
+    {
+        return set(FixedMath.toFixed(v.x), FixedMath.toFixed(v.y));
+    }
+
+    public FixedVector2 add(int x, int y)
+    {
+        return set(this.x + x, this.y + y);
+    }
+
+    public FixedVector2 add(FixedVector2 v)
+    {
+        return add(v.x, v.y);
+    }
+
+    public FixedVector2 subtract(int x, int y)
+    {
+        return set(this.x - x, this.y - y);
+    }
+
+    public FixedVector2 subtract(FixedVector2 v)
+    {
+        return subtract(v.x, v.y);
+    }
+
+    public FixedVector2 scale(int s)
+    {
+        return scale(s, s);
+    }
+
+    public FixedVector2 scale(int sx, int sy)
+    {
+        return set(FixedMath.multiply(x, sx), FixedMath.multiply(y, sy));
+    }
+
+    public FixedVector2 negate()
+    {
+        return set(-x, -y);
+    }
+
+    public FixedVector2 perpendicular()
+    {
+        return set(-y, x);
+    }
+
+    /**
+     * Returns the dot product as a 32.32 fixed point number, without the loss of precision of the shift.
+     */
+    public long dotLong(int vx, int vy)
+    {
+        return (long) x * vx + (long) y * vy;
+    }
+
+    public int dot(int vx, int vy)
+    {
+        return (int) (dotLong(vx, vy) >> FixedMath.FRACTION_BITS);
+    }
+
+    public int dot(FixedVector2 v)
+    {
+        return dot(v.x, v.y);
+    }
+
+    public int cross(FixedVector2 v)
+    {
+        return (int) (((long) x * v.y - (long) y * v.x) >> FixedMath.FRACTION_BITS);
+    }
+
+    public long lengthSquaredLong()
+    {
+        return dotLong(x, y);
+    }
+
+    public int lengthSquared()
+    {
+        return dot(x, y);
+    }
+
+    public int length()
+    {
+        return FixedMath.sqrt(lengthSquaredLong());
+    }
+
+    public int distance(FixedVector2 v)
+    {
+        long dx = (long) v.x - x;
+        long dy = (long) v.y - y;
+
+        return FixedMath.sqrt(dx * dx + dy * dy);
+    }
+
+    public FixedVector2 normalize()
+    {
+        int l = length();
+
+        if (l == 0 || l == FixedMath.ONE)
+            return this;
+
+        return set(FixedMath.divide(x, l), FixedMath.divide(y, l));
+    }
+
+    /**
+     * Rotates this vector by an angle in fixed point degrees.
+     */
+    public FixedVector2 rotate(int angle)
+    {
+        return rotate(FixedMath.cos(angle), FixedMath.sin(angle));
+    }
+
+    /**
+     * Rotates this vector by an angle given its fixed point cosine and sine.
+     */
+    public FixedVector2 rotate(int cos, int sin)
+    {
+        int rx = (int) (((long) x * cos - (long) y * sin) >> FixedMath.FRACTION_BITS);
+        int ry = (int) (((long) x * sin + (long) y * cos) >> FixedMath.FRACTION_BITS);
+
+        return set(rx, ry);
+    }
+
+    public FixedVector2 copy()
+    {
+        return new FixedVector2(this);
+    }
+
+    public Vector2 toVector2(Vector2 dest)
+    {
+        return dest.set(FixedMath.toFloat(x), FixedMath.toFloat(y));
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return 31 * x + y;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        FixedVector2 that = (FixedVector2) o;
+
+        return x == that.x && y == that.y;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "[" + FixedMath.toDouble(x) + ", " + FixedMath.toDouble(y) + "]";
+    }
+}
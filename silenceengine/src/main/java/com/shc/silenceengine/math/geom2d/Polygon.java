@@ -27,17 +27,31 @@ package com.shc.silenceengine.math.geom2d;
 import com.shc.silenceengine.collision.Collision2D;
 import com.shc.silenceengine.graphics.Color;
 import com.shc.silenceengine.graphics.Image;
+import com.shc.silenceengine.math.GeometryKernels;
 import com.shc.silenceengine.math.Vector2;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
 /**
+ * <p>A convex polygon, whose vertices are relative to its position. Apart from the list of vertices, the polygon keeps
+ * them packed in float arrays as described in {@link GeometryKernels}, together with the normals of its edges, which
+ * are what the collision tests use. The packed data is computed when it is needed, and is only computed again when the
+ * polygon is rotated, scaled or translated, or in case of the world space vertices, when it is moved. Translating the
+ * polygon does not change the directions of its edges, and hence keeps the normals.</p>
+ *
+ * <p>If you modify the vertices returned by {@link #getVertices()} or {@link #getVertex(int)} directly, call {@link
+ * #invalidate()} afterwards.</p>
+ *
  * @author Sri Harsha Chilakapati
  */
 public class Polygon
 {
+    // The largest cross product of two axes that are considered parallel
+    private static final float AXIS_EPSILON = 1e-6f;
+
     private Vector2       position;
     private List<Vector2> vertices;
     private float         rotation;
@@ -52,6 +66,24 @@ public class Polygon
 
     private Rectangle bounds;
 
+    // The vertices packed relative to the position and in world space, and the unique axes of the edges
+    private float[] vertexData      = new float[0];
+    private float[] worldVertexData = new float[0];
+    private float[] axisData        = new float[0];
+    private int     axisCount;
+
+    // The scratch space to find the parallel edges, the pseudo angle of each axis is kept with the index of its edge
+    private long[]    axisKeys     = new long[0];
+    private boolean[] axisParallel = new boolean[0];
+
+    private boolean localDirty = true;
+    private boolean worldDirty = true;
+    private boolean axesDirty  = true;
+
+    // The position the world space vertices were computed at
+    private float worldX;
+    private float worldY;
+
     public Polygon()
     {
         this.vertices = new ArrayList<>();
@@ -199,6 +231,7 @@ public class Polygon
     public void clearVertices()
     {
         vertices.clear();
+        invalidate();
 
         minX = minY = Float.POSITIVE_INFINITY;
         maxX = maxY = Float.NEGATIVE_INFINITY;
@@ -214,6 +247,7 @@ public class Polygon
     public void addVertex(Vector2 v)
     {
         vertices.add(v);
+        invalidate();
 
         minX = Math.min(v.x, minX);
         minY = Math.min(v.y, minY);
@@ -232,6 +266,8 @@ public class Polygon
         for (Vector2 v : vertices)
             v.scale(sx, sy);
 
+        invalidate();
+
         scaleX *= sx;
         scaleY *= sy;
     }
@@ -368,12 +404,225 @@ public class Polygon
 
         for (Vector2 vertex : vertices)
             vertex.subtract(originX, originY).rotate(angle).add(originX, originY);
+
+        invalidate();
     }
 
     public void translate(float x, float y)
     {
         for (Vector2 v : vertices)
             v.add(x, y);
+
+        // Moving the vertices does not change the directions of the edges, so the axes are kept
+        localDirty = worldDirty = true;
+    }
+
+    /**
+     * Marks the packed vertices and the axes of this polygon to be computed again. This is done automatically when
+     * the polygon is changed using its methods, and needs to be called only when the vertices are modified directly.
+     */
+    public void invalidate()
+    {
+        localDirty = worldDirty = axesDirty = true;
+    }
+
+    /**
+     * Returns the vertices of this polygon, relative to its position, packed in an array as {@code x, y} pairs. The
+     * array can be longer than needed, only the first {@link #vertexCount()} pairs are the vertices.
+     *
+     * @return The packed vertices. Do not modify the array.
+     */
+    public float[] getVertexData()
+    {
+        if (localDirty)
+            updateVertexData();
+
+        return vertexData;
+    }
+
+    /**
+     * Returns the vertices of this polygon in world space, that is, with the position added, packed in an array as
+     * {@code x, y} pairs. The array can be longer than needed, only the first {@link #vertexCount()} pairs are the
+     * vertices.
+     *
+     * @return The packed world space vertices. Do not modify the array.
+     */
+    public float[] getWorldVertexData()
+    {
+        float[] local = getVertexData();
+
+        // The position is compared too, since it can be changed through getPosition()
+        if (worldDirty || worldX != position.x || worldY != position.y)
+        {
+            if (worldVertexData.length < local.length)
+                worldVertexData = new float[local.length];
+
+            for (int i = 0; i < vertices.size() * GeometryKernels.POINT2_SIZE; i += GeometryKernels.POINT2_SIZE)
+            {
+                worldVertexData[i] = local[i] + position.x;
+                worldVertexData[i + 1] = local[i + 1] + position.y;
+            }
+
+            worldX = position.x;
+            worldY = position.y;
+            worldDirty = false;
+        }
+
+        return worldVertexData;
+    }
+
+    /**
+     * Returns the unit normals of the edges of this polygon, packed in an array as {@code x, y} pairs. The normals of
+     * the parallel edges are only included once, so a rectangle has only two axes.
+     *
+     * @return The packed axes. Do not modify the array, only the first {@link #axisCount()} pairs are the axes.
+     */
+    public float[] getAxisData()
+    {
+        if (axesDirty)
+            updateAxisData();
+
+        return axisData;
+    }
+
+    /**
+     * @return The number of unique axes of the edges of this polygon.
+     */
+    public int axisCount()
+    {
+        if (axesDirty)
+            updateAxisData();
+
+        return axisCount;
+    }
+
+    private void updateVertexData()
+    {
+        int count = vertices.size();
+
+        if (vertexData.length < count * GeometryKernels.POINT2_SIZE)
+            vertexData = new float[count * GeometryKernels.POINT2_SIZE];
+
+        for (int i = 0; i < count; i++)
+        {
+            Vector2 v = vertices.get(i);
+
+            vertexData[i * 2] = v.x;
+            vertexData[i * 2 + 1] = v.y;
+        }
+
+        localDirty = false;
+        worldDirty = true;
+    }
+
+    private void updateAxisData()
+    {
+        float[] local = getVertexData();
+        int count = vertices.size();
+
+        if (axisData.length < count * GeometryKernels.POINT2_SIZE)
+        {
+            axisData = new float[count * GeometryKernels.POINT2_SIZE];
+            axisKeys = new long[count];
+            axisParallel = new boolean[count];
+        }
+
+        int edges = 0;
+
+        for (int i = 0; i < count; i++)
+        {
+            int next = (i + 1) % count;
+
+            // The normal is the perpendicular of the edge
+            float nx = local[next * 2 + 1] - local[i * 2 + 1];
+            float ny = local[i * 2] - local[next * 2];
+            float length = (float) Math.sqrt(nx * nx + ny * ny);
+
+            if (length == 0)
+                continue;
+
+            axisData[edges * 2] = nx / length;
+            axisData[edges * 2 + 1] = ny / length;
+
+            axisKeys[edges] = (long) Float.floatToIntBits(pseudoAngle(nx, ny)) << 32 | edges;
+            axisParallel[edges] = false;
+            edges++;
+        }
+
+        // Sorting the axes by their angles brings the parallel edges next to each other, where they are merged
+        Arrays.sort(axisKeys, 0, edges);
+
+        // Only the first of the parallel edges is kept
+        int kept = edges == 0 ? 0 : edgeOf(axisKeys[0]);
+        int firstKept = -1;
+
+        for (int i = 1; i < edges; i++)
+        {
+            int edge = edgeOf(axisKeys[i]);
+
+            if (!isParallel(edge, edgeOf(axisKeys[i - 1])))
+            {
+                if (firstKept < 0)
+                    firstKept = kept;
+
+                kept = edge;
+            }
+            else
+                kept = keepFirst(kept, edge);
+        }
+
+        // The angles near a half turn are also parallel to the angles near zero
+        if (firstKept >= 0 && isParallel(edgeOf(axisKeys[0]), edgeOf(axisKeys[edges - 1])))
+            keepFirst(firstKept, kept);
+
+        axisCount = 0;
+
+        for (int i = 0; i < edges; i++)
+        {
+            if (axisParallel[i])
+                continue;
+
+            axisData[axisCount * 2] = axisData[i * 2];
+            axisData[axisCount * 2 + 1] = axisData[i * 2 + 1];
+            axisCount++;
+        }
+
+        axesDirty = false;
+    }
+
+    /*
+     * An angle of a normal that only uses exact arithmetic, so that all the machines find the same axes. The normal is
+     * folded into the upper half of the circle, since the parallel edges have opposite normals, and the result goes
+     * from 0 to 2 in the same order as the angle. It is never negative, so its bits sort in the same order too.
+     */
+    private static float pseudoAngle(float nx, float ny)
+    {
+        if (ny < 0 || (ny == 0 && nx < 0))
+        {
+            nx = -nx;
+            ny = -ny;
+        }
+
+        return 1 - nx / (Math.abs(nx) + ny);
+    }
+
+    private boolean isParallel(int edge, int other)
+    {
+        return Math.abs(axisData[edge * 2] * axisData[other * 2 + 1] - axisData[edge * 2 + 1] * axisData[other * 2])
+               <= AXIS_EPSILON;
+    }
+
+    private int keepFirst(int edge, int other)
+    {
+        int first = Math.min(edge, other);
+        axisParallel[Math.max(edge, other)] = true;
+
+        return first;
+    }
+
+    private static int edgeOf(long key)
+    {
+        return (int) key;
     }
 
     @Override
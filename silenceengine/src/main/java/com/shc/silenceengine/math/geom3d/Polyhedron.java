@@ -25,6 +25,7 @@
 package com.shc.silenceengine.math.geom3d;
 
 import com.shc.silenceengine.collision.Collision3D;
+import com.shc.silenceengine.math.GeometryKernels;
 import com.shc.silenceengine.math.Quaternion;
 import com.shc.silenceengine.math.Ray;
 import com.shc.silenceengine.math.Vector3;
@@ -33,6 +34,14 @@ import java.util.ArrayList;
 import java.util.List;
 
 /**
+ * <p>A convex polyhedron, whose vertices are relative to its position. Apart from the list of vertices, the
+ * polyhedron keeps them packed in a float array as described in {@link GeometryKernels}, which is what the GJK test
+ * in {@link com.shc.silenceengine.collision.GJK3D} uses. The packed data is computed when it is needed, and is only
+ * computed again when the polyhedron is rotated, scaled or translated.</p>
+ *
+ * <p>If you modify the vertices returned by {@link #getVertices()} or {@link #getVertex(int)} directly, call {@link
+ * #invalidate()} afterwards.</p>
+ *
  * @author Sri Harsha Chilakapati
  */
 public class Polyhedron
@@ -58,6 +67,10 @@ public class Polyhedron
 
     private Quaternion tempQuat;
 
+    // The vertices packed relative to the position
+    private float[] vertexData = new float[0];
+    private boolean dirty      = true;
+
     public Polyhedron(Polyhedron other)
     {
         this();
@@ -82,6 +95,7 @@ public class Polyhedron
     public void clearVertices()
     {
         vertices.clear();
+        invalidate();
 
         minX = minY = minZ = Float.POSITIVE_INFINITY;
         maxX = maxY = maxZ = Float.NEGATIVE_INFINITY;
@@ -95,6 +109,7 @@ public class Polyhedron
     public void addVertex(Vector3 v)
     {
         vertices.add(v);
+        invalidate();
 
         minX = Math.min(minX, v.x);
         minY = Math.min(minY, v.y);
@@ -133,6 +148,7 @@ public class Polyhedron
         for (Vector3 v : vertices)
             tempQuat.set(rx, ry, rz).multiply(v, v);
 
+        invalidate();
         updateBounds();
 
         rotationX += rx;
@@ -155,6 +171,7 @@ public class Polyhedron
         for (Vector3 v : vertices)
             v.scale(sx, sy, sz);
 
+        invalidate();
         updateBounds();
 
         scale.add(sx, sy, sz);
@@ -170,6 +187,7 @@ public class Polyhedron
         for (Vector3 v : vertices)
             v.add(x, y, z);
 
+        invalidate();
         updateBounds();
     }
 
@@ -209,6 +227,45 @@ public class Polyhedron
         return oddNodes;
     }
 
+    /**
+     * Marks the packed vertices of this polyhedron to be computed again. This is done automatically when the
+     * polyhedron is changed using its methods, and needs to be called only when the vertices are modified directly.
+     */
+    public void invalidate()
+    {
+        dirty = true;
+    }
+
+    /**
+     * Returns the vertices of this polyhedron, relative to its position, packed in an array as {@code x, y, z}
+     * triples. The array can be longer than needed, only the first {@link #vertexCount()} triples are the vertices.
+     *
+     * @return The packed vertices. Do not modify the array.
+     */
+    public float[] getVertexData()
+    {
+        if (dirty)
+        {
+            int count = vertices.size();
+
+            if (vertexData.length < count * GeometryKernels.POINT3_SIZE)
+                vertexData = new float[count * GeometryKernels.POINT3_SIZE];
+
+            for (int i = 0; i < count; i++)
+            {
+                Vector3 v = vertices.get(i);
+
+                vertexData[i * 3] = v.x;
+                vertexData[i * 3 + 1] = v.y;
+                vertexData[i * 3 + 2] = v.z;
+            }
+
+            dirty = false;
+        }
+
+        return vertexData;
+    }
+
     public List<Vector3> getVertices()
     {
         return vertices;
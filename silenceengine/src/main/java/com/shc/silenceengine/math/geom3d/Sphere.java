@@ -76,9 +76,13 @@ public class Sphere
             xAngle *= sectionArc / 2f;
             yAngle *= sectionArc * -1;
 
-            float x = (float) (radius * Math.sin(xAngle) * Math.sin(yAngle));
-            float y = (float) (radius * Math.cos(xAngle));
-            float z = (float) (radius * Math.sin(xAngle) * Math.cos(yAngle));
+            // The angles are in radians, and MathUtils works in degrees
+            xAngle = (float) Math.toDegrees(xAngle);
+            yAngle = (float) Math.toDegrees(yAngle);
+
+            float x = radius * MathUtils.sin(xAngle) * MathUtils.sin(yAngle);
+            float y = radius * MathUtils.cos(xAngle);
+            float z = radius * MathUtils.sin(xAngle) * MathUtils.cos(yAngle);
 
             polyhedron.addVertex(x, y, z);
         }
@@ -25,6 +25,7 @@
 package com.shc.silenceengine.scene;
 
 import com.shc.silenceengine.scene.components.TransformComponent;
+import com.shc.silenceengine.utils.StateHash;
 
 /**
  * A component defines the behaviour of an {@link Entity} in the game. Most of the time, components are only data
@@ -98,4 +99,15 @@ public abstract class Component
     protected void onDestroyed()
     {
     }
+
+    /**
+     * Called by {@link Scene#computeStateHash()} to add the simulated state of this component to the hash. Components
+     * that take part in a deterministic simulation should add every value that affects it, in the same order each
+     * time.
+     *
+     * @param hash The hash of the state of the scene.
+     */
+    protected void hashState(StateHash hash)
+    {
+    }
 }
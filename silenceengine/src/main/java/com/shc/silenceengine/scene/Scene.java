@@ -25,6 +25,9 @@
 package com.shc.silenceengine.scene;
 
 import com.shc.silenceengine.scene.components.TransformComponent;
+import com.shc.silenceengine.scene.components.TransformSystem;
+import com.shc.silenceengine.utils.Profiler;
+import com.shc.silenceengine.utils.StateHash;
 import com.shc.silenceengine.utils.TaskManager;
 import com.shc.silenceengine.utils.functional.BiCallback;
 import com.shc.silenceengine.utils.functional.SimpleCallback;
@@ -52,18 +55,36 @@ public class Scene
      */
     private final List<BiCallback<Scene, Float>> updateSystems = new ArrayList<>();
 
+    /**
+     * The names of the update systems, which are the names of their zones in the {@link Profiler}.
+     */
+    private final List<String> updateSystemNames = new ArrayList<>();
+
     /**
      * The list of systems that handle the rendering of scene.
      */
     private final List<BiCallback<Scene, Float>> renderSystems = new ArrayList<>();
 
     /**
-     * Construct a new Scene object which contains the default component update system and the component render system.
+     * The names of the render systems, which are the names of their zones in the {@link Profiler}.
+     */
+    private final List<String> renderSystemNames = new ArrayList<>();
+
+    /**
+     * The hash used to compute the hash of the state of the scene.
+     */
+    private final StateHash stateHash = new StateHash();
+
+    /**
+     * Construct a new Scene object which contains the transform system, the default component update system and the
+     * component render system. The transforms are computed first, so that the components and the systems registered
+     * later see the transforms of the frame that is being updated.
      */
     public Scene()
     {
-        registerUpdateSystem(Scene::componentUpdateSystem);
-        registerRenderSystem(Scene::componentRenderSystem);
+        registerUpdateSystem("Transform System", new TransformSystem());
+        registerUpdateSystem("Component Update", Scene::componentUpdateSystem);
+        registerRenderSystem("Component Render", Scene::componentRenderSystem);
     }
 
     /**
@@ -141,8 +162,12 @@ public class Scene
      */
     public void update(float elapsedTime)
     {
-        for (BiCallback<Scene, Float> system : updateSystems)
-            system.invoke(this, elapsedTime);
+        for (int i = 0; i < updateSystems.size(); i++)
+        {
+            Profiler.begin(updateSystemNames.get(i));
+            updateSystems.get(i).invoke(this, elapsedTime);
+            Profiler.end();
+        }
     }
 
     /**
@@ -154,8 +179,12 @@ public class Scene
      */
     public void render(float elapsedTime)
     {
-        for (BiCallback<Scene, Float> system : renderSystems)
-            system.invoke(this, elapsedTime);
+        for (int i = 0; i < renderSystems.size(); i++)
+        {
+            Profiler.begin(renderSystemNames.get(i));
+            renderSystems.get(i).invoke(this, elapsedTime);
+            Profiler.end();
+        }
     }
 
     /**
@@ -166,8 +195,20 @@ public class Scene
      * @param system The system that is going to be registered for the update event.
      */
     public void registerUpdateSystem(BiCallback<Scene, Float> system)
+    {
+        registerUpdateSystem(getSystemName(system), system);
+    }
+
+    /**
+     * Registers a system to act on the update event, with a name that identifies it in the {@link Profiler}.
+     *
+     * @param name   The name of the system.
+     * @param system The system that is going to be registered for the update event.
+     */
+    public void registerUpdateSystem(String name, BiCallback<Scene, Float> system)
     {
         updateSystems.add(system);
+        updateSystemNames.add(name);
     }
 
     /**
@@ -178,8 +219,30 @@ public class Scene
      * @param system The system that is going to be registered for the update event.
      */
     public void registerRenderSystem(BiCallback<Scene, Float> system)
+    {
+        registerRenderSystem(getSystemName(system), system);
+    }
+
+    /**
+     * Registers a system to act on the render event, with a name that identifies it in the {@link Profiler}.
+     *
+     * @param name   The name of the system.
+     * @param system The system that is going to be registered for the render event.
+     */
+    public void registerRenderSystem(String name, BiCallback<Scene, Float> system)
     {
         renderSystems.add(system);
+        renderSystemNames.add(name);
+    }
+
+    private static String getSystemName(BiCallback<Scene, Float> system)
+    {
+        // The systems that are lambdas get the name of the class they are written in
+        String name = system.getClass().getName();
+        name = name.substring(name.lastIndexOf('.') + 1);
+
+        int lambda = name.indexOf("$$");
+        return lambda < 0 ? name : name.substring(0, lambda) + " System";
     }
 
     /**
@@ -245,4 +308,21 @@ public class Scene
 
         return list;
     }
+
+    /**
+     * Computes a hash of the simulated state of all the entities in the scene, in the order they are added. The peers
+     * of a game synchronized in lockstep can compare the hashes after every frame to find out when they desynchronized.
+     * The IDs of the entities are not hashed, since they depend on the order the entities are created in the process.
+     *
+     * @return The hash of the state of the scene.
+     */
+    public long computeStateHash()
+    {
+        stateHash.reset();
+
+        for (Entity entity : entities)
+            entity.forEachComponent(component -> component.hashState(stateHash));
+
+        return stateHash.get();
+    }
 }
@@ -25,52 +25,157 @@
 package com.shc.silenceengine.scene.components;
 
 import com.shc.silenceengine.collision.CollisionTag;
+import com.shc.silenceengine.collision.shapes.CollisionShape2D;
+import com.shc.silenceengine.collision.shapes.PolygonShape;
 import com.shc.silenceengine.math.Transform;
 import com.shc.silenceengine.math.Transforms;
+import com.shc.silenceengine.math.Vector2;
 import com.shc.silenceengine.math.Vector3;
 import com.shc.silenceengine.math.geom2d.Polygon;
+import com.shc.silenceengine.math.geom2d.Rectangle;
 import com.shc.silenceengine.scene.Component;
+import com.shc.silenceengine.utils.StateHash;
 
 /**
+ * A component that makes an entity collide with the others in 2D. The shape can be any {@link CollisionShape2D}, and
+ * it follows the world transform of the entity. Prefer the simple shapes like circles and boxes where possible, since
+ * they are tested much faster than polygons.
+ *
+ * <p>Fast moving entities like bullets can move past thin objects between two frames without ever overlapping them.
+ * Setting {@link #continuous} makes the collision system sweep the shape along its motion in the frame instead, so
+ * that those collisions are found too. This is more expensive, and should only be enabled for the entities that need
+ * it.</p>
+ *
  * @author Sri Harsha Chilakapati
  */
 public class CollisionComponent2D extends Component
 {
     public CollisionCallback callback;
     public CollisionTag      tag;
-    public Polygon           polygon;
+    public CollisionShape2D  shape;
 
-    public CollisionComponent2D(CollisionTag tag, Polygon polygon)
+    /**
+     * Whether the collisions are tested continuously along the motion of the shape in each frame.
+     */
+    public boolean continuous;
+
+    // The position of the shape in the previous frame, and the bounds of its motion from there
+    private final Vector2   previousPosition = new Vector2();
+    private final Rectangle sweptBounds      = new Rectangle();
+    private       boolean   positioned;
+
+    // Whether the bounds of this component changed in this frame, and the broadphase has to be updated
+    private boolean boundsChanged;
+
+    public CollisionComponent2D(CollisionTag tag, CollisionShape2D shape)
     {
         this.tag = tag;
-        this.polygon = polygon;
+        this.shape = shape;
     }
 
-    public CollisionComponent2D(CollisionTag tag, Polygon polygon, CollisionCallback callback)
+    public CollisionComponent2D(CollisionTag tag, CollisionShape2D shape, CollisionCallback callback)
     {
         this.tag = tag;
-        this.polygon = polygon;
+        this.shape = shape;
         this.callback = callback;
     }
 
+    public CollisionComponent2D(CollisionTag tag, Polygon polygon)
+    {
+        this(tag, new PolygonShape(polygon));
+    }
+
+    public CollisionComponent2D(CollisionTag tag, Polygon polygon, CollisionCallback callback)
+    {
+        this(tag, new PolygonShape(polygon), callback);
+    }
+
     @Override
     protected void onUpdate(float elapsedTime)
     {
+        // A continuous shape that moved in the last frame has swept bounds, which shrink back when it stops
+        boundsChanged = continuous && !previousPosition.equals(shape.getPosition());
+        previousPosition.set(shape.getPosition());
+
         if (!transformComponent.hasChanged())
             return;
 
+        boundsChanged = true;
+
         Vector3 temp = Vector3.REUSABLE_STACK.pop();
 
         Transform worldTransform = transformComponent.getWorldTransform();
 
         Transforms.getTranslation(worldTransform, temp);
-        polygon.setPosition(temp.x, temp.y);
+        shape.setPosition(temp.x, temp.y);
         Transforms.getScaling(worldTransform, temp);
-        polygon.setScale(temp.x, temp.y);
+        shape.setScale(temp.x, temp.y);
         Transforms.getRotation(worldTransform, temp);
-        polygon.setRotation(temp.z);
+        shape.setRotation(temp.z);
 
         Vector3.REUSABLE_STACK.push(temp);
+
+        // The shape is not moving in its first frame
+        if (!positioned)
+        {
+            previousPosition.set(shape.getPosition());
+            positioned = true;
+        }
+    }
+
+    /**
+     * @return Whether the bounds of this component changed in the current frame, and hence have to be updated in the
+     * broadphase.
+     */
+    public boolean hasBoundsChanged()
+    {
+        return boundsChanged;
+    }
+
+    /**
+     * Returns the bounds used by the broadphase. These are the bounds of the shape, or if the collisions are tested
+     * continuously, the bounds of the whole motion of the shape in the last frame.
+     *
+     * @return The bounds of this component in world space.
+     */
+    public Rectangle getBounds()
+    {
+        Rectangle bounds = shape.getBounds();
+
+        if (!continuous)
+            return bounds;
+
+        Vector2 position = shape.getPosition();
+
+        float startX = bounds.x - position.x + previousPosition.x;
+        float startY = bounds.y - position.y + previousPosition.y;
+
+        float minX = Math.min(bounds.x, startX);
+        float minY = Math.min(bounds.y, startY);
+
+        sweptBounds.set(minX, minY, Math.max(bounds.x, startX) + bounds.width - minX,
+                Math.max(bounds.y, startY) + bounds.height - minY);
+
+        return sweptBounds;
+    }
+
+    /**
+     * Finds how much the shape moved in the last frame.
+     *
+     * @param dest The vector to store the motion in.
+     *
+     * @return The dest vector.
+     */
+    public Vector2 getMotion(Vector2 dest)
+    {
+        return dest.set(shape.getPosition()).subtract(previousPosition);
+    }
+
+    @Override
+    protected void hashState(StateHash hash)
+    {
+        hash.add(shape.getPosition()).add(shape.getRotation()).add(shape.getScaleX()).add(shape.getScaleY())
+                .add(previousPosition);
     }
 
     @FunctionalInterface
@@ -28,10 +28,20 @@ import com.shc.silenceengine.collision.CollisionTag;
 import com.shc.silenceengine.math.Transform;
 import com.shc.silenceengine.math.Transforms;
 import com.shc.silenceengine.math.Vector3;
+import com.shc.silenceengine.math.geom3d.Cuboid;
 import com.shc.silenceengine.math.geom3d.Polyhedron;
 import com.shc.silenceengine.scene.Component;
+import com.shc.silenceengine.utils.StateHash;
 
 /**
+ * A component that makes an entity collide with the others in 3D. The polyhedron follows the world transform of the
+ * entity.
+ *
+ * <p>Fast moving entities like bullets can move past thin objects between two frames without ever overlapping them.
+ * Setting {@link #continuous} makes the collision system sweep the polyhedron along its motion in the frame instead,
+ * so that those collisions are found too. This is more expensive, and should only be enabled for the entities that
+ * need it.</p>
+ *
  * @author Sri Harsha Chilakapati
  */
 public class CollisionComponent3D extends Component
@@ -40,6 +50,19 @@ public class CollisionComponent3D extends Component
     public CollisionTag      tag;
     public Polyhedron        polyhedron;
 
+    /**
+     * Whether the collisions are tested continuously along the motion of the polyhedron in each frame.
+     */
+    public boolean continuous;
+
+    // The position of the polyhedron in the previous frame, and the bounds of its motion from there
+    private final Vector3 previousPosition = new Vector3();
+    private final Cuboid  sweptBounds      = new Cuboid();
+    private       boolean positioned;
+
+    // Whether the bounds of this component changed in this frame, and the broadphase has to be updated
+    private boolean boundsChanged;
+
     public CollisionComponent3D(CollisionTag tag, Polyhedron polyhedron)
     {
         this.tag = tag;
@@ -56,9 +79,15 @@ public class CollisionComponent3D extends Component
     @Override
     protected void onUpdate(float elapsedTime)
     {
+        // A continuous polyhedron that moved in the last frame has swept bounds, which shrink back when it stops
+        boundsChanged = continuous && !previousPosition.equals(polyhedron.getPosition());
+        previousPosition.set(polyhedron.getPosition());
+
         if (!transformComponent.hasChanged())
             return;
 
+        boundsChanged = true;
+
         Vector3 temp = Vector3.REUSABLE_STACK.pop();
 
         Transform worldTransform = transformComponent.getWorldTransform();
@@ -71,6 +100,68 @@ public class CollisionComponent3D extends Component
         polyhedron.setRotation(temp);
 
         Vector3.REUSABLE_STACK.push(temp);
+
+        // The polyhedron is not moving in its first frame
+        if (!positioned)
+        {
+            previousPosition.set(polyhedron.getPosition());
+            positioned = true;
+        }
+    }
+
+    /**
+     * @return Whether the bounds of this component changed in the current frame, and hence have to be updated in the
+     * broadphase.
+     */
+    public boolean hasBoundsChanged()
+    {
+        return boundsChanged;
+    }
+
+    /**
+     * Returns the bounds used by the broadphase. These are the bounds of the polyhedron, or if the collisions are
+     * tested continuously, the bounds of the whole motion of the polyhedron in the last frame.
+     *
+     * @return The bounds of this component in world space.
+     */
+    public Cuboid getBounds()
+    {
+        Cuboid bounds = polyhedron.getBounds();
+
+        if (!continuous)
+            return bounds;
+
+        Vector3 position = polyhedron.getPosition();
+
+        float motionX = position.x - previousPosition.x;
+        float motionY = position.y - previousPosition.y;
+        float motionZ = position.z - previousPosition.z;
+
+        // The center of the swept bounds is half way through the motion, and they grow by the motion on each axis
+        sweptBounds.position.set(bounds.position).subtract(motionX / 2, motionY / 2, motionZ / 2);
+        sweptBounds.width = bounds.width + Math.abs(motionX);
+        sweptBounds.height = bounds.height + Math.abs(motionY);
+        sweptBounds.thickness = bounds.thickness + Math.abs(motionZ);
+
+        return sweptBounds;
+    }
+
+    /**
+     * Finds how much the polyhedron moved in the last frame.
+     *
+     * @param dest The vector to store the motion in.
+     *
+     * @return The dest vector.
+     */
+    public Vector3 getMotion(Vector3 dest)
+    {
+        return dest.set(polyhedron.getPosition()).subtract(previousPosition);
+    }
+
+    @Override
+    protected void hashState(StateHash hash)
+    {
+        hash.add(polyhedron.getPosition()).add(previousPosition);
     }
 
     @FunctionalInterface
@@ -29,6 +29,7 @@ import com.shc.silenceengine.math.Transform;
 import com.shc.silenceengine.math.Vector2;
 import com.shc.silenceengine.math.Vector3;
 import com.shc.silenceengine.scene.Component;
+import com.shc.silenceengine.utils.StateHash;
 
 /**
  * @author Sri Harsha Chilakapati
@@ -39,13 +40,29 @@ public class TransformComponent extends Component
     private final Vector3    position = new Vector3(0, 0, 0);
     private final Quaternion rotation = new Quaternion();
 
-    private final Transform localTransform = new Transform();
-    private final Transform worldTransform = new Transform();
+    // Bumped whenever any parent changes, so that the transform systems know to re-sort their hierarchies
+    static int hierarchyVersion;
+
+    final Transform localTransform = new Transform();
+    final Transform worldTransform = new Transform();
 
     private TransformComponent parent = null;
 
     private boolean hasChanged = false;
-    private boolean changed    = true;
+
+    boolean changed = true;
+
+    // The system that updates this component, and the index of this component in it
+    TransformSystem system;
+    int             systemIndex;
+
+    private void markChanged()
+    {
+        changed = true;
+
+        if (system != null)
+            system.markChanged(systemIndex);
+    }
 
     protected void reComputeTransforms()
     {
@@ -53,10 +70,7 @@ public class TransformComponent extends Component
 
         if (changed)
         {
-            localTransform.reset()
-                    .scale(this.scale)
-                    .rotate(this.rotation)
-                    .translate(this.position);
+            localTransform.setTRS(position, rotation, scale);
 
             hasChanged = true;
             changed = false;
@@ -70,7 +84,9 @@ public class TransformComponent extends Component
     @Override
     protected void onUpdate(float elapsedTime)
     {
-        reComputeTransforms();
+        // When the scene has a transform system, it updates the whole hierarchy at once
+        if (system == null)
+            reComputeTransforms();
     }
 
     public Vector3 getScale()
@@ -80,56 +96,56 @@ public class TransformComponent extends Component
 
     public TransformComponent setScale(Vector2 scale)
     {
-        changed = true;
+        markChanged();
         this.scale.set(scale.x, scale.y, 1);
         return this;
     }
 
     public TransformComponent setScale(Vector3 scale)
     {
-        changed = true;
+        markChanged();
         this.scale.set(scale);
         return this;
     }
 
     public TransformComponent setScale(float x, float y, float z)
     {
-        changed = true;
+        markChanged();
         this.scale.set(x, y, z);
         return this;
     }
 
     public TransformComponent setScale(float x, float y)
     {
-        changed = true;
+        markChanged();
         this.scale.set(x, y, 1);
         return this;
     }
 
     public TransformComponent scale(Vector3 scale)
     {
-        changed = true;
+        markChanged();
         this.scale.scale(scale);
         return this;
     }
 
     public TransformComponent scale(Vector2 scale)
     {
-        changed = true;
+        markChanged();
         this.scale.scale(scale.x, scale.y, 1);
         return this;
     }
 
     public TransformComponent scale(float x, float y, float z)
     {
-        changed = true;
+        markChanged();
         this.scale.scale(x, y, z);
         return this;
     }
 
     public TransformComponent scale(float x, float y)
     {
-        changed = true;
+        markChanged();
         this.scale.scale(x, y, 1);
         return this;
     }
@@ -141,56 +157,56 @@ public class TransformComponent extends Component
 
     public TransformComponent setPosition(Vector2 position)
     {
-        changed = true;
+        markChanged();
         this.position.set(position.x, position.y, 0);
         return this;
     }
 
     public TransformComponent setPosition(Vector3 position)
     {
-        changed = true;
+        markChanged();
         this.position.set(position);
         return this;
     }
 
     public TransformComponent setPosition(float x, float y, float z)
     {
-        changed = true;
+        markChanged();
         this.position.set(x, y, z);
         return this;
     }
 
     public TransformComponent setPosition(float x, float y)
     {
-        changed = true;
+        markChanged();
         this.position.set(x, y, 0);
         return this;
     }
 
     public TransformComponent translate(Vector3 position)
     {
-        changed = true;
+        markChanged();
         this.position.add(position);
         return this;
     }
 
     public TransformComponent translate(Vector2 position)
     {
-        changed = true;
+        markChanged();
         this.position.add(position.x, position.y, 0);
         return this;
     }
 
     public TransformComponent translate(float x, float y, float z)
     {
-        changed = true;
+        markChanged();
         this.position.add(x, y, z);
         return this;
     }
 
     public TransformComponent translate(float x, float y)
     {
-        changed = true;
+        markChanged();
         this.position.add(x, y, 0);
         return this;
     }
@@ -202,49 +218,49 @@ public class TransformComponent extends Component
 
     public TransformComponent setRotation(Vector3 rotation)
     {
-        changed = true;
+        markChanged();
         this.rotation.set(rotation.x, rotation.y, rotation.z);
         return this;
     }
 
     public TransformComponent setRotation(Quaternion rotation)
     {
-        changed = true;
+        markChanged();
         this.rotation.set(rotation);
         return this;
     }
 
     public TransformComponent setRotation(float r)
     {
-        changed = true;
+        markChanged();
         this.rotation.set(0, 0, r);
         return this;
     }
 
     public TransformComponent setRotation(float x, float y, float z)
     {
-        changed = true;
+        markChanged();
         this.rotation.set(x, y, z);
         return this;
     }
 
     public TransformComponent rotate(Vector3 rotation)
     {
-        changed = true;
+        markChanged();
         this.rotation.set(rotation.x, rotation.y, rotation.z);
         return this;
     }
 
     public TransformComponent rotate(Quaternion rotation)
     {
-        changed = true;
+        markChanged();
         this.rotation.multiply(rotation);
         return this;
     }
 
     public TransformComponent rotate(float r)
     {
-        changed = true;
+        markChanged();
         Quaternion temp = Quaternion.REUSABLE_STACK.pop();
         this.rotation.multiply(temp.set(0, 0, r));
         Quaternion.REUSABLE_STACK.push(temp);
@@ -253,7 +269,7 @@ public class TransformComponent extends Component
 
     public TransformComponent rotate(float x, float y, float z)
     {
-        changed = true;
+        markChanged();
         Quaternion temp = Quaternion.REUSABLE_STACK.pop();
         this.rotation.multiply(temp.set(x, y, z));
         Quaternion.REUSABLE_STACK.push(temp);
@@ -273,15 +289,32 @@ public class TransformComponent extends Component
     public void setParent(TransformComponent parent)
     {
         this.parent = parent;
+        hierarchyVersion++;
     }
 
     public Transform getWorldTransform()
     {
-        return parent == null ? localTransform : worldTransform;
+        if (parent == null)
+            return localTransform;
+
+        if (system != null)
+            system.syncWorldTransform(systemIndex);
+
+        return worldTransform;
     }
 
     public boolean hasChanged()
     {
+        // The transform system already propagates the changes of the parents
+        if (system != null)
+            return system.hasChanged(systemIndex);
+
         return hasChanged || (parent != null && parent.hasChanged());
     }
+
+    @Override
+    protected void hashState(StateHash hash)
+    {
+        hash.add(position).add(rotation).add(scale);
+    }
 }
@@ -0,0 +1,304 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.scene.components;
+
+import com.shc.silenceengine.core.SilenceException;
+import com.shc.silenceengine.math.Matrix4;
+import com.shc.silenceengine.scene.Entity;
+import com.shc.silenceengine.scene.Scene;
+import com.shc.silenceengine.utils.TaskManager;
+import com.shc.silenceengine.utils.functional.BiCallback;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>An update system that computes the transforms of all the {@link TransformComponent}s in a {@link Scene} at once.
+ * Every {@link Scene} registers one, right before the components are updated, so that the components and the other
+ * systems see the transforms of the current frame, and {@link TransformComponent#hasChanged()} tells whether they
+ * changed in it. The changes made while the components are updated are computed at the start of the next frame.</p>
+ *
+ * <p>The local and the world matrices are kept packed in flat arrays, sorted by the depth of the components in the
+ * hierarchy, so that every parent is computed before its children. Only the components that changed since the last
+ * frame have their local matrices computed again, and the changes are then propagated from the parents to the
+ * children once per frame. The world matrices are copied into the components only when they are read. The components
+ * at the same depth are updated in parallel with {@link TaskManager#runInParallel(int, int, int, BiCallback)}.</p>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class TransformSystem implements BiCallback<Scene, Float>
+{
+    // The least number of transforms that is worth handing to another thread
+    private static final int GRAIN = 512;
+
+    // The parent index of the components whose parent is not in this system
+    private static final int EXTERNAL_PARENT = -2;
+
+    private final List<TransformComponent> gathered = new ArrayList<>();
+
+    // The components in the order of the entities, to find out when the scene changes
+    private TransformComponent[] entityOrder = new TransformComponent[0];
+
+    // The components sorted by depth, and the packed data of each of them
+    private TransformComponent[] components = new TransformComponent[0];
+
+    private int[]   parents = new int[0];
+    private float[] local   = new float[0];
+    private float[] world   = new float[0];
+
+    // A component's world transform changed in the current frame if its stamp is the current frame
+    private int[] changedFrame = new int[0];
+    private int[] syncedFrame  = new int[0];
+    private int   frame;
+
+    // The components whose position, rotation or scale changed since the last frame
+    private int[]     changedList = new int[0];
+    private boolean[] queued      = new boolean[0];
+    private int       changedCount;
+
+    private int[] levelStarts = new int[1];
+    private int   levels;
+    private int   count;
+
+    private int hierarchyVersion = -1;
+
+    @Override
+    public void invoke(Scene scene, Float elapsedTime)
+    {
+        gathered.clear();
+        scene.forEachEntity(this::gather);
+
+        if (hasStructureChanged())
+            rebuild();
+
+        frame++;
+
+        TaskManager.runInParallel(0, changedCount, GRAIN, this::updateLocals);
+        changedCount = 0;
+
+        for (int level = 0; level < levels; level++)
+            TaskManager.runInParallel(levelStarts[level], levelStarts[level + 1], GRAIN, this::updateWorlds);
+    }
+
+    void markChanged(int index)
+    {
+        if (!queued[index])
+        {
+            queued[index] = true;
+            changedList[changedCount++] = index;
+        }
+    }
+
+    boolean hasChanged(int index)
+    {
+        return changedFrame[index] == frame;
+    }
+
+    /**
+     * Copies the packed world matrix of a component into its world transform, but only if it changed after it was
+     * last copied. The components are not touched in the update, so the matrices are copied when they are read.
+     */
+    void syncWorldTransform(int index)
+    {
+        if (syncedFrame[index] != changedFrame[index])
+        {
+            System.arraycopy(world, index * 16, components[index].worldTransform.matrix.m, 0, 16);
+            syncedFrame[index] = changedFrame[index];
+        }
+    }
+
+    private void gather(Entity entity)
+    {
+        if (entity.transformComponent != null)
+            gathered.add(entity.transformComponent);
+    }
+
+    private boolean hasStructureChanged()
+    {
+        if (hierarchyVersion != TransformComponent.hierarchyVersion || gathered.size() != entityOrder.length)
+            return true;
+
+        for (int i = 0; i < entityOrder.length; i++)
+        {
+            if (entityOrder[i] != gathered.get(i))
+                return true;
+        }
+
+        return false;
+    }
+
+    private void rebuild()
+    {
+        for (int i = 0; i < count; i++)
+        {
+            if (components[i].system == this)
+                components[i].system = null;
+        }
+
+        count = gathered.size();
+        hierarchyVersion = TransformComponent.hierarchyVersion;
+        entityOrder = gathered.toArray(new TransformComponent[count]);
+
+        for (int i = 0; i < count; i++)
+        {
+            entityOrder[i].system = this;
+            entityOrder[i].systemIndex = i;
+        }
+
+        // Find the depth of every component, remembering the depths that are already known
+        int[] depths = new int[count];
+        int[] chain = new int[count];
+        int maxDepth = 0;
+
+        for (int i = 0; i < count; i++)
+            depths[i] = -1;
+
+        for (int i = 0; i < count; i++)
+            maxDepth = Math.max(maxDepth, findDepth(entityOrder[i], depths, chain));
+
+        // Counting sort by the depth, which keeps the order of the entities within a level
+        levels = count == 0 ? 0 : maxDepth + 1;
+        levelStarts = new int[levels + 1];
+
+        for (int i = 0; i < count; i++)
+            levelStarts[depths[i] + 1]++;
+
+        for (int level = 0; level < levels; level++)
+            levelStarts[level + 1] += levelStarts[level];
+
+        int[] next = new int[levels + 1];
+        System.arraycopy(levelStarts, 0, next, 0, levels + 1);
+
+        components = new TransformComponent[count];
+
+        for (int i = 0; i < count; i++)
+            components[next[depths[i]]++] = entityOrder[i];
+
+        for (int i = 0; i < count; i++)
+            components[i].systemIndex = i;
+
+        parents = new int[count];
+
+        for (int i = 0; i < count; i++)
+        {
+            TransformComponent parent = components[i].getParent();
+
+            if (parent == null)
+                parents[i] = -1;
+            else
+                parents[i] = parent.system == this ? parent.systemIndex : EXTERNAL_PARENT;
+        }
+
+        local = new float[count * 16];
+        world = new float[count * 16];
+        changedFrame = new int[count];
+        syncedFrame = new int[count];
+
+        // Everything is computed again after a rebuild
+        changedList = new int[count];
+        queued = new boolean[count];
+        changedCount = 0;
+
+        for (int i = 0; i < count; i++)
+            markChanged(i);
+    }
+
+    private int findDepth(TransformComponent component, int[] depths, int[] chain)
+    {
+        // Walk up until a root, or a component whose depth is known, remembering the way
+        int length = 0;
+        TransformComponent current = component;
+
+        while (depths[current.systemIndex] < 0)
+        {
+            if (length == count)
+                throw new SilenceException("The parents of the TransformComponents form a cycle");
+
+            chain[length++] = current.systemIndex;
+
+            TransformComponent parent = current.getParent();
+
+            if (parent == null || parent.system != this)
+            {
+                current = null;
+                break;
+            }
+
+            current = parent;
+        }
+
+        int depth = current == null ? 0 : depths[current.systemIndex] + 1;
+
+        // Then walk back down, filling in the depths on the way
+        for (int i = length - 1; i >= 0; i--)
+            depths[chain[i]] = depth++;
+
+        return depths[component.systemIndex];
+    }
+
+    private void updateLocals(int start, int end)
+    {
+        for (int k = start; k < end; k++)
+        {
+            int i = changedList[k];
+            TransformComponent component = components[i];
+
+            component.localTransform.setTRS(component.getPosition(), component.getRotation(), component.getScale());
+            System.arraycopy(component.localTransform.matrix.m, 0, local, i * 16, 16);
+
+            component.changed = false;
+            queued[i] = false;
+            changedFrame[i] = frame;
+        }
+    }
+
+    private void updateWorlds(int start, int end)
+    {
+        for (int i = start; i < end; i++)
+        {
+            int parent = parents[i];
+
+            if (parent >= 0)
+            {
+                // The parent is at a lower depth, so it is already up to date
+                if (changedFrame[i] == frame || changedFrame[parent] == frame)
+                {
+                    Matrix4.multiply(world, parent * 16, local, i * 16, world, i * 16);
+                    changedFrame[i] = frame;
+                }
+            }
+            else if (parent == EXTERNAL_PARENT)
+            {
+                // The parent is not in this scene, so there is no knowing if it changed
+                Matrix4 parentWorld = components[i].getParent().getWorldTransform().matrix;
+
+                Matrix4.multiply(parentWorld.m, 0, local, i * 16, world, i * 16);
+                changedFrame[i] = frame;
+            }
+            else if (changedFrame[i] == frame)
+                System.arraycopy(local, i * 16, world, i * 16, 16);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.utils;
+
+/**
+ * <p>Trigonometric functions that give the same results on every platform. The functions of {@link Math} are allowed
+ * to differ in the last bits between virtual machines and processors, which is enough to make two simulations that
+ * start with the same state drift apart. These are computed with only the basic operations on doubles, which are
+ * exactly rounded everywhere, including in the browsers.</p>
+ *
+ * <p>The angles are in degrees, and are reduced to within 45 degrees of a right angle before they are converted to
+ * radians, so the angles that are a whole number of right angles give exact results. The results are accurate to a
+ * few units in the last place of a double.</p>
+ *
+ * @author Sri Harsha Chilakapati
+ * @see MathUtils#setDeterministic(boolean)
+ */
+public final class DeterministicMath
+{
+    private static final double DEG_TO_RAD = Math.PI / 180;
+    private static final double RAD_TO_DEG = 180 / Math.PI;
+
+    private static final double SQRT_3 = 1.7320508075688772;
+
+    // The tangent of 15 degrees, under which the series of the arc tangent converges quickly
+    private static final double TAN_15 = 0.2679491924311227;
+
+    private DeterministicMath()
+    {
+    }
+
+    /**
+     * Returns the sine of an angle in degrees.
+     *
+     * @param angle The angle in degrees.
+     *
+     * @return The sine of the angle, NaN if it is NaN or infinite.
+     */
+    public static double sin(double angle)
+    {
+        double reduced = reduce(angle);
+        double x = (angle - reduced) * DEG_TO_RAD;
+
+        switch (quadrant(reduced))
+        {
+            case 0: return sinSeries(x);
+            case 1: return cosSeries(x);
+            case 2: return -sinSeries(x);
+            default: return -cosSeries(x);
+        }
+    }
+
+    /**
+     * Returns the cosine of an angle in degrees.
+     *
+     * @param angle The angle in degrees.
+     *
+     * @return The cosine of the angle, NaN if it is NaN or infinite.
+     */
+    public static double cos(double angle)
+    {
+        double reduced = reduce(angle);
+        double x = (angle - reduced) * DEG_TO_RAD;
+
+        switch (quadrant(reduced))
+        {
+            case 0: return cosSeries(x);
+            case 1: return -sinSeries(x);
+            case 2: return -cosSeries(x);
+            default: return sinSeries(x);
+        }
+    }
+
+    /**
+     * Returns the tangent of an angle in degrees.
+     *
+     * @param angle The angle in degrees.
+     *
+     * @return The tangent of the angle, NaN if it is NaN or infinite.
+     */
+    public static double tan(double angle)
+    {
+        return sin(angle) / cos(angle);
+    }
+
+    /**
+     * Returns the arc sine of a value in degrees.
+     *
+     * @param value The value, between -1 and 1.
+     *
+     * @return The arc sine in degrees, between -90 and 90, or NaN if the value is out of range.
+     */
+    public static double asin(double value)
+    {
+        return atan2(value, Math.sqrt(1 - value * value));
+    }
+
+    /**
+     * Returns the arc cosine of a value in degrees.
+     *
+     * @param value The value, between -1 and 1.
+     *
+     * @return The arc cosine in degrees, between 0 and 180, or NaN if the value is out of range.
+     */
+    public static double acos(double value)
+    {
+        return atan2(Math.sqrt(1 - value * value), value);
+    }
+
+    /**
+     * Returns the arc tangent of a value in degrees.
+     *
+     * @param value The value.
+     *
+     * @return The arc tangent in degrees, between -90 and 90.
+     */
+    public static double atan(double value)
+    {
+        return atan2(value, 1);
+    }
+
+    /**
+     * Returns the angle of the point ({@code x}, {@code y}) from the X axis in degrees, like {@link Math#atan2(double,
+     * double)}.
+     *
+     * @param y The ordinate of the point.
+     * @param x The abscissa of the point.
+     *
+     * @return The angle in degrees, between -180 and 180, or NaN if either of the coordinates is NaN.
+     */
+    public static double atan2(double y, double x)
+    {
+        if (Double.isNaN(x) || Double.isNaN(y))
+            return Double.NaN;
+
+        double ax = Math.abs(x);
+        double ay = Math.abs(y);
+
+        double angle;
+
+        if (ay == 0 && ax == 0)
+            angle = 0;
+        else if (ay <= ax)
+            angle = atanSeries(ax == Double.POSITIVE_INFINITY ? (ay == ax ? 1 : 0) : ay / ax) * RAD_TO_DEG;
+        else
+            angle = 90 - atanSeries(ay == Double.POSITIVE_INFINITY ? (ay == ax ? 1 : 0) : ax / ay) * RAD_TO_DEG;
+
+        // The angle so far is the one in the first quadrant, so it is mirrored into the quadrant of the point
+        if (x < 0 || (x == 0 && 1 / x < 0))
+            angle = 180 - angle;
+
+        return y < 0 || (y == 0 && 1 / y < 0) ? -angle : angle;
+    }
+
+    /*
+     * Returns the multiple of 90 degrees nearest to the angle.
+     */
+    private static double reduce(double angle)
+    {
+        return Math.floor(angle / 90 + 0.5) * 90;
+    }
+
+    /*
+     * Returns the quadrant of a multiple of 90 degrees, from 0 to 3.
+     */
+    private static int quadrant(double reduced)
+    {
+        double turns = reduced % 360;
+
+        if (turns < 0)
+            turns += 360;
+
+        return (int) (turns / 90);
+    }
+
+    /*
+     * The Taylor series of the sine, for angles within 45 degrees of zero in radians.
+     */
+    private static double sinSeries(double x)
+    {
+        double x2 = x * x;
+
+        return x * (1 - x2 / 6 * (1 - x2 / 20 * (1 - x2 / 42 * (1 - x2 / 72 * (1 - x2 / 110 * (1 - x2 / 156 *
+                (1 - x2 / 210)))))));
+    }
+
+    /*
+     * The Taylor series of the cosine, for angles within 45 degrees of zero in radians.
+     */
+    private static double cosSeries(double x)
+    {
+        double x2 = x * x;
+
+        return 1 - x2 / 2 * (1 - x2 / 12 * (1 - x2 / 30 * (1 - x2 / 56 * (1 - x2 / 90 * (1 - x2 / 132 * (1 - x2 /
+                182 * (1 - x2 / 240)))))));
+    }
+
+    /*
+     * The arc tangent in radians of a value between 0 and 1. Values over the tangent of 15 degrees are moved under it
+     * with the formula of the tangent of a difference, using the angle of 30 degrees.
+     */
+    private static double atanSeries(double t)
+    {
+        double offset = 0;
+
+        if (t > TAN_15)
+        {
+            t = (t * SQRT_3 - 1) / (t + SQRT_3);
+            offset = Math.PI / 6;
+        }
+
+        double t2 = t * t;
+        double sum = 0;
+
+        for (int n = 23; n >= 1; n -= 2)
+            sum = 1.0 / n - t2 * sum;
+
+        return offset + t * sum;
+    }
+}
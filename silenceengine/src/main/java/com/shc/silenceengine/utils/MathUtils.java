@@ -28,9 +28,17 @@ import com.shc.silenceengine.math.Vector2;
 import com.shc.silenceengine.math.Vector3;
 import com.shc.silenceengine.math.Vector4;
 
+import java.util.Random;
+
 /**
- * Contains some Math utility functions, and trigonometry functions that accept degrees as the angle units.
- * SilenceEngine uses degrees everywhere instead of radians.
+ * <p>Contains some Math utility functions, and trigonometry functions that accept degrees as the angle units.
+ * SilenceEngine uses degrees everywhere instead of radians.</p>
+ *
+ * <p>Games that run the same simulation on many machines, like lockstep multiplayer games, can turn on the {@link
+ * #setDeterministic(boolean) deterministic mode}, in which the trigonometry functions give the same results on every
+ * platform, and seed the {@link #setRandomSeed(long) random numbers}. The other float operations in Java are already
+ * exactly rounded, except in the browsers, where the floats are doubles. The games that need to agree with the
+ * browsers should simulate in fixed point with the {@link com.shc.silenceengine.math.fixed} package.</p>
  *
  * @author Sri Harsha Chilakapati
  */
@@ -41,6 +49,10 @@ public final class MathUtils
      */
     public static final double EPSILON = 0.000001;
 
+    private static boolean deterministic = false;
+
+    private static Random random = new Random();
+
     private MathUtils()
     {
     }
@@ -54,6 +66,9 @@ public final class MathUtils
      */
     public static float tan(float angle)
     {
+        if (deterministic)
+            return (float) DeterministicMath.tan(angle);
+
         return (float) Math.tan(Math.toRadians(angle));
     }
 
@@ -66,6 +81,9 @@ public final class MathUtils
      */
     public static float sin(float angle)
     {
+        if (deterministic)
+            return (float) DeterministicMath.sin(angle);
+
         return (float) Math.sin(Math.toRadians(angle));
     }
 
@@ -78,6 +96,9 @@ public final class MathUtils
      */
     public static float cos(float angle)
     {
+        if (deterministic)
+            return (float) DeterministicMath.cos(angle);
+
         return (float) Math.cos(Math.toRadians(angle));
     }
 
@@ -91,6 +112,9 @@ public final class MathUtils
      */
     public static float acos(float value)
     {
+        if (deterministic)
+            return (float) DeterministicMath.acos(value);
+
         return (float) Math.toDegrees(Math.acos(value));
     }
 
@@ -104,6 +128,9 @@ public final class MathUtils
      */
     public static float asin(float value)
     {
+        if (deterministic)
+            return (float) DeterministicMath.asin(value);
+
         return (float) Math.toDegrees(Math.asin(value));
     }
 
@@ -117,6 +144,9 @@ public final class MathUtils
      */
     public static float atan(float value)
     {
+        if (deterministic)
+            return (float) DeterministicMath.atan(value);
+
         return (float) Math.toDegrees(Math.atan(value));
     }
 
@@ -134,9 +164,41 @@ public final class MathUtils
      */
     public static float atan2(float y, float x)
     {
+        if (deterministic)
+            return (float) DeterministicMath.atan2(y, x);
+
         return (float) Math.toDegrees(Math.atan2(y, x));
     }
 
+    public static boolean isDeterministic()
+    {
+        return deterministic;
+    }
+
+    /**
+     * Sets whether the trigonometry functions should give the same results on every platform. They are then computed
+     * by {@link DeterministicMath}, which is slower than the intrinsics of the virtual machine. This has to be set
+     * before any state of the simulation is made, since the shapes compute the sine and cosine of their rotation when
+     * they are rotated.
+     *
+     * @param deterministic True to use the deterministic functions.
+     */
+    public static void setDeterministic(boolean deterministic)
+    {
+        MathUtils.deterministic = deterministic;
+    }
+
+    /**
+     * Seeds the random numbers returned by this class, so that every machine seeded with the same value gets the same
+     * sequence of random numbers.
+     *
+     * @param seed The seed of the random numbers.
+     */
+    public static void setRandomSeed(long seed)
+    {
+        random = new Random(seed);
+    }
+
     /**
      * Returns a new vector which is component-wise minimum of the given two vectors.
      *
@@ -534,7 +596,7 @@ public final class MathUtils
      */
     public static int randomRange(int x1, int x2)
     {
-        return (int) (Math.floor(x1 + (Math.random() * (x2 - x1))));
+        return (int) (Math.floor(x1 + (random.nextDouble() * (x2 - x1))));
     }
 
     /**
@@ -546,7 +608,7 @@ public final class MathUtils
      */
     public static int choose(int[] values)
     {
-        return (values[random(values.length + 1)]);
+        return (values[random(values.length)]);
     }
 
     /**
@@ -558,7 +620,7 @@ public final class MathUtils
      */
     public static int random(int x)
     {
-        return (int) (Math.floor(Math.random() * x));
+        return (int) (Math.floor(random.nextDouble() * x));
     }
 
     /**
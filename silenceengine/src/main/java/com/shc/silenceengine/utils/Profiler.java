@@ -0,0 +1,461 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.utils;
+
+import com.shc.silenceengine.core.SilenceEngine;
+import com.shc.silenceengine.io.FilePath;
+import com.shc.silenceengine.utils.functional.SimpleCallback;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>A low overhead profiler of the time spent in the zones of the code. A zone is started with {@link #begin(String)}
+ * and ended with {@link #end()}, and the zones can be nested. The game loops, the scene systems, the collision systems,
+ * the task manager and the dynamic renderer all mark their zones, so turning the profiler on shows how the frames are
+ * split between them.</p>
+ *
+ * <p>Each thread writes the zones it ends into a ring buffer of its own, which keeps the most recent zones and never
+ * blocks. When the profiler is turned off, marking a zone costs only the check of a flag. The buffers can be exported
+ * at any time in the trace event format of Chrome, which can be opened in chrome://tracing or in Perfetto.</p>
+ *
+ * <p>The times of the frames are always kept for the last {@link #FRAME_HISTORY} frames, whether the profiler is on
+ * or not, so that the statistics of the frame times, like the percentiles, can be shown at runtime.</p>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public final class Profiler
+{
+    /**
+     * The number of the most recent zones that are kept for each thread.
+     */
+    public static final int ZONES_PER_THREAD = 1 << 15;
+
+    /**
+     * The number of the most recent frames whose times are kept.
+     */
+    public static final int FRAME_HISTORY = 600;
+
+    // The zones nested deeper than this are not recorded, but they are still ended properly
+    private static final int MAX_DEPTH = 64;
+
+    private static final List<ZoneBuffer> buffers = new ArrayList<>();
+
+    private static final ThreadLocal<ZoneBuffer> threadBuffers = new ThreadLocal<ZoneBuffer>()
+    {
+        @Override
+        protected ZoneBuffer initialValue()
+        {
+            synchronized (buffers)
+            {
+                ZoneBuffer buffer = new ZoneBuffer(buffers.size() + 1, Thread.currentThread().getName());
+                buffers.add(buffer);
+
+                return buffer;
+            }
+        }
+    };
+
+    private static boolean enabled;
+
+    // Each time the profiler is turned on starts a new session, which discards the zones left open in the last one
+    private static int  session;
+    private static long epoch;
+
+    // The times of the recent frames in nanoseconds, and a scratch array to sort them
+    private static final long[] frameTimes       = new long[FRAME_HISTORY];
+    private static final long[] sortedFrameTimes = new long[FRAME_HISTORY];
+
+    private static int  frameCount;
+    private static long lastFrameStart = -1;
+
+    private Profiler()
+    {
+    }
+
+    public static boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * Turns the recording of the zones on or off. The zones that are open when the profiler is turned off are not
+     * recorded.
+     *
+     * @param enabled Whether to record the zones.
+     */
+    public static void setEnabled(boolean enabled)
+    {
+        if (enabled && !Profiler.enabled)
+        {
+            session++;
+
+            if (epoch == 0)
+                epoch = now();
+        }
+
+        Profiler.enabled = enabled;
+    }
+
+    /**
+     * Starts a zone on the current thread. The zones are identified by their names, so the names should be constants
+     * and not be built for every call.
+     *
+     * @param zone The name of the zone.
+     */
+    public static void begin(String zone)
+    {
+        if (enabled)
+            threadBuffers.get().begin(zone, now(), session);
+    }
+
+    /**
+     * Ends the zone that was last started on the current thread.
+     */
+    public static void end()
+    {
+        if (enabled)
+            threadBuffers.get().end(now(), session);
+    }
+
+    /**
+     * Marks the start of a frame. This is called by the game loops, and records the time since the start of the last
+     * frame, and starts the zone of the frame.
+     */
+    public static void beginFrame()
+    {
+        long now = now();
+
+        if (lastFrameStart >= 0)
+            frameTimes[frameCount++ % FRAME_HISTORY] = now - lastFrameStart;
+
+        lastFrameStart = now;
+
+        if (enabled)
+            threadBuffers.get().begin("Frame", now, session);
+    }
+
+    /**
+     * Marks the end of a frame, ending the zone of the frame. This is called by the game loops.
+     */
+    public static void endFrame()
+    {
+        end();
+    }
+
+    /**
+     * Returns a percentile of the times of the recent frames.
+     *
+     * @param percentile The percentile, from 0 to 100.
+     *
+     * @return The time in milliseconds, or zero if there are no frames yet.
+     */
+    public static double getFrameTimePercentile(double percentile)
+    {
+        int count = sortFrameTimes();
+
+        if (count == 0)
+            return 0;
+
+        return percentile(count, percentile);
+    }
+
+    /**
+     * Computes the statistics of the times of the recent frames. This does not allocate, and can be called for every
+     * frame to show the statistics on the screen.
+     *
+     * @param stats The statistics to fill.
+     *
+     * @return The same statistics, for chaining the calls.
+     */
+    public static FrameStats getFrameStats(FrameStats stats)
+    {
+        int count = sortFrameTimes();
+
+        stats.frames = count;
+
+        if (count == 0)
+        {
+            stats.average = stats.minimum = stats.maximum = stats.median = stats.percentile95 = stats.percentile99 = 0;
+            return stats;
+        }
+
+        long total = 0;
+
+        for (int i = 0; i < count; i++)
+            total += sortedFrameTimes[i];
+
+        stats.average = toMillis(total / (double) count);
+        stats.minimum = toMillis(sortedFrameTimes[0]);
+        stats.maximum = toMillis(sortedFrameTimes[count - 1]);
+        stats.median = percentile(count, 50);
+        stats.percentile95 = percentile(count, 95);
+        stats.percentile99 = percentile(count, 99);
+
+        return stats;
+    }
+
+    private static int sortFrameTimes()
+    {
+        int count = Math.min(frameCount, FRAME_HISTORY);
+
+        System.arraycopy(frameTimes, 0, sortedFrameTimes, 0, count);
+        Arrays.sort(sortedFrameTimes, 0, count);
+
+        return count;
+    }
+
+    private static double percentile(int count, double percentile)
+    {
+        // The nearest rank of the percentile in the sorted times
+        int rank = (int) Math.ceil(percentile / 100 * count) - 1;
+        return toMillis(sortedFrameTimes[Math.max(0, Math.min(count - 1, rank))]);
+    }
+
+    /**
+     * Discards the zones that are recorded so far, and the times of the frames.
+     */
+    public static void clear()
+    {
+        synchronized (buffers)
+        {
+            for (ZoneBuffer buffer : buffers)
+                buffer.readFrom = buffer.written;
+        }
+
+        frameCount = 0;
+        lastFrameStart = -1;
+    }
+
+    /**
+     * Exports the recorded zones of all the threads as a trace in the trace event format of Chrome. The zones that are
+     * overwritten by their threads while they are being exported are left out.
+     *
+     * @return The trace as a JSON string.
+     */
+    public static String exportChromeTrace()
+    {
+        List<ZoneBuffer> snapshot;
+
+        synchronized (buffers)
+        {
+            snapshot = new ArrayList<>(buffers);
+        }
+
+        StringBuilder json = new StringBuilder("{\"traceEvents\":[");
+        boolean first = true;
+
+        for (ZoneBuffer buffer : snapshot)
+        {
+            if (!first)
+                json.append(',');
+
+            first = false;
+
+            json.append("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":").append(buffer.id)
+                    .append(",\"args\":{\"name\":");
+            appendString(json, buffer.threadName);
+            json.append("}}");
+
+            buffer.appendZones(json);
+        }
+
+        return json.append("],\"displayTimeUnit\":\"ms\"}").toString();
+    }
+
+    /**
+     * Exports the recorded zones as a trace in the trace event format of Chrome into a file.
+     *
+     * @param file      The file to write the trace to.
+     * @param onSuccess The callback that is invoked once the trace is written.
+     */
+    public static void exportChromeTrace(FilePath file, SimpleCallback onSuccess)
+    {
+        SilenceEngine.io.getFileWriter().write(exportChromeTrace(), file, false, onSuccess);
+    }
+
+    private static void appendString(StringBuilder json, String value)
+    {
+        json.append('"');
+
+        for (int i = 0; i < value.length(); i++)
+        {
+            char ch = value.charAt(i);
+
+            if (ch == '"' || ch == '\\')
+                json.append('\\').append(ch);
+            else if (ch < 0x20)
+                json.append(' ');
+            else
+                json.append(ch);
+        }
+
+        json.append('"');
+    }
+
+    private static long now()
+    {
+        return (long) SilenceEngine.display.nanoTime();
+    }
+
+    private static double toMillis(double nanos)
+    {
+        return nanos / 1_000_000.0;
+    }
+
+    /**
+     * The statistics of the times of the recent frames, in milliseconds.
+     */
+    public static class FrameStats
+    {
+        public int    frames;
+        public double average;
+        public double minimum;
+        public double maximum;
+        public double median;
+        public double percentile95;
+        public double percentile99;
+
+        @Override
+        public String toString()
+        {
+            return "FrameStats{" +
+                   "frames=" + frames +
+                   ", average=" + average +
+                   ", minimum=" + minimum +
+                   ", maximum=" + maximum +
+                   ", median=" + median +
+                   ", percentile95=" + percentile95 +
+                   ", percentile99=" + percentile99 +
+                   '}';
+        }
+    }
+
+    /**
+     * The zones of a single thread. Only the owning thread writes the zones, and the count of the written zones is
+     * updated after each of them, so the exporter can tell which of the zones it read were overwritten meanwhile.
+     */
+    private static final class ZoneBuffer
+    {
+        private final int    id;
+        private final String threadName;
+
+        private final String[] names  = new String[ZONES_PER_THREAD];
+        private final long[]   starts = new long[ZONES_PER_THREAD];
+        private final long[]   ends   = new long[ZONES_PER_THREAD];
+
+        private volatile long written;
+        private volatile long readFrom;
+
+        // The zones that are open, the deepest last
+        private final String[] openNames  = new String[MAX_DEPTH];
+        private final long[]   openStarts = new long[MAX_DEPTH];
+
+        private int depth;
+        private int session;
+
+        ZoneBuffer(int id, String threadName)
+        {
+            this.id = id;
+            this.threadName = threadName;
+        }
+
+        void begin(String name, long time, int session)
+        {
+            if (this.session != session)
+            {
+                this.session = session;
+                depth = 0;
+            }
+
+            if (depth < MAX_DEPTH)
+            {
+                openNames[depth] = name;
+                openStarts[depth] = time;
+            }
+
+            depth++;
+        }
+
+        void end(long time, int session)
+        {
+            // The zones that began before the profiler was turned on are not recorded
+            if (this.session != session || depth == 0)
+                return;
+
+            depth--;
+
+            if (depth >= MAX_DEPTH)
+                return;
+
+            long count = written;
+            int index = (int) (count & (ZONES_PER_THREAD - 1));
+
+            names[index] = openNames[depth];
+            starts[index] = openStarts[depth];
+            ends[index] = time;
+
+            written = count + 1;
+        }
+
+        void appendZones(StringBuilder json)
+        {
+            long last = written;
+            long first = Math.max(readFrom, last - ZONES_PER_THREAD);
+
+            int count = (int) (last - first);
+
+            String[] zoneNames = new String[count];
+            long[] zoneStarts = new long[count];
+            long[] zoneEnds = new long[count];
+
+            for (int i = 0; i < count; i++)
+            {
+                int index = (int) ((first + i) & (ZONES_PER_THREAD - 1));
+
+                zoneNames[i] = names[index];
+                zoneStarts[i] = starts[index];
+                zoneEnds[i] = ends[index];
+            }
+
+            // The zones that the thread wrapped around to while they were copied are not valid
+            long valid = Math.max(first, written - ZONES_PER_THREAD);
+
+            for (int i = (int) (valid - first); i < count; i++)
+            {
+                if (zoneNames[i] == null)
+                    continue;
+
+                json.append(",{\"name\":");
+                appendString(json, zoneNames[i]);
+                json.append(",\"ph\":\"X\",\"pid\":1,\"tid\":").append(id)
+                        .append(",\"ts\":").append((zoneStarts[i] - epoch) / 1000.0)
+                        .append(",\"dur\":").append((zoneEnds[i] - zoneStarts[i]) / 1000.0)
+                        .append('}');
+            }
+        }
+    }
+}
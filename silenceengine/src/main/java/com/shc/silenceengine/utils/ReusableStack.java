@@ -24,66 +24,144 @@
 
 package com.shc.silenceengine.utils;
 
-import com.shc.silenceengine.core.SilenceException;
+import com.shc.silenceengine.core.SilenceEngine;
 import com.shc.silenceengine.utils.functional.Provider;
 
 import java.util.ArrayList;
-import java.util.Deque;
-import java.util.LinkedList;
 import java.util.List;
 
 /**
+ * <p>A stack of reusable scratch objects, used to avoid creating temporary objects in the math and the collision
+ * code. Every thread gets its own {@link ScratchPool} behind this stack, so popping and pushing never takes a lock,
+ * and the math can be used from the worker threads without them contending with the game thread.</p>
+ *
+ * <p>An object must be pushed back on the same thread that popped it, and before the method that popped it returns.
+ * When the {@link #setDebug(boolean) debug mode} is on, the objects that are still popped at the start of every frame
+ * are reported as leaks, along with the place where they were popped.</p>
+ *
  * @param <T> Any typed parameter.
  *
  * @author Sri Harsha Chilakapati
  */
 public final class ReusableStack<T>
 {
-    private final Object lock = new Object();
+    private static final List<ReusableStack<?>> stacks = new ArrayList<>();
 
-    private Deque<T> stack;
-    private List<T>  list;
+    private static boolean debug            = false;
+    private static boolean debugInitialized = false;
 
-    private Provider<T> objectProvider;
+    private final ThreadLocal<ScratchPool<T>> pools;
 
     public ReusableStack(Provider<T> objectProvider)
     {
-        stack = new LinkedList<>();
-        list = new ArrayList<>();
-        this.objectProvider = objectProvider;
+        pools = new ThreadLocal<ScratchPool<T>>()
+        {
+            @Override
+            protected ScratchPool<T> initialValue()
+            {
+                ScratchPool<T> pool = new ScratchPool<>(objectProvider);
+                pool.setTracking(debug);
+                return pool;
+            }
+        };
+
+        synchronized (stacks)
+        {
+            stacks.add(this);
+        }
     }
 
-    public T pop()
+    /**
+     * Turns the detection of the leaked scratch objects on or off. The leaks are checked on the game thread at the
+     * start of every frame. Only the objects popped after this is turned on are tracked.
+     *
+     * @param debug Whether to report the objects that are popped but never pushed back.
+     */
+    public static void setDebug(boolean debug)
     {
-        synchronized (lock)
+        ReusableStack.debug = debug;
+
+        synchronized (stacks)
+        {
+            for (ReusableStack<?> stack : stacks)
+                stack.pools.get().setTracking(debug);
+        }
+
+        if (debug && !debugInitialized)
         {
-            if (stack.size() == 0)
-                try
-                {
-                    T object = objectProvider.provide();
-
-                    list.add(object);
-                    stack.push(object);
-                }
-                catch (Exception e)
-                {
-                    SilenceException.reThrow(e);
-                }
-
-            return stack.pop();
+            SilenceEngine.eventManager.addUpdateHandler(delta ->
+            {
+                if (ReusableStack.debug)
+                    checkLeaks();
+            });
+
+            debugInitialized = true;
         }
     }
 
-    public void push(T value)
+    public static boolean isDebug()
     {
-        synchronized (lock)
+        return debug;
+    }
+
+    /**
+     * Reports the scratch objects that are popped on the current thread and are not yet pushed back. This is only
+     * meaningful when no method that uses the scratch objects is running on this thread, and when the debug mode is
+     * on. Each leak is only reported once.
+     *
+     * @return The number of leaks that were found.
+     */
+    public static int checkLeaks()
+    {
+        List<ReusableStack<?>> snapshot;
+
+        synchronized (stacks)
         {
-            stack.push(value);
+            snapshot = new ArrayList<>(stacks);
         }
+
+        int count = 0;
+
+        for (ReusableStack<?> stack : snapshot)
+        {
+            ScratchPool<?> pool = stack.pools.get();
+
+            if (!pool.isTracking())
+                continue;
+
+            for (Throwable site : pool.takeLeaks())
+            {
+                StringBuilder message = new StringBuilder("Scratch object is popped and never pushed back");
+
+                // Skip the frames of the pool itself, so the trace starts at the code that popped the object
+                StackTraceElement[] trace = site.getStackTrace();
+
+                for (int i = Math.min(3, trace.length); i < trace.length; i++)
+                    message.append("\n\tat ").append(trace[i]);
+
+                SilenceEngine.log.getRootLogger().warn(message.toString());
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    public T pop()
+    {
+        return pools.get().pop();
+    }
+
+    public void push(T value)
+    {
+        pools.get().push(value);
     }
 
+    /**
+     * @return All the objects that were created by this stack on the current thread.
+     */
     public List<T> getAsList()
     {
-        return list;
+        return pools.get().getAsList();
     }
 }
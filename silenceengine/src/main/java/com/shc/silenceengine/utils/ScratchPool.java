@@ -0,0 +1,214 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.utils;
+
+import com.shc.silenceengine.core.SilenceException;
+import com.shc.silenceengine.utils.functional.Provider;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>A pool of reusable objects that is confined to a single thread. The free objects are kept in a plain array, so
+ * both {@link #pop()} and {@link #push(Object)} are constant time, take no locks and allocate nothing once the pool
+ * has grown to the size it needs.</p>
+ *
+ * <p>A pool can optionally track the objects that are popped and not yet pushed back, remembering where each one of
+ * them was popped. This is meant only for debugging, as it captures a stack trace on every pop.</p>
+ *
+ * @param <T> The type of the objects in the pool.
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public final class ScratchPool<T>
+{
+    private final Provider<T> objectProvider;
+    private final List<T>     created = new ArrayList<>();
+
+    private Object[] free = new Object[16];
+    private int      freeCount;
+    private int      outstanding;
+
+    private boolean     tracking;
+    private Object[]    poppedObjects;
+    private Throwable[] poppedSites;
+    private int         poppedCount;
+
+    public ScratchPool(Provider<T> objectProvider)
+    {
+        this.objectProvider = objectProvider;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T pop()
+    {
+        T object;
+
+        if (freeCount == 0)
+        {
+            object = null;
+
+            try
+            {
+                object = objectProvider.provide();
+                created.add(object);
+            }
+            catch (Exception e)
+            {
+                SilenceException.reThrow(e);
+            }
+        }
+        else
+        {
+            object = (T) free[--freeCount];
+            free[freeCount] = null;
+        }
+
+        outstanding++;
+
+        if (tracking)
+            track(object);
+
+        return object;
+    }
+
+    public void push(T object)
+    {
+        if (freeCount == free.length)
+        {
+            Object[] grown = new Object[free.length * 2];
+            System.arraycopy(free, 0, grown, 0, freeCount);
+            free = grown;
+        }
+
+        free[freeCount++] = object;
+        outstanding--;
+
+        if (tracking)
+            untrack(object);
+    }
+
+    /**
+     * @return The number of objects that are popped and not yet pushed back.
+     */
+    public int getOutstanding()
+    {
+        return outstanding;
+    }
+
+    /**
+     * @return All the objects that were ever created by this pool.
+     */
+    public List<T> getAsList()
+    {
+        return created;
+    }
+
+    /**
+     * Starts or stops remembering where the outstanding objects were popped. Only the objects popped after this is
+     * turned on are tracked.
+     *
+     * @param tracking Whether to track the popped objects.
+     */
+    public void setTracking(boolean tracking)
+    {
+        this.tracking = tracking;
+
+        if (tracking && poppedObjects == null)
+        {
+            poppedObjects = new Object[16];
+            poppedSites = new Throwable[16];
+        }
+        else if (!tracking)
+        {
+            poppedObjects = null;
+            poppedSites = null;
+            poppedCount = 0;
+        }
+    }
+
+    public boolean isTracking()
+    {
+        return tracking;
+    }
+
+    /**
+     * Returns the places where the tracked outstanding objects were popped, and forgets them so that each leak is only
+     * reported once.
+     *
+     * @return The stack traces of the pops of the objects that are not yet pushed back.
+     */
+    public List<Throwable> takeLeaks()
+    {
+        List<Throwable> leaks = new ArrayList<>(poppedCount);
+
+        for (int i = 0; i < poppedCount; i++)
+        {
+            leaks.add(poppedSites[i]);
+            poppedObjects[i] = null;
+            poppedSites[i] = null;
+        }
+
+        poppedCount = 0;
+        return leaks;
+    }
+
+    private void track(Object object)
+    {
+        if (poppedCount == poppedObjects.length)
+        {
+            Object[] objects = new Object[poppedCount * 2];
+            Throwable[] sites = new Throwable[poppedCount * 2];
+
+            System.arraycopy(poppedObjects, 0, objects, 0, poppedCount);
+            System.arraycopy(poppedSites, 0, sites, 0, poppedCount);
+
+            poppedObjects = objects;
+            poppedSites = sites;
+        }
+
+        poppedObjects[poppedCount] = object;
+        poppedSites[poppedCount] = new Throwable();
+        poppedCount++;
+    }
+
+    private void untrack(Object object)
+    {
+        // Objects are mostly pushed back in the reverse order of popping, so search from the top
+        for (int i = poppedCount - 1; i >= 0; i--)
+        {
+            if (poppedObjects[i] == object)
+            {
+                poppedCount--;
+                System.arraycopy(poppedObjects, i + 1, poppedObjects, i, poppedCount - i);
+                System.arraycopy(poppedSites, i + 1, poppedSites, i, poppedCount - i);
+
+                poppedObjects[poppedCount] = null;
+                poppedSites[poppedCount] = null;
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.utils;
+
+import com.shc.silenceengine.math.Quaternion;
+import com.shc.silenceengine.math.Vector2;
+import com.shc.silenceengine.math.Vector3;
+import com.shc.silenceengine.math.fixed.FixedVector2;
+
+/**
+ * <p>Computes a 64-bit FNV-1a hash of the state of a simulation. The peers of a game synchronized over the network in
+ * lockstep can exchange the hash of their state every frame, and find the first frame where they desynchronized
+ * instead of noticing it much later.</p>
+ *
+ * <p>The floats are hashed with their exact bits, so the states only hash the same if they are exactly equal. The
+ * values are hashed in the order they are added, which has to be the same order on every peer.</p>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class StateHash
+{
+    private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long PRIME        = 0x100000001b3L;
+
+    private long hash = OFFSET_BASIS;
+
+    public StateHash reset()
+    {
+        hash = OFFSET_BASIS;
+        return this;
+    }
+
+    public StateHash add(int value)
+    {
+        for (int i = 0; i < 32; i += 8)
+        {
+            hash ^= (value >>> i) & 0xFF;
+            hash *= PRIME;
+        }
+
+        return this;
+    }
+
+    public StateHash add(long value)
+    {
+        return add((int) value).add((int) (value >>> 32));
+    }
+
+    public StateHash add(float value)
+    {
+        // All the NaNs are hashed the same, since their bits can differ between the platforms
+        return add(Float.floatToIntBits(value));
+    }
+
+    public StateHash add(double value)
+    {
+        return add(Double.doubleToLongBits(value));
+    }
+
+    public StateHash add(boolean value)
+    {
+        return add(value ? 1 : 0);
+    }
+
+    public StateHash add(Vector2 v)
+    {
+        return add(v.x).add(v.y);
+    }
+
+    public StateHash add(Vector3 v)
+    {
+        return add(v.x).add(v.y).add(v.z);
+    }
+
+    public StateHash add(Quaternion q)
+    {
+        return add(q.x).add(q.y).add(q.z).add(q.w);
+    }
+
+    public StateHash add(FixedVector2 v)
+    {
+        return add(v.x).add(v.y);
+    }
+
+    public long get()
+    {
+        return hash;
+    }
+
+    @Override
+    public String toString()
+    {
+        return Long.toHexString(hash);
+    }
+}
@@ -25,80 +25,234 @@
 package com.shc.silenceengine.utils;
 
 import com.shc.silenceengine.core.SilenceEngine;
+import com.shc.silenceengine.core.metrics.Counter;
+import com.shc.silenceengine.core.metrics.Gauge;
+import com.shc.silenceengine.core.metrics.Metrics;
+import com.shc.silenceengine.utils.functional.BiCallback;
 import com.shc.silenceengine.utils.functional.SimpleCallback;
-
-import java.util.LinkedList;
-import java.util.Queue;
+import com.shc.silenceengine.utils.functional.UniCallback;
 
 /**
+ * The TaskManager runs the tasks posted from any thread on the update and the render threads, once every frame. The
+ * tasks are held in lock-free {@link TaskQueue}s, so posting a task never waits for the tasks that are being run. Each
+ * frame runs the tasks only until its time budget runs out, and the tasks that are left over are run in the next
+ * frame, so a burst of tasks (like the completions of a loader) is spread over a few frames instead of stalling one.
+ *
  * @author Sri Harsha Chilakapati
  */
 public final class TaskManager
 {
-    private static Queue<SimpleCallback> updateTasks = new LinkedList<>();
-    private static Queue<SimpleCallback> renderTasks = new LinkedList<>();
+    // There is little to gain from splitting a loop into more chunks than there are cores
+    private static final int MAX_PARALLEL_CHUNKS = 64;
+
+    private static final TaskQueue updateTasks = new TaskQueue();
+    private static final TaskQueue renderTasks = new TaskQueue();
+
+    private static final Counter TASKS_RUN      = Metrics.counter("tasks.run");
+    private static final Gauge   PENDING_UPDATE = Metrics.gauge("tasks.pendingUpdate");
+    private static final Gauge   PENDING_RENDER = Metrics.gauge("tasks.pendingRender");
 
     private static boolean initialized = false;
 
-    private final static Object updateTasksLock = new Object();
-    private final static Object renderTasksLock = new Object();
+    // Platforms without threads run the worker tasks on the update thread
+    private static UniCallback<SimpleCallback> workerExecutor = TaskManager::runOnUpdate;
+    private static UniCallback<SimpleCallback> ioExecutor     = TaskManager::runOnWorker;
 
-    public static void runOnUpdate(SimpleCallback task)
+    // Platforms without threads run the parallel tasks one after the other
+    private static UniCallback<SimpleCallback[]> parallelExecutor = tasks ->
     {
-        synchronized (updateTasksLock)
-        {
-            updateTasks.add(task);
-        }
+        for (SimpleCallback task : tasks)
+            task.invoke();
+    };
+
+    // The time budgets in milliseconds for running the tasks in a single frame
+    private static double updateBudget = 4;
+    private static double renderBudget = 4;
 
+    public static void runOnUpdate(SimpleCallback task)
+    {
+        updateTasks.post(task);
         checkInitialized();
     }
 
     public static void runOnRender(SimpleCallback task)
     {
-        synchronized (renderTasksLock)
+        renderTasks.post(task);
+        checkInitialized();
+    }
+
+    /**
+     * Runs a task on a background worker thread, if the platform provides one. The task must not touch the graphics or
+     * the audio contexts, and should post the results back using {@link #runOnUpdate(SimpleCallback)} or {@link
+     * #runOnRender(SimpleCallback)}. On platforms without threads, the task is run on the update thread.
+     *
+     * @param task The task to be run on a worker thread.
+     */
+    public static void runOnWorker(SimpleCallback task)
+    {
+        workerExecutor.invoke(task);
+    }
+
+    /**
+     * Sets the executor that is used to run the worker tasks. This is to be called by the backends that can run tasks
+     * in parallel, and not by the users.
+     *
+     * @param executor The executor that runs the task passed to it on a worker thread.
+     */
+    public static void setWorkerExecutor(UniCallback<SimpleCallback> executor)
+    {
+        workerExecutor = executor;
+    }
+
+    /**
+     * Runs a task on a thread that is meant for blocking I/O, like reading files or sockets, if the platform provides
+     * one. These threads are kept apart from the workers, so that blocking reads don't hold back the computations. On
+     * platforms without a separate I/O pool, the task is run as a worker task.
+     *
+     * @param task The task to be run on an I/O thread.
+     */
+    public static void runOnIO(SimpleCallback task)
+    {
+        ioExecutor.invoke(task);
+    }
+
+    /**
+     * Sets the executor that is used to run the I/O tasks. This is to be called by the backends, and not by the users.
+     *
+     * @param executor The executor that runs the task passed to it on an I/O thread.
+     */
+    public static void setIOExecutor(UniCallback<SimpleCallback> executor)
+    {
+        ioExecutor = executor;
+    }
+
+    /**
+     * Runs a loop over a range of indices in parallel, and waits for it to complete. The range is split into chunks of
+     * at least {@code grain} indices, and each chunk is run as a separate task. The calling thread takes part in the
+     * work. On platforms without threads, the chunks are run one after the other on the calling thread.
+     *
+     * @param start The first index of the range, inclusive.
+     * @param end   The last index of the range, exclusive.
+     * @param grain The minimum number of indices in each chunk.
+     * @param body  The body of the loop, which is called with the start and end of each chunk.
+     */
+    public static void runInParallel(int start, int end, int grain, BiCallback<Integer, Integer> body)
+    {
+        int count = end - start;
+
+        if (count <= 0)
+            return;
+
+        int chunks = Math.max(1, Math.min(count / Math.max(1, grain), MAX_PARALLEL_CHUNKS));
+
+        if (chunks == 1)
         {
-            renderTasks.add(task);
+            body.invoke(start, end);
+            return;
         }
 
-        checkInitialized();
+        SimpleCallback[] tasks = new SimpleCallback[chunks];
+
+        for (int i = 0; i < chunks; i++)
+        {
+            final int chunkStart = start + (int) ((long) count * i / chunks);
+            final int chunkEnd = start + (int) ((long) count * (i + 1) / chunks);
+
+            tasks[i] = () -> body.invoke(chunkStart, chunkEnd);
+        }
+
+        parallelExecutor.invoke(tasks);
+    }
+
+    /**
+     * Sets the executor that runs the chunks of the parallel loops. The executor must run all the tasks passed to it
+     * and return only after all of them are complete. This is to be called by the backends, and not by the users.
+     *
+     * @param executor The executor that runs the tasks in parallel and waits for them.
+     */
+    public static void setParallelExecutor(UniCallback<SimpleCallback[]> executor)
+    {
+        parallelExecutor = executor;
     }
 
+    /**
+     * Removes all the pending update tasks without running them. This must be called on the update thread.
+     */
     public static void clearUpdateTasks()
     {
-        synchronized (updateTasksLock)
-        {
-            updateTasks.clear();
-        }
+        updateTasks.clear();
     }
 
+    /**
+     * Removes all the pending render tasks without running them. This must be called on the render thread.
+     */
     public static void clearRenderTasks()
     {
-        synchronized (renderTasksLock)
-        {
-            renderTasks.clear();
-        }
+        renderTasks.clear();
     }
 
     public static void forceUpdateTasks(float deltaTime)
     {
-        synchronized (updateTasksLock)
-        {
-            SimpleCallback task;
-
-            while ((task = updateTasks.poll()) != null)
-                task.invoke();
-        }
+        Profiler.begin("Update Tasks");
+        TASKS_RUN.add(updateTasks.drain(updateBudget));
+        PENDING_UPDATE.set(updateTasks.getDepth());
+        Profiler.end();
     }
 
     public static void forceRenderTasks(float delta)
     {
-        synchronized (renderTasksLock)
-        {
-            SimpleCallback task;
+        Profiler.begin("Render Tasks");
+        TASKS_RUN.add(renderTasks.drain(renderBudget));
+        PENDING_RENDER.set(renderTasks.getDepth());
+        Profiler.end();
+    }
 
-            while ((task = renderTasks.poll()) != null)
-                task.invoke();
-        }
+    /**
+     * Sets the time that the update tasks can take in a single frame. The tasks that don't fit in the budget are run
+     * in the next frame, but at least one task is run every frame.
+     *
+     * @param budget The budget in milliseconds. Zero means that all the pending tasks are run every frame.
+     */
+    public static void setUpdateBudget(double budget)
+    {
+        updateBudget = budget;
+    }
+
+    public static double getUpdateBudget()
+    {
+        return updateBudget;
+    }
+
+    /**
+     * Sets the time that the render tasks can take in a single frame. The tasks that don't fit in the budget are run
+     * in the next frame, but at least one task is run every frame.
+     *
+     * @param budget The budget in milliseconds. Zero means that all the pending tasks are run every frame.
+     */
+    public static void setRenderBudget(double budget)
+    {
+        renderBudget = budget;
+    }
+
+    public static double getRenderBudget()
+    {
+        return renderBudget;
+    }
+
+    /**
+     * @return The queue of the update tasks, to read its depth and drain time metrics.
+     */
+    public static TaskQueue getUpdateQueue()
+    {
+        return updateTasks;
+    }
+
+    /**
+     * @return The queue of the render tasks, to read its depth and drain time metrics.
+     */
+    public static TaskQueue getRenderQueue()
+    {
+        return renderTasks;
     }
 
     private static void checkInitialized()
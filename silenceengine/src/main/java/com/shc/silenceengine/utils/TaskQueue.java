@@ -0,0 +1,220 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.utils;
+
+import com.shc.silenceengine.utils.functional.SimpleCallback;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <p>A lock-free queue of tasks, that can be posted to from any number of threads, but is only ever drained from a
+ * single thread. Posting a task is a single atomic exchange, and draining never takes a lock, so the threads that post
+ * tasks are never blocked by the tasks that are being run.</p>
+ *
+ * <p>The nodes of the queue are recycled once the tasks in them are run, so a steady stream of tasks does not create
+ * any garbage. The queue also keeps track of how many tasks are pending, and of how long the last drain took.</p>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public final class TaskQueue
+{
+    private final AtomicReference<Node> tail;
+    private final AtomicReference<Node> pool = new AtomicReference<>();
+
+    private final AtomicInteger depth = new AtomicInteger();
+
+    // Only ever touched by the thread that drains the queue
+    private Node head;
+
+    private int    peakDepth;
+    private int    lastDrainCount;
+    private double lastDrainTime;
+
+    public TaskQueue()
+    {
+        head = new Node();
+        tail = new AtomicReference<>(head);
+    }
+
+    /**
+     * Adds a task to this queue. This can be called from any thread.
+     *
+     * @param task The task to be run when the queue is drained.
+     */
+    public void post(SimpleCallback task)
+    {
+        Node node = obtainNode();
+        node.task = task;
+        node.next = null;
+
+        depth.incrementAndGet();
+
+        // Linking the previous node publishes the task to the draining thread
+        Node previous = tail.getAndSet(node);
+        previous.next = node;
+    }
+
+    /**
+     * Removes the next task from this queue. This must only be called from the thread that drains the queue.
+     *
+     * @return The next task, or null if there are no tasks that are visible yet.
+     */
+    public SimpleCallback poll()
+    {
+        Node next = head.next;
+
+        if (next == null)
+            return null;
+
+        SimpleCallback task = next.task;
+        next.task = null;
+
+        // The next node becomes the new sentinel, and the old one is no longer seen by any producer
+        recycleNode(head);
+        head = next;
+
+        depth.decrementAndGet();
+        return task;
+    }
+
+    /**
+     * Runs the tasks in this queue until it is empty, or until the time budget runs out. The tasks that are left over
+     * are run in the next drain. At least one task is always run, so the queue keeps making progress even when a
+     * single task takes longer than the budget. This must only be called from the thread that drains the queue.
+     *
+     * @param budget The time budget in milliseconds. Zero or a negative value means that there is no budget.
+     *
+     * @return The number of tasks that were run.
+     */
+    public int drain(double budget)
+    {
+        peakDepth = Math.max(peakDepth, depth.get());
+
+        double startTime = TimeUtils.currentMillis();
+        int count = 0;
+
+        SimpleCallback task;
+
+        try
+        {
+            while ((task = poll()) != null)
+            {
+                task.invoke();
+                count++;
+
+                if (budget > 0 && TimeUtils.currentMillis() - startTime >= budget)
+                    break;
+            }
+        }
+        finally
+        {
+            lastDrainCount = count;
+            lastDrainTime = TimeUtils.currentMillis() - startTime;
+        }
+
+        return count;
+    }
+
+    /**
+     * Removes all the tasks in this queue without running them. This must only be called from the thread that drains
+     * the queue.
+     */
+    public void clear()
+    {
+        while (poll() != null)
+        {
+            // Just drop the tasks
+        }
+    }
+
+    /**
+     * @return The number of tasks that are waiting in this queue.
+     */
+    public int getDepth()
+    {
+        return depth.get();
+    }
+
+    /**
+     * @return The largest number of tasks that were ever waiting at the start of a drain.
+     */
+    public int getPeakDepth()
+    {
+        return peakDepth;
+    }
+
+    /**
+     * @return The number of tasks that were run in the last drain.
+     */
+    public int getLastDrainCount()
+    {
+        return lastDrainCount;
+    }
+
+    /**
+     * @return The time taken by the last drain, in milliseconds.
+     */
+    public double getLastDrainTime()
+    {
+        return lastDrainTime;
+    }
+
+    private Node obtainNode()
+    {
+        // Taking the whole free list at once can't suffer from the ABA problem, unlike popping a single node
+        Node node = pool.getAndSet(null);
+
+        if (node == null)
+            return new Node();
+
+        Node rest = node.next;
+
+        // If some other thread has already started a new free list, the rest is simply left to the garbage collector
+        if (rest != null)
+            pool.compareAndSet(null, rest);
+
+        return node;
+    }
+
+    private void recycleNode(Node node)
+    {
+        Node top;
+
+        do
+        {
+            top = pool.get();
+            node.next = top;
+        }
+        while (!pool.compareAndSet(top, node));
+    }
+
+    private static class Node
+    {
+        private volatile Node next;
+
+        private SimpleCallback task;
+    }
+}
@@ -24,25 +24,57 @@
 
 package com.shc.silenceengine.utils.functional;
 
+import com.shc.silenceengine.core.SilenceException;
+import com.shc.silenceengine.utils.GameTimer;
+import com.shc.silenceengine.utils.TaskManager;
+import com.shc.silenceengine.utils.TimeUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
 /**
+ * <p>A Promise is a value that will be available at some point in the future, or an error that prevented it from
+ * being available. A promise is settled exactly once, and can be settled from any thread.</p>
+ *
+ * <p>The continuations of a promise are run on the thread that settles it, unless they are given an executor, in
+ * which case they are handed to it. The executors used in the engine are the methods of the {@link TaskManager}, so a
+ * continuation can be sent to the update thread, the render thread, a worker thread, or an I/O thread.</p>
+ *
+ * <pre>
+ *     FilePath.getResourceFile("level.json").readTextFile()
+ *             .map(JSON::parse, TaskManager::runOnWorker)
+ *             .then(this::buildLevel, this::showError, TaskManager::runOnUpdate);
+ * </pre>
+ *
+ * <p>Promises never take a lock. The continuations are kept in a lock-free stack, which is closed when the promise is
+ * settled, so a continuation that is added after that is run right away.</p>
+ *
+ * <p>A continuation that throws does not stop the others from running, and the error never escapes into the thread
+ * that settled the promise. The continuations added with {@link #then(UniCallback, UniCallback)}, {@link
+ * #map(UniFunction)} and {@link #flatMap(UniFunction)} reject the promises they return with the error, and the
+ * errors thrown anywhere else are rethrown on the update thread.</p>
+ *
  * @author Sri Harsha Chilakapati
  */
 public class Promise<T>
 {
-    public State state = State.PENDING;
-    public T value;
+    // Marks the listeners of a settled promise, so that new listeners are run right away
+    private static final Listener<Object> CLOSED = new Listener<>(null, null, null);
 
-    private Promise<T> next;
-    private Throwable  throwable;
+    public volatile State state = State.PENDING;
+    public volatile T     value;
 
-    private UniCallback<T>         onFulfilled;
-    private UniCallback<Throwable> onRejected;
+    private volatile Throwable throwable;
+
+    private final AtomicBoolean                settled   = new AtomicBoolean();
+    private final AtomicReference<Listener<T>> listeners = new AtomicReference<>();
 
     public Promise()
     {
-        this((resolve, reject) ->
-        {
-        });
     }
 
     public Promise(BiCallback<UniCallback<T>, UniCallback<Throwable>> function)
@@ -62,112 +94,427 @@ public class Promise<T>
         }
     }
 
-    private Promise(UniCallback<T> onFulfilled, UniCallback<Throwable> onRejected)
+    public static <T> Promise<T> resolved(T value)
+    {
+        Promise<T> promise = new Promise<>();
+        promise.resolve(value);
+        return promise;
+    }
+
+    public static <T> Promise<T> rejected(Throwable throwable)
     {
-        this.onFulfilled = onFulfilled;
-        this.onRejected = onRejected;
+        Promise<T> promise = new Promise<>();
+        promise.reject(throwable);
+        return promise;
     }
 
+    /**
+     * Creates a promise that is fulfilled once all the given promises are fulfilled, or rejected as soon as any one of
+     * them is rejected.
+     *
+     * @param promises The promises to wait for.
+     *
+     * @return A void promise that is settled with all the given promises.
+     */
     public static Promise<Void> all(Promise<?>... promises)
     {
-        return new Promise<>((resolve, reject) ->
+        List<Promise<?>> list = new ArrayList<>(promises.length);
+        Collections.addAll(list, promises);
+
+        return Promise.<Object>all(list).map(values -> null);
+    }
+
+    /**
+     * Creates a promise that is fulfilled with the values of all the given promises, in the same order, once all of
+     * them are fulfilled. It is rejected as soon as any one of them is rejected.
+     *
+     * @param promises The promises to wait for.
+     * @param <T>      The type of the values of the promises.
+     *
+     * @return A promise of the list of values.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Promise<List<T>> all(List<? extends Promise<? extends T>> promises)
+    {
+        Promise<List<T>> promise = new Promise<>();
+
+        if (promises.isEmpty())
+        {
+            promise.resolve(new ArrayList<>());
+            return promise;
+        }
+
+        Object[] values = new Object[promises.size()];
+        AtomicInteger remaining = new AtomicInteger(values.length);
+
+        for (int i = 0; i < values.length; i++)
         {
-            final int[] done = { 0 };
+            final int index = i;
+            Promise<T> p = (Promise<T>) promises.get(i);
 
-            for (Promise<?> promise : promises)
-                promise.then(v ->
+            p.addListener(new Listener<>(value ->
+            {
+                values[index] = value;
+
+                if (remaining.decrementAndGet() == 0)
                 {
-                    done[0]++;
+                    List<T> list = new ArrayList<>(values.length);
 
-                    if (done[0] == promises.length)
-                        resolve.invoke(null);
-                }, reject);
-        });
+                    for (Object v : values)
+                        list.add((T) v);
+
+                    promise.tryResolve(list);
+                }
+            }, promise::tryReject, null));
+        }
+
+        return promise;
     }
 
+    /**
+     * Creates a promise that is fulfilled with the value of the first of the given promises to be fulfilled. It is
+     * only rejected if all the given promises are rejected, and then with the error of the last one.
+     *
+     * @param promises The promises to wait for.
+     * @param <T>      The type of the values of the promises.
+     *
+     * @return A promise of the first value.
+     */
+    @SafeVarargs
+    @SuppressWarnings("unchecked")
+    public static <T> Promise<T> any(Promise<? extends T>... promises)
+    {
+        Promise<T> promise = new Promise<>();
+        AtomicInteger remaining = new AtomicInteger(promises.length);
+
+        if (promises.length == 0)
+            promise.reject(new PromiseException("No promises to wait for"));
+
+        for (Promise<? extends T> p : promises)
+            ((Promise<T>) p).addListener(new Listener<>(promise::tryResolve, error ->
+            {
+                if (remaining.decrementAndGet() == 0)
+                    promise.tryReject(error);
+            }, null));
+
+        return promise;
+    }
+
+    /**
+     * Creates a void promise that is settled in the same way as the first of the given promises to be settled.
+     *
+     * @param promises The promises to wait for.
+     *
+     * @return A void promise that is settled with the first of the given promises.
+     */
+    @SuppressWarnings("unchecked")
     public static Promise<Void> race(Promise<?>... promises)
     {
-        return new Promise<>((self, resolve, reject) ->
+        Promise<Void> promise = new Promise<>();
+
+        for (Promise<?> p : promises)
+            ((Promise<Object>) p).addListener(new Listener<>(v -> promise.tryResolve(null), promise::tryReject, null));
+
+        return promise;
+    }
+
+    public void resolve(T value)
+    {
+        if (!tryResolve(value))
+            throw new PromiseException(state == State.REJECTED ? "Cannot resolve an already rejected promise"
+                                                               : "Cannot resolve more than once");
+    }
+
+    public void reject(Throwable throwable)
+    {
+        if (!tryReject(throwable))
+            throw new PromiseException(state == State.FULFILLED ? "Cannot reject an already fulfilled promise"
+                                                                : "Cannot reject more than once");
+    }
+
+    /**
+     * Fulfills this promise with a value, unless it is already settled.
+     *
+     * @param value The value of this promise.
+     *
+     * @return True if this call settled the promise, false if it was settled already.
+     */
+    public boolean tryResolve(T value)
+    {
+        return settle(State.FULFILLED, value, null);
+    }
+
+    /**
+     * Rejects this promise with an error, unless it is already settled.
+     *
+     * @param throwable The error that this promise is rejected with.
+     *
+     * @return True if this call settled the promise, false if it was settled already.
+     */
+    public boolean tryReject(Throwable throwable)
+    {
+        return settle(State.REJECTED, null, throwable);
+    }
+
+    public Promise<T> then(UniCallback<T> onFulfilled, UniCallback<Throwable> onRejected)
+    {
+        return then(onFulfilled, onRejected, null);
+    }
+
+    /**
+     * Adds callbacks to be run when this promise is settled. The returned promise is settled in the same way as this
+     * one, after the callbacks are run. If a callback throws, the returned promise is rejected with that error.
+     *
+     * @param onFulfilled The callback to run with the value if this promise is fulfilled.
+     * @param onRejected  The callback to run with the error if this promise is rejected.
+     * @param executor    The executor to run the callbacks with, or null to run them on the thread settling this.
+     *
+     * @return A promise that is settled after the callbacks are run.
+     */
+    public Promise<T> then(UniCallback<T> onFulfilled, UniCallback<Throwable> onRejected,
+                           UniCallback<SimpleCallback> executor)
+    {
+        Promise<T> next = new Promise<>();
+
+        addListener(new Listener<>(value ->
+        {
+            try
+            {
+                onFulfilled.invoke(value);
+            }
+            catch (Throwable e)
+            {
+                next.reject(e);
+                return;
+            }
+
+            next.resolve(value);
+        }, error ->
+        {
+            try
+            {
+                onRejected.invoke(error);
+            }
+            catch (Throwable e)
+            {
+                next.reject(e);
+                return;
+            }
+
+            next.reject(error);
+        }, executor));
+
+        return next;
+    }
+
+    public Promise<T> then(UniCallback<T> onFulfilled)
+    {
+        return then(onFulfilled, t ->
         {
-            for (Promise<?> promise : promises)
-                promise.then(v ->
-                {
-                    if (self.state != State.REJECTED)
-                        resolve.invoke(null);
-                }, reject);
         });
     }
 
-    public synchronized void resolve(T value)
+    public Promise<T> whenThrown(UniCallback<Throwable> onThrown)
     {
-        if (state == State.FULFILLED)
-            throw new PromiseException("Cannot resolve more than once");
+        return then(v ->
+        {
+        }, onThrown);
+    }
 
-        if (state == State.REJECTED)
-            throw new PromiseException("Cannot resolve an already rejected promise");
+    public <R> Promise<R> map(UniFunction<T, R> mapper)
+    {
+        return map(mapper, null);
+    }
 
-        this.value = value;
-        this.state = State.FULFILLED;
+    /**
+     * Creates a promise of the value of this promise transformed by a function. If the function throws, the returned
+     * promise is rejected with that error. If this promise is rejected, so is the returned one.
+     *
+     * @param mapper   The function to transform the value with.
+     * @param executor The executor to run the function with, or null to run it on the thread settling this.
+     * @param <R>      The type of the transformed value.
+     *
+     * @return A promise of the transformed value.
+     */
+    public <R> Promise<R> map(UniFunction<T, R> mapper, UniCallback<SimpleCallback> executor)
+    {
+        Promise<R> promise = new Promise<>();
 
-        if (onFulfilled != null)
-            onFulfilled.invoke(value);
+        addListener(new Listener<>(value ->
+        {
+            R result;
+
+            try
+            {
+                result = mapper.invoke(value);
+            }
+            catch (Throwable e)
+            {
+                promise.reject(e);
+                return;
+            }
+
+            promise.resolve(result);
+        }, promise::reject, executor));
+
+        return promise;
+    }
 
-        if (next != null)
-            next.resolve(value);
+    public <R> Promise<R> flatMap(UniFunction<T, Promise<R>> mapper)
+    {
+        return flatMap(mapper, null);
     }
 
-    public synchronized void reject(Throwable throwable)
+    /**
+     * Creates a promise that is settled with the promise returned by a function of the value of this promise. This is
+     * used to chain asynchronous operations one after another.
+     *
+     * @param mapper   The function that starts the next operation with the value.
+     * @param executor The executor to run the function with, or null to run it on the thread settling this.
+     * @param <R>      The type of the value of the next operation.
+     *
+     * @return A promise of the value of the next operation.
+     */
+    public <R> Promise<R> flatMap(UniFunction<T, Promise<R>> mapper, UniCallback<SimpleCallback> executor)
     {
-        if (state == State.REJECTED)
-            throw new PromiseException("Cannot reject more than once");
+        Promise<R> promise = new Promise<>();
 
-        if (state == State.FULFILLED)
-            throw new PromiseException("Cannot resolve an already fulfilled promise");
+        addListener(new Listener<>(value ->
+        {
+            Promise<R> next;
+
+            try
+            {
+                next = mapper.invoke(value);
+            }
+            catch (Throwable e)
+            {
+                promise.reject(e);
+                return;
+            }
+
+            if (next == null)
+            {
+                promise.reject(new PromiseException("The function passed to flatMap returned null"));
+                return;
+            }
+
+            next.addListener(new Listener<>(promise::resolve, promise::reject, null));
+        }, promise::reject, executor));
+
+        return promise;
+    }
 
-        this.value = null;
-        this.state = State.REJECTED;
-        this.throwable = throwable;
+    /**
+     * Creates a promise that is settled in the same way as this one, unless this is not settled within the given time,
+     * in which case it is rejected with a {@link TimeoutException}. The time is measured in the game time, using a
+     * {@link GameTimer} on the update thread.
+     *
+     * @param time The time to wait for this promise.
+     * @param unit The unit of the time.
+     *
+     * @return A promise that is settled with this one, or rejected when the time runs out.
+     */
+    public Promise<T> timeout(double time, TimeUtils.Unit unit)
+    {
+        Promise<T> promise = new Promise<>();
+        addListener(new Listener<>(promise::tryResolve, promise::tryReject, null));
+
+        TaskManager.runOnUpdate(() ->
+        {
+            if (promise.state != State.PENDING)
+                return;
+
+            GameTimer timer = new GameTimer(time, unit);
+            timer.setCallback(() -> promise.tryReject(new TimeoutException("The promise timed out after " + time + " " + unit)));
+            timer.start();
 
-        if (onRejected != null)
-            onRejected.invoke(throwable);
+            promise.addListener(new Listener<>(v -> timer.stop(), e -> timer.stop(), TaskManager::runOnUpdate));
+        });
 
-        if (next != null)
-            next.reject(throwable);
+        return promise;
     }
 
-    public synchronized Promise<T> then(UniCallback<T> onFulfilled, UniCallback<Throwable> onRejected)
+    private boolean settle(State state, T value, Throwable throwable)
     {
-        if (next != null)
-            return next.then(onFulfilled, onRejected);
+        if (!settled.compareAndSet(false, true))
+            return false;
+
+        this.value = value;
+        this.throwable = throwable;
+        this.state = state;
+
+        Listener<T> listener = listeners.getAndSet(closed());
 
-        next = new Promise<>(onFulfilled, onRejected);
+        // The listeners are stacked, so reverse them to run in the order they were added
+        Listener<T> ordered = null;
 
-        switch (state)
+        while (listener != null)
         {
-            case REJECTED:
-                next.reject(throwable);
-                break;
+            Listener<T> next = listener.next;
+            listener.next = ordered;
+            ordered = listener;
+            listener = next;
+        }
 
-            case FULFILLED:
-                next.resolve(value);
-                break;
+        while (ordered != null)
+        {
+            Listener<T> next = ordered.next;
+            dispatch(ordered);
+            ordered = next;
         }
 
-        return next;
+        return true;
     }
 
-    public synchronized Promise<T> then(UniCallback<T> onFulfilled)
+    private void addListener(Listener<T> listener)
     {
-        return then(onFulfilled, t ->
+        while (true)
         {
-        });
+            Listener<T> top = listeners.get();
+
+            if (top == closed())
+            {
+                dispatch(listener);
+                return;
+            }
+
+            listener.next = top;
+
+            if (listeners.compareAndSet(top, listener))
+                return;
+        }
     }
 
-    public synchronized Promise<T> whenThrown(UniCallback<Throwable> onThrown)
+    // The sentinel holds no values, so it can stand in for the listeners of any type
+    @SuppressWarnings("unchecked")
+    private static <T> Listener<T> closed()
     {
-        return then(v ->
+        return (Listener<T>) (Listener<?>) CLOSED;
+    }
+
+    private void dispatch(Listener<T> listener)
+    {
+        SimpleCallback callback = () ->
         {
-        }, onThrown);
+            try
+            {
+                if (state == State.FULFILLED)
+                    listener.onFulfilled.invoke(value);
+                else
+                    listener.onRejected.invoke(throwable);
+            }
+            catch (Throwable e)
+            {
+                // The other listeners still have to run, and the thread settling this should not see the error
+                TaskManager.runOnUpdate(() -> SilenceException.reThrow(e));
+            }
+        };
+
+        if (listener.executor == null)
+            callback.invoke();
+        else
+            listener.executor.invoke(callback);
     }
 
     public enum State
@@ -175,8 +522,26 @@ public class Promise<T>
         PENDING, FULFILLED, REJECTED
     }
 
+    private static class Listener<T>
+    {
+        private final UniCallback<T>              onFulfilled;
+        private final UniCallback<Throwable>      onRejected;
+        private final UniCallback<SimpleCallback> executor;
+
+        private Listener<T> next;
+
+        Listener(UniCallback<T> onFulfilled, UniCallback<Throwable> onRejected, UniCallback<SimpleCallback> executor)
+        {
+            this.onFulfilled = onFulfilled;
+            this.onRejected = onRejected;
+            this.executor = executor;
+        }
+    }
+
     public static class PromiseException extends RuntimeException
     {
+        private static final long serialVersionUID = 3671946233207218946L;
+
         public PromiseException(String message)
         {
             super(message);
@@ -186,4 +551,17 @@ public class Promise<T>
         {
         }
     }
+
+    /**
+     * The error that a promise is rejected with when it is not settled in time.
+     */
+    public static class TimeoutException extends PromiseException
+    {
+        private static final long serialVersionUID = -5180073068599052055L;
+
+        public TimeoutException(String message)
+        {
+            super(message);
+        }
+    }
 }
@@ -0,0 +1,14 @@
+uniform sampler2D tex;
+uniform float pxRange;
+
+in vec4 vColor;
+in vec2 vTexCoords;
+
+void main()
+{
+    // The distance is 0.5 on the edge, and changes by one over the distance range, which is pxRange pixels on screen
+    float distance = texture(tex, vTexCoords).a;
+    float alpha = clamp((distance - 0.5) * pxRange + 0.5, 0.0, 1.0);
+
+    g_FragColor = vec4(vColor.rgb, vColor.a * alpha);
+}
\ No newline at end of file
@@ -48,9 +48,10 @@ public class SoundTest extends SilenceTest
                 SilenceEngine.audio.readToALBuffer(AudioDevice.AudioFormat.WAV, data, buffer ->
                         sound1 = new Sound(buffer)));
 
+        // The second sound is streamed, where the platform can stream it
         SilenceEngine.io.getFileReader().readBinaryFile(FilePath.getResourceFile("test_resources/siren.ogg"), data ->
-                SilenceEngine.audio.readToALBuffer(AudioDevice.AudioFormat.OGG, data, buffer ->
-                        sound2 = new Sound(buffer)));
+                SilenceEngine.audio.readToSound(AudioDevice.AudioFormat.OGG, data, true, sound ->
+                        sound2 = sound));
     }
 
     @Override
@@ -72,9 +73,9 @@ public class SoundTest extends SilenceTest
     public void dispose()
     {
         if (sound1 != null)
-            sound1.buffer.dispose();
+            sound1.dispose();
 
         if (sound2 != null)
-            sound2.buffer.dispose();
+            sound2.dispose();
     }
 }